@@ -0,0 +1,167 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroCompiledDatumReader;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroCompiledDatumWriter;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroDatumCache;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link AvroCompiledDatumReader} and {@link AvroCompiledDatumWriter} against generic datum readers and
+ * writers, with wide records of primitive fields and nested records of arrays, maps and unions. Readers and writers are
+ * taken from {@link AvroDatumCache}, so these numbers do not include compilation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AvroDatumBenchmark {
+
+    /**
+     * Shape of the records.
+     */
+    public enum RecordShape {
+        /**
+         * Record with 64 string and long fields.
+         */
+        WIDE,
+        /**
+         * Record with an array of child records, a map and an optional field.
+         */
+        NESTED
+    }
+
+    @Param({"WIDE", "NESTED"})
+    public RecordShape shape;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private DatumReader<Object> reader;
+    private DatumWriter<Object> writer;
+    private GenericRecord record;
+    private byte[] payload;
+    private ByteArrayOutputStream outputStream;
+    private BinaryEncoder encoder;
+    private BinaryDecoder decoder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Schema schema;
+        if (shape == RecordShape.WIDE) {
+            schema = AvroRecords.createSchema(64);
+            record = AvroRecords.createGenericRecord(schema);
+        } else {
+            schema = createNestedSchema();
+            record = createNestedRecord(schema);
+        }
+
+        AvroDatumCache avroDatumCache = new AvroDatumCache();
+        reader = avroDatumCache.getDatumReader(schema, null, false, compiled);
+        writer = avroDatumCache.getDatumWriter(schema, false, compiled);
+
+        outputStream = new ByteArrayOutputStream();
+        payload = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        outputStream.reset();
+        encoder = EncoderFactory.get().binaryEncoder(outputStream, encoder);
+        writer.write(record, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Object deserialize() throws IOException {
+        decoder = DecoderFactory.get().binaryDecoder(payload, decoder);
+        return reader.read(null, decoder);
+    }
+
+    private static Schema createNestedSchema() {
+        Schema child = SchemaBuilder.record("benchmark_child")
+                                    .namespace("com.hortonworks.registries.benchmarks")
+                                    .fields()
+                                    .requiredString("name")
+                                    .requiredLong("timestamp")
+                                    .requiredDouble("value")
+                                    .endRecord();
+        return SchemaBuilder.record("benchmark_nested")
+                            .namespace("com.hortonworks.registries.benchmarks")
+                            .fields()
+                            .requiredLong("id")
+                            .optionalString("description")
+                            .name("children").type().array().items(child).noDefault()
+                            .name("attributes").type().map().values().stringType().noDefault()
+                            .endRecord();
+    }
+
+    private static GenericRecord createNestedRecord(Schema schema) {
+        Schema childSchema = schema.getField("children").schema().getElementType();
+        List<GenericRecord> children = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            GenericRecord child = new GenericData.Record(childSchema);
+            child.put("name", "child-" + i);
+            child.put("timestamp", (long) i);
+            child.put("value", i * 1.5d);
+            children.add(child);
+        }
+        Map<String, String> attributes = new HashMap<>();
+        for (int i = 0; i < 8; i++) {
+            attributes.put("key-" + i, "value-" + i);
+        }
+
+        GenericRecord record = new GenericData.Record(schema);
+        record.put("id", 1L);
+        record.put("description", "nested record");
+        record.put("children", children);
+        record.put("attributes", attributes);
+        return record;
+    }
+}
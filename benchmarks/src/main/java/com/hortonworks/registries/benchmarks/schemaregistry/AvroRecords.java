@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.SchemaCompatibility;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.avro.AvroSchemaProvider;
+import com.hortonworks.registries.serdes.Device;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaBuilder;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+
+/**
+ * Creates records used as payloads by the serdes benchmarks.
+ */
+public final class AvroRecords {
+
+    /**
+     * Kind of the record to be created.
+     */
+    public enum RecordType {
+        /**
+         * {@link GenericRecord} with the given number of string and long fields.
+         */
+        GENERIC,
+        /**
+         * {@link Device} specific record, field count is ignored.
+         */
+        SPECIFIC
+    }
+
+    private AvroRecords() {
+    }
+
+    public static Object create(RecordType recordType, int fieldCount) {
+        return recordType == RecordType.SPECIFIC
+                ? new Device(1L, "device-1", 1, System.currentTimeMillis())
+                : createGenericRecord(createSchema(fieldCount));
+    }
+
+    /**
+     * Creates a record schema with {@code fieldCount} fields alternating between string and long types.
+     */
+    public static Schema createSchema(int fieldCount) {
+        SchemaBuilder.FieldAssembler<Schema> fields = SchemaBuilder.record("benchmark_record_" + fieldCount)
+                                                                   .namespace("com.hortonworks.registries.benchmarks")
+                                                                   .fields();
+        for (int i = 0; i < fieldCount; i++) {
+            fields = i % 2 == 0 ? fields.requiredString("field" + i) : fields.requiredLong("field" + i);
+        }
+        return fields.endRecord();
+    }
+
+    public static GenericRecord createGenericRecord(Schema schema) {
+        GenericRecord record = new GenericData.Record(schema);
+        for (Schema.Field field : schema.getFields()) {
+            record.put(field.pos(), field.schema().getType() == Schema.Type.STRING ? "value-" + field.pos() : (long) field.pos());
+        }
+        return record;
+    }
+
+    public static SchemaMetadata createSchemaMetadata(String name) {
+        return new SchemaMetadata.Builder(name)
+                .type(AvroSchemaProvider.TYPE)
+                .schemaGroup("benchmarks")
+                .compatibility(SchemaCompatibility.BACKWARD)
+                .build();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.SchemaMetadataInfo;
+import com.hortonworks.registries.schemaregistry.SchemaVersion;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfoCache;
+import com.hortonworks.registries.schemaregistry.SchemaVersionKey;
+import com.hortonworks.registries.schemaregistry.client.SchemaRegistryClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link SchemaRegistryClient} lookups which are served from its caches, like
+ * {@link SchemaVersionInfoCache}, after the first invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientCacheBenchmark {
+
+    private SchemaRegistryClient schemaRegistryClient;
+    private String schemaName;
+    private SchemaVersion schemaVersion;
+    private SchemaVersionKey schemaVersionKey;
+    private SchemaIdVersion schemaIdVersion;
+
+    @Setup(Level.Trial)
+    public void setup(SchemaRegistryServerState serverState) throws Exception {
+        schemaRegistryClient = serverState.createClient();
+
+        SchemaMetadata schemaMetadata = AvroRecords.createSchemaMetadata("client-cache");
+        schemaName = schemaMetadata.getName();
+        schemaVersion = new SchemaVersion(AvroRecords.createSchema(16).toString(), "Schema registered by benchmark");
+        SchemaIdVersion registered = schemaRegistryClient.addSchemaVersion(schemaMetadata, schemaVersion);
+
+        schemaVersionKey = new SchemaVersionKey(schemaName, registered.getVersion());
+        schemaIdVersion = new SchemaIdVersion(registered.getSchemaVersionId());
+
+        // load all the caches
+        schemaRegistryClient.getSchemaVersionInfo(schemaVersionKey);
+        schemaRegistryClient.getSchemaVersionInfo(schemaIdVersion);
+        schemaRegistryClient.getSchemaMetadataInfo(schemaName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        schemaRegistryClient.close();
+    }
+
+    @Benchmark
+    public SchemaVersionInfo schemaVersionInfoByKey() throws Exception {
+        return schemaRegistryClient.getSchemaVersionInfo(schemaVersionKey);
+    }
+
+    @Benchmark
+    public SchemaVersionInfo schemaVersionInfoById() throws Exception {
+        return schemaRegistryClient.getSchemaVersionInfo(schemaIdVersion);
+    }
+
+    @Benchmark
+    public SchemaMetadataInfo schemaMetadataInfo() {
+        return schemaRegistryClient.getSchemaMetadataInfo(schemaName);
+    }
+
+    @Benchmark
+    public SchemaIdVersion addExistingSchemaVersion() throws Exception {
+        return schemaRegistryClient.addSchemaVersion(schemaName, schemaVersion);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.serdes.avro.kafka.KafkaAvroDeserializer;
+import com.hortonworks.registries.schemaregistry.serdes.avro.kafka.KafkaAvroSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link KafkaAvroSerializer} and {@link KafkaAvroDeserializer} as configured by kafka producers and
+ * consumers with the default serdes protocol.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KafkaAvroSerDesBenchmark {
+    private static final String TOPIC = "benchmark-topic";
+
+    @Param({"GENERIC", "SPECIFIC"})
+    public AvroRecords.RecordType recordType;
+
+    @Param({"4", "64"})
+    public int fieldCount;
+
+    private KafkaAvroSerializer serializer;
+    private KafkaAvroDeserializer deserializer;
+    private String topic;
+    private Object record;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup(SchemaRegistryServerState serverState) {
+        Map<String, Object> config = serverState.clientConfig();
+
+        serializer = new KafkaAvroSerializer();
+        serializer.configure(config, false);
+        deserializer = new KafkaAvroDeserializer();
+        deserializer.configure(config, false);
+
+        topic = TOPIC + "-" + recordType + "-" + fieldCount;
+        record = AvroRecords.create(recordType, fieldCount);
+        payload = serializer.serialize(topic, record);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(topic, record);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return deserializer.deserialize(topic, payload);
+    }
+}
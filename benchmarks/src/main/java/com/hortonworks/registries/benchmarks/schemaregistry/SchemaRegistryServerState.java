@@ -0,0 +1,83 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.client.SchemaRegistryClient;
+import com.hortonworks.registries.schemaregistry.webservice.LocalSchemaRegistryServer;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Starts a {@link LocalSchemaRegistryServer} with inmemory storage for a benchmark trial, so that benchmarks run
+ * without any external services.
+ */
+@State(Scope.Benchmark)
+public class SchemaRegistryServerState {
+    private static final String SERVER_CONFIG = "/benchmark-schema-registry.yaml";
+    private static final String V1_API_PATH = "api/v1";
+
+    private LocalSchemaRegistryServer localSchemaRegistryServer;
+    private File configFile;
+
+    @Setup(Level.Trial)
+    public void startServer() throws Exception {
+        configFile = File.createTempFile("benchmark-schema-registry", ".yaml");
+        try (InputStream inputStream = SchemaRegistryServerState.class.getResourceAsStream(SERVER_CONFIG)) {
+            Files.copy(inputStream, configFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        localSchemaRegistryServer = new LocalSchemaRegistryServer(configFile.getAbsolutePath());
+        try {
+            localSchemaRegistryServer.start();
+        } catch (Exception e) {
+            localSchemaRegistryServer.stop();
+            throw e;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopServer() throws Exception {
+        try {
+            localSchemaRegistryServer.stop();
+        } finally {
+            configFile.delete();
+        }
+    }
+
+    /**
+     * @return client configuration pointing to the local server, a new map is returned for each invocation.
+     */
+    public Map<String, Object> clientConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(SchemaRegistryClient.Configuration.SCHEMA_REGISTRY_URL.name(),
+                   localSchemaRegistryServer.getLocalURL() + V1_API_PATH);
+        return config;
+    }
+
+    public SchemaRegistryClient createClient() {
+        return new SchemaRegistryClient(clientConfig());
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.SchemaVersion;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per record cost of resolving the registered schema version of a record while serializing it. Compares the lookup
+ * keyed by the record's schema instance with the lookup by schema text, which stringifies the schema and computes its
+ * digest for each record.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchemaVersionLookupBenchmark {
+
+    @Param({"GENERIC", "SPECIFIC"})
+    public AvroRecords.RecordType recordType;
+
+    @Param({"4", "64"})
+    public int fieldCount;
+
+    private LookupSerializer serializer;
+    private SchemaMetadata schemaMetadata;
+    private Object record;
+
+    @Setup(Level.Trial)
+    public void setup(SchemaRegistryServerState serverState) {
+        serializer = new LookupSerializer();
+        serializer.init(serverState.clientConfig());
+
+        schemaMetadata = AvroRecords.createSchemaMetadata("lookup-" + recordType + "-" + fieldCount);
+        record = AvroRecords.create(recordType, fieldCount);
+        serializer.serialize(record, schemaMetadata);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        serializer.close();
+    }
+
+    @Benchmark
+    public SchemaIdVersion bySchemaInstance() {
+        return serializer.lookupBySchemaInstance(record, schemaMetadata);
+    }
+
+    @Benchmark
+    public SchemaIdVersion bySchemaText() throws Exception {
+        return serializer.lookupBySchemaText(record, schemaMetadata);
+    }
+
+    private static class LookupSerializer extends AvroSnapshotSerializer {
+
+        SchemaIdVersion lookupBySchemaInstance(Object input, SchemaMetadata schemaMetadata) {
+            return getSchemaIdVersion(input, schemaMetadata);
+        }
+
+        SchemaIdVersion lookupBySchemaText(Object input, SchemaMetadata schemaMetadata) throws Exception {
+            return schemaRegistryClient.addSchemaVersion(schemaMetadata,
+                                                         new SchemaVersion(getSchemaText(input), "Schema registered by benchmark"));
+        }
+    }
+}
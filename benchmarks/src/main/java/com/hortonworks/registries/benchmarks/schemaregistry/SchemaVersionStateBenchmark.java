@@ -0,0 +1,175 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.DefaultSchemaRegistry;
+import com.hortonworks.registries.schemaregistry.SchemaCompatibility;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.SchemaVersion;
+import com.hortonworks.registries.schemaregistry.avro.AvroSchemaProvider;
+import com.hortonworks.registries.common.QueryParam;
+import com.hortonworks.registries.storage.OrderByField;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.StorageManager;
+import com.hortonworks.registries.storage.exception.StorageException;
+import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput of concurrent schema version state changes. Each thread toggles its own schema version between enabled
+ * and disabled states, the versions belong either to one schema or to a separate schema for each thread. State changes
+ * are serialized per schema, so they should scale with threads only when the versions belong to different schemas.
+ * <p>
+ * Versions are stored with {@link InMemoryStorageManager}, each of its reads and writes can be delayed by
+ * {@code storageLatencyMicros} to resemble a round trip to a database, which is what the per schema lock is held
+ * for in a deployment with {@code JdbcStorageManager}. Without a delay, the lock is held only for map operations.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class SchemaVersionStateBenchmark {
+    private static final int MAX_THREADS = 64;
+
+    @State(Scope.Benchmark)
+    public static class RegistryState {
+
+        @Param({"true", "false"})
+        public boolean sharedSchema;
+
+        @Param({"0", "200"})
+        public long storageLatencyMicros;
+
+        private DefaultSchemaRegistry schemaRegistry;
+        private Long[] schemaVersionIds;
+        private final AtomicInteger nextThreadIndex = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setup() throws Exception {
+            StorageManager storageManager = new DelayedStorageManager(TimeUnit.MICROSECONDS.toNanos(storageLatencyMicros));
+            Collection<Map<String, Object>> schemaProvidersConfig =
+                    Collections.singleton(Collections.singletonMap("providerClass", AvroSchemaProvider.class.getName()));
+            schemaRegistry = new DefaultSchemaRegistry(storageManager, null, schemaProvidersConfig);
+            schemaRegistry.init(Collections.<String, Object>emptyMap());
+
+            // each thread gets a version of its own, so that transitions of a thread are always valid. Versions are
+            // added in enabled state and compatibility is not checked as the schemas of a shared schema differ.
+            schemaVersionIds = new Long[MAX_THREADS];
+            for (int i = 0; i < MAX_THREADS; i++) {
+                SchemaMetadata schemaMetadata = new SchemaMetadata.Builder(sharedSchema ? "state-shared" : "state-" + i)
+                        .type(AvroSchemaProvider.TYPE)
+                        .schemaGroup("benchmarks")
+                        .compatibility(SchemaCompatibility.NONE)
+                        .build();
+                String schemaText = AvroRecords.createSchema(i + 1).toString();
+                schemaVersionIds[i] = schemaRegistry.addSchemaVersion(schemaMetadata,
+                                                                      new SchemaVersion(schemaText, "version " + i))
+                                                    .getSchemaVersionId();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class VersionState {
+        private Long schemaVersionId;
+        private boolean enabled = true;
+
+        @Setup(Level.Trial)
+        public void setup(RegistryState registryState) {
+            int index = registryState.nextThreadIndex.getAndIncrement();
+            if (index >= MAX_THREADS) {
+                throw new IllegalStateException("Benchmark supports at most " + MAX_THREADS + " threads");
+            }
+            schemaVersionId = registryState.schemaVersionIds[index];
+        }
+    }
+
+    /**
+     * {@link InMemoryStorageManager} which delays each read and write by the given latency.
+     */
+    private static final class DelayedStorageManager extends InMemoryStorageManager {
+        private final long latencyNanos;
+
+        private DelayedStorageManager(long latencyNanos) {
+            this.latencyNanos = latencyNanos;
+        }
+
+        private void delay() {
+            if (latencyNanos > 0) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+        }
+
+        @Override
+        public <T extends Storable> T get(StorableKey key) throws StorageException {
+            delay();
+            return super.get(key);
+        }
+
+        @Override
+        public <T extends Storable> Collection<T> find(String namespace,
+                                                       List<QueryParam> queryParams,
+                                                       List<OrderByField> orderByFields) throws StorageException {
+            delay();
+            return super.find(namespace, queryParams, orderByFields);
+        }
+
+        @Override
+        public void addOrUpdate(Storable storable) {
+            delay();
+            super.addOrUpdate(storable);
+        }
+
+        @Override
+        public <T extends Storable> T remove(StorableKey key) throws StorageException {
+            delay();
+            return super.remove(key);
+        }
+    }
+
+    @Benchmark
+    public void toggleState(RegistryState registryState, VersionState versionState) throws Exception {
+        if (versionState.enabled) {
+            registryState.schemaRegistry.disableSchemaVersion(versionState.schemaVersionId);
+        } else {
+            registryState.schemaRegistry.enableSchemaVersion(versionState.schemaVersionId);
+        }
+        versionState.enabled = !versionState.enabled;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotDeserializer;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSnapshotDeserializer.SPECIFIC_AVRO_READER;
+import static com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSnapshotSerializer.SERDES_PROTOCOL_VERSION;
+
+/**
+ * Throughput of {@link AvroSnapshotSerializer} and {@link AvroSnapshotDeserializer} for each registered serdes
+ * protocol, with generic and specific records of varying size. Schema registration and lookups hit the client caches
+ * after the first invocation, so these numbers reflect the per record cost.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerDesProtocolBenchmark {
+
+    @Param({"0", "1", "2", "3"})
+    public byte protocol;
+
+    @Param({"GENERIC", "SPECIFIC"})
+    public AvroRecords.RecordType recordType;
+
+    @Param({"4", "64"})
+    public int fieldCount;
+
+    private AvroSnapshotSerializer serializer;
+    private AvroSnapshotDeserializer deserializer;
+    private SchemaMetadata schemaMetadata;
+    private Object record;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void setup(SchemaRegistryServerState serverState) throws Exception {
+        Map<String, Object> config = serverState.clientConfig();
+        config.put(SERDES_PROTOCOL_VERSION, protocol);
+        config.put(SPECIFIC_AVRO_READER, recordType == AvroRecords.RecordType.SPECIFIC);
+
+        serializer = new AvroSnapshotSerializer();
+        serializer.init(config);
+        deserializer = new AvroSnapshotDeserializer();
+        deserializer.init(config);
+
+        schemaMetadata = AvroRecords.createSchemaMetadata("serdes-" + recordType + "-" + fieldCount);
+        record = AvroRecords.create(recordType, fieldCount);
+        payload = serializer.serialize(record, schemaMetadata);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        serializer.close();
+        deserializer.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(record, schemaMetadata);
+    }
+
+    @Benchmark
+    public Object deserializeStream() {
+        return deserializer.deserialize(new ByteArrayInputStream(payload), null);
+    }
+
+    @Benchmark
+    public Object deserializeBuffer() {
+        return deserializer.deserialize(ByteBuffer.wrap(payload), null);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.benchmarks.storage;
+
+import com.hortonworks.registries.common.QueryParam;
+import com.hortonworks.registries.storage.DeviceInfo;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.StorageManager;
+import com.hortonworks.registries.storage.impl.jdbc.JdbcStorageManager;
+import com.hortonworks.registries.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.registries.storage.impl.jdbc.config.HikariBasicConfig;
+import com.hortonworks.registries.storage.impl.jdbc.connection.ConnectionBuilder;
+import com.hortonworks.registries.storage.impl.jdbc.connection.HikariCPConnectionBuilder;
+import com.hortonworks.registries.storage.impl.jdbc.provider.mysql.factory.MySqlExecutor;
+import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
+import org.h2.tools.RunScript;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput of {@link StorageManager} operations with {@link InMemoryStorageManager} and with
+ * {@link JdbcStorageManager} against an embedded H2 database in MySQL mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StorageManagerBenchmark {
+    private static final int ROWS = 1000;
+
+    public enum StorageType {INMEMORY, H2}
+
+    @Param({"INMEMORY", "H2"})
+    public StorageType storageType;
+
+    private StorageManager storageManager;
+    private ConnectionBuilder connectionBuilder;
+    private StorableKey existingKey;
+    private List<QueryParam> queryParams;
+    private final AtomicLong nextId = new AtomicLong(ROWS);
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        if (storageType == StorageType.H2) {
+            connectionBuilder = new HikariCPConnectionBuilder(HikariBasicConfig.getH2HikariConfig());
+            runScript("mysql/create_tables.sql");
+            storageManager = new JdbcStorageManager(new MySqlExecutor(new ExecutionConfig(-1), connectionBuilder));
+        } else {
+            storageManager = new InMemoryStorageManager();
+            storageManager.init(Collections.emptyMap());
+        }
+        storageManager.registerStorables(Collections.<Class<? extends Storable>>singletonList(DeviceInfo.class));
+
+        for (long id = 0; id < ROWS; id++) {
+            storageManager.add(createDeviceInfo(id));
+        }
+        DeviceInfo existing = createDeviceInfo(ROWS / 2);
+        existingKey = existing.getStorableKey();
+        queryParams = QueryParam.params(DeviceInfo.NAME, existing.getName());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        storageManager.cleanup();
+        if (connectionBuilder != null) {
+            runScript("mysql/drop_tables.sql");
+        }
+    }
+
+    @Benchmark
+    public Storable get() {
+        return storageManager.get(existingKey);
+    }
+
+    @Benchmark
+    public Collection<DeviceInfo> find() {
+        return storageManager.find(DeviceInfo.NAME_SPACE, queryParams);
+    }
+
+    @Benchmark
+    public Collection<DeviceInfo> list() {
+        return storageManager.list(DeviceInfo.NAME_SPACE);
+    }
+
+    @Benchmark
+    public void add() {
+        storageManager.add(createDeviceInfo(nextId.getAndIncrement()));
+    }
+
+    @Benchmark
+    public void addOrUpdate() {
+        storageManager.addOrUpdate(createDeviceInfo(ROWS / 2));
+    }
+
+    private static DeviceInfo createDeviceInfo(long id) {
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setId(id);
+        deviceInfo.setXid("xid-" + id);
+        deviceInfo.setName("device-" + id);
+        deviceInfo.setVersion("1.0");
+        deviceInfo.setTimestamp(System.currentTimeMillis());
+        return deviceInfo;
+    }
+
+    private void runScript(String fileName) throws Exception {
+        try (Connection connection = connectionBuilder.getConnection();
+             Reader reader = new InputStreamReader(StorageManagerBenchmark.class.getClassLoader().getResourceAsStream(fileName))) {
+            RunScript.execute(connection, reader);
+        }
+    }
+}
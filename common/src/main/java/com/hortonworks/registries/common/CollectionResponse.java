@@ -23,7 +23,7 @@ import java.util.Collection;
  * A wrapper entity for passing collection (more than one resource) back to the client.
  * This response is used only for succeed requests.
  * <p>
- * This can be expanded to handle paged result.
+ * For a paged result, {@code nextPageToken} is set when there are more entities and it can be passed to get the next page.
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public class CollectionResponse {
@@ -32,6 +32,11 @@ public class CollectionResponse {
      */
     private Collection<?> entities;
 
+    /**
+     * Token of the next page of a paged result, null if there are no more entities.
+     */
+    private String nextPageToken;
+
     private CollectionResponse() {}
 
     public void setEntities(Collection<?> entities) {
@@ -42,12 +47,21 @@ public class CollectionResponse {
         return entities;
     }
 
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
     public static Builder newResponse() {
         return new Builder();
     }
 
     public static class Builder {
         private Collection<?> entities;
+        private String nextPageToken;
 
         private Builder() {
         }
@@ -57,9 +71,15 @@ public class CollectionResponse {
             return this;
         }
 
+        public CollectionResponse.Builder nextPageToken(String nextPageToken) {
+            this.nextPageToken = nextPageToken;
+            return this;
+        }
+
         public CollectionResponse build() {
             CollectionResponse response = new CollectionResponse();
             response.setEntities(entities);
+            response.setNextPageToken(nextPageToken);
             return response;
         }
     }
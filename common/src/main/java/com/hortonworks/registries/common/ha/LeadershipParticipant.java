@@ -23,6 +23,12 @@ import java.util.Map;
  */
 public interface LeadershipParticipant {
 
+    /**
+     * Response header with which a registry instance advertises the url of the current leader, so that clients can send
+     * requests which are handled only by the leader directly to it.
+     */
+    String LEADER_URL_HEADER = "X-Registry-Leader-Url";
+
     /**
      * Initializes with the given {@code config} and {@code participantId}.
      *
@@ -15,6 +15,9 @@
  **/
 package com.hortonworks.registries.common.util;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.BaseEncoding;
 import com.google.common.io.ByteStreams;
 import com.hortonworks.registries.common.CollectionResponse;
 import com.hortonworks.registries.common.QueryParam;
@@ -31,7 +34,12 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Utility methods for the webservice.
@@ -40,6 +48,19 @@ public final class WSUtils {
     private WSUtils() {
     }
 
+    private static final ObjectMapper PAGE_TOKEN_MAPPER = new ObjectMapper();
+
+    /**
+     * Produces the entities of a page, starting after the entity with the given key and returning at most the given
+     * number of entities.
+     */
+    public interface PageProducer<T> {
+        /**
+         * @param startAfter key of the last entity of the previous page, null for the first page
+         */
+        void produce(Map<String, Object> startAfter, int limit, Consumer<T> consumer) throws Exception;
+    }
+
     public static Response respondEntities(Collection<?> entities, Response.Status status) {
         return Response.status(status)
                 .entity(CollectionResponse.newResponse().entities(entities).build())
@@ -62,6 +83,85 @@ public final class WSUtils {
                 .build();
     }
 
+    /**
+     * Responds a page of entities with the given size as {@link CollectionResponse}, with {@code nextPageToken} set
+     * when there are more entities.
+     *
+     * @param pageProducer producer of the entities of the page
+     * @param pageKey      key of an entity, the next page starts after the key of the last entity of this page
+     * @param startAfter   key after which the page starts, see {@link #decodePageToken(String)}
+     * @param pageSize     maximum number of entities in the page
+     */
+    public static <T> Response respondPage(final PageProducer<T> pageProducer,
+                                           final Function<? super T, Map<String, Object>> pageKey,
+                                           final Map<String, Object> startAfter,
+                                           final int pageSize) throws Exception {
+        return respondPage(pageProducer, pageKey, Function.identity(), startAfter, pageSize);
+    }
+
+    /**
+     * Responds a page of entities with the given size as {@link CollectionResponse}, after converting them with the
+     * given mapper. All the entities of the page are produced before any of them is converted, so that the producer is
+     * done with the storage before the mapper runs its own queries.
+     *
+     * @param pageProducer producer of the entities of the page
+     * @param pageKey      key of an entity, the next page starts after the key of the last entity of this page
+     * @param mapper       converts the produced entities to the entities of the response
+     * @param startAfter   key after which the page starts, see {@link #decodePageToken(String)}
+     * @param pageSize     maximum number of entities in the page
+     */
+    public static <T, R> Response respondPage(final PageProducer<T> pageProducer,
+                                              final Function<? super T, Map<String, Object>> pageKey,
+                                              final Function<? super T, ? extends R> mapper,
+                                              final Map<String, Object> startAfter,
+                                              final int pageSize) throws Exception {
+        // one more entity than the page size is requested to find whether there is a next page
+        List<T> entities = new ArrayList<>();
+        pageProducer.produce(startAfter, pageSize + 1, entities::add);
+
+        List<T> page = entities.subList(0, Math.min(pageSize, entities.size()));
+        CollectionResponse.Builder builder =
+                CollectionResponse.newResponse()
+                                  .entities(page.stream().map(mapper).collect(Collectors.toList()));
+        if (entities.size() > pageSize) {
+            builder.nextPageToken(encodePageToken(pageKey.apply(page.get(page.size() - 1))));
+        }
+
+        return Response.status(Response.Status.OK).entity(builder.build()).build();
+    }
+
+    /**
+     * @return opaque token of the page starting after the entity with the given key.
+     */
+    public static String encodePageToken(Map<String, Object> pageKey) {
+        try {
+            return BaseEncoding.base64Url().omitPadding().encode(PAGE_TOKEN_MAPPER.writeValueAsBytes(pageKey));
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Page key can not be encoded: " + pageKey, e);
+        }
+    }
+
+    /**
+     * @return key of the entity after which the page of the given token starts, or null when the token is null.
+     * @throws IllegalArgumentException when the given token is not a valid page token.
+     */
+    public static Map<String, Object> decodePageToken(String pageToken) {
+        if (pageToken == null || pageToken.isEmpty()) {
+            return null;
+        }
+        Map<String, Object> pageKey;
+        try {
+            pageKey = PAGE_TOKEN_MAPPER.readValue(BaseEncoding.base64Url().omitPadding().decode(pageToken),
+                                                  new TypeReference<LinkedHashMap<String, Object>>() { });
+        } catch (IllegalArgumentException | IOException e) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken, e);
+        }
+        if (pageKey == null || pageKey.isEmpty()) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken);
+        }
+        return pageKey;
+    }
+
     public static StreamingOutput wrapWithStreamingOutput(final InputStream inputStream) {
         return new StreamingOutput() {
             public void write(OutputStream os) throws IOException, WebApplicationException {
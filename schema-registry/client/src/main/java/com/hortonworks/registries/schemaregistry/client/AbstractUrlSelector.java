@@ -34,4 +34,16 @@ public abstract class AbstractUrlSelector implements UrlSelector {
     public void init(Map<String, Object> conf) {
         this.conf = Collections.unmodifiableMap(conf);
     }
+
+    /**
+     * @return true if the given url is one of the urls from which this selector selects.
+     */
+    protected boolean isSelectable(String url) {
+        for (String selectableUrl : urls) {
+            if (selectableUrl.equals(url)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -38,10 +38,14 @@ public class FailoverUrlSelector extends AbstractUrlSelector {
 
     @Override
     public void urlWithError(String url, Exception e) {
-        if (failedError(e)) {
+        // urls which are not selected by this selector, like the leader's url, are ignored.
+        if (failedError(e) && isSelectable(url)) {
             synchronized (failedUrls) {
-                failedUrls.add(new UrlTimeEntry(url, System.currentTimeMillis()));
-                if (failedUrls.size() == urls.length) {
+                UrlTimeEntry urlTimeEntry = new UrlTimeEntry(url, System.currentTimeMillis());
+                // a url failing again is moved to the end instead of being added twice.
+                failedUrls.remove(urlTimeEntry);
+                failedUrls.add(urlTimeEntry);
+                if (failedUrls.size() >= urls.length) {
                     current = failedUrls.remove().url;
                 } else if (current.equals(url)) {
                     for (String s : urls) {
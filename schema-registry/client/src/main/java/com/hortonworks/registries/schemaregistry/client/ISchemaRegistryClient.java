@@ -18,6 +18,7 @@ package com.hortonworks.registries.schemaregistry.client;
 
 import com.hortonworks.registries.schemaregistry.ISchemaRegistryService;
 import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
 import com.hortonworks.registries.schemaregistry.SerDesInfo;
 import com.hortonworks.registries.schemaregistry.errors.IncompatibleSchemaException;
 import com.hortonworks.registries.schemaregistry.errors.InvalidSchemaException;
@@ -25,6 +26,7 @@ import com.hortonworks.registries.schemaregistry.errors.SchemaNotFoundException;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
 
 import java.io.InputStream;
+import java.util.Collection;
 
 /**
  * This interface defines different methods to interact with remote schema registry.
@@ -141,6 +143,17 @@ public interface ISchemaRegistryClient extends ISchemaRegistryService, AutoClose
      */
     boolean isCompatibleWithAllVersions(String schemaName, String toSchemaText) throws SchemaNotFoundException;
 
+    /**
+     * Returns {@link SchemaVersionInfo}s for the given {@code schemaIdVersions}. Versions which are not available in the
+     * local cache are retrieved from the target schema registry with a request for each 1000 of them where possible, and
+     * the retrieved versions are kept in the local cache. Schema versions which do not exist are not part of the result.
+     *
+     * @param schemaIdVersions keys identifying schema versions
+     *
+     * @return {@link SchemaVersionInfo}s of the existing schema versions for the given {@code schemaIdVersions}
+     */
+    Collection<SchemaVersionInfo> getSchemaVersionInfos(Collection<SchemaIdVersion> schemaIdVersions);
+
     /**
      * Returns a new instance of default serializer configured for the given type of schema.
      *
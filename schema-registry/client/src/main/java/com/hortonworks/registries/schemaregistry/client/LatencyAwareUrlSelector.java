@@ -0,0 +1,281 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class selects a url with power of two choices: two random healthy urls are picked and the one with lower
+ * expected latency, which is the moving average of its latencies weighted by its in flight requests, is selected.
+ * So, a slow url receives less requests without all requests being sent to the fastest url.
+ * <p>
+ * A url is considered unhealthy when a request to it fails without a response. Unhealthy urls are probed in the
+ * background and each of them is considered healthy again as soon as its probe succeeds, instead of considering all
+ * of them healthy at once. When none of the urls are healthy, selection is done among all of them.
+ * <p>
+ * Probes are sent with the {@link Probe} set by {@link #setProbe(Probe)}, {@code SchemaRegistryClient} sets one which
+ * sends them with its own client, so that they use the same SSL configuration and login as the other requests. Probes
+ * are sent with {@link HttpURLConnection} till a probe is set.
+ */
+public class LatencyAwareUrlSelector extends AbstractUrlSelector {
+    private static final Logger LOG = LoggerFactory.getLogger(LatencyAwareUrlSelector.class);
+
+    /**
+     * Property to configure the interval at which urls are probed.
+     */
+    public static final String HEALTH_CHECK_INTERVAL_MS = "health.check.interval.ms";
+
+    /**
+     * Property to configure connect and read timeout of a probe.
+     */
+    public static final String HEALTH_CHECK_TIMEOUT_MS = "health.check.timeout.ms";
+
+    /**
+     * Property to configure the path, relative to a url, which is requested by a probe.
+     */
+    public static final String HEALTH_CHECK_PATH = "health.check.path";
+
+    /**
+     * Property to configure the weight of a new latency in the moving average of latencies, between 0 and 1.
+     */
+    public static final String LATENCY_DECAY_FACTOR = "latency.decay.factor";
+
+    public static final long DEFAULT_HEALTH_CHECK_INTERVAL_MS = 5 * 1000L;
+    public static final long DEFAULT_HEALTH_CHECK_TIMEOUT_MS = 2 * 1000L;
+    public static final String DEFAULT_HEALTH_CHECK_PATH = "schemaregistry/schemaproviders";
+    public static final double DEFAULT_LATENCY_DECAY_FACTOR = 0.3;
+
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private final Node[] allNodes;
+    private double latencyDecayFactor;
+    private int healthCheckTimeoutMs;
+    private String healthCheckPath;
+    private volatile Probe probe = LatencyAwareUrlSelector::probeWithUrlConnection;
+    private ScheduledExecutorService healthChecker;
+
+    public LatencyAwareUrlSelector(String clusterUrl) {
+        super(clusterUrl);
+        for (String url : urls) {
+            nodes.put(url, new Node(url));
+        }
+        allNodes = nodes.values().toArray(new Node[nodes.size()]);
+    }
+
+    @Override
+    public void init(Map<String, Object> conf) {
+        super.init(conf);
+        latencyDecayFactor = getNumber(conf, LATENCY_DECAY_FACTOR, DEFAULT_LATENCY_DECAY_FACTOR).doubleValue();
+        if (latencyDecayFactor <= 0 || latencyDecayFactor > 1) {
+            throw new IllegalArgumentException(LATENCY_DECAY_FACTOR + " should be in (0, 1] but it is " + latencyDecayFactor);
+        }
+        healthCheckTimeoutMs = getNumber(conf, HEALTH_CHECK_TIMEOUT_MS, DEFAULT_HEALTH_CHECK_TIMEOUT_MS).intValue();
+        healthCheckPath = (String) conf.getOrDefault(HEALTH_CHECK_PATH, DEFAULT_HEALTH_CHECK_PATH);
+
+        long healthCheckIntervalMs = getNumber(conf, HEALTH_CHECK_INTERVAL_MS, DEFAULT_HEALTH_CHECK_INTERVAL_MS).longValue();
+        if (healthCheckIntervalMs > 0) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "schema-registry-url-health-checker");
+                thread.setDaemon(true);
+                return thread;
+            });
+            healthChecker.scheduleWithFixedDelay(this::checkHealth, healthCheckIntervalMs, healthCheckIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Number getNumber(Map<String, Object> conf, String key, Number defaultValue) {
+        Object value = conf.get(key);
+        return value != null ? (Number) value : defaultValue;
+    }
+
+    @Override
+    public String select() {
+        List<Node> healthyNodes = new ArrayList<>(allNodes.length);
+        for (Node node : allNodes) {
+            if (node.healthy) {
+                healthyNodes.add(node);
+            }
+        }
+
+        Node[] candidates = healthyNodes.isEmpty() ? allNodes : healthyNodes.toArray(new Node[healthyNodes.size()]);
+        if (candidates.length == 1) {
+            return candidates[0].url;
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.length);
+        int second = random.nextInt(candidates.length - 1);
+        if (second >= first) {
+            second++;
+        }
+
+        return candidates[first].expectedLatency() <= candidates[second].expectedLatency()
+                ? candidates[first].url : candidates[second].url;
+    }
+
+    @Override
+    public void requestStarted(String url) {
+        Node node = nodes.get(url);
+        if (node != null) {
+            node.inFlightRequests.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void requestCompleted(String url, long latencyNanos) {
+        Node node = nodes.get(url);
+        if (node != null) {
+            node.requestFinished();
+            node.recordLatency(latencyNanos, latencyDecayFactor);
+        }
+    }
+
+    @Override
+    public void urlWithError(String url, Exception ex) {
+        Node node = nodes.get(url);
+        if (node != null) {
+            node.requestFinished();
+            if (node.healthy) {
+                LOG.warn("Marking url [{}] as unhealthy", url, ex);
+                node.healthy = false;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+
+    /**
+     * Sets the probe with which urls are health checked.
+     */
+    public void setProbe(Probe probe) {
+        this.probe = probe;
+    }
+
+    /**
+     * @return moving average of latencies of the given url in nano seconds, 0 if there are no latencies recorded.
+     */
+    public double getLatencyNanos(String url) {
+        return nodes.get(url).latencyNanos;
+    }
+
+    public boolean isHealthy(String url) {
+        return nodes.get(url).healthy;
+    }
+
+    private void checkHealth() {
+        for (Node node : allNodes) {
+            try {
+                long latencyNanos = probe(node.url);
+                if (!node.healthy) {
+                    LOG.info("Marking url [{}] as healthy", node.url);
+                    node.healthy = true;
+                }
+                // keeps latency of a url fresh even when it is not selected for a while.
+                node.recordLatency(latencyNanos, latencyDecayFactor);
+            } catch (Exception e) {
+                if (node.healthy) {
+                    LOG.warn("Marking url [{}] as unhealthy as its health check failed", node.url, e);
+                    node.healthy = false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Requests {@link #HEALTH_CHECK_PATH} of the given url. Any response other than a server error is considered
+     * healthy, as authentication may be required for the path.
+     *
+     * @return time taken to receive the response in nano seconds.
+     * @throws Exception when the url can not be reached or it responds with a server error.
+     */
+    private long probe(String url) throws Exception {
+        String probeUrl = url.endsWith("/") ? url + healthCheckPath : url + "/" + healthCheckPath;
+        long startTime = System.nanoTime();
+        int responseCode = probe.getResponseCode(probeUrl, healthCheckTimeoutMs);
+        if (responseCode >= HttpURLConnection.HTTP_INTERNAL_ERROR) {
+            throw new IOException("Health check of " + probeUrl + " failed with response code " + responseCode);
+        }
+        return System.nanoTime() - startTime;
+    }
+
+    private static int probeWithUrlConnection(String probeUrl, int timeoutMs) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(probeUrl).openConnection();
+        try {
+            connection.setConnectTimeout(timeoutMs);
+            connection.setReadTimeout(timeoutMs);
+            return connection.getResponseCode();
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    /**
+     * Sends a GET request for health checking a url.
+     */
+    public interface Probe {
+        /**
+         * @param probeUrl  url to be requested
+         * @param timeoutMs connect and read timeout of the request
+         * @return response code of the request
+         * @throws Exception when the request does not receive a response
+         */
+        int getResponseCode(String probeUrl, int timeoutMs) throws Exception;
+    }
+
+    private static final class Node {
+        private final String url;
+        private final AtomicInteger inFlightRequests = new AtomicInteger();
+        private volatile double latencyNanos;
+        private volatile boolean healthy = true;
+
+        private Node(String url) {
+            this.url = url;
+        }
+
+        private double expectedLatency() {
+            return latencyNanos * (inFlightRequests.get() + 1);
+        }
+
+        private void requestFinished() {
+            // it should not go below zero even when a failure is reported without the request being started.
+            inFlightRequests.updateAndGet(count -> count > 0 ? count - 1 : 0);
+        }
+
+        private synchronized void recordLatency(long latencyNanos, double decayFactor) {
+            this.latencyNanos = this.latencyNanos == 0
+                                ? latencyNanos
+                                : decayFactor * latencyNanos + (1 - decayFactor) * this.latencyNanos;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.hortonworks.registries.common.ha.LeadershipParticipant;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps track of the leader advertised by registry instances in {@link LeadershipParticipant#LEADER_URL_HEADER}
+ * header of their responses. Leader's url is built with the scheme and authority of the advertised leader and the path
+ * of the url to which the request was sent, as the advertised url is only the server's root url.
+ */
+final class LeaderUrlFilter implements ClientResponseFilter {
+    private static final Logger LOG = LoggerFactory.getLogger(LeaderUrlFilter.class);
+
+    private final AtomicReference<String> leaderUrl = new AtomicReference<>();
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        String advertisedLeader = responseContext.getHeaderString(LeadershipParticipant.LEADER_URL_HEADER);
+        String url = (String) requestContext.getConfiguration().getProperty(UrlSelectorFilter.URL_PROPERTY);
+        if (advertisedLeader == null || url == null) {
+            return;
+        }
+
+        try {
+            URI leaderUri = new URI(advertisedLeader);
+            URI uri = new URI(url);
+            String currentLeaderUrl = new URI(leaderUri.getScheme(), leaderUri.getAuthority(),
+                                              uri.getPath(), uri.getQuery(), uri.getFragment()).toString();
+            String previousLeaderUrl = leaderUrl.getAndSet(currentLeaderUrl);
+            if (!currentLeaderUrl.equals(previousLeaderUrl)) {
+                LOG.info("Current leader is [{}]", currentLeaderUrl);
+            }
+        } catch (URISyntaxException e) {
+            LOG.warn("Ignoring invalid leader url [{}]", advertisedLeader, e);
+        }
+    }
+
+    /**
+     * @return url of the current leader, null if it is not yet known.
+     */
+    String getLeaderUrl() {
+        return leaderUrl.get();
+    }
+
+    /**
+     * Forgets the current leader if it is the given {@code url}, so that requests are sent to the selected urls
+     * till a leader is advertised again.
+     */
+    void urlWithError(String url) {
+        if (url != null && leaderUrl.compareAndSet(url, null)) {
+            LOG.info("Leader [{}] is not reachable", url);
+        }
+    }
+}
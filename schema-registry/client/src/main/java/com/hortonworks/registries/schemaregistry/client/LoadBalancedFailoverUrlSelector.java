@@ -51,6 +51,7 @@ public class LoadBalancedFailoverUrlSelector extends AbstractUrlSelector {
     @Override
     public String select() {
         String url = null;
+        int failedCount = 0;
         while (true) {
             int i = index.get();
             if (index.compareAndSet(i, (i + 1) % urls.length)) {
@@ -59,6 +60,11 @@ public class LoadBalancedFailoverUrlSelector extends AbstractUrlSelector {
                 if (failedUrls.getIfPresent(url) == null) {
                     break;
                 }
+                if (++failedCount >= urls.length) {
+                    // all of them are failed, consider them as active instead of spinning till one of them expires.
+                    failedUrls.invalidateAll();
+                    break;
+                }
             }
         }
 
@@ -67,10 +73,11 @@ public class LoadBalancedFailoverUrlSelector extends AbstractUrlSelector {
 
     @Override
     public void urlWithError(String url, Exception e) {
-        if (failedError(e)) {
+        // urls which are not selected by this selector, like the leader's url, are ignored.
+        if (failedError(e) && isSelectable(url)) {
             //mark this url as failed.
             failedUrls.put(url, true);
-            if (failedUrls.size() == urls.length) {
+            if (failedUrls.size() >= urls.length) {
                 // simple assumption to consider all of them as active to try out the existing failed URLs.
                 failedUrls.invalidateAll();
             }
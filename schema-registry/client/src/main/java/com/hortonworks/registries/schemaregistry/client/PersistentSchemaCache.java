@@ -0,0 +1,482 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
+import com.hortonworks.registries.schemaregistry.SchemaVersionKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * On-disk tier of the schema caches in {@link SchemaRegistryClient}, which lets a restarted client resolve the schema
+ * versions it has already seen without going to schema registry.
+ * <p>
+ * Entries are appended to a single file, which is read and indexed lazily on first access. Each record carries a
+ * fingerprint of its content, records which do not match their fingerprint are skipped. Invalidated schema versions
+ * are recorded as tombstones, so that they are not served again after a restart. Entries older than the configured
+ * expiry interval are ignored.
+ * <p>
+ * The file is compacted when it is loaded, so that it only has the entries which are still served and it does not grow
+ * across restarts. Clients on this host can share the same file, loading and appending take an exclusive lock on it so
+ * that compaction does not drop records being appended by other clients.
+ * <pre>
+ * file   : MAGIC(int) FORMAT_VERSION(byte) record*
+ * record : length(int) fingerprint(long) type(byte) timestamp(long) payload
+ * </pre>
+ * Schema metadata is not stored here as it can be updated on schema registry, only schema versions and the
+ * registered schema texts which do not change once they are created.
+ */
+public class PersistentSchemaCache implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(PersistentSchemaCache.class);
+
+    private static final int MAGIC = 0x53524331;
+    private static final byte FORMAT_VERSION = 0x1;
+    private static final int HEADER_SIZE = 4 + 1;
+    // fingerprint + type + timestamp
+    private static final int RECORD_PREFIX_SIZE = 8 + 1 + 8;
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    private static final byte SCHEMA_VERSION_INFO = 0x1;
+    private static final byte SCHEMA_TEXT = 0x2;
+    private static final byte INVALIDATED_SCHEMA_VERSION = 0x3;
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private static final HashFunction FINGERPRINT_FUNCTION = Hashing.murmur3_128();
+
+    // file locks are held by the JVM, so instances sharing a file in this JVM are serialized with the same monitor
+    // as locking a file which is already locked by this JVM fails.
+    private static final ConcurrentMap<String, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private final File file;
+    private final Object fileMonitor;
+    private final long expiryIntervalMillis;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<Long, Entry<SchemaVersionInfo>> versionsById = new ConcurrentHashMap<>();
+    private final Map<SchemaVersionKey, Entry<SchemaVersionInfo>> versionsByKey = new ConcurrentHashMap<>();
+    private final Map<SchemaIdVersion, Entry<SchemaVersionInfo>> versionsByMetadataIdVersion = new ConcurrentHashMap<>();
+    private final Map<String, Entry<SchemaIdVersion>> schemaTexts = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+    private FileChannel appendChannel;
+
+    /**
+     * @param file                 file in which entries are stored, it is created if it does not exist.
+     * @param expiryIntervalSecs   interval in seconds after which a stored entry is no longer served.
+     */
+    public PersistentSchemaCache(File file, long expiryIntervalSecs) {
+        Preconditions.checkNotNull(file, "file can not be null");
+        Preconditions.checkArgument(expiryIntervalSecs > 0, "expiryIntervalSecs must be positive");
+        this.file = file;
+        this.fileMonitor = FILE_MONITORS.computeIfAbsent(file.getAbsoluteFile().toPath().normalize().toString(),
+                                                         path -> new Object());
+        this.expiryIntervalMillis = TimeUnit.SECONDS.toMillis(expiryIntervalSecs);
+    }
+
+    /**
+     * Returns the file name used to store entries of schema registry with the given url, so that clients of
+     * different schema registry clusters can share the same local directory.
+     */
+    public static String fileName(String schemaRegistryUrl) {
+        return "schema-cache-" + Hashing.murmur3_32().hashString(schemaRegistryUrl, StandardCharsets.UTF_8) + ".dat";
+    }
+
+    public SchemaVersionInfo getSchemaVersionInfo(SchemaVersionKey schemaVersionKey) {
+        ensureLoaded();
+        return valueOf(versionsByKey.get(schemaVersionKey));
+    }
+
+    public SchemaVersionInfo getSchemaVersionInfo(SchemaIdVersion schemaIdVersion) {
+        ensureLoaded();
+        if (schemaIdVersion.getSchemaVersionId() != null) {
+            return valueOf(versionsById.get(schemaIdVersion.getSchemaVersionId()));
+        } else if (schemaIdVersion.getSchemaMetadataId() != null) {
+            return valueOf(versionsByMetadataIdVersion.get(new SchemaIdVersion(schemaIdVersion.getSchemaMetadataId(),
+                                                                               schemaIdVersion.getVersion())));
+        }
+        return null;
+    }
+
+    public SchemaIdVersion getSchemaIdVersion(String schemaName, byte[] schemaDigest) {
+        ensureLoaded();
+        return valueOf(schemaTexts.get(schemaTextKey(schemaName, schemaDigest)));
+    }
+
+    public void putSchemaVersionInfo(SchemaVersionInfo schemaVersionInfo) {
+        ensureLoaded();
+        if (schemaVersionInfo.getId() == null) {
+            return;
+        }
+        try {
+            Entry<SchemaVersionInfo> entry = new Entry<>(schemaVersionInfo, System.currentTimeMillis());
+            append(SCHEMA_VERSION_INFO, entry.timestamp, objectMapper.writeValueAsBytes(schemaVersionInfo));
+            index(entry);
+        } catch (IOException e) {
+            LOG.warn("Could not store schema version [{}] in [{}]", schemaVersionInfo.getId(), file, e);
+        }
+    }
+
+    public void putSchemaIdVersion(String schemaName, byte[] schemaDigest, SchemaIdVersion schemaIdVersion) {
+        ensureLoaded();
+        try {
+            Entry<SchemaIdVersion> entry = new Entry<>(schemaIdVersion, System.currentTimeMillis());
+            append(SCHEMA_TEXT, entry.timestamp, serializeSchemaText(schemaName, schemaDigest, schemaIdVersion));
+            schemaTexts.put(schemaTextKey(schemaName, schemaDigest), entry);
+        } catch (IOException e) {
+            LOG.warn("Could not store schema text of [{}] in [{}]", schemaName, file, e);
+        }
+    }
+
+    /**
+     * Invalidates the given schema version and records it, so that it is not served after a restart either.
+     */
+    public void invalidateSchemaVersion(Long schemaVersionId) {
+        ensureLoaded();
+        try {
+            append(INVALIDATED_SCHEMA_VERSION, System.currentTimeMillis(), ByteBuffer.allocate(8).putLong(schemaVersionId).array());
+        } catch (IOException e) {
+            LOG.warn("Could not store invalidation of schema version [{}] in [{}]", schemaVersionId, file, e);
+        }
+        unindex(schemaVersionId);
+    }
+
+    public void invalidateSchemaVersion(SchemaVersionKey schemaVersionKey) {
+        SchemaVersionInfo schemaVersionInfo = getSchemaVersionInfo(schemaVersionKey);
+        if (schemaVersionInfo != null) {
+            invalidateSchemaVersion(schemaVersionInfo.getId());
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (appendChannel != null) {
+            try {
+                appendChannel.close();
+            } catch (IOException e) {
+                LOG.warn("Could not close [{}]", file, e);
+            }
+            appendChannel = null;
+        }
+    }
+
+    private <T> T valueOf(Entry<T> entry) {
+        return entry != null && System.currentTimeMillis() - entry.timestamp < expiryIntervalMillis ? entry.value : null;
+    }
+
+    private synchronized void append(byte type, long timestamp, byte[] payload) throws IOException {
+        if (appendChannel == null) {
+            // cache file could not be loaded or this cache is already closed.
+            return;
+        }
+        ByteBuffer record = record(type, timestamp, payload);
+
+        // the channel is opened in append mode, so a record is written as a whole at the end of the file, and the lock
+        // keeps other clients on this host from compacting the file meanwhile.
+        synchronized (fileMonitor) {
+            try (FileLock ignored = appendChannel.lock()) {
+                while (record.hasRemaining()) {
+                    appendChannel.write(record);
+                }
+            }
+        }
+    }
+
+    private static ByteBuffer record(byte type, long timestamp, byte[] payload) {
+        ByteBuffer record = ByteBuffer.allocate(4 + RECORD_PREFIX_SIZE + payload.length);
+        record.putInt(RECORD_PREFIX_SIZE + payload.length)
+              .putLong(0L)
+              .put(type)
+              .putLong(timestamp)
+              .put(payload);
+        record.putLong(4, fingerprint(record.array(), 4 + 8, record.capacity() - 4 - 8));
+        record.flip();
+        return record;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    try {
+                        load();
+                    } catch (IOException e) {
+                        LOG.warn("Could not load schema cache file [{}], entries are not stored locally", file, e);
+                        close();
+                    }
+                    loaded = true;
+                }
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists() && !dir.mkdirs()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+
+        synchronized (fileMonitor) {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+                long size = channel.size();
+                boolean valid = false;
+                if (size >= HEADER_SIZE) {
+                    // records are streamed instead of mapping the file, as it can be larger than a mapped buffer.
+                    DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(0)),
+                                                                                        READ_BUFFER_SIZE));
+                    if (input.readInt() != MAGIC || input.readByte() != FORMAT_VERSION) {
+                        LOG.warn("Cache file [{}] is not in the expected format, discarding its entries", file);
+                    } else {
+                        readRecords(input);
+                        valid = true;
+                    }
+                }
+                compact(channel, size, valid);
+            }
+        }
+
+        appendChannel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        LOG.info("Loaded [{}] schema versions and [{}] schema texts from [{}]", versionsById.size(), schemaTexts.size(), file);
+    }
+
+    /**
+     * Reads records from the given input till its end or till a partially written record.
+     */
+    private void readRecords(DataInputStream input) throws IOException {
+        long now = System.currentTimeMillis();
+        long offset = HEADER_SIZE;
+        while (true) {
+            int length;
+            byte[] record;
+            try {
+                length = input.readInt();
+                if (length < RECORD_PREFIX_SIZE || length > MAX_RECORD_SIZE) {
+                    LOG.warn("Discarding entries from offset [{}] with invalid length in cache file [{}]", offset, file);
+                    return;
+                }
+                record = new byte[length];
+                input.readFully(record);
+            } catch (EOFException e) {
+                return;
+            }
+
+            ByteBuffer recordBuffer = ByteBuffer.wrap(record);
+            long fingerprint = recordBuffer.getLong();
+            if (fingerprint != fingerprint(record, 8, length - 8)) {
+                LOG.warn("Skipping corrupted entry at offset [{}] in cache file [{}]", offset, file);
+            } else {
+                byte type = recordBuffer.get();
+                long timestamp = recordBuffer.getLong();
+                try {
+                    readRecord(type, timestamp, recordBuffer, now);
+                } catch (IOException e) {
+                    LOG.warn("Skipping unreadable entry at offset [{}] in cache file [{}]", offset, file, e);
+                }
+            }
+            offset += 4 + length;
+        }
+    }
+
+    /**
+     * Rewrites the given file of {@code size} bytes with only the loaded entries, which drops expired, invalidated,
+     * overwritten, corrupted and partially written records. A valid file is left as it is when there is nothing to drop.
+     */
+    private void compact(FileChannel channel, long size, boolean valid) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        content.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).put(FORMAT_VERSION).array());
+
+        // an entry is indexed by more than one key, it is written once.
+        Set<Entry<SchemaVersionInfo>> versionEntries = Collections.newSetFromMap(new IdentityHashMap<>());
+        versionEntries.addAll(versionsById.values());
+        for (Entry<SchemaVersionInfo> entry : versionEntries) {
+            content.write(record(SCHEMA_VERSION_INFO, entry.timestamp, objectMapper.writeValueAsBytes(entry.value)).array());
+        }
+        for (Map.Entry<String, Entry<SchemaIdVersion>> schemaText : schemaTexts.entrySet()) {
+            String key = schemaText.getKey();
+            int separator = key.lastIndexOf(':');
+            byte[] payload = serializeSchemaText(key.substring(0, separator),
+                                                 BaseEncoding.base16().decode(key.substring(separator + 1)),
+                                                 schemaText.getValue().value);
+            content.write(record(SCHEMA_TEXT, schemaText.getValue().timestamp, payload).array());
+        }
+
+        if (valid && content.size() == size) {
+            return;
+        }
+
+        LOG.info("Compacting cache file [{}] from [{}] to [{}] bytes", file, size, content.size());
+        ByteBuffer buffer = ByteBuffer.wrap(content.toByteArray());
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.truncate(buffer.capacity());
+        channel.force(false);
+    }
+
+    private void readRecord(byte type, long timestamp, ByteBuffer payload, long now) throws IOException {
+        switch (type) {
+            case SCHEMA_VERSION_INFO:
+                if (now - timestamp < expiryIntervalMillis) {
+                    SchemaVersionInfo schemaVersionInfo = objectMapper.readValue(payload.array(),
+                                                                                 payload.position(),
+                                                                                 payload.remaining(),
+                                                                                 SchemaVersionInfo.class);
+                    index(new Entry<>(schemaVersionInfo, timestamp));
+                }
+                break;
+            case SCHEMA_TEXT:
+                if (now - timestamp < expiryIntervalMillis) {
+                    deserializeSchemaText(payload, timestamp);
+                }
+                break;
+            case INVALIDATED_SCHEMA_VERSION:
+                unindex(payload.getLong());
+                break;
+            default:
+                LOG.debug("Skipping entry with unknown type [{}] in cache file [{}]", type, file);
+        }
+    }
+
+    private void index(Entry<SchemaVersionInfo> entry) {
+        SchemaVersionInfo schemaVersionInfo = entry.value;
+        versionsById.put(schemaVersionInfo.getId(), entry);
+        versionsByKey.put(new SchemaVersionKey(schemaVersionInfo.getName(), schemaVersionInfo.getVersion()), entry);
+        if (schemaVersionInfo.getSchemaMetadataId() != null) {
+            versionsByMetadataIdVersion.put(new SchemaIdVersion(schemaVersionInfo.getSchemaMetadataId(),
+                                                                schemaVersionInfo.getVersion()), entry);
+        }
+    }
+
+    private void unindex(Long schemaVersionId) {
+        Entry<SchemaVersionInfo> entry = versionsById.remove(schemaVersionId);
+        if (entry != null) {
+            SchemaVersionInfo schemaVersionInfo = entry.value;
+            versionsByKey.remove(new SchemaVersionKey(schemaVersionInfo.getName(), schemaVersionInfo.getVersion()));
+            if (schemaVersionInfo.getSchemaMetadataId() != null) {
+                versionsByMetadataIdVersion.remove(new SchemaIdVersion(schemaVersionInfo.getSchemaMetadataId(),
+                                                                       schemaVersionInfo.getVersion()));
+            }
+        }
+
+        Iterator<Entry<SchemaIdVersion>> iterator = schemaTexts.values().iterator();
+        while (iterator.hasNext()) {
+            if (schemaVersionId.equals(iterator.next().value.getSchemaVersionId())) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static byte[] serializeSchemaText(String schemaName,
+                                              byte[] schemaDigest,
+                                              SchemaIdVersion schemaIdVersion) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeUTF(schemaName);
+            output.writeShort(schemaDigest.length);
+            output.write(schemaDigest);
+            writeNullableLong(output, schemaIdVersion.getSchemaMetadataId());
+            writeNullableLong(output, schemaIdVersion.getVersion() != null ? schemaIdVersion.getVersion().longValue() : null);
+            writeNullableLong(output, schemaIdVersion.getSchemaVersionId());
+        }
+        return bytes.toByteArray();
+    }
+
+    private void deserializeSchemaText(ByteBuffer payload, long timestamp) throws IOException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(payload.array(),
+                                                                            payload.position(),
+                                                                            payload.remaining()));
+        String schemaName = input.readUTF();
+        byte[] schemaDigest = new byte[input.readShort()];
+        input.readFully(schemaDigest);
+        Long schemaMetadataId = readNullableLong(input);
+        Long version = readNullableLong(input);
+        Long schemaVersionId = readNullableLong(input);
+
+        SchemaIdVersion schemaIdVersion;
+        if (schemaMetadataId != null && version != null) {
+            schemaIdVersion = schemaVersionId != null
+                              ? new SchemaIdVersion(schemaMetadataId, version.intValue(), schemaVersionId)
+                              : new SchemaIdVersion(schemaMetadataId, version.intValue());
+        } else if (schemaVersionId != null) {
+            schemaIdVersion = new SchemaIdVersion(schemaVersionId);
+        } else {
+            throw new IOException("Schema text entry of [" + schemaName + "] does not have a schema version");
+        }
+        schemaTexts.put(schemaTextKey(schemaName, schemaDigest), new Entry<>(schemaIdVersion, timestamp));
+    }
+
+    private static void writeNullableLong(DataOutputStream output, Long value) throws IOException {
+        output.writeBoolean(value != null);
+        output.writeLong(value != null ? value : 0L);
+    }
+
+    private static Long readNullableLong(DataInputStream input) throws IOException {
+        boolean present = input.readBoolean();
+        long value = input.readLong();
+        return present ? value : null;
+    }
+
+    private static String schemaTextKey(String schemaName, byte[] schemaDigest) {
+        return schemaName + ":" + BaseEncoding.base16().encode(schemaDigest);
+    }
+
+    private static long fingerprint(byte[] bytes, int offset, int length) {
+        return FINGERPRINT_FUNCTION.hashBytes(bytes, offset, length).asLong();
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long timestamp;
+
+        Entry(T value, long timestamp) {
+            this.value = value;
+            this.timestamp = timestamp;
+        }
+    }
+}
@@ -15,11 +15,14 @@
  **/
 package com.hortonworks.registries.schemaregistry.client;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Sets;
 import com.hortonworks.registries.auth.KerberosLogin;
 import com.hortonworks.registries.common.catalog.CatalogResponse;
@@ -66,6 +69,7 @@ import javax.net.ssl.SSLContext;
 import javax.security.auth.Subject;
 import javax.security.auth.login.LoginException;
 import javax.ws.rs.NotFoundException;
+import javax.ws.rs.ProcessingException;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
@@ -89,11 +93,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
@@ -140,12 +146,20 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     private static final String SCHEMA_PROVIDERS_PATH = SCHEMA_REGISTRY_PATH + "/schemaproviders/";
     private static final String SCHEMAS_BY_ID_PATH = SCHEMA_REGISTRY_PATH + "/schemasById/";
     private static final String SCHEMA_VERSIONS_BY_ID_PATH = SCHEMAS_PATH + "versionsById/";
+    private static final String BATCH_PATH = "batch";
+    // maximum number of version ids accepted by the registry in a batch request
+    private static final int MAX_BATCH_SIZE = 1000;
     private static final String FILES_PATH = SCHEMA_REGISTRY_PATH + "/files/";
     private static final String SERIALIZERS_PATH = SCHEMA_REGISTRY_PATH + "/serdes/";
     private static final String REGISTY_CLIENT_JAAS_SECTION = "RegistryClient";
     private static final Set<Class<?>> DESERIALIZER_INTERFACE_CLASSES = Sets.<Class<?>>newHashSet(SnapshotDeserializer.class, PullDeserializer.class, PushDeserializer.class);
     private static final Set<Class<?>> SERIALIZER_INTERFACE_CLASSES = Sets.<Class<?>>newHashSet(SnapshotSerializer.class, PullSerializer.class);
     private static final String SEARCH_FIELDS = SCHEMA_REGISTRY_PATH + "/search/schemas/fields";
+    private static final String ENTITIES_FIELD = "entities";
+
+    // readers are immutable and thread safe, they are built once for each response type and shared by all clients.
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final ConcurrentMap<Class<?>, ObjectReader> ENTITY_READERS = new ConcurrentHashMap<>();
     private static Subject subject;
 
     static {
@@ -167,6 +181,8 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     private final Client client;
     private final UrlSelector urlSelector;
+    private final UrlSelectorFilter urlSelectorFilter;
+    private final LeaderUrlFilter leaderUrlFilter;
     private final Map<String, SchemaRegistryTargets> urlWithTargets;
 
     private final Configuration configuration;
@@ -174,6 +190,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     private final SchemaVersionInfoCache schemaVersionInfoCache;
     private final SchemaMetadataCache schemaMetadataCache;
     private final Cache<SchemaDigestEntry, SchemaIdVersion> schemaTextCache;
+    private final PersistentSchemaCache persistentSchemaCache;
 
     private static final String SSL_CONFIGURATION_KEY = "schema.registry.client.ssl";
     private static final String HOSTNAME_VERIFIER_CLASS_KEY = "hostnameVerifierClass";
@@ -219,23 +236,47 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
         // get list of urls and create given or default UrlSelector.
         urlSelector = createUrlSelector();
+        urlSelectorFilter = new UrlSelectorFilter(urlSelector, configuration.getValue(SCHEMA_REGISTRY_URL.name()).split(","));
+        client.register(urlSelectorFilter);
+        leaderUrlFilter = new LeaderUrlFilter();
+        client.register(leaderUrlFilter);
         urlWithTargets = new ConcurrentHashMap<>();
         
         classLoaderCache = new ClassLoaderCache(this);
 
+        persistentSchemaCache = createPersistentSchemaCache();
+
+        // refreshing goes to schema registry and stores the retrieved value locally, so that local entries do not stay
+        // stale till they expire.
+        SchemaVersionRetriever remoteSchemaVersionRetriever = new SchemaVersionRetriever() {
+            @Override
+            public SchemaVersionInfo retrieveSchemaVersion(SchemaVersionKey key) throws SchemaNotFoundException {
+                return storeLocally(doGetSchemaVersionInfo(key));
+            }
+
+            @Override
+            public SchemaVersionInfo retrieveSchemaVersion(SchemaIdVersion key) throws SchemaNotFoundException {
+                return storeLocally(doGetSchemaVersionInfo(key));
+            }
+        };
         schemaVersionInfoCache = new SchemaVersionInfoCache(new SchemaVersionRetriever() {
             @Override
             public SchemaVersionInfo retrieveSchemaVersion(SchemaVersionKey key) throws SchemaNotFoundException {
-                return doGetSchemaVersionInfo(key);
+                SchemaVersionInfo schemaVersionInfo = persistentSchemaCache != null ? persistentSchemaCache.getSchemaVersionInfo(key) : null;
+                return schemaVersionInfo != null ? schemaVersionInfo : remoteSchemaVersionRetriever.retrieveSchemaVersion(key);
             }
 
             @Override
             public SchemaVersionInfo retrieveSchemaVersion(SchemaIdVersion key) throws SchemaNotFoundException {
-                return doGetSchemaVersionInfo(key);
+                SchemaVersionInfo schemaVersionInfo = persistentSchemaCache != null ? persistentSchemaCache.getSchemaVersionInfo(key) : null;
+                return schemaVersionInfo != null ? schemaVersionInfo : remoteSchemaVersionRetriever.retrieveSchemaVersion(key);
             }
         },
+                remoteSchemaVersionRetriever,
                 ((Number) configuration.getValue(Configuration.SCHEMA_VERSION_CACHE_SIZE.name())).intValue(),
-                ((Number) configuration.getValue(Configuration.SCHEMA_VERSION_CACHE_EXPIRY_INTERVAL_SECS.name())).longValue());
+                TimeUnit.SECONDS.toMillis(((Number) configuration.getValue(Configuration.SCHEMA_VERSION_CACHE_EXPIRY_INTERVAL_SECS.name())).longValue()),
+                TimeUnit.SECONDS.toMillis(((Number) configuration.getValue(Configuration.SCHEMA_VERSION_CACHE_REFRESH_INTERVAL_SECS.name())).longValue()),
+                TimeUnit.SECONDS.toMillis(((Number) configuration.getValue(Configuration.SCHEMA_VERSION_CACHE_STALE_WINDOW_SECS.name())).longValue()));
 
         SchemaMetadataCache.SchemaMetadataFetcher schemaMetadataFetcher = createSchemaMetadataFetcher();
         schemaMetadataCache = new SchemaMetadataCache(((Number) configuration.getValue(Configuration.SCHEMA_METADATA_CACHE_SIZE.name())).longValue(),
@@ -271,9 +312,20 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     }
 
     private SchemaRegistryTargets currentSchemaRegistryTargets() {
-        String url = urlSelector.select();
-        urlWithTargets.computeIfAbsent(url, s -> new SchemaRegistryTargets(client.target(s)));
-        return urlWithTargets.get(url);
+        return schemaRegistryTargets(urlSelector.select());
+    }
+
+    /**
+     * Returns targets of the current leader for requests which are handled only by the leader, so that they are not
+     * redirected to it by other instances. Targets of the selected url are returned till the leader is known.
+     */
+    private SchemaRegistryTargets leaderSchemaRegistryTargets() {
+        String leaderUrl = leaderUrlFilter.getLeaderUrl();
+        return leaderUrl != null ? schemaRegistryTargets(leaderUrl) : currentSchemaRegistryTargets();
+    }
+
+    private SchemaRegistryTargets schemaRegistryTargets(String url) {
+        return urlWithTargets.computeIfAbsent(url, s -> new SchemaRegistryTargets(client.target(s).property(UrlSelectorFilter.URL_PROPERTY, s)));
     }
     
     private static class SchemaRegistryTargets {
@@ -299,6 +351,26 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     }
 
+    private PersistentSchemaCache createPersistentSchemaCache() {
+        String localPath = configuration.getValue(Configuration.SCHEMA_CACHE_LOCAL_PATH.name());
+        if (localPath == null) {
+            return null;
+        }
+
+        String rootCatalogURL = configuration.getValue(SCHEMA_REGISTRY_URL.name());
+        File file = new File(localPath, PersistentSchemaCache.fileName(rootCatalogURL));
+        LOG.info("Schema versions are cached locally in [{}]", file);
+        return new PersistentSchemaCache(file,
+                                         ((Number) configuration.getValue(Configuration.SCHEMA_CACHE_LOCAL_EXPIRY_INTERVAL_SECS.name())).longValue());
+    }
+
+    private SchemaVersionInfo storeLocally(SchemaVersionInfo schemaVersionInfo) {
+        if (persistentSchemaCache != null && schemaVersionInfo != null) {
+            persistentSchemaCache.putSchemaVersionInfo(schemaVersionInfo);
+        }
+        return schemaVersionInfo;
+    }
+
     private UrlSelector createUrlSelector() {
         UrlSelector urlSelector = null;
         String rootCatalogURL = configuration.getValue(SCHEMA_REGISTRY_URL.name());
@@ -314,10 +386,32 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
             }
         }
         urlSelector.init(configuration.getConfig());
+        if (urlSelector instanceof LatencyAwareUrlSelector) {
+            ((LatencyAwareUrlSelector) urlSelector).setProbe(this::probe);
+        }
 
         return urlSelector;
     }
 
+    /**
+     * Sends a health check request of {@link LatencyAwareUrlSelector} as the logged in subject. It is not associated
+     * with a selected url, so it is not reported to the url selector or to the leader tracker.
+     */
+    private int probe(String probeUrl, int timeoutMs) {
+        return Subject.doAs(subject, (PrivilegedAction<Integer>) () -> {
+            Response response = client.target(probeUrl)
+                                      .property(ClientProperties.CONNECT_TIMEOUT, timeoutMs)
+                                      .property(ClientProperties.READ_TIMEOUT, timeoutMs)
+                                      .request()
+                                      .get();
+            try {
+                return response.getStatus();
+            } finally {
+                response.close();
+            }
+        });
+    }
+
     private SchemaMetadataCache.SchemaMetadataFetcher createSchemaMetadataFetcher() {
         return new SchemaMetadataCache.SchemaMetadataFetcher() {
             @Override
@@ -355,6 +449,14 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
         return configuration;
     }
 
+    /**
+     * @return statistics of the schema version cache, like its hits, refreshes and the entries returned while schema
+     * registry was not reachable.
+     */
+    public SchemaVersionInfoCache.Stats getSchemaVersionCacheStats() {
+        return schemaVersionInfoCache.getStats();
+    }
+
     @Override
     public Collection<SchemaProviderInfo> getSupportedSchemaProviders() {
         return getEntities(currentSchemaRegistryTargets().schemaProvidersTarget, SchemaProviderInfo.class);
@@ -369,7 +471,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     public Long addSchemaMetadata(SchemaMetadata schemaMetadata) {
         SchemaMetadataInfo schemaMetadataInfo = schemaMetadataCache.getIfPresent(SchemaMetadataCache.Key.of(schemaMetadata.getName()));
         if (schemaMetadataInfo == null) {
-            return doRegisterSchemaMetadata(schemaMetadata, currentSchemaRegistryTargets().schemasTarget);
+            return doRegisterSchemaMetadata(schemaMetadata, leaderSchemaRegistryTargets().schemasTarget);
         }
 
         return schemaMetadataInfo.getId();
@@ -377,7 +479,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     @Override
     public SchemaMetadataInfo updateSchemaMetadata(String schemaName, SchemaMetadata schemaMetadata) {
-        SchemaMetadataInfo schemaMetadataInfo = postEntity(currentSchemaRegistryTargets().schemasTarget.path(schemaName), schemaMetadata, SchemaMetadataInfo.class);
+        SchemaMetadataInfo schemaMetadataInfo = postEntity(leaderSchemaRegistryTargets().schemasTarget.path(schemaName), schemaMetadata, SchemaMetadataInfo.class);
         if (schemaMetadataInfo != null) {
             schemaMetadataCache.put(SchemaMetadataCache.Key.of(schemaName), schemaMetadataInfo);
         }
@@ -406,6 +508,14 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
         SchemaDigestEntry schemaDigestEntry = buildSchemaTextEntry(schemaVersion, schemaMetadata.getName());
         SchemaIdVersion schemaIdVersion = schemaTextCache.getIfPresent(schemaDigestEntry);
 
+        if (schemaIdVersion == null && persistentSchemaCache != null) {
+            // schema metadata is registered already when this schema text is stored locally.
+            schemaIdVersion = persistentSchemaCache.getSchemaIdVersion(schemaDigestEntry.name, schemaDigestEntry.schemaDigest);
+            if (schemaIdVersion != null) {
+                schemaTextCache.put(schemaDigestEntry, schemaIdVersion);
+            }
+        }
+
         if (schemaIdVersion == null) {
             //register schema metadata if it does not exist
             Long metadataId = registerSchemaMetadata(schemaMetadata);
@@ -433,14 +543,14 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
         StreamDataBodyPart streamDataBodyPart = new StreamDataBodyPart("file", schemaVersionInputStream);
 
-        WebTarget target = currentSchemaRegistryTargets().schemasTarget.path(schemaName).path("/versions/upload");
+        WebTarget target = leaderSchemaRegistryTargets().schemasTarget.path(schemaName).path("/versions/upload");
         MultiPart multipartEntity =
                 new FormDataMultiPart()
                         .field("description", description, MediaType.APPLICATION_JSON_TYPE)
                         .bodyPart(streamDataBodyPart);
 
         Entity<MultiPart> multiPartEntity = Entity.entity(multipartEntity, MediaType.MULTIPART_FORM_DATA);
-        Response response = Subject.doAs(subject, new PrivilegedAction<Response>() {
+        Response response = runAs(new PrivilegedAction<Response>() {
             @Override
             public Response run() {
                 return target.request().post(multiPartEntity, Response.class);
@@ -466,8 +576,19 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
             throws InvalidSchemaException, IncompatibleSchemaException, SchemaNotFoundException {
 
         try {
-            return schemaTextCache.get(buildSchemaTextEntry(schemaVersion, schemaName),
-                                       () -> doAddSchemaVersion(schemaName, schemaVersion));
+            SchemaDigestEntry schemaDigestEntry = buildSchemaTextEntry(schemaVersion, schemaName);
+            return schemaTextCache.get(schemaDigestEntry, () -> {
+                if (persistentSchemaCache == null) {
+                    return doAddSchemaVersion(schemaName, schemaVersion);
+                }
+
+                SchemaIdVersion schemaIdVersion = persistentSchemaCache.getSchemaIdVersion(schemaName, schemaDigestEntry.schemaDigest);
+                if (schemaIdVersion == null) {
+                    schemaIdVersion = doAddSchemaVersion(schemaName, schemaVersion);
+                    persistentSchemaCache.putSchemaIdVersion(schemaName, schemaDigestEntry.schemaDigest, schemaIdVersion);
+                }
+                return schemaIdVersion;
+            });
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
             LOG.error("Encountered error while adding new version [{}] of schema [{}] and error [{}]", schemaVersion, schemaName, e);
@@ -490,9 +611,12 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     @Override
     public void deleteSchemaVersion(SchemaVersionKey schemaVersionKey) throws SchemaNotFoundException {
         schemaVersionInfoCache.invalidateSchema(new SchemaVersionInfoCache.Key(schemaVersionKey));
+        if (persistentSchemaCache != null) {
+            persistentSchemaCache.invalidateSchemaVersion(schemaVersionKey);
+        }
 
         WebTarget target = currentSchemaRegistryTargets().schemasTarget.path(String.format("%s/versions/%s", schemaVersionKey.getSchemaName(), schemaVersionKey.getVersion()));
-        Response response = Subject.doAs(subject, new PrivilegedAction<Response>() {
+        Response response = runAs(new PrivilegedAction<Response>() {
             @Override
             public Response run() {
                 return target.request(MediaType.APPLICATION_JSON_TYPE).delete(Response.class);
@@ -518,8 +642,8 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
             throw new SchemaNotFoundException("Schema with name " + schemaName + " not found");
         }
 
-        WebTarget target = currentSchemaRegistryTargets().schemasTarget.path(schemaName).path("/versions");
-        Response response = Subject.doAs(subject, new PrivilegedAction<Response>() {
+        WebTarget target = leaderSchemaRegistryTargets().schemasTarget.path(schemaName).path("/versions");
+        Response response = runAs(new PrivilegedAction<Response>() {
             @Override
             public Response run() {
                 return target.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(schemaVersion), Response.class);
@@ -551,11 +675,8 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     }
 
     public static CatalogResponse readCatalogResponse(String msg) {
-        ObjectMapper objectMapper = new ObjectMapper();
         try {
-            JsonNode node = objectMapper.readTree(msg);
-
-            return objectMapper.treeToValue(node, CatalogResponse.class);
+            return entityReader(CatalogResponse.class).readValue(msg);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -582,6 +703,53 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
         }
     }
 
+    @Override
+    public Collection<SchemaVersionInfo> getSchemaVersionInfos(Collection<SchemaIdVersion> schemaIdVersions) {
+        Map<SchemaIdVersion, SchemaVersionInfo> schemaVersionInfos = new LinkedHashMap<>();
+        Set<Long> missingVersionIds = new LinkedHashSet<>();
+        for (SchemaIdVersion schemaIdVersion : schemaIdVersions) {
+            SchemaVersionInfo schemaVersionInfo;
+            try {
+                schemaVersionInfo = schemaVersionInfoCache.getSchemaIfPresent(SchemaVersionInfoCache.Key.of(schemaIdVersion));
+                if (schemaVersionInfo == null && schemaIdVersion.getSchemaVersionId() == null) {
+                    // versions identified by schema metadata id and version can only be retrieved one by one.
+                    schemaVersionInfo = getSchemaVersionInfo(schemaIdVersion);
+                }
+            } catch (SchemaNotFoundException e) {
+                LOG.info("Schema version not found for [{}]", schemaIdVersion);
+                continue;
+            }
+
+            if (schemaVersionInfo == null && persistentSchemaCache != null) {
+                schemaVersionInfo = persistentSchemaCache.getSchemaVersionInfo(schemaIdVersion);
+                if (schemaVersionInfo != null) {
+                    schemaVersionInfoCache.putSchemas(Collections.singletonList(schemaVersionInfo));
+                }
+            }
+
+            if (schemaVersionInfo != null) {
+                schemaVersionInfos.put(schemaIdVersion, schemaVersionInfo);
+            } else {
+                missingVersionIds.add(schemaIdVersion.getSchemaVersionId());
+            }
+        }
+
+        if (!missingVersionIds.isEmpty()) {
+            LOG.info("Getting schema versions from target registry for [{}]", missingVersionIds);
+            WebTarget target = currentSchemaRegistryTargets().schemaVersionsByIdTarget.path(BATCH_PATH);
+            for (List<Long> batch : Iterables.partition(missingVersionIds, MAX_BATCH_SIZE)) {
+                List<SchemaVersionInfo> retrievedSchemaVersionInfos = postEntities(target, batch, SchemaVersionInfo.class);
+                schemaVersionInfoCache.putSchemas(retrievedSchemaVersionInfos);
+                for (SchemaVersionInfo schemaVersionInfo : retrievedSchemaVersionInfos) {
+                    storeLocally(schemaVersionInfo);
+                    schemaVersionInfos.put(new SchemaIdVersion(schemaVersionInfo.getId()), schemaVersionInfo);
+                }
+            }
+        }
+
+        return schemaVersionInfos.values();
+    }
+
     private SchemaVersionInfo doGetSchemaVersionInfo(SchemaIdVersion schemaIdVersion) throws SchemaNotFoundException {
         if(schemaIdVersion.getSchemaVersionId() != null) {
             LOG.info("Getting schema version from target registry for [{}]", schemaIdVersion.getSchemaVersionId());
@@ -658,7 +826,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
                                             String operation) throws SchemaNotFoundException, SchemaLifecycleException {
 
         WebTarget webTarget = currentSchemaRegistryTargets().schemaVersionsByIdTarget.path(schemaVersionId + "/state/" + operation);
-        Response response = Subject.doAs(subject, new PrivilegedAction<Response>() {
+        Response response = runAs(new PrivilegedAction<Response>() {
             @Override
             public Response run() {
                 return webTarget.request().post(null);
@@ -669,6 +837,9 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
         // invalidate this entry from cache.
         schemaVersionInfoCache.invalidateSchema(SchemaVersionInfoCache.Key.of(new SchemaIdVersion(schemaVersionId)));
+        if (persistentSchemaCache != null) {
+            persistentSchemaCache.invalidateSchemaVersion(schemaVersionId);
+        }
 
         return result;
     }
@@ -703,10 +874,10 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     @Override
     public CompatibilityResult checkCompatibility(String schemaName, String toSchemaText) throws SchemaNotFoundException {
         WebTarget webTarget = currentSchemaRegistryTargets().schemasTarget.path(encode(schemaName) + "/compatibility");
-        String response = Subject.doAs(subject, new PrivilegedAction<String>() {
+        InputStream response = runAs(new PrivilegedAction<InputStream>() {
             @Override
-            public String run() {
-                return webTarget.request().post(Entity.text(toSchemaText), String.class);
+            public InputStream run() {
+                return webTarget.request().post(Entity.text(toSchemaText), InputStream.class);
             }
         });
         return readEntity(response, CompatibilityResult.class);
@@ -732,7 +903,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
         MultiPart multiPart = new MultiPart();
         BodyPart filePart = new StreamDataBodyPart("file", inputStream, "file");
         multiPart.bodyPart(filePart);
-        return Subject.doAs(subject, new PrivilegedAction<String>() {
+        return runAs(new PrivilegedAction<String>() {
             @Override
             public String run() {
                 return currentSchemaRegistryTargets().filesTarget.request().post(Entity.entity(multiPart, MediaType.MULTIPART_FORM_DATA), String.class);
@@ -742,7 +913,7 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     @Override
     public InputStream downloadFile(String fileId) {
-        return Subject.doAs(subject, new PrivilegedAction<InputStream>() {
+        return runAs(new PrivilegedAction<InputStream>() {
             @Override
             public InputStream run() {
                 return currentSchemaRegistryTargets().filesTarget.path("download/" + encode(fileId)).request().get(InputStream.class);
@@ -752,14 +923,14 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     @Override
     public Long addSerDes(SerDesPair serDesPair) {
-        return postEntity(currentSchemaRegistryTargets().serializersTarget, serDesPair, Long.class);
+        return postEntity(leaderSchemaRegistryTargets().serializersTarget, serDesPair, Long.class);
     }
 
     @Override
     public void mapSchemaWithSerDes(String schemaName, Long serDesId) {
         String path = String.format("%s/mapping/%s", encode(schemaName), serDesId.toString());
 
-        Boolean success = postEntity(currentSchemaRegistryTargets().schemasTarget.path(path), null, Boolean.class);
+        Boolean success = postEntity(leaderSchemaRegistryTargets().schemasTarget.path(path), null, Boolean.class);
         LOG.info("Received response while mapping schema [{}] with serialzer/deserializer [{}] : [{}]", schemaName, serDesId, success);
     }
 
@@ -813,6 +984,11 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     @Override
     public void close() {
         client.close();
+        urlSelector.close();
+        schemaVersionInfoCache.close();
+        if (persistentSchemaCache != null) {
+            persistentSchemaCache.close();
+        }
     }
 
     private <T> T createInstance(SerDesInfo serDesInfo, boolean isSerializer) {
@@ -857,31 +1033,65 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
     }
 
     private <T> List<T> getEntities(WebTarget target, Class<T> clazz) {
-        List<T> entities = new ArrayList<>();
-        String response = Subject.doAs(subject, new PrivilegedAction<String>() {
+        InputStream response = runAs(new PrivilegedAction<InputStream>() {
             @Override
-            public String run() {
-                return target.request(MediaType.APPLICATION_JSON_TYPE).get(String.class);
+            public InputStream run() {
+                return target.request(MediaType.APPLICATION_JSON_TYPE).get(InputStream.class);
             }
         });
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            JsonNode node = mapper.readTree(response);
-            Iterator<JsonNode> it = node.get("entities").elements();
-            while (it.hasNext()) {
-                entities.add(mapper.treeToValue(it.next(), clazz));
+        return readEntities(response, clazz);
+    }
+
+    private <T> List<T> postEntities(WebTarget target, Object json, Class<T> clazz) {
+        InputStream response = runAs(new PrivilegedAction<InputStream>() {
+            @Override
+            public InputStream run() {
+                return target.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(json), InputStream.class);
+            }
+        });
+        return readEntities(response, clazz);
+    }
+
+    /**
+     * Reads the elements of {@code entities} array in the given response as they are parsed, without buffering the
+     * whole response. Other fields of the response are skipped.
+     */
+    private <T> List<T> readEntities(InputStream response, Class<T> clazz) {
+        List<T> entities = new ArrayList<>();
+        boolean entitiesFound = false;
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(response)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (ENTITIES_FIELD.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    entitiesFound = true;
+                    ObjectReader reader = entityReader(clazz);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        entities.add(reader.readValue(parser));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!entitiesFound) {
+                throw new IOException("No " + ENTITIES_FIELD + " found in response");
             }
         } catch (Exception ex) {
             throw new RuntimeException(ex);
+        } finally {
+            IOUtils.closeQuietly(response);
         }
         return entities;
     }
 
     private <T> T postEntity(WebTarget target, Object json, Class<T> responseType) {
-        String response = Subject.doAs(subject, new PrivilegedAction<String>() {
+        InputStream response = runAs(new PrivilegedAction<InputStream>() {
             @Override
-            public String run() {
-                return target.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(json), String.class);
+            public InputStream run() {
+                return target.request(MediaType.APPLICATION_JSON_TYPE).post(Entity.json(json), InputStream.class);
             }
         });
         return readEntity(response, responseType);
@@ -889,24 +1099,50 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
 
     private <T> T readEntity(String response, Class<T> clazz) {
         try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.readValue(response, clazz);
+            return entityReader(clazz).readValue(response);
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private <T> T readEntity(InputStream response, Class<T> clazz) {
+        try {
+            return entityReader(clazz).readValue(response);
         } catch (Exception ex) {
             throw new RuntimeException(ex);
+        } finally {
+            IOUtils.closeQuietly(response);
         }
     }
 
     private <T> T getEntity(WebTarget target, Class<T> clazz) {
-        String response = Subject.doAs(subject, new PrivilegedAction<String>() {
+        InputStream response = runAs(new PrivilegedAction<InputStream>() {
             @Override
-            public String run() {
-                return target.request(MediaType.APPLICATION_JSON_TYPE).get(String.class);
+            public InputStream run() {
+                return target.request(MediaType.APPLICATION_JSON_TYPE).get(InputStream.class);
             }
         });
 
         return readEntity(response, clazz);
     }
 
+    /**
+     * Runs the given action as the logged in subject. Failures of requests which did not receive a response are reported
+     * to the url selector and to the leader tracker.
+     */
+    private <T> T runAs(PrivilegedAction<T> action) {
+        try {
+            return Subject.doAs(subject, action);
+        } catch (ProcessingException e) {
+            leaderUrlFilter.urlWithError(urlSelectorFilter.requestFailed(e));
+            throw e;
+        }
+    }
+
+    private static ObjectReader entityReader(Class<?> clazz) {
+        return ENTITY_READERS.computeIfAbsent(clazz, OBJECT_MAPPER::readerFor);
+    }
+
     public static final class Configuration {
         // we may want to remove schema.registry prefix from configuration properties as these are all properties
         // given by client.
@@ -990,6 +1226,32 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
                                      DEFAULT_SCHEMA_CACHE_EXPIRY_INTERVAL_SECS,
                                      ConfigEntry.PositiveNumberValidator.get());
 
+        public static final long DEFAULT_SCHEMA_VERSION_CACHE_REFRESH_INTERVAL_SECS = 0L;
+        public static final long DEFAULT_SCHEMA_VERSION_CACHE_STALE_WINDOW_SECS = 60 * 60L;
+
+        /**
+         * Interval(in seconds) after which an entry in schema version cache is refreshed asynchronously on its next
+         * access, while the existing entry is returned. Refreshing is disabled when it is zero, which is the default value
+         * {@link #DEFAULT_SCHEMA_VERSION_CACHE_REFRESH_INTERVAL_SECS}
+         */
+        public static final ConfigEntry<Number> SCHEMA_VERSION_CACHE_REFRESH_INTERVAL_SECS =
+                ConfigEntry.optional("schema.registry.client.schema.version.cache.refresh.interval.secs",
+                                     Integer.class,
+                                     "Interval(in seconds) after which an entry in schema version cache is refreshed asynchronously, refreshing is disabled when it is zero",
+                                     DEFAULT_SCHEMA_VERSION_CACHE_REFRESH_INTERVAL_SECS,
+                                     ConfigEntry.NonNegativeNumberValidator.get());
+
+        /**
+         * Interval(in seconds) for which the last retrieved entry of schema version cache is returned when it can not be
+         * loaded again from schema registry. Default value is {@link #DEFAULT_SCHEMA_VERSION_CACHE_STALE_WINDOW_SECS}
+         */
+        public static final ConfigEntry<Number> SCHEMA_VERSION_CACHE_STALE_WINDOW_SECS =
+                ConfigEntry.optional("schema.registry.client.schema.version.cache.stale.window.secs",
+                                     Integer.class,
+                                     "Interval(in seconds) for which the last retrieved entry of schema version cache is returned when schema registry is not reachable",
+                                     DEFAULT_SCHEMA_VERSION_CACHE_STALE_WINDOW_SECS,
+                                     ConfigEntry.PositiveNumberValidator.get());
+
         /**
          * Maximum size of schema metadata cache. Default value is {@link #DEFAULT_SCHEMA_CACHE_SIZE}
          */
@@ -1031,6 +1293,30 @@ public class SchemaRegistryClient implements ISchemaRegistryClient {
                                      DEFAULT_SCHEMA_CACHE_EXPIRY_INTERVAL_SECS,
                                      ConfigEntry.PositiveNumberValidator.get());
 
+        /**
+         * Local directory path in which schema versions are cached, so that they are available across restarts of the
+         * client. For ex: /tmp/schema-registry/local-cache. Schema versions are cached only in memory when this is not
+         * configured.
+         */
+        public static final ConfigEntry<String> SCHEMA_CACHE_LOCAL_PATH =
+                ConfigEntry.optional("schema.registry.client.schema.cache.local.path",
+                                     String.class,
+                                     "Local directory path in which schema versions are cached across restarts",
+                                     null,
+                                     ConfigEntry.NonEmptyStringValidator.get());
+
+        public static final long DEFAULT_SCHEMA_CACHE_LOCAL_EXPIRY_INTERVAL_SECS = 24 * 60 * 60L;
+
+        /**
+         * Expiry interval(in seconds) of an entry in local schema cache. Default value is {@link #DEFAULT_SCHEMA_CACHE_LOCAL_EXPIRY_INTERVAL_SECS}
+         */
+        public static final ConfigEntry<Number> SCHEMA_CACHE_LOCAL_EXPIRY_INTERVAL_SECS =
+                ConfigEntry.optional("schema.registry.client.schema.cache.local.expiry.interval.secs",
+                                     Integer.class,
+                                     "Expiry interval(in seconds) of an entry in local schema cache",
+                                     DEFAULT_SCHEMA_CACHE_LOCAL_EXPIRY_INTERVAL_SECS,
+                                     ConfigEntry.PositiveNumberValidator.get());
+
         /**
          *
          */
@@ -35,4 +35,28 @@ public interface UrlSelector {
      * @param ex exception encountered
      */
     void urlWithError(String url, Exception ex);
+
+    /**
+     * Notifies that a request is being sent to the given {@code url}. It is followed by either
+     * {@link #requestCompleted(String, long)} or {@link #urlWithError(String, Exception)} for the same url.
+     *
+     * @param url url to which the request is sent
+     */
+    default void requestStarted(String url) {
+    }
+
+    /**
+     * Notifies that a response is received for a request sent to the given {@code url}.
+     *
+     * @param url url to which the request was sent
+     * @param latencyNanos time taken to receive the response in nano seconds
+     */
+    default void requestCompleted(String url, long latencyNanos) {
+    }
+
+    /**
+     * Releases any resources held by this selector.
+     */
+    default void close() {
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import javax.ws.rs.client.ClientRequestContext;
+import javax.ws.rs.client.ClientRequestFilter;
+import javax.ws.rs.client.ClientResponseContext;
+import javax.ws.rs.client.ClientResponseFilter;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Reports latencies and failures of requests to the {@link UrlSelector} which selected their url. Requests are
+ * associated with a selected url through {@link #URL_PROPERTY} set on their {@link javax.ws.rs.client.WebTarget}.
+ * <p>
+ * Requests are invoked synchronously, so the request which did not receive a response on the current thread is
+ * remembered till {@link #requestFailed(Exception)} is invoked by the client.
+ * <p>
+ * Only the urls with which the selector is configured are reported to it. Requests routed to other urls, like the
+ * advertised leader, are still tracked so that their failures are returned by {@link #requestFailed(Exception)}.
+ */
+final class UrlSelectorFilter implements ClientRequestFilter, ClientResponseFilter {
+    static final String URL_PROPERTY = UrlSelectorFilter.class.getName() + ".url";
+    private static final String START_TIME_PROPERTY = UrlSelectorFilter.class.getName() + ".startTime";
+
+    private final UrlSelector urlSelector;
+    private final Set<String> selectableUrls;
+    private final ThreadLocal<String> pendingUrl = new ThreadLocal<>();
+
+    UrlSelectorFilter(UrlSelector urlSelector, String... selectableUrls) {
+        this.urlSelector = urlSelector;
+        this.selectableUrls = new HashSet<>(Arrays.asList(selectableUrls));
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext) {
+        String url = (String) requestContext.getConfiguration().getProperty(URL_PROPERTY);
+        if (url != null) {
+            requestContext.setProperty(START_TIME_PROPERTY, System.nanoTime());
+            pendingUrl.set(url);
+            if (selectableUrls.contains(url)) {
+                urlSelector.requestStarted(url);
+            }
+        }
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Long startTime = (Long) requestContext.getProperty(START_TIME_PROPERTY);
+        if (startTime != null) {
+            pendingUrl.remove();
+            String url = (String) requestContext.getConfiguration().getProperty(URL_PROPERTY);
+            if (selectableUrls.contains(url)) {
+                urlSelector.requestCompleted(url, System.nanoTime() - startTime);
+            }
+        }
+    }
+
+    /**
+     * Notifies the selector about the failure of the last request sent by the current thread, if it did not receive a
+     * response and its url is one of the selector's urls.
+     *
+     * @return url of the failed request, null if there is no request without a response.
+     */
+    String requestFailed(Exception ex) {
+        String url = pendingUrl.get();
+        if (url != null) {
+            pendingUrl.remove();
+            if (selectableUrls.contains(url)) {
+                urlSelector.urlWithError(url, ex);
+            }
+        }
+        return url;
+    }
+}
@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 /**
  * This class implements {@link SnapshotDeserializer} and provides common functionality like
@@ -79,6 +80,13 @@ public abstract class AbstractSnapshotDeserializer<I, O, S> extends AbstractSerD
 
     private LoadingCache<SchemaVersionKey, S> schemaCache;
 
+    // resolved contexts by schema version id, so that a payload with a known id does not go through the client caches
+    // of schema versions, schema metadata and parsed schemas.
+    private LongKeyedMap<SchemaVersionContext<S>> schemaVersionContexts;
+
+    // created once, so that getting the reader schema from a context does not allocate a loader for each payload.
+    private final BiFunction<String, Integer, S> schemaLoader = (name, version) -> getSchema(new SchemaVersionKey(name, version));
+
     public AbstractSnapshotDeserializer() {
     }
     
@@ -87,8 +95,10 @@ public abstract class AbstractSnapshotDeserializer<I, O, S> extends AbstractSerD
     }
     
     protected void doInit(Map<String, ?> config) {
+        Integer cacheMaxSize = getCacheMaxSize(config);
+        schemaVersionContexts = new LongKeyedMap<>(Math.max(cacheMaxSize, 1));
         schemaCache = CacheBuilder.newBuilder()
-                .maximumSize(getCacheMaxSize(config))
+                .maximumSize(cacheMaxSize)
                 .expireAfterAccess(getCacheExpiryInSecs(config), TimeUnit.SECONDS)
                 .build(new CacheLoader<SchemaVersionKey, S>() {
                     @Override
@@ -133,25 +143,129 @@ public abstract class AbstractSnapshotDeserializer<I, O, S> extends AbstractSerD
     @Override
     public O deserialize(I input,
                          Integer readerSchemaVersion) throws SerDesException {
+        checkState();
+
+        // it can be enhanced to have respective protocol handlers for different versions
+        byte protocolId = retrieveProtocolId(input);
+        SchemaVersionContext<S> schemaVersionContext = retrieveSchemaVersionContext(protocolId, input);
+
+        return doDeserialize(input, protocolId, schemaVersionContext, readerSchemaVersion);
+    }
+
+    /**
+     * Retrieves the writer schema version info from the given {@code input} and returns its resolved context. It
+     * invokes {@link #retrieveSchemaIdVersion(byte, Object)} by default, extensions can override this to resolve
+     * schema version ids without creating a {@link SchemaIdVersion}.
+     *
+     * @param protocolId protocol id
+     * @param input input from which version and id are to be retrieved
+     * @throws SerDesException when any ser/des error occurs
+     */
+    protected SchemaVersionContext<S> retrieveSchemaVersionContext(byte protocolId, I input) throws SerDesException {
+        return getSchemaVersionContext(retrieveSchemaIdVersion(protocolId, input));
+    }
+
+    /**
+     * Returns the resolved context of the writer schema version with the given {@code schemaVersionId}. A known id
+     * costs a single lookup without any allocation.
+     *
+     * @param schemaVersionId schema version id retrieved from the payload
+     * @throws SerDesException when there is no schema for the given {@code schemaVersionId}
+     */
+    protected SchemaVersionContext<S> getSchemaVersionContext(long schemaVersionId) throws SerDesException {
+        SchemaVersionContext<S> schemaVersionContext = schemaVersionContexts.get(schemaVersionId);
+        return schemaVersionContext != null ? schemaVersionContext : getSchemaVersionContext(new SchemaIdVersion(schemaVersionId));
+    }
+
+    /**
+     * Returns the resolved context of the writer schema version with the given {@code schemaIdVersion}. Identifiers
+     * with schema metadata id and version are always resolved with schema registry client as their schema version id
+     * is not known, the context already kept for the resolved schema version id is returned for them.
+     *
+     * @param schemaIdVersion schema version identifier retrieved from the payload
+     * @throws SerDesException when there is no schema for the given {@code schemaIdVersion}
+     */
+    protected SchemaVersionContext<S> getSchemaVersionContext(SchemaIdVersion schemaIdVersion) throws SerDesException {
+        Long schemaVersionId = schemaIdVersion.getSchemaVersionId();
+        if (schemaVersionId != null) {
+            SchemaVersionContext<S> schemaVersionContext = schemaVersionContexts.get(schemaVersionId);
+            if (schemaVersionContext != null) {
+                return schemaVersionContext;
+            }
+        }
+
+        SchemaVersionInfo schemaVersionInfo = retrieveSchemaVersionInfo(schemaIdVersion);
+        if (schemaVersionId == null && schemaVersionInfo.getId() != null) {
+            // keeps the existing context and its reader schema instead of replacing it for each payload.
+            SchemaVersionContext<S> schemaVersionContext = schemaVersionContexts.get(schemaVersionInfo.getId());
+            if (schemaVersionContext != null) {
+                return schemaVersionContext;
+            }
+        }
+
+        SchemaMetadata schemaMetadata = retrieveSchemaMetadata(schemaVersionInfo.getName());
+        S writerSchema = getSchema(new SchemaVersionKey(schemaMetadata.getName(), schemaVersionInfo.getVersion()));
+        SchemaVersionContext<S> schemaVersionContext = new SchemaVersionContext<>(schemaMetadata, schemaVersionInfo.getVersion(), writerSchema);
+        if (schemaVersionInfo.getId() != null) {
+            schemaVersionContexts.put(schemaVersionInfo.getId(), schemaVersionContext);
+        }
+
+        return schemaVersionContext;
+    }
+
+    /**
+     * Returns the deserialized object for the given input with the resolved context of its writer schema version. It
+     * invokes {@link #doDeserialize(Object, byte, SchemaMetadata, Integer, Integer)} by default, extensions can override
+     * this to use the parsed schemas in the given context.
+     *
+     * @param input payload to be deserialized into.
+     * @param protocolId protocol id for deserializtion.
+     * @param schemaVersionContext resolved context of the writer schema version
+     * @param readerSchemaVersion schema version for reading/projection.
+     * @throws SerDesException when any ser/des error occurs
+     */
+    protected O doDeserialize(I input,
+                              byte protocolId,
+                              SchemaVersionContext<S> schemaVersionContext,
+                              Integer readerSchemaVersion) throws SerDesException {
+        return doDeserialize(input,
+                             protocolId,
+                             schemaVersionContext.getSchemaMetadata(),
+                             schemaVersionContext.getVersion(),
+                             readerSchemaVersion);
+    }
+
+    /**
+     * Checks whether this instance is initialized and not yet closed.
+     */
+    protected void checkState() {
         if(!initialized) {
             throw new IllegalStateException("init should be invoked before invoking deserialize operation");
         }
         if(closed) {
             throw new IllegalStateException("This deserializer is already closed");
         }
+    }
 
-        // it can be enhanced to have respective protocol handlers for different versions
-        byte protocolId = retrieveProtocolId(input);
-        SchemaIdVersion schemaIdVersion = retrieveSchemaIdVersion(protocolId, input);
-        SchemaVersionInfo schemaVersionInfo = null;
+    /**
+     * Returns {@link SchemaVersionInfo} of the writer schema for the given {@code schemaIdVersion}.
+     * @param schemaIdVersion schema version identifier retrieved from the payload
+     * @throws SerDesException when there is no schema for the given {@code schemaIdVersion}
+     */
+    protected SchemaVersionInfo retrieveSchemaVersionInfo(SchemaIdVersion schemaIdVersion) throws SerDesException {
         try {
-            schemaVersionInfo = schemaRegistryClient.getSchemaVersionInfo(schemaIdVersion);
+            return schemaRegistryClient.getSchemaVersionInfo(schemaIdVersion);
         } catch (SchemaNotFoundException e) {
             throw new SerDesException(e);
         }
-        SchemaMetadata schemaMetadata = schemaRegistryClient.getSchemaMetadataInfo(schemaVersionInfo.getName()).getSchemaMetadata();
+    }
 
-        return doDeserialize(input, protocolId, schemaMetadata, schemaVersionInfo.getVersion(), readerSchemaVersion);
+    /**
+     * Returns {@link SchemaMetadata} of the schema with the given {@code schemaName}.
+     * @param schemaName name of the schema
+     */
+    protected SchemaMetadata retrieveSchemaMetadata(String schemaName) {
+        return schemaRegistryClient.getSchemaMetadataInfo(schemaName).getSchemaMetadata();
     }
 
     /**
@@ -186,6 +300,17 @@ public abstract class AbstractSnapshotDeserializer<I, O, S> extends AbstractSerD
      */
     protected abstract SchemaIdVersion retrieveSchemaIdVersion(byte protocolId, I input) throws SerDesException;
 
+    /**
+     * Returns the reader schema of the given {@code readerSchemaVersion} for the schema of the given context.
+     *
+     * @param schemaVersionContext resolved context of the writer schema version
+     * @param readerSchemaVersion schema version for reading/projection, can be null
+     * @return the reader schema, null if the given {@code readerSchemaVersion} is null
+     */
+    protected S getReaderSchema(SchemaVersionContext<S> schemaVersionContext, Integer readerSchemaVersion) {
+        return schemaVersionContext.getReaderSchema(readerSchemaVersion, schemaLoader);
+    }
+
     /**
      * Returns Schema for the given {@code schemaVersionKey} from loadable cache.
      * @param schemaVersionKey schema version key
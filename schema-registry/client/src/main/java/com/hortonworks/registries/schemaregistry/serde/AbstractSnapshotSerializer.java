@@ -50,26 +50,46 @@ public abstract class AbstractSnapshotSerializer<I, O> extends AbstractSerDes im
 
     @Override
     public final O serialize(I input, SchemaMetadata schemaMetadata) throws SerDesException {
-        if(!initialized) {
-            throw new IllegalStateException("init should be invoked before invoking serialize operation");
-        }
-        if(closed) {
-            throw new IllegalStateException("This serializer is already closed");
-        }
+        SchemaIdVersion schemaIdVersion = getSchemaIdVersion(input, schemaMetadata);
+
+        // write the version and given object to the output
+        return doSerialize(input, schemaIdVersion);
+    }
+
+    /**
+     * Registers the schema of the given {@code input} with the given {@code schemaMetadata} if it is not yet registered
+     * and returns the respective schema version.
+     *
+     * @param input input payload
+     * @param schemaMetadata metadata of the schema
+     * @throws SerDesException when the schema can not be registered
+     */
+    protected SchemaIdVersion getSchemaIdVersion(I input, SchemaMetadata schemaMetadata) throws SerDesException {
+        checkState();
 
         // compute schema based on input object
         String schema = getSchemaText(input);
 
         // register that schema and get the version
         try {
-            SchemaIdVersion schemaIdVersion = schemaRegistryClient.addSchemaVersion(schemaMetadata, new SchemaVersion(schema, "Schema registered by serializer:" + this.getClass()));
-            // write the version and given object to the output
-            return doSerialize(input, schemaIdVersion);
+            return schemaRegistryClient.addSchemaVersion(schemaMetadata, new SchemaVersion(schema, "Schema registered by serializer:" + this.getClass()));
         } catch (InvalidSchemaException | IncompatibleSchemaException | SchemaNotFoundException e) {
             throw new SerDesException(e);
         }
     }
 
+    /**
+     * Checks whether this instance is initialized and not yet closed.
+     */
+    protected void checkState() {
+        if(!initialized) {
+            throw new IllegalStateException("init should be invoked before invoking serialize operation");
+        }
+        if(closed) {
+            throw new IllegalStateException("This serializer is already closed");
+        }
+    }
+
     /**
      * Returns textual representation of the schema for the given {@code input} payload.
      * @param input input payload
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serde;
+
+/**
+ * Map with primitive long keys for read mostly lookups. Lookups are lock free and do not allocate: they probe an open
+ * addressing table which is never modified after it is published. Updates copy the table, so they should be rare
+ * compared to lookups.
+ * <p>
+ * When an update of a new key finds the map holding {@code maxSize} entries, all the existing entries are dropped
+ * instead of tracking usage of entries on lookups.
+ *
+ * @param <V> type of the values, values can not be null
+ */
+final class LongKeyedMap<V> {
+    private static final Table EMPTY_TABLE = new Table(new long[1], new Object[1], 0);
+
+    private final int maxSize;
+    private volatile Table table = EMPTY_TABLE;
+
+    LongKeyedMap(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize should be positive");
+        }
+        this.maxSize = maxSize;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Table current = table;
+        long[] keys = current.keys;
+        Object[] values = current.values;
+        int mask = values.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            Object value = values[i];
+            if (value == null || keys[i] == key) {
+                return (V) value;
+            }
+        }
+    }
+
+    synchronized void put(long key, V value) {
+        if (value == null) {
+            throw new NullPointerException("value can not be null");
+        }
+
+        Table current = table;
+        boolean newKey = get(key) == null;
+        if (newKey && current.size >= maxSize) {
+            current = EMPTY_TABLE;
+        }
+
+        int size = newKey ? current.size + 1 : current.size;
+        // keeps the table at most half full, so that probes are short and always find an empty slot.
+        int capacity = Integer.highestOneBit(Math.max(size, 1) * 4 - 1);
+        long[] keys = new long[capacity];
+        Object[] values = new Object[capacity];
+        for (int i = 0; i < current.values.length; i++) {
+            if (current.values[i] != null && current.keys[i] != key) {
+                insert(keys, values, current.keys[i], current.values[i]);
+            }
+        }
+        insert(keys, values, key, value);
+
+        table = new Table(keys, values, size);
+    }
+
+    synchronized void clear() {
+        table = EMPTY_TABLE;
+    }
+
+    int size() {
+        return table.size;
+    }
+
+    private static void insert(long[] keys, Object[] values, long key, Object value) {
+        int mask = values.length - 1;
+        int i = index(key, mask);
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private static int index(long key, int mask) {
+        int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int size;
+
+        private Table(long[] keys, Object[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.size = size;
+        }
+    }
+}
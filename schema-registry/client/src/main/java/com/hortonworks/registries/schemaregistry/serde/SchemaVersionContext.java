@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serde;
+
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+
+import java.util.function.BiFunction;
+
+/**
+ * Resolved information of a writer schema version which is required to deserialize payloads written with it. It also
+ * keeps the last used reader schema, as payloads of a writer schema are mostly read with the same reader schema version.
+ *
+ * @param <S> parsed schema representation
+ */
+public final class SchemaVersionContext<S> {
+    private final SchemaMetadata schemaMetadata;
+    private final Integer version;
+    private final S writerSchema;
+    private volatile ReaderSchema<S> readerSchema;
+
+    public SchemaVersionContext(SchemaMetadata schemaMetadata, Integer version, S writerSchema) {
+        this.schemaMetadata = schemaMetadata;
+        this.version = version;
+        this.writerSchema = writerSchema;
+    }
+
+    public SchemaMetadata getSchemaMetadata() {
+        return schemaMetadata;
+    }
+
+    /**
+     * @return version of the writer schema.
+     */
+    public Integer getVersion() {
+        return version;
+    }
+
+    public S getWriterSchema() {
+        return writerSchema;
+    }
+
+    /**
+     * Returns the reader schema of the given {@code readerSchemaVersion}, it is loaded with the given {@code loader}
+     * when it is not the last used reader schema version.
+     *
+     * @param readerSchemaVersion version of the reader schema, can be null
+     * @param loader              loads the parsed schema for a schema name and version
+     * @return the reader schema, null if the given {@code readerSchemaVersion} is null
+     */
+    public S getReaderSchema(Integer readerSchemaVersion, BiFunction<String, Integer, S> loader) {
+        if (readerSchemaVersion == null) {
+            return null;
+        }
+
+        ReaderSchema<S> current = readerSchema;
+        if (current != null && current.version == readerSchemaVersion) {
+            return current.schema;
+        }
+
+        S schema = loader.apply(schemaMetadata.getName(), readerSchemaVersion);
+        readerSchema = new ReaderSchema<>(readerSchemaVersion, schema);
+        return schema;
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaVersionContext{" +
+                "schemaMetadata=" + schemaMetadata +
+                ", version=" + version +
+                '}';
+    }
+
+    private static final class ReaderSchema<S> {
+        private final int version;
+        private final S schema;
+
+        private ReaderSchema(int version, S schema) {
+            this.version = version;
+            this.schema = schema;
+        }
+    }
+}
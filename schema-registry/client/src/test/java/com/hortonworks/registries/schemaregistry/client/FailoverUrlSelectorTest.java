@@ -0,0 +1,70 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.google.common.base.Joiner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ *
+ */
+public class FailoverUrlSelectorTest {
+
+    private static final String[] URLS = {"localhost:8080", "localhost:8081", "localhost:8082"};
+
+    @Test
+    public void testFailoverUrls() throws Exception {
+        FailoverUrlSelector failoverUrlSelector = createUrlSelector();
+        Assert.assertEquals(URLS[0], failoverUrlSelector.select());
+
+        failoverUrlSelector.urlWithError(URLS[0], new IOException());
+        Assert.assertEquals(URLS[1], failoverUrlSelector.select());
+
+        failoverUrlSelector.urlWithError(URLS[1], new IOException());
+        Assert.assertEquals(URLS[2], failoverUrlSelector.select());
+    }
+
+    @Test
+    public void testUnknownUrlErrorsAreIgnored() throws Exception {
+        FailoverUrlSelector failoverUrlSelector = createUrlSelector();
+        for (int i = 0; i < URLS.length * 2; i++) {
+            failoverUrlSelector.urlWithError("localhost:9090", new IOException());
+        }
+
+        Assert.assertEquals(URLS[0], failoverUrlSelector.select());
+    }
+
+    @Test
+    public void testRepeatedUrlErrorsAreCountedOnce() throws Exception {
+        FailoverUrlSelector failoverUrlSelector = createUrlSelector();
+        failoverUrlSelector.urlWithError(URLS[0], new IOException());
+        failoverUrlSelector.urlWithError(URLS[0], new IOException());
+        failoverUrlSelector.urlWithError(URLS[0], new IOException());
+
+        // repeated errors of the first url should not be considered as all the urls are failed.
+        Assert.assertEquals(URLS[1], failoverUrlSelector.select());
+    }
+
+    private FailoverUrlSelector createUrlSelector() {
+        FailoverUrlSelector failoverUrlSelector = new FailoverUrlSelector(Joiner.on(",").join(URLS));
+        failoverUrlSelector.init(Collections.emptyMap());
+        return failoverUrlSelector;
+    }
+}
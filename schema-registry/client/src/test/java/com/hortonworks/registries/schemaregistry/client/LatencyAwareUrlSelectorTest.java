@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.google.common.base.Joiner;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *
+ */
+public class LatencyAwareUrlSelectorTest {
+    private static final String[] URLS = {"http://localhost:8080", "http://localhost:8081", "http://localhost:8082"};
+
+    private LatencyAwareUrlSelector urlSelector;
+
+    @Before
+    public void setup() {
+        urlSelector = new LatencyAwareUrlSelector(Joiner.on(",").join(URLS));
+        // health checks are disabled as these urls are not reachable.
+        urlSelector.init(Collections.<String, Object>singletonMap(LatencyAwareUrlSelector.HEALTH_CHECK_INTERVAL_MS, 0L));
+    }
+
+    @After
+    public void cleanup() {
+        urlSelector.close();
+    }
+
+    @Test
+    public void testSlowUrlIsNotSelected() throws Exception {
+        urlSelector.requestStarted(URLS[0]);
+        urlSelector.requestCompleted(URLS[0], TimeUnit.MILLISECONDS.toNanos(100));
+        for (int i = 1; i < URLS.length; i++) {
+            urlSelector.requestStarted(URLS[i]);
+            urlSelector.requestCompleted(URLS[i], TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertNotEquals(URLS[0], urlSelector.select());
+        }
+    }
+
+    @Test
+    public void testFailedUrlIsNotSelected() throws Exception {
+        urlSelector.urlWithError(URLS[0], new IOException());
+        Assert.assertFalse(urlSelector.isHealthy(URLS[0]));
+
+        for (int i = 0; i < 1000; i++) {
+            Assert.assertNotEquals(URLS[0], urlSelector.select());
+        }
+
+        // all urls are selected again when none of them are healthy.
+        urlSelector.urlWithError(URLS[1], new IOException());
+        urlSelector.urlWithError(URLS[2], new IOException());
+        boolean selected = false;
+        for (int i = 0; i < 1000 && !selected; i++) {
+            selected = URLS[0].equals(urlSelector.select());
+        }
+        Assert.assertTrue(selected);
+    }
+
+    @Test
+    public void testUrlsAreProbedWithGivenProbe() throws Exception {
+        LatencyAwareUrlSelector probedUrlSelector = new LatencyAwareUrlSelector(Joiner.on(",").join(URLS));
+        Set<String> probedUrls = ConcurrentHashMap.newKeySet();
+        probedUrlSelector.setProbe((probeUrl, timeoutMs) -> {
+            probedUrls.add(probeUrl);
+            return probeUrl.startsWith(URLS[0]) ? 503 : 401;
+        });
+        probedUrlSelector.init(Collections.<String, Object>singletonMap(LatencyAwareUrlSelector.HEALTH_CHECK_INTERVAL_MS, 10L));
+        try {
+            probedUrlSelector.urlWithError(URLS[1], new IOException());
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((probedUrlSelector.isHealthy(URLS[0]) || !probedUrlSelector.isHealthy(URLS[1]))
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            // server errors mark a url unhealthy, any other response marks it healthy again.
+            Assert.assertFalse(probedUrlSelector.isHealthy(URLS[0]));
+            Assert.assertTrue(probedUrlSelector.isHealthy(URLS[1]));
+            Assert.assertTrue(probedUrls.contains(URLS[2] + "/" + LatencyAwareUrlSelector.DEFAULT_HEALTH_CHECK_PATH));
+        } finally {
+            probedUrlSelector.close();
+        }
+    }
+}
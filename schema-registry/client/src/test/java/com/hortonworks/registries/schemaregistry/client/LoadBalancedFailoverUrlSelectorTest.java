@@ -53,4 +53,18 @@ public class LoadBalancedFailoverUrlSelectorTest {
         Assert.assertEquals(urls[4], current);
 
     }
+
+    @Test
+    public void testUnknownUrlErrorsAreIgnored() throws Exception {
+        String clusterUrl = Joiner.on(",").join("localhost:8080", "localhost:8081");
+        LoadBalancedFailoverUrlSelector failoverUrlSelector = new LoadBalancedFailoverUrlSelector(clusterUrl);
+        failoverUrlSelector.init(Collections.emptyMap());
+
+        failoverUrlSelector.urlWithError("localhost:8080", new IOException());
+        failoverUrlSelector.urlWithError("localhost:9090", new IOException());
+
+        // unknown url should not make the failed url as active again.
+        Assert.assertEquals("localhost:8081", failoverUrlSelector.select());
+        Assert.assertEquals("localhost:8081", failoverUrlSelector.select());
+    }
 }
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
+import com.hortonworks.registries.schemaregistry.SchemaVersionKey;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+
+/**
+ *
+ */
+public class PersistentSchemaCacheTest {
+
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        file = File.createTempFile("schema-cache-", ".dat");
+        file.delete();
+    }
+
+    @After
+    public void cleanup() {
+        file.delete();
+    }
+
+    @Test
+    public void testEntriesAreAvailableAfterReopen() throws Exception {
+        SchemaVersionInfo schemaVersionInfo = createSchemaVersionInfo(1L);
+        byte[] digest = {1, 2, 3, 4};
+        SchemaIdVersion schemaIdVersion = new SchemaIdVersion(10L, 1, 1L);
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            cache.putSchemaVersionInfo(schemaVersionInfo);
+            cache.putSchemaIdVersion("schema-1", digest, schemaIdVersion);
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertEquals(schemaVersionInfo, cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertEquals(schemaVersionInfo, cache.getSchemaVersionInfo(new SchemaIdVersion(10L, 1)));
+            Assert.assertEquals(schemaVersionInfo, cache.getSchemaVersionInfo(new SchemaVersionKey("schema-1", 1)));
+
+            SchemaIdVersion storedSchemaIdVersion = cache.getSchemaIdVersion("schema-1", digest);
+            Assert.assertEquals(schemaIdVersion.getSchemaMetadataId(), storedSchemaIdVersion.getSchemaMetadataId());
+            Assert.assertEquals(schemaIdVersion.getVersion(), storedSchemaIdVersion.getVersion());
+            Assert.assertEquals(schemaIdVersion.getSchemaVersionId(), storedSchemaIdVersion.getSchemaVersionId());
+            Assert.assertNull(cache.getSchemaIdVersion("schema-1", new byte[]{4, 3, 2, 1}));
+        }
+    }
+
+    @Test
+    public void testInvalidatedEntriesAreNotAvailableAfterReopen() throws Exception {
+        byte[] digest = {1, 2, 3, 4};
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(2L));
+            cache.putSchemaIdVersion("schema-1", digest, new SchemaIdVersion(10L, 1, 1L));
+
+            cache.invalidateSchemaVersion(new SchemaVersionKey("schema-1", 1));
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertNull(cache.getSchemaIdVersion("schema-1", digest));
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertNull(cache.getSchemaIdVersion("schema-1", digest));
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(2L)));
+
+            // an invalidated version is served again once it is stored again.
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+        }
+    }
+
+    @Test
+    public void testCorruptedAndPartialEntriesAreSkipped() throws Exception {
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(2L));
+        }
+
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            // corrupt the payload of the first entry, which starts after the file header and the entry's prefix.
+            long offset = 5 + 4 + 17 + 10;
+            randomAccessFile.seek(offset);
+            int value = randomAccessFile.read();
+            randomAccessFile.seek(offset);
+            randomAccessFile.write(value ^ 0xFF);
+
+            // partially written entry at the end of the file
+            randomAccessFile.seek(randomAccessFile.length());
+            randomAccessFile.write(new byte[]{0, 0, 1});
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(2L)));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(3L));
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(2L)));
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(3L)));
+        }
+    }
+
+    @Test
+    public void testFileWithUnknownFormatIsDiscarded() throws Exception {
+        Files.write(file.toPath(), "not a schema cache file".getBytes("UTF-8"));
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+        }
+    }
+
+    @Test
+    public void testFileIsCompactedOnLoad() throws Exception {
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+            cache.putSchemaVersionInfo(createSchemaVersionInfo(2L));
+            cache.invalidateSchemaVersion(2L);
+        }
+        long size = file.length();
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(2L)));
+        }
+        long compactedSize = file.length();
+        Assert.assertTrue(compactedSize < size);
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(1L)));
+            Assert.assertNull(cache.getSchemaVersionInfo(new SchemaIdVersion(2L)));
+        }
+        Assert.assertEquals(compactedSize, file.length());
+    }
+
+    @Test
+    public void testFileSharedByCachesInSameProcess() throws Exception {
+        try (PersistentSchemaCache cache1 = new PersistentSchemaCache(file, 60);
+             PersistentSchemaCache cache2 = new PersistentSchemaCache(file, 60)) {
+            cache1.putSchemaVersionInfo(createSchemaVersionInfo(1L));
+            cache2.putSchemaVersionInfo(createSchemaVersionInfo(2L));
+            cache1.putSchemaVersionInfo(createSchemaVersionInfo(3L));
+        }
+
+        try (PersistentSchemaCache cache = new PersistentSchemaCache(file, 60)) {
+            for (long id = 1L; id <= 3L; id++) {
+                Assert.assertNotNull(cache.getSchemaVersionInfo(new SchemaIdVersion(id)));
+            }
+        }
+    }
+
+    private SchemaVersionInfo createSchemaVersionInfo(Long id) {
+        return new SchemaVersionInfo(id,
+                                     "schema-" + id,
+                                     1,
+                                     9L + id,
+                                     "{\"type\":\"string\"}",
+                                     System.currentTimeMillis(),
+                                     "schema version " + id,
+                                     null);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.client;
+
+import com.google.common.base.Joiner;
+import mockit.Expectations;
+import mockit.Mocked;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.ClientRequestContext;
+import java.net.ConnectException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ *
+ */
+public class UrlSelectorFilterTest {
+
+    private static final String[] URLS = {"http://localhost:8080", "http://localhost:8081", "http://localhost:8082"};
+    private static final String LEADER_URL = "http://localhost:9090";
+
+    @Mocked
+    private ClientRequestContext requestContext;
+
+    @Test
+    public void testFailedLeaderWritesWithFailoverUrlSelector() throws Exception {
+        FailoverUrlSelector urlSelector = new FailoverUrlSelector(Joiner.on(",").join(URLS));
+        urlSelector.init(Collections.emptyMap());
+
+        failLeaderWrites(urlSelector);
+
+        // leader url failures are not considered, the selector still points to its first url.
+        Assert.assertEquals(URLS[0], urlSelector.select());
+    }
+
+    @Test
+    public void testFailedLeaderWritesWithLoadBalancedFailoverUrlSelector() throws Exception {
+        LoadBalancedFailoverUrlSelector urlSelector = new LoadBalancedFailoverUrlSelector(Joiner.on(",").join(URLS));
+        urlSelector.init(Collections.emptyMap());
+        urlSelector.urlWithError(URLS[0], new ConnectException());
+
+        failLeaderWrites(urlSelector);
+
+        // failed url is still skipped as leader url failures did not make all the urls as active again.
+        Set<String> selected = new HashSet<>();
+        for (int i = 0; i < URLS.length * 2; i++) {
+            selected.add(urlSelector.select());
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList(URLS[1], URLS[2])), selected);
+    }
+
+    private void failLeaderWrites(UrlSelector urlSelector) throws Exception {
+        UrlSelectorFilter urlSelectorFilter = new UrlSelectorFilter(urlSelector, URLS);
+
+        new Expectations() {{
+            requestContext.getConfiguration().getProperty(UrlSelectorFilter.URL_PROPERTY);
+            result = LEADER_URL;
+        }};
+
+        for (int i = 0; i < URLS.length * 2; i++) {
+            urlSelectorFilter.filter(requestContext);
+            ProcessingException ex = new ProcessingException(new ConnectException());
+            // failed leader url is still returned to forget the leader.
+            Assert.assertEquals(LEADER_URL, urlSelectorFilter.requestFailed(ex));
+        }
+    }
+}
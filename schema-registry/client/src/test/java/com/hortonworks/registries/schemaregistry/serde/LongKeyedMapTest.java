@@ -0,0 +1,60 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serde;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class LongKeyedMapTest {
+
+    @Test
+    public void testPutAndGet() throws Exception {
+        LongKeyedMap<String> map = new LongKeyedMap<>(100);
+        Assert.assertNull(map.get(1L));
+
+        for (long key = -50; key < 50; key++) {
+            map.put(key, "value-" + key);
+        }
+        map.put(0L, "updated");
+
+        Assert.assertEquals(100, map.size());
+        for (long key = -50; key < 50; key++) {
+            Assert.assertEquals(key == 0 ? "updated" : "value-" + key, map.get(key));
+        }
+        Assert.assertNull(map.get(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testEntriesAreDroppedWhenFull() throws Exception {
+        LongKeyedMap<String> map = new LongKeyedMap<>(2);
+        map.put(1L, "one");
+        map.put(2L, "two");
+        map.put(2L, "two");
+        Assert.assertEquals(2, map.size());
+
+        map.put(3L, "three");
+        Assert.assertEquals(1, map.size());
+        Assert.assertNull(map.get(1L));
+        Assert.assertEquals("three", map.get(3L));
+
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertNull(map.get(3L));
+    }
+}
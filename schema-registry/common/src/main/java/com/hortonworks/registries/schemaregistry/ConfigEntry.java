@@ -203,5 +203,20 @@ public final class ConfigEntry<T> implements Serializable {
         }
     }
 
+    public static class NonNegativeNumberValidator implements ConfigEntry.Validator<Number> {
+        private static final NonNegativeNumberValidator instance = new NonNegativeNumberValidator();
+
+        @Override
+        public void validate(Number number) {
+            if (number.doubleValue() < 0) {
+                throw new IllegalArgumentException("Given number " + number + " must not be less than zero.");
+            }
+        }
+
+        public static NonNegativeNumberValidator get() {
+            return instance;
+        }
+    }
+
 
 }
@@ -15,62 +15,172 @@
  **/
 package com.hortonworks.registries.schemaregistry;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.hortonworks.registries.schemaregistry.errors.SchemaNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Loading cache for {@link Key} with values {@link SchemaVersionInfo}.
+ * <p>
+ * When a refresh interval is given, entries older than that interval are reloaded asynchronously on their next access
+ * and the current value is returned meanwhile, so that callers do not block on the target service for entries which
+ * are in use. When a stale window is given, the last successfully retrieved value of an entry is returned for that
+ * long if the target service can not be reached while loading it again.
  */
 public class SchemaVersionInfoCache {
     private static final Logger LOG = LoggerFactory.getLogger(SchemaVersionInfoCache.class);
 
     private final LoadingCache<Key, SchemaVersionInfo> loadingCache;
+    private final Cache<Key, SchemaVersionInfo> staleCache;
+    private final ExecutorService refreshExecutor;
     private final ConcurrentMap<SchemaIdVersion, SchemaVersionKey> idWithNameVersion;
     private final ConcurrentMap<SchemaVersionKey, List<SchemaIdVersion>> nameVersionWithIds;
 
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong totalRefreshTimeNanos = new AtomicLong();
+    private final AtomicLong staleServeCount = new AtomicLong();
+
     public SchemaVersionInfoCache(final SchemaVersionRetriever schemaRetriever,
                                   final int schemaCacheSize,
                                   final long schemaCacheExpiryInMilliSecs) {
+        this(schemaRetriever, schemaCacheSize, schemaCacheExpiryInMilliSecs, 0L, 0L);
+    }
+
+    /**
+     * @param schemaRetriever                  retrieves schema versions from the target service
+     * @param schemaCacheSize                  maximum number of entries in this cache
+     * @param schemaCacheExpiryInMilliSecs     entries are removed when they are not accessed for this interval
+     * @param schemaCacheRefreshInMilliSecs    entries are reloaded asynchronously on their first access after this interval
+     *                                         since they are loaded, refresh is disabled when it is not positive.
+     * @param schemaCacheStaleWindowInMilliSecs last retrieved value of an entry is returned for this interval when it can
+     *                                         not be loaded from the target service, disabled when it is not positive.
+     */
+    public SchemaVersionInfoCache(final SchemaVersionRetriever schemaRetriever,
+                                  final int schemaCacheSize,
+                                  final long schemaCacheExpiryInMilliSecs,
+                                  final long schemaCacheRefreshInMilliSecs,
+                                  final long schemaCacheStaleWindowInMilliSecs) {
+        this(schemaRetriever, schemaRetriever, schemaCacheSize, schemaCacheExpiryInMilliSecs,
+             schemaCacheRefreshInMilliSecs, schemaCacheStaleWindowInMilliSecs);
+    }
+
+    /**
+     * Creates a cache which loads entries with {@code schemaRetriever} and refreshes them with
+     * {@code schemaRefreshRetriever}, so that retrievers which serve entries from a local tier before going to the target
+     * service can bypass that tier when refreshing.
+     *
+     * @see #SchemaVersionInfoCache(SchemaVersionRetriever, int, long, long, long)
+     */
+    public SchemaVersionInfoCache(final SchemaVersionRetriever schemaRetriever,
+                                  final SchemaVersionRetriever schemaRefreshRetriever,
+                                  final int schemaCacheSize,
+                                  final long schemaCacheExpiryInMilliSecs,
+                                  final long schemaCacheRefreshInMilliSecs,
+                                  final long schemaCacheStaleWindowInMilliSecs) {
         idWithNameVersion = new ConcurrentHashMap<>(schemaCacheSize);
         nameVersionWithIds = new ConcurrentHashMap<>(schemaCacheSize);
-        loadingCache = createLoadingCache(schemaRetriever, schemaCacheSize, schemaCacheExpiryInMilliSecs);
+        refreshExecutor = schemaCacheRefreshInMilliSecs > 0 ? createRefreshExecutor() : null;
+        staleCache = schemaCacheStaleWindowInMilliSecs > 0
+                     ? CacheBuilder.newBuilder()
+                                   .maximumSize(schemaCacheSize)
+                                   .expireAfterWrite(schemaCacheStaleWindowInMilliSecs, TimeUnit.MILLISECONDS)
+                                   .build()
+                     : null;
+        loadingCache = createLoadingCache(schemaRetriever, schemaRefreshRetriever, schemaCacheSize,
+                                          schemaCacheExpiryInMilliSecs, schemaCacheRefreshInMilliSecs);
+    }
+
+    private static ExecutorService createRefreshExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "schema-version-cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     private LoadingCache<Key, SchemaVersionInfo> createLoadingCache(SchemaVersionRetriever schemaRetriever,
+                                                                    SchemaVersionRetriever schemaRefreshRetriever,
                                                                     int schemaCacheSize,
-                                                                    long schemaCacheExpiryInMilliSecs) {
-        return CacheBuilder.newBuilder()
-                           .maximumSize(schemaCacheSize)
-                           .expireAfterAccess(schemaCacheExpiryInMilliSecs, TimeUnit.MILLISECONDS)
-                           .build(new CacheLoader<Key, SchemaVersionInfo>() {
-                                       @Override
-                                       public SchemaVersionInfo load(Key key) throws Exception {
-                                           LOG.info("Loading entry for cache with key [{}] from target service", key);
-                                           SchemaVersionInfo schemaVersionInfo;
-                                           if (key.schemaVersionKey != null) {
-                                               schemaVersionInfo = schemaRetriever.retrieveSchemaVersion(key.schemaVersionKey);
-                                           } else if (key.schemaIdVersion != null) {
-                                               schemaVersionInfo = schemaRetriever.retrieveSchemaVersion(key.schemaIdVersion);
-                                           } else {
-                                               throw new IllegalArgumentException("Given argument is not valid: " + key);
-                                           }
-
-                                           updateCacheInvalidationEntries(schemaVersionInfo);
-                                           return schemaVersionInfo;
-                                       }
-                                   });
+                                                                    long schemaCacheExpiryInMilliSecs,
+                                                                    long schemaCacheRefreshInMilliSecs) {
+        CacheLoader<Key, SchemaVersionInfo> cacheLoader = new CacheLoader<Key, SchemaVersionInfo>() {
+            @Override
+            public SchemaVersionInfo load(Key key) throws Exception {
+                LOG.debug("Loading entry for cache with key [{}] from target service", key);
+                return retrieve(schemaRetriever, key);
+            }
+
+            @Override
+            public ListenableFuture<SchemaVersionInfo> reload(Key key, SchemaVersionInfo oldValue) throws Exception {
+                LOG.debug("Refreshing entry for cache with key [{}] from target service", key);
+                long startTime = System.nanoTime();
+                try {
+                    return Futures.immediateFuture(retrieve(schemaRefreshRetriever, key));
+                } catch (Exception e) {
+                    refreshFailureCount.incrementAndGet();
+                    LOG.warn("Could not refresh entry for cache with key [{}], retaining the existing value", key, e);
+                    throw e;
+                } finally {
+                    recordRefresh(startTime);
+                }
+            }
+        };
+
+        CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder()
+                                                                .maximumSize(schemaCacheSize)
+                                                                .expireAfterAccess(schemaCacheExpiryInMilliSecs, TimeUnit.MILLISECONDS)
+                                                                .recordStats();
+        if (refreshExecutor == null) {
+            return cacheBuilder.build(cacheLoader);
+        }
+
+        // reloading happens on refreshExecutor and the existing value is returned till it is done. When reloading
+        // fails, the existing value is retained and it is reloaded again on a later access.
+        return cacheBuilder.refreshAfterWrite(schemaCacheRefreshInMilliSecs, TimeUnit.MILLISECONDS)
+                           .build(CacheLoader.asyncReloading(cacheLoader, refreshExecutor));
+    }
+
+    private SchemaVersionInfo retrieve(SchemaVersionRetriever schemaRetriever, Key key) throws SchemaNotFoundException {
+        SchemaVersionInfo schemaVersionInfo;
+        if (key.schemaVersionKey != null) {
+            schemaVersionInfo = schemaRetriever.retrieveSchemaVersion(key.schemaVersionKey);
+        } else if (key.schemaIdVersion != null) {
+            schemaVersionInfo = schemaRetriever.retrieveSchemaVersion(key.schemaIdVersion);
+        } else {
+            throw new IllegalArgumentException("Given argument is not valid: " + key);
+        }
+
+        updateCacheInvalidationEntries(schemaVersionInfo);
+        if (staleCache != null) {
+            staleCache.put(key, schemaVersionInfo);
+        }
+        return schemaVersionInfo;
+    }
+
+    private void recordRefresh(long startTime) {
+        totalRefreshTimeNanos.addAndGet(System.nanoTime() - startTime);
+        refreshCount.incrementAndGet();
     }
 
     private void updateCacheInvalidationEntries(SchemaVersionInfo schemaVersionInfo) {
@@ -93,39 +203,186 @@ public class SchemaVersionInfoCache {
 
     public SchemaVersionInfo getSchema(SchemaVersionInfoCache.Key key) throws SchemaNotFoundException {
         try {
-            LOG.info("Trying to load entry for cache with key [{}] from target service", key);
+            LOG.debug("Trying to load entry for cache with key [{}] from target service", key);
             return loadingCache.get(key);
         } catch (ExecutionException e) {
             if (e.getCause().getClass() == SchemaNotFoundException.class)
                 throw (SchemaNotFoundException) e.getCause();
+
+            SchemaVersionInfo staleSchemaVersionInfo = getStaleSchema(key, e);
+            if (staleSchemaVersionInfo != null) {
+                return staleSchemaVersionInfo;
+            }
             throw new RuntimeException(e);
+        } catch (UncheckedExecutionException e) {
+            SchemaVersionInfo staleSchemaVersionInfo = getStaleSchema(key, e);
+            if (staleSchemaVersionInfo != null) {
+                return staleSchemaVersionInfo;
+            }
+            throw e;
         }
     }
 
+    private SchemaVersionInfo getStaleSchema(Key key, Exception e) {
+        SchemaVersionInfo staleSchemaVersionInfo = staleCache != null ? staleCache.getIfPresent(key) : null;
+        if (staleSchemaVersionInfo != null) {
+            staleServeCount.incrementAndGet();
+            LOG.warn("Returning last retrieved entry for key [{}] as it could not be loaded from target service", key, e.getCause());
+        }
+        return staleSchemaVersionInfo;
+    }
+
     public SchemaVersionInfo getSchemaIfPresent(SchemaVersionInfoCache.Key key) throws SchemaNotFoundException {
-        LOG.info("Trying to get entry from cache if it is present in local cache with key [{}]", key);
+        LOG.debug("Trying to get entry from cache if it is present in local cache with key [{}]", key);
         return loadingCache.getIfPresent(key);
     }
 
+    /**
+     * Puts the given {@code schemaVersionInfos} into this cache with all the keys by which they can be looked up, so that
+     * callers retrieving many versions from the target service at once do not need to load them one by one.
+     *
+     * @param schemaVersionInfos schema versions retrieved from the target service
+     */
+    public void putSchemas(Collection<SchemaVersionInfo> schemaVersionInfos) {
+        for (SchemaVersionInfo schemaVersionInfo : schemaVersionInfos) {
+            put(Key.of(new SchemaVersionKey(schemaVersionInfo.getName(), schemaVersionInfo.getVersion())), schemaVersionInfo);
+            put(Key.of(new SchemaIdVersion(schemaVersionInfo.getId())), schemaVersionInfo);
+            if (schemaVersionInfo.getSchemaMetadataId() != null) {
+                put(Key.of(new SchemaIdVersion(schemaVersionInfo.getSchemaMetadataId(), schemaVersionInfo.getVersion())),
+                    schemaVersionInfo);
+            }
+
+            updateCacheInvalidationEntries(schemaVersionInfo);
+        }
+    }
+
+    private void put(Key key, SchemaVersionInfo schemaVersionInfo) {
+        loadingCache.put(key, schemaVersionInfo);
+        if (staleCache != null) {
+            staleCache.put(key, schemaVersionInfo);
+        }
+    }
+
     public void invalidateSchema(SchemaVersionInfoCache.Key key) {
         LOG.info("Invalidating cache entry for key [{}]", key);
-        loadingCache.invalidate(key);
+        invalidate(key);
 
         SchemaVersionKey schemaVersionKey =
                 key.schemaIdVersion != null ? idWithNameVersion.get(key.schemaIdVersion) : key.schemaVersionKey;
 
         // it can be null if it is not accessed earlier.
         if (schemaVersionKey != null) {
-            loadingCache.invalidate(Key.of(schemaVersionKey));
+            invalidate(Key.of(schemaVersionKey));
             List<SchemaIdVersion> schemaIdVersions = nameVersionWithIds.get(schemaVersionKey);
             if(schemaIdVersions != null) {
                 for (SchemaIdVersion schemaIdVersion : schemaIdVersions) {
-                    loadingCache.invalidate(Key.of(schemaIdVersion));
+                    invalidate(Key.of(schemaIdVersion));
                 }
             }
         }
     }
 
+    private void invalidate(Key key) {
+        loadingCache.invalidate(key);
+        if (staleCache != null) {
+            staleCache.invalidate(key);
+        }
+    }
+
+    /**
+     * Stops the thread refreshing the entries of this cache, if any. Entries can still be loaded after this cache is
+     * closed, but they are no longer refreshed asynchronously.
+     */
+    public void close() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return current statistics of this cache.
+     */
+    public Stats getStats() {
+        return new Stats(loadingCache.stats(),
+                         refreshCount.get(),
+                         refreshFailureCount.get(),
+                         totalRefreshTimeNanos.get(),
+                         staleServeCount.get());
+    }
+
+    /**
+     * Statistics of {@link SchemaVersionInfoCache} in addition to the ones of the underlying cache.
+     */
+    public static class Stats {
+        private final CacheStats cacheStats;
+        private final long refreshCount;
+        private final long refreshFailureCount;
+        private final long totalRefreshTimeNanos;
+        private final long staleServeCount;
+
+        Stats(CacheStats cacheStats,
+              long refreshCount,
+              long refreshFailureCount,
+              long totalRefreshTimeNanos,
+              long staleServeCount) {
+            this.cacheStats = cacheStats;
+            this.refreshCount = refreshCount;
+            this.refreshFailureCount = refreshFailureCount;
+            this.totalRefreshTimeNanos = totalRefreshTimeNanos;
+            this.staleServeCount = staleServeCount;
+        }
+
+        /**
+         * @return hit, miss and load statistics of the underlying cache.
+         */
+        public CacheStats getCacheStats() {
+            return cacheStats;
+        }
+
+        /**
+         * @return number of asynchronous refreshes of entries, including the failed ones.
+         */
+        public long getRefreshCount() {
+            return refreshCount;
+        }
+
+        /**
+         * @return number of asynchronous refreshes of entries which failed, existing values are retained for them.
+         */
+        public long getRefreshFailureCount() {
+            return refreshFailureCount;
+        }
+
+        /**
+         * @return average time in nano seconds taken to refresh an entry.
+         */
+        public double getAverageRefreshPenalty() {
+            return refreshCount == 0 ? 0.0 : (double) totalRefreshTimeNanos / refreshCount;
+        }
+
+        public long getTotalRefreshTimeNanos() {
+            return totalRefreshTimeNanos;
+        }
+
+        /**
+         * @return number of times the last retrieved value of an entry is returned as it could not be loaded.
+         */
+        public long getStaleServeCount() {
+            return staleServeCount;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{" +
+                    "cacheStats=" + cacheStats +
+                    ", refreshCount=" + refreshCount +
+                    ", refreshFailureCount=" + refreshFailureCount +
+                    ", totalRefreshTimeNanos=" + totalRefreshTimeNanos +
+                    ", staleServeCount=" + staleServeCount +
+                    '}';
+        }
+    }
+
     public static class Key {
 
         private SchemaVersionKey schemaVersionKey;
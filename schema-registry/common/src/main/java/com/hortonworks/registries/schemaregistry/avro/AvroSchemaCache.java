@@ -0,0 +1,142 @@
+/*
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.avro;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.hortonworks.registries.schemaregistry.CompatibilityResult;
+import com.hortonworks.registries.schemaregistry.SchemaCompatibility;
+import org.apache.avro.Schema;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Bounded caches of parsed avro schemas, resolved schema texts and compatibility results keyed by digests of the
+ * respective schema texts. This is shared by {@link AvroSchemaProvider} and {@link AvroSchemaResolver}, so that the
+ * same schema text is parsed only once across fingerprinting, field generation and compatibility checks.
+ * <p>
+ * Parsed schemas are shared with all callers and they must not be modified.
+ */
+public final class AvroSchemaCache {
+    public static final long DEFAULT_SCHEMA_CACHE_SIZE = 1024L;
+    public static final long DEFAULT_COMPATIBILITY_CACHE_SIZE = 8 * 1024L;
+
+    private static final HashFunction DIGEST_FUNCTION = Hashing.sha256();
+
+    private final Cache<HashCode, Schema> parsedSchemas;
+    private final Cache<HashCode, String> resolvedSchemas;
+    private final Cache<CompatibilityKey, CompatibilityResult> compatibilityResults;
+
+    public AvroSchemaCache() {
+        this(DEFAULT_SCHEMA_CACHE_SIZE, DEFAULT_COMPATIBILITY_CACHE_SIZE);
+    }
+
+    public AvroSchemaCache(long schemaCacheSize, long compatibilityCacheSize) {
+        parsedSchemas = CacheBuilder.newBuilder().maximumSize(schemaCacheSize).build();
+        resolvedSchemas = CacheBuilder.newBuilder().maximumSize(schemaCacheSize).build();
+        compatibilityResults = CacheBuilder.newBuilder().maximumSize(compatibilityCacheSize).build();
+    }
+
+    /**
+     * @return schema parsed from the given text with a new {@link Schema.Parser}.
+     * @throws org.apache.avro.SchemaParseException when the given text is not a valid schema.
+     */
+    public Schema parse(String schemaText) {
+        return get(parsedSchemas, digest(schemaText), () -> new Schema.Parser().parse(schemaText));
+    }
+
+    /**
+     * @return resolved schema of the given schema text if it is cached earlier with {@link #putResolvedSchema(String, String)}
+     */
+    public String getResolvedSchema(String schemaText) {
+        return resolvedSchemas.getIfPresent(digest(schemaText));
+    }
+
+    /**
+     * Caches the resolved schema of the given text. Callers should cache only the resolved schemas which do not depend
+     * on schemas which can change later, like the latest version of an included schema.
+     */
+    public void putResolvedSchema(String schemaText, String resolvedSchemaText) {
+        resolvedSchemas.put(digest(schemaText), resolvedSchemaText);
+    }
+
+    /**
+     * @return compatibility result of the given schema texts and compatibility, it is computed with the given
+     * {@code compatibilityResultSupplier} when it is not cached.
+     */
+    public CompatibilityResult getCompatibility(String toSchemaText,
+                                                String existingSchemaText,
+                                                SchemaCompatibility compatibility,
+                                                Supplier<CompatibilityResult> compatibilityResultSupplier) {
+        CompatibilityKey key = new CompatibilityKey(digest(toSchemaText), digest(existingSchemaText), compatibility);
+        return get(compatibilityResults, key, compatibilityResultSupplier::get);
+    }
+
+    private static HashCode digest(String schemaText) {
+        return DIGEST_FUNCTION.hashString(schemaText, StandardCharsets.UTF_8);
+    }
+
+    private static <K, V> V get(Cache<K, V> cache, K key, Callable<V> loader) {
+        try {
+            return cache.get(key, loader);
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private static final class CompatibilityKey {
+        private final HashCode toSchemaDigest;
+        private final HashCode existingSchemaDigest;
+        private final SchemaCompatibility compatibility;
+
+        CompatibilityKey(HashCode toSchemaDigest, HashCode existingSchemaDigest, SchemaCompatibility compatibility) {
+            this.toSchemaDigest = toSchemaDigest;
+            this.existingSchemaDigest = existingSchemaDigest;
+            this.compatibility = compatibility;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            CompatibilityKey that = (CompatibilityKey) o;
+
+            if (!toSchemaDigest.equals(that.toSchemaDigest)) return false;
+            if (!existingSchemaDigest.equals(that.existingSchemaDigest)) return false;
+            return compatibility == that.compatibility;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = toSchemaDigest.hashCode();
+            result = 31 * result + existingSchemaDigest.hashCode();
+            result = 31 * result + (compatibility != null ? compatibility.hashCode() : 0);
+            return result;
+        }
+    }
+}
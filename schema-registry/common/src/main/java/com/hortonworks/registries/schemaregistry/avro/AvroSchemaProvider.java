@@ -44,6 +44,8 @@ public class AvroSchemaProvider extends AbstractSchemaProvider {
 
     public static final String TYPE = "avro";
 
+    private final AvroSchemaCache avroSchemaCache = new AvroSchemaCache();
+
     @Override
     public String getName() {
         return "Avro schema provider";
@@ -63,17 +65,20 @@ public class AvroSchemaProvider extends AbstractSchemaProvider {
     public CompatibilityResult checkCompatibility(String toSchemaText,
                                                   String existingSchemaText,
                                                   SchemaCompatibility existingSchemaCompatibility) {
-        return AvroSchemaValidator
-                .of(existingSchemaCompatibility)
-                .validate(new Schema.Parser().parse(toSchemaText),
-                          new Schema.Parser().parse(existingSchemaText));
+        return avroSchemaCache.getCompatibility(toSchemaText,
+                                                existingSchemaText,
+                                                existingSchemaCompatibility,
+                                                () -> AvroSchemaValidator
+                                                        .of(existingSchemaCompatibility)
+                                                        .validate(avroSchemaCache.parse(toSchemaText),
+                                                                  avroSchemaCache.parse(existingSchemaText)));
     }
 
     @Override
     public byte[] getFingerprint(String schemaText) throws InvalidSchemaException, SchemaNotFoundException {
         try {
             // generates fingerprint of canonical form of the given schema.
-            Schema schema = new Schema.Parser().parse(getResultantSchema(schemaText));
+            Schema schema = avroSchemaCache.parse(getResultantSchema(schemaText));
             return MessageDigest.getInstance("MD5").digest(normalize(schema).getBytes());
         } catch (IOException e) {
             throw new InvalidSchemaException("Given schema is invalid", e);
@@ -84,14 +89,14 @@ public class AvroSchemaProvider extends AbstractSchemaProvider {
 
     @Override
     public String getResultantSchema(String schemaText) throws InvalidSchemaException, SchemaNotFoundException {
-        AvroSchemaResolver avroSchemaResolver = new AvroSchemaResolver(getSchemaVersionRetriever());
+        AvroSchemaResolver avroSchemaResolver = new AvroSchemaResolver(getSchemaVersionRetriever(), avroSchemaCache);
         return avroSchemaResolver.resolveSchema(schemaText);
     }
 
     @Override
     public List<SchemaFieldInfo> generateFields(String schemaText) throws InvalidSchemaException, SchemaNotFoundException {
         AvroFieldsGenerator avroFieldsGenerator = new AvroFieldsGenerator();
-        return avroFieldsGenerator.generateFields(new Schema.Parser().parse(getResultantSchema(schemaText)));
+        return avroFieldsGenerator.generateFields(avroSchemaCache.parse(getResultantSchema(schemaText)));
     }
 
     public String normalize(Schema schema) throws IOException {
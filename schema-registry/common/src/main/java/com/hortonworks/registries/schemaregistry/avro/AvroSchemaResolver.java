@@ -100,10 +100,18 @@ public class AvroSchemaResolver implements SchemaResolver {
         PARSING, PARSED
     }
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
     private final SchemaVersionRetriever schemaVersionRetriever;
+    private final AvroSchemaCache avroSchemaCache;
 
     public AvroSchemaResolver(SchemaVersionRetriever schemaVersionRetriever) {
+        this(schemaVersionRetriever, new AvroSchemaCache());
+    }
+
+    public AvroSchemaResolver(SchemaVersionRetriever schemaVersionRetriever, AvroSchemaCache avroSchemaCache) {
         this.schemaVersionRetriever = schemaVersionRetriever;
+        this.avroSchemaCache = avroSchemaCache;
     }
 
     @Override
@@ -127,15 +135,33 @@ public class AvroSchemaResolver implements SchemaResolver {
 
     private String getResultantSchema(String schemaText, Map<String, SchemaParsingState> schemaParsingStates)
             throws InvalidSchemaException, SchemaNotFoundException {
-        Map<String, Schema> complexTypes = traverseIncludedSchemaTypes(schemaText, schemaParsingStates);
+        // only schemas without included schemas are cached, so they do not have to be traversed.
+        String cachedResultantSchema = avroSchemaCache.getResolvedSchema(schemaText);
+        if (cachedResultantSchema != null) {
+            return cachedResultantSchema;
+        }
 
-        Schema.Parser parser = new Schema.Parser();
-        parser.addTypes(complexTypes);
-        Schema schema = parser.parse(schemaText);
+        List<SchemaVersionKey> includedSchemaVersions = getIncludedSchemaVersions(schemaText);
+        Map<String, Schema> complexTypes = traverseIncludedSchemaTypes(includedSchemaVersions, schemaParsingStates);
+
+        Schema schema;
+        if (includedSchemaVersions.isEmpty()) {
+            schema = avroSchemaCache.parse(schemaText);
+        } else {
+            Schema.Parser parser = new Schema.Parser();
+            parser.addTypes(complexTypes);
+            schema = parser.parse(schemaText);
+        }
         Set<String> visitingTypes = new HashSet<>();
         Schema updatedSchema = handleUnionFieldsWithNull(schema, visitingTypes);
 
-        return (schema == updatedSchema && complexTypes.isEmpty()) ? schemaText : updatedSchema.toString();
+        String resultantSchema = (schema == updatedSchema && complexTypes.isEmpty()) ? schemaText : updatedSchema.toString();
+
+        // included schemas may refer to latest versions which can change later, so only the others are cached.
+        if (includedSchemaVersions.isEmpty()) {
+            avroSchemaCache.putResolvedSchema(schemaText, resultantSchema);
+        }
+        return resultantSchema;
     }
 
     public Schema handleUnionFieldsWithNull(Schema schema, Set<String> visitingTypes) {
@@ -221,11 +247,9 @@ public class AvroSchemaResolver implements SchemaResolver {
         return updatedSchema;
     }
 
-    private Map<String, Schema> traverseIncludedSchemaTypes(String schemaText,
+    private Map<String, Schema> traverseIncludedSchemaTypes(List<SchemaVersionKey> includedSchemaVersions,
                                                             Map<String, SchemaParsingState> schemaParsingStates)
             throws InvalidSchemaException, SchemaNotFoundException {
-        List<SchemaVersionKey> includedSchemaVersions = getIncludedSchemaVersions(schemaText);
-
         if (includedSchemaVersions == null || includedSchemaVersions.isEmpty()) {
             return Collections.emptyMap();
         }
@@ -259,8 +283,7 @@ public class AvroSchemaResolver implements SchemaResolver {
 
         // this schema is not yet parsed till now
         if (schemaParsingState == null) {
-            Schema.Parser parser = new Schema.Parser();
-            Schema schema = parser.parse(getResultantSchema(schemaVersionKey, schemaParsingStates));
+            Schema schema = avroSchemaCache.parse(getResultantSchema(schemaVersionKey, schemaParsingStates));
             Map<String, Schema> complexTypes = new HashMap<>();
             collectComplexTypes(schema, complexTypes);
             schemaParsingStates.put(schemaName, SchemaParsingState.PARSED);
@@ -302,7 +325,7 @@ public class AvroSchemaResolver implements SchemaResolver {
     private List<SchemaVersionKey> getIncludedSchemaVersions(String schemaText) throws InvalidSchemaException {
         JsonNode jsonNode = null;
         try {
-            jsonNode = new ObjectMapper().readTree(schemaText);
+            jsonNode = OBJECT_MAPPER.readTree(schemaText);
         } catch (IOException e) {
             throw new InvalidSchemaException(e);
         }
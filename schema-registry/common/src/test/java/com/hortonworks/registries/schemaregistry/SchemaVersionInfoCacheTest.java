@@ -21,9 +21,12 @@ import com.hortonworks.registries.schemaregistry.state.SchemaVersionLifecycleSta
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  *
@@ -120,4 +123,131 @@ public class SchemaVersionInfoCacheTest {
         }
 
     }
+
+    @Test
+    public void testStaleSchemaIsReturnedWhenTargetIsNotReachable() throws Exception {
+        SchemaVersionInfo schemaVersionInfo = createSchemaVersionInfo(1L);
+        AtomicBoolean reachable = new AtomicBoolean(true);
+        SchemaVersionInfoCache schemaVersionInfoCache = new SchemaVersionInfoCache(createRetriever(reachable, new AtomicReference<>(schemaVersionInfo)),
+                                                                                   32, 1L, 0L, 60 * 1000L);
+        SchemaVersionInfoCache.Key key = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(1L));
+        Assert.assertEquals(schemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+
+        // let the entry expire and fail loading it again
+        Thread.sleep(10);
+        reachable.set(false);
+        Assert.assertEquals(schemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+        Assert.assertEquals(1, schemaVersionInfoCache.getStats().getStaleServeCount());
+
+        // invalidated entries are not returned
+        schemaVersionInfoCache.invalidateSchema(key);
+        try {
+            schemaVersionInfoCache.getSchema(key);
+            Assert.fail("Invalidated entry should not be returned when target is not reachable");
+        } catch (RuntimeException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testSchemaIsRefreshedAsynchronously() throws Exception {
+        AtomicReference<SchemaVersionInfo> current = new AtomicReference<>(createSchemaVersionInfo(1L));
+        SchemaVersionInfoCache schemaVersionInfoCache = new SchemaVersionInfoCache(createRetriever(new AtomicBoolean(true), current),
+                                                                                   32, 60 * 1000L, 1L, 0L);
+        SchemaVersionInfoCache.Key key = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(1L));
+        SchemaVersionInfo schemaVersionInfo = schemaVersionInfoCache.getSchema(key);
+        Assert.assertEquals(current.get(), schemaVersionInfo);
+
+        SchemaVersionInfo updatedSchemaVersionInfo = new SchemaVersionInfo(1L, schemaVersionInfo.getName(), schemaVersionInfo.getVersion(),
+                                                                           schemaVersionInfo.getSchemaMetadataId(), schemaVersionInfo.getSchemaText(),
+                                                                           schemaVersionInfo.getTimestamp(), schemaVersionInfo.getDescription(),
+                                                                           SchemaVersionLifecycleStates.DISABLED.id());
+        current.set(updatedSchemaVersionInfo);
+        Thread.sleep(10);
+
+        long deadline = System.currentTimeMillis() + 10 * 1000L;
+        while (!updatedSchemaVersionInfo.equals(schemaVersionInfoCache.getSchema(key)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(updatedSchemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+        Assert.assertTrue(schemaVersionInfoCache.getStats().getRefreshCount() > 0);
+    }
+
+    @Test
+    public void testSchemaIsRefreshedWithRefreshRetriever() throws Exception {
+        SchemaVersionInfo schemaVersionInfo = createSchemaVersionInfo(1L);
+        SchemaVersionInfo updatedSchemaVersionInfo = new SchemaVersionInfo(1L, schemaVersionInfo.getName(), schemaVersionInfo.getVersion(),
+                                                                           schemaVersionInfo.getSchemaMetadataId(), schemaVersionInfo.getSchemaText(),
+                                                                           schemaVersionInfo.getTimestamp(), schemaVersionInfo.getDescription(),
+                                                                           SchemaVersionLifecycleStates.DISABLED.id());
+        // loading retriever keeps returning the earlier value like a local copy which is not yet updated.
+        SchemaVersionInfoCache schemaVersionInfoCache =
+                new SchemaVersionInfoCache(createRetriever(new AtomicBoolean(true), new AtomicReference<>(schemaVersionInfo)),
+                                           createRetriever(new AtomicBoolean(true), new AtomicReference<>(updatedSchemaVersionInfo)),
+                                           32, 60 * 1000L, 1L, 0L);
+        SchemaVersionInfoCache.Key key = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(1L));
+        Assert.assertEquals(schemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+        Thread.sleep(10);
+
+        long deadline = System.currentTimeMillis() + 10 * 1000L;
+        while (!updatedSchemaVersionInfo.equals(schemaVersionInfoCache.getSchema(key)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(updatedSchemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+    }
+
+    @Test
+    public void testPutSchemasAreReturnedWhenTargetIsNotReachable() throws Exception {
+        SchemaVersionInfo schemaVersionInfo = createSchemaVersionInfo(1L);
+        SchemaVersionInfoCache schemaVersionInfoCache = new SchemaVersionInfoCache(createRetriever(new AtomicBoolean(false), new AtomicReference<>()),
+                                                                                   32, 1L, 0L, 60 * 1000L);
+        schemaVersionInfoCache.putSchemas(Collections.singletonList(schemaVersionInfo));
+
+        // let the entry expire and fail loading it again
+        Thread.sleep(10);
+        SchemaVersionInfoCache.Key key = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(1L));
+        Assert.assertEquals(schemaVersionInfo, schemaVersionInfoCache.getSchema(key));
+        Assert.assertEquals(1, schemaVersionInfoCache.getStats().getStaleServeCount());
+    }
+
+    @Test
+    public void testEntriesAreLoadedAfterClose() throws Exception {
+        AtomicReference<SchemaVersionInfo> current = new AtomicReference<>(createSchemaVersionInfo(1L));
+        SchemaVersionInfoCache schemaVersionInfoCache = new SchemaVersionInfoCache(createRetriever(new AtomicBoolean(true), current),
+                                                                                   32, 60 * 1000L, 1L, 0L);
+        SchemaVersionInfoCache.Key key = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(1L));
+        Assert.assertEquals(current.get(), schemaVersionInfoCache.getSchema(key));
+
+        schemaVersionInfoCache.close();
+        Thread.sleep(10);
+        // existing entry is retained as it can not be refreshed after close
+        Assert.assertEquals(current.get(), schemaVersionInfoCache.getSchema(key));
+        Assert.assertEquals(current.get(), schemaVersionInfoCache.getSchema(SchemaVersionInfoCache.Key.of(new SchemaIdVersion(2L))));
+    }
+
+    private SchemaVersionInfo createSchemaVersionInfo(Long id) {
+        return new SchemaVersionInfo(id, "schema-" + id, 1, 10L + id, "schema-text", System.currentTimeMillis(),
+                                     "schema-description", SchemaVersionLifecycleStates.ENABLED.id());
+    }
+
+    private SchemaVersionRetriever createRetriever(AtomicBoolean reachable, AtomicReference<SchemaVersionInfo> schemaVersionInfo) {
+        return new SchemaVersionRetriever() {
+            @Override
+            public SchemaVersionInfo retrieveSchemaVersion(SchemaVersionKey key) throws SchemaNotFoundException {
+                return retrieve();
+            }
+
+            @Override
+            public SchemaVersionInfo retrieveSchemaVersion(SchemaIdVersion key) throws SchemaNotFoundException {
+                return retrieve();
+            }
+
+            private SchemaVersionInfo retrieve() {
+                if (!reachable.get()) {
+                    throw new IllegalStateException("Target service is not reachable");
+                }
+                return schemaVersionInfo.get();
+            }
+        };
+    }
 }
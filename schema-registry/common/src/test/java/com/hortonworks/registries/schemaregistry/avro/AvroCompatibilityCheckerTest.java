@@ -92,4 +92,22 @@ public class AvroCompatibilityCheckerTest {
         }
     }
 
+    @Test
+    public void testCompatibilityResultsAreCached() throws Exception {
+        AvroSchemaProvider avroSchemaProvider = new AvroSchemaProvider();
+        String toSchemaText = fetchResourceText("/avro/book-invalid-compat.avsc");
+
+        CompatibilityResult compatibilityResult =
+                avroSchemaProvider.checkCompatibility(toSchemaText, initialVersionSchema(), SchemaCompatibility.BACKWARD);
+        Assert.assertFalse(compatibilityResult.isCompatible());
+        Assert.assertSame(compatibilityResult,
+                          avroSchemaProvider.checkCompatibility(toSchemaText, initialVersionSchema(), SchemaCompatibility.BACKWARD));
+
+        // results are cached for each compatibility
+        Assert.assertTrue(avroSchemaProvider.checkCompatibility(toSchemaText, initialVersionSchema(), SchemaCompatibility.NONE)
+                                            .isCompatible());
+        Assert.assertFalse(avroSchemaProvider.checkCompatibility(toSchemaText, initialVersionSchema(), SchemaCompatibility.FORWARD)
+                                             .isCompatible());
+    }
+
 }
@@ -16,6 +16,7 @@
 package com.hortonworks.registries.schemaregistry;
 
 import com.hortonworks.registries.common.QueryParam;
+import com.hortonworks.registries.common.Schema;
 import com.hortonworks.registries.common.util.FileStorage;
 import com.hortonworks.registries.schemaregistry.errors.IncompatibleSchemaException;
 import com.hortonworks.registries.schemaregistry.errors.InvalidSchemaException;
@@ -31,6 +32,7 @@ import com.hortonworks.registries.storage.StorageManager;
 import com.hortonworks.registries.storage.search.OrderBy;
 import com.hortonworks.registries.storage.search.SearchQuery;
 import com.hortonworks.registries.storage.search.WhereClause;
+import com.hortonworks.registries.storage.search.WhereClauseCombiner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,9 +43,11 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -300,6 +304,53 @@ public class DefaultSchemaRegistry implements ISchemaRegistry {
         return result;
     }
 
+    @Override
+    public void findSchemaMetadata(Map<String, String> props,
+                                   Map<String, Object> startAfter,
+                                   Integer limit,
+                                   Consumer<SchemaMetadataInfo> consumer) {
+        Schema schema = new SchemaMetadataStorable().getSchema();
+        List<QueryParam> orderByFieldQueryParams = new ArrayList<>();
+        WhereClauseCombiner whereClauseCombiner = null;
+        boolean filtered = false;
+        if (props != null) {
+            for (Map.Entry<String, String> entry : props.entrySet()) {
+                if (ORDER_BY_FIELDS_PARAM_NAME.equals(entry.getKey())) {
+                    orderByFieldQueryParams.add(new QueryParam(entry.getKey(), entry.getValue()));
+                    continue;
+                }
+
+                filtered = true;
+                Schema.Field field = schema.getField(entry.getKey());
+                if (field == null) {
+                    LOG.warn("Query parameter [{}] does not exist for schema metadata. Query parameter ignored.", entry.getKey());
+                } else {
+                    WhereClause.Builder builder = whereClauseCombiner == null ? WhereClause.begin() : whereClauseCombiner.and();
+                    whereClauseCombiner = builder.eq(field.getName(), toFieldValue(field, entry.getValue()));
+                }
+            }
+        }
+
+        // same as find, nothing matches when none of the given properties is a field of schema metadata
+        if (filtered && whereClauseCombiner == null) {
+            return;
+        }
+
+        List<OrderBy> orderByFields = getOrderByFields(orderByFieldQueryParams)
+                .stream()
+                .map(x -> x.isDescending() ? OrderBy.desc(x.getFieldName()) : OrderBy.asc(x.getFieldName()))
+                .collect(Collectors.toList());
+        searchSchemas(whereClauseCombiner != null ? whereClauseCombiner.combine() : null, orderByFields, startAfter, limit, consumer);
+    }
+
+    private Object toFieldValue(Schema.Field field, String value) {
+        try {
+            return field.getType().getJavaType().getConstructor(String.class).newInstance(value);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid value [" + value + "] for field [" + field.getName() + "]", e);
+        }
+    }
+
     private List<OrderByField> getOrderByFields(List<QueryParam> queryParams) {
         if (queryParams == null || queryParams.isEmpty()) {
             return Collections.emptyList();
@@ -563,6 +614,57 @@ public class DefaultSchemaRegistry implements ISchemaRegistry {
 
     }
 
+    @Override
+    public void searchSchemas(WhereClause whereClause,
+                              List<OrderBy> orderByFields,
+                              Map<String, Object> startAfter,
+                              Integer limit,
+                              Consumer<SchemaMetadataInfo> consumer) {
+        List<OrderBy> pageOrderByFields = getPageOrderByFields(orderByFields);
+        SearchQuery searchQuery = SearchQuery.searchFrom(SchemaMetadataStorable.NAME_SPACE)
+                                             .where(whereClause)
+                                             .orderBy(pageOrderByFields.toArray(new OrderBy[pageOrderByFields.size()]));
+        if (startAfter != null) {
+            // pages start after the last schema of the previous page instead of skipping the rows of earlier pages
+            Schema schema = new SchemaMetadataStorable().getSchema();
+            Object[] values = new Object[pageOrderByFields.size()];
+            for (int i = 0; i < values.length; i++) {
+                String fieldName = pageOrderByFields.get(i).getFieldName();
+                Schema.Field field = schema.getField(fieldName);
+                Object value = startAfter.get(fieldName);
+                if (field == null || value == null) {
+                    throw new IllegalArgumentException("Page key does not have a value for field [" + fieldName + "]");
+                }
+                values[i] = toFieldValue(field, value.toString());
+            }
+            searchQuery.startAfter(values);
+        }
+        if (limit != null) {
+            searchQuery.limit(limit);
+        }
+
+        storageManager.<SchemaMetadataStorable>search(searchQuery, storable -> consumer.accept(storable.toSchemaMetadataInfo()));
+    }
+
+    @Override
+    public Map<String, Object> getPageKey(SchemaMetadataInfo schemaMetadataInfo, List<OrderBy> orderByFields) {
+        Map<String, Object> values = SchemaMetadataStorable.fromSchemaMetadataInfo(schemaMetadataInfo).toMap();
+        Map<String, Object> pageKey = new LinkedHashMap<>();
+        for (OrderBy orderBy : getPageOrderByFields(orderByFields)) {
+            pageKey.put(orderBy.getFieldName(), values.get(orderBy.getFieldName()));
+        }
+        return pageKey;
+    }
+
+    // pages need a unique order, ids break the ties of the given order as they are unique
+    private List<OrderBy> getPageOrderByFields(List<OrderBy> orderByFields) {
+        List<OrderBy> pageOrderByFields = orderByFields != null ? new ArrayList<>(orderByFields) : new ArrayList<>();
+        if (pageOrderByFields.stream().noneMatch(x -> SchemaMetadataStorable.ID.equals(x.getFieldName()))) {
+            pageOrderByFields.add(OrderBy.asc(SchemaMetadataStorable.ID));
+        }
+        return pageOrderByFields;
+    }
+
     public AggregatedSchemaMetadataInfo getAggregatedSchemaMetadataInfo(String schemaName) throws SchemaNotFoundException {
         SchemaMetadataInfo schemaMetadataInfo = getSchemaMetadataInfo(schemaName);
         return buildAggregatedSchemaMetadataInfo(schemaMetadataInfo);
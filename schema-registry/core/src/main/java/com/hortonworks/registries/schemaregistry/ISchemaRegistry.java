@@ -23,6 +23,7 @@ import com.hortonworks.registries.storage.search.WhereClause;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  *
@@ -84,6 +85,20 @@ public interface ISchemaRegistry extends ISchemaRegistryService {
      */
     Collection<SchemaMetadataInfo> findSchemaMetadata(Map<String, String> props);
 
+    /**
+     * Passes the SchemaMetadata having the given properties to the given consumer as they are read from storage.
+     *
+     * @param props      properties
+     * @param startAfter fields of the schema after which the schemas are passed, null to pass them from the first
+     *                   schema. These are the fields of the last schema of the previous page, see {@link #getPageKey(SchemaMetadataInfo, List)}
+     * @param limit      maximum number of schemas to be passed, null if there is no limit
+     * @param consumer   consumer of the schemas
+     */
+    void findSchemaMetadata(Map<String, String> props,
+                            Map<String, Object> startAfter,
+                            Integer limit,
+                            Consumer<SchemaMetadataInfo> consumer);
+
     /**
      * @param serDesId id
      *
@@ -101,4 +116,32 @@ public interface ISchemaRegistry extends ISchemaRegistryService {
      */
     Collection<SchemaMetadataInfo> searchSchemas(WhereClause whereClause, List<OrderBy> orderByFields);
 
+    /**
+     * Searches the registry to find schemas according to the given {@code whereClause} and passes them to the given
+     * consumer as they are read from storage, ordered by given {@code orderByFields}.
+     *
+     * @param whereClause
+     * @param orderByFields
+     * @param startAfter    fields of the schema after which the schemas are passed, null to pass them from the first
+     *                      schema. These are the fields of the last schema of the previous page, see {@link #getPageKey(SchemaMetadataInfo, List)}
+     * @param limit         maximum number of schemas to be passed, null if there is no limit
+     * @param consumer      consumer of the schemas
+     */
+    void searchSchemas(WhereClause whereClause,
+                       List<OrderBy> orderByFields,
+                       Map<String, Object> startAfter,
+                       Integer limit,
+                       Consumer<SchemaMetadataInfo> consumer);
+
+    /**
+     * Returns the fields of the given schema which are needed to pass the schemas after it, when the schemas are ordered
+     * by given {@code orderByFields}.
+     *
+     * @param schemaMetadataInfo last schema of a page
+     * @param orderByFields      fields by which the schemas are ordered
+     *
+     * @return names of the fields to their values
+     */
+    Map<String, Object> getPageKey(SchemaMetadataInfo schemaMetadataInfo, List<OrderBy> orderByFields);
+
 }
\ No newline at end of file
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.hortonworks.registries.schemaregistry.errors.SchemaNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of schema versions by schema name, which gives the latest version of a schema or its versions in a given state
+ * without scanning all of its versions in storage each time. Versions of a schema are loaded from storage on first
+ * access and they are kept up to date when versions are added, their state changes or they are deleted.
+ * <p>
+ * The index is meant for adding versions of a schema, callers should access the versions of a schema only while they
+ * hold the lock of that schema. Reads which are not followed by a write should go to storage instead.
+ * <p>
+ * Versions of a schema are loaded again from storage after a configured interval since they were loaded, even when they
+ * are updated in between, so that versions added by other schema registry instances sharing the same storage are
+ * eventually seen. Callers should {@link #invalidate(String)} a schema when they find that its entry is out of date, for
+ * ex: when a new version could not be stored as that version already exists.
+ */
+class SchemaVersionIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(SchemaVersionIndex.class);
+
+    /**
+     * Loads all versions of a schema from storage.
+     */
+    interface SchemaVersionsLoader {
+        Collection<SchemaVersionInfo> load(String schemaName) throws SchemaNotFoundException;
+    }
+
+    private final SchemaVersionsLoader schemaVersionsLoader;
+    private final long expiryInNanos;
+    private final Cache<String, Versions> versionsByName;
+
+    SchemaVersionIndex(SchemaVersionsLoader schemaVersionsLoader, long maxVersions, long expiryInSecs) {
+        this.schemaVersionsLoader = schemaVersionsLoader;
+        this.expiryInNanos = TimeUnit.SECONDS.toNanos(expiryInSecs);
+        // entries are replaced instead of updated in place, so that they are weighed again with their new versions
+        versionsByName = CacheBuilder.newBuilder()
+                                     .maximumWeight(maxVersions)
+                                     .<String, Versions>weigher((name, versions) -> Math.max(1, versions.byVersion.size()))
+                                     .build();
+    }
+
+    /**
+     * @return latest version of the given schema in the given state, or the latest version in any state when
+     * {@code stateId} is null. Returns null when there is no such version.
+     */
+    SchemaVersionInfo getLatest(String schemaName, Byte stateId) throws SchemaNotFoundException {
+        for (SchemaVersionInfo schemaVersionInfo : getVersions(schemaName).byVersion.descendingMap().values()) {
+            if (stateId == null || stateId.equals(schemaVersionInfo.getStateId())) {
+                return schemaVersionInfo;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return versions of the given schema in the given state, latest version first.
+     */
+    List<SchemaVersionInfo> getAll(String schemaName, Byte stateId) throws SchemaNotFoundException {
+        List<SchemaVersionInfo> schemaVersionInfos = new ArrayList<>();
+        for (SchemaVersionInfo schemaVersionInfo : getVersions(schemaName).byVersion.descendingMap().values()) {
+            if (stateId == null || stateId.equals(schemaVersionInfo.getStateId())) {
+                schemaVersionInfos.add(schemaVersionInfo);
+            }
+        }
+        return schemaVersionInfos;
+    }
+
+    /**
+     * Adds or updates the given version, it is ignored if the versions of its schema are not loaded yet.
+     */
+    void put(SchemaVersionInfo schemaVersionInfo) {
+        Versions versions = versionsByName.getIfPresent(schemaVersionInfo.getName());
+        if (versions != null) {
+            NavigableMap<Integer, SchemaVersionInfo> byVersion = new TreeMap<>(versions.byVersion);
+            byVersion.put(schemaVersionInfo.getVersion(), schemaVersionInfo);
+            versionsByName.put(schemaVersionInfo.getName(), new Versions(byVersion, versions.loadTimeNanos));
+        }
+    }
+
+    /**
+     * Removes the given version, it is ignored if the versions of its schema are not loaded yet.
+     */
+    void remove(String schemaName, Integer version) {
+        Versions versions = versionsByName.getIfPresent(schemaName);
+        if (versions != null && versions.byVersion.containsKey(version)) {
+            NavigableMap<Integer, SchemaVersionInfo> byVersion = new TreeMap<>(versions.byVersion);
+            byVersion.remove(version);
+            versionsByName.put(schemaName, new Versions(byVersion, versions.loadTimeNanos));
+        }
+    }
+
+    /**
+     * Invalidates the versions of the given schema, they are loaded again from storage on next access.
+     */
+    void invalidate(String schemaName) {
+        versionsByName.invalidate(schemaName);
+    }
+
+    private Versions getVersions(String schemaName) throws SchemaNotFoundException {
+        Versions versions = versionsByName.getIfPresent(schemaName);
+        if (versions != null && System.nanoTime() - versions.loadTimeNanos > expiryInNanos) {
+            versionsByName.invalidate(schemaName);
+        }
+
+        try {
+            return versionsByName.get(schemaName, () -> {
+                LOG.debug("Loading versions of schema [{}] into index", schemaName);
+                long loadTimeNanos = System.nanoTime();
+                NavigableMap<Integer, SchemaVersionInfo> byVersion = new TreeMap<>();
+                for (SchemaVersionInfo schemaVersionInfo : schemaVersionsLoader.load(schemaName)) {
+                    byVersion.put(schemaVersionInfo.getVersion(), schemaVersionInfo);
+                }
+                return new Versions(byVersion, loadTimeNanos);
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SchemaNotFoundException) {
+                throw (SchemaNotFoundException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (UncheckedExecutionException e) {
+            throw (RuntimeException) e.getCause();
+        }
+    }
+
+    /**
+     * Versions of a schema with the time when they were loaded from storage, instances are not modified once they are
+     * put into the index.
+     */
+    private static final class Versions {
+        private final NavigableMap<Integer, SchemaVersionInfo> byVersion;
+        private final long loadTimeNanos;
+
+        private Versions(NavigableMap<Integer, SchemaVersionInfo> byVersion, long loadTimeNanos) {
+            this.byVersion = byVersion;
+            this.loadTimeNanos = loadTimeNanos;
+        }
+    }
+}
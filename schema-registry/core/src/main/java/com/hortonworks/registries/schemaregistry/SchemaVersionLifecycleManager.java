@@ -39,10 +39,12 @@ import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -56,14 +58,15 @@ public class SchemaVersionLifecycleManager {
     public static final InbuiltSchemaVersionLifecycleState DEFAULT_VERSION_STATE = SchemaVersionLifecycleStates.INITIATED;
     private SchemaReviewExecutor schemaReviewExecutor;
     private SchemaVersionInfoCache schemaVersionInfoCache;
+    private SchemaVersionIndex schemaVersionIndex;
     private SchemaVersionRetriever schemaVersionRetriever;
+    // creation, state changes and deletion of versions are serialized per schema name, so that they do not block
+    // the same operations on other schemas.
     private SlotSynchronizer<String> slotSynchronizer = new SlotSynchronizer<>();
     private static final int DEFAULT_RETRY_CT = 5;
     private StorageManager storageManager;
     private DefaultSchemaRegistry.SchemaMetadataFetcher schemaMetadataFetcher;
 
-    // todo remove this lock usage
-    private Object addOrUpdateLock = new Object();
     private SchemaVersionLifecycleStates.Registry schemaLifeCycleStatesRegistry;
 
     public SchemaVersionLifecycleManager(StorageManager storageManager,
@@ -79,7 +82,11 @@ public class SchemaVersionLifecycleManager {
         schemaVersionInfoCache = new SchemaVersionInfoCache(
                 schemaVersionRetriever,
                 options.getMaxSchemaCacheSize(),
-                options.getSchemaExpiryInSecs());
+                TimeUnit.SECONDS.toMillis(options.getSchemaExpiryInSecs()));
+
+        schemaVersionIndex = new SchemaVersionIndex(this::getAllVersions,
+                                                    options.getMaxSchemaVersionIndexSize(),
+                                                    options.getSchemaVersionIndexExpiryInSecs());
 
         schemaReviewExecutor = createSchemaReviewExecutor(props);
     }
@@ -217,18 +224,26 @@ public class SchemaVersionLifecycleManager {
 
         schemaVersionStorable.setState(DEFAULT_VERSION_STATE.id());
 
+        // fields are generated before taking the lock as they do not depend on other versions.
+        List<SchemaFieldInfo> schemaFieldInfos = getSchemaProvider(type).generateFields(schemaVersion.getSchemaText());
+
         // take a lock for a schema with same name.
         SlotSynchronizer.Lock slotLock = slotSynchronizer.lockSlot(schemaName);
         try {
             int retryCt = 0;
             while (true) {
+                // version row, its state and its fields are written in one transaction, so a failed attempt does not
+                // leave any of them behind.
+                storageManager.beginTransaction();
+                boolean committed = false;
                 try {
+                    schemaVersionStorable.setId(schemaVersionStorableId);
                     Integer version = 0;
                     Byte initialState = schemaVersion.getInitialState();
                     if (schemaMetadata.isEvolve()) {
                         // if the given version is added with enabled state then only check for compatibility
                         if (SchemaVersionLifecycleStates.ENABLED.id().equals(initialState)) {
-                            CompatibilityResult compatibilityResult = checkCompatibility(schemaName, schemaVersion.getSchemaText());
+                            CompatibilityResult compatibilityResult = checkCompatibility(schemaName, schemaVersion.getSchemaText(), true);
                             if (!compatibilityResult.isCompatible()) {
                                 String errMsg = String.format("Given schema is not compatible with latest schema versions. \n" +
                                                                       "Error location: [%s] \n" +
@@ -239,7 +254,7 @@ public class SchemaVersionLifecycleManager {
                                 throw new IncompatibleSchemaException(errMsg);
                             }
                         }
-                        SchemaVersionInfo latestSchemaVersionInfo = getLatestSchemaVersionInfo(schemaName);
+                        SchemaVersionInfo latestSchemaVersionInfo = schemaVersionIndex.getLatest(schemaName, null);
                         if (latestSchemaVersionInfo != null) {
                             version = latestSchemaVersionInfo.getVersion();
                         }
@@ -248,7 +263,11 @@ public class SchemaVersionLifecycleManager {
 
                     storageManager.add(schemaVersionStorable);
                     updateSchemaVersionState(schemaVersionStorable.getId(), initialState);
+                    // fetching this as the ID may have been set by storage manager.
+                    addSchemaFields(schemaFieldInfos, schemaVersionStorable.getId());
 
+                    storageManager.commitTransaction();
+                    committed = true;
                     break;
                 } catch (StorageException e) {
                     // optimistic to try the next try would be successful. When retry attempts are exhausted, throw error back to invoker.
@@ -257,20 +276,15 @@ public class SchemaVersionLifecycleManager {
                         throw e;
                     }
                     LOG.debug("Encountered storage exception while trying to add a new version, attempting again : [{}] with error: [{}]", retryCt, e);
+                } finally {
+                    if (!committed) {
+                        storageManager.rollbackTransaction();
+                        // index may have the rolled back version or may not have the latest version added by other
+                        // instances, load it again in the next attempt.
+                        schemaVersionIndex.invalidate(schemaName);
+                    }
                 }
             }
-
-            // fetching this as the ID may have been set by storage manager.
-            Long schemaInstanceId = schemaVersionStorable.getId();
-            String storableNamespace = new SchemaFieldInfoStorable().getNameSpace();
-            List<SchemaFieldInfo> schemaFieldInfos = getSchemaProvider(type).generateFields(schemaVersionStorable.getSchemaText());
-            for (SchemaFieldInfo schemaFieldInfo : schemaFieldInfos) {
-                final Long fieldInstanceId = storageManager.nextId(storableNamespace);
-                SchemaFieldInfoStorable schemaFieldInfoStorable = SchemaFieldInfoStorable.fromSchemaFieldInfo(schemaFieldInfo, fieldInstanceId);
-                schemaFieldInfoStorable.setSchemaInstanceId(schemaInstanceId);
-                schemaFieldInfoStorable.setTimestamp(System.currentTimeMillis());
-                storageManager.add(schemaFieldInfoStorable);
-            }
         } finally {
             slotLock.unlock();
         }
@@ -278,6 +292,21 @@ public class SchemaVersionLifecycleManager {
         return schemaVersionStorable.toSchemaVersionInfo();
     }
 
+    private void addSchemaFields(List<SchemaFieldInfo> schemaFieldInfos, Long schemaInstanceId) {
+        String storableNamespace = new SchemaFieldInfoStorable().getNameSpace();
+        List<SchemaFieldInfoStorable> schemaFieldInfoStorables = new ArrayList<>(schemaFieldInfos.size());
+        long timestamp = System.currentTimeMillis();
+        for (SchemaFieldInfo schemaFieldInfo : schemaFieldInfos) {
+            final Long fieldInstanceId = storageManager.nextId(storableNamespace);
+            SchemaFieldInfoStorable schemaFieldInfoStorable = SchemaFieldInfoStorable.fromSchemaFieldInfo(schemaFieldInfo, fieldInstanceId);
+            schemaFieldInfoStorable.setSchemaInstanceId(schemaInstanceId);
+            schemaFieldInfoStorable.setTimestamp(timestamp);
+            schemaFieldInfoStorables.add(schemaFieldInfoStorable);
+        }
+        // all fields are added in one batch instead of a round trip for each field
+        storageManager.addAll(schemaFieldInfoStorables);
+    }
+
     private void updateSchemaVersionState(Long schemaVersionId, Byte initialState) throws SchemaNotFoundException {
         try {
             SchemaVersionLifecycleContext schemaVersionLifecycleContext = new SchemaVersionLifecycleContext(schemaVersionId, 1, createSchemaVersionService(), schemaLifeCycleStatesRegistry);
@@ -297,13 +326,22 @@ public class SchemaVersionLifecycleManager {
     }
 
     public CompatibilityResult checkCompatibility(String schemaName, String toSchema) throws SchemaNotFoundException {
+        return checkCompatibility(schemaName, toSchema, false);
+    }
+
+    // versions are taken from the index only while adding a version, with the lock of the schema held.
+    private CompatibilityResult checkCompatibility(String schemaName,
+                                                   String toSchema,
+                                                   boolean fromIndex) throws SchemaNotFoundException {
         SchemaMetadataInfo schemaMetadataInfo = getSchemaMetadataInfo(schemaName);
         SchemaMetadata schemaMetadata = schemaMetadataInfo.getSchemaMetadata();
         SchemaValidationLevel validationLevel = schemaMetadata.getValidationLevel();
         CompatibilityResult compatibilityResult = null;
         switch (validationLevel) {
             case LATEST:
-                SchemaVersionInfo latestSchemaVersionInfo = getLatestEnabledSchemaVersionInfo(schemaName);
+                SchemaVersionInfo latestSchemaVersionInfo = fromIndex
+                                                            ? schemaVersionIndex.getLatest(schemaName, SchemaVersionLifecycleStates.ENABLED.id())
+                                                            : getLatestEnabledSchemaVersionInfo(schemaName);
                 if(latestSchemaVersionInfo != null) {
                     compatibilityResult = checkCompatibility(schemaMetadata.getType(),
                                                              toSchema,
@@ -316,18 +354,18 @@ public class SchemaVersionLifecycleManager {
                 }
                 break;
             case ALL:
-                Collection<SchemaVersionInfo> schemaVersionInfos = getAllVersions(schemaName);
+                Collection<SchemaVersionInfo> schemaVersionInfos = fromIndex
+                                                                   ? schemaVersionIndex.getAll(schemaName, SchemaVersionLifecycleStates.ENABLED.id())
+                                                                   : getAllVersions(schemaName, SchemaVersionLifecycleStates.ENABLED.id());
                 for (SchemaVersionInfo schemaVersionInfo : schemaVersionInfos) {
-                    if (SchemaVersionLifecycleStates.ENABLED.id().equals(schemaVersionInfo.getStateId())) {
-                        compatibilityResult = checkCompatibility(schemaMetadata.getType(),
-                                                                 toSchema,
-                                                                 schemaVersionInfo.getSchemaText(),
-                                                                 schemaMetadata.getCompatibility());
-                        if (!compatibilityResult.isCompatible()) {
-                            LOG.info("Received schema is not compatible with one of the schema versions [{}] with schema name [{}]",
-                                     schemaVersionInfo.getVersion(), schemaName);
-                            break;
-                        }
+                    compatibilityResult = checkCompatibility(schemaMetadata.getType(),
+                                                             toSchema,
+                                                             schemaVersionInfo.getSchemaText(),
+                                                             schemaMetadata.getCompatibility());
+                    if (!compatibilityResult.isCompatible()) {
+                        LOG.info("Received schema is not compatible with one of the schema versions [{}] with schema name [{}]",
+                                 schemaVersionInfo.getVersion(), schemaName);
+                        break;
                     }
                 }
                 break;
@@ -369,6 +407,12 @@ public class SchemaVersionLifecycleManager {
         return schemaVersionInfos;
     }
 
+    private List<SchemaVersionInfo> getAllVersions(String schemaName, Byte stateId) throws SchemaNotFoundException {
+        return getAllVersions(schemaName).stream()
+                                         .filter(schemaVersionInfo -> stateId.equals(schemaVersionInfo.getStateId()))
+                                         .collect(Collectors.toList());
+    }
+
     private SchemaMetadataInfo getSchemaMetadataInfo(String schemaName) {
         return schemaMetadataFetcher.getSchemaMetadataInfo(schemaName);
     }
@@ -434,9 +478,13 @@ public class SchemaVersionLifecycleManager {
     public void deleteSchemaVersion(SchemaVersionKey schemaVersionKey) throws SchemaNotFoundException {
         SchemaVersionInfoCache.Key schemaVersionCacheKey = new SchemaVersionInfoCache.Key(schemaVersionKey);
         SchemaVersionInfo schemaVersionInfo = schemaVersionInfoCache.getSchema(schemaVersionCacheKey);
-        synchronized (addOrUpdateLock) {
+        SlotSynchronizer.Lock slotLock = slotSynchronizer.lockSlot(schemaVersionInfo.getName());
+        try {
             schemaVersionInfoCache.invalidateSchema(schemaVersionCacheKey);
             storageManager.remove(createSchemaVersionStorableKey(schemaVersionInfo.getId()));
+            schemaVersionIndex.remove(schemaVersionInfo.getName(), schemaVersionInfo.getVersion());
+        } finally {
+            slotLock.unlock();
         }
     }
 
@@ -502,10 +550,12 @@ public class SchemaVersionLifecycleManager {
     }
 
     private void storeSchemaVersionState(SchemaVersionLifecycleContext schemaVersionLifecycleContext) throws SchemaNotFoundException {
-        synchronized (addOrUpdateLock) {
+        Long schemaVersionId = schemaVersionLifecycleContext.getSchemaVersionId();
+        String schemaName = getSchemaVersionStorable(schemaVersionId).getName();
+        SlotSynchronizer.Lock slotLock = slotSynchronizer.lockSlot(schemaName);
+        try {
             // store versions state, sequence
             SchemaVersionStateStorable stateStorable = new SchemaVersionStateStorable();
-            Long schemaVersionId = schemaVersionLifecycleContext.getSchemaVersionId();
             byte stateId = schemaVersionLifecycleContext.getState().id();
 
             stateStorable.setSchemaVersionId(schemaVersionId);
@@ -513,23 +563,56 @@ public class SchemaVersionLifecycleManager {
             stateStorable.setStateId(stateId);
             stateStorable.setTimestamp(System.currentTimeMillis());
 
-            storageManager.add(stateStorable);
-
-            // store latest state in versions entity
-            StorableKey storableKey = new StorableKey(SchemaVersionStorable.NAME_SPACE, SchemaVersionStorable.getPrimaryKey(schemaVersionId));
-            SchemaVersionStorable versionedSchema = storageManager.get(storableKey);
-            if (versionedSchema == null) {
-                throw new SchemaNotFoundException("No Schema version exists with id " + schemaVersionId);
+            // state row and the latest state in versions entity are written together
+            SchemaVersionStorable versionedSchema;
+            storageManager.beginTransaction();
+            boolean committed = false;
+            try {
+                storageManager.add(stateStorable);
+
+                // store latest state in versions entity, it is read again as it may have changed before the lock is taken.
+                versionedSchema = getSchemaVersionStorable(schemaVersionId, schemaName);
+                versionedSchema.setState(stateId);
+                storageManager.addOrUpdate(versionedSchema);
+
+                storageManager.commitTransaction();
+                committed = true;
+            } finally {
+                if (!committed) {
+                    storageManager.rollbackTransaction();
+                }
             }
-            versionedSchema.setState(stateId);
-            storageManager.addOrUpdate(versionedSchema);
+            schemaVersionIndex.put(versionedSchema.toSchemaVersionInfo());
 
             // invalidate schema version from cache
             SchemaVersionInfoCache.Key schemaVersionCacheKey = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(schemaVersionId));
             schemaVersionInfoCache.invalidateSchema(schemaVersionCacheKey);
+        } finally {
+            slotLock.unlock();
         }
     }
 
+    private SchemaVersionStorable getSchemaVersionStorable(Long schemaVersionId) throws SchemaNotFoundException {
+        SchemaVersionStorable schemaVersionStorable = storageManager.get(createSchemaVersionStorableKey(schemaVersionId));
+        if (schemaVersionStorable == null) {
+            throw new SchemaNotFoundException("No Schema version exists with id " + schemaVersionId);
+        }
+        return schemaVersionStorable;
+    }
+
+    /**
+     * Returns the storable of the given schema version if it still belongs to the schema with the given name, whose
+     * slot lock is held by the caller. Version read before the lock is taken may have been removed in the mean time.
+     */
+    private SchemaVersionStorable getSchemaVersionStorable(Long schemaVersionId,
+                                                           String schemaName) throws SchemaNotFoundException {
+        SchemaVersionStorable schemaVersionStorable = getSchemaVersionStorable(schemaVersionId);
+        if (!schemaName.equals(schemaVersionStorable.getName())) {
+            throw new SchemaNotFoundException("No Schema version exists with id " + schemaVersionId + " for schema " + schemaName);
+        }
+        return schemaVersionStorable;
+    }
+
     public void enableSchemaVersion(Long schemaVersionId) throws SchemaNotFoundException, SchemaLifecycleException, IncompatibleSchemaException {
         ImmutablePair<SchemaVersionLifecycleContext, SchemaVersionLifecycleState> pair = createSchemaVersionLifeCycleContextAndState(schemaVersionId);
         ((InbuiltSchemaVersionLifecycleState) pair.getRight()).enable(pair.getLeft());
@@ -542,9 +625,24 @@ public class SchemaVersionLifecycleManager {
 
     private void doDeleteSchemaVersion(Long schemaVersionId) {
         SchemaVersionInfoCache.Key schemaVersionCacheKey = SchemaVersionInfoCache.Key.of(new SchemaIdVersion(schemaVersionId));
-        synchronized (addOrUpdateLock) {
-            storageManager.remove(createSchemaVersionStorableKey(schemaVersionId));
+        StorableKey storableKey = createSchemaVersionStorableKey(schemaVersionId);
+        SchemaVersionStorable existing = storageManager.get(storableKey);
+        if (existing == null) {
             schemaVersionInfoCache.invalidateSchema(schemaVersionCacheKey);
+            return;
+        }
+
+        SlotSynchronizer.Lock slotLock = slotSynchronizer.lockSlot(existing.getName());
+        try {
+            // it is read again as it may have been removed before the lock is taken.
+            SchemaVersionStorable schemaVersionStorable = storageManager.get(storableKey);
+            if (schemaVersionStorable != null && existing.getName().equals(schemaVersionStorable.getName())) {
+                storageManager.remove(storableKey);
+                schemaVersionIndex.remove(schemaVersionStorable.getName(), schemaVersionStorable.getVersion());
+            }
+            schemaVersionInfoCache.invalidateSchema(schemaVersionCacheKey);
+        } finally {
+            slotLock.unlock();
         }
     }
 
@@ -647,8 +745,12 @@ public class SchemaVersionLifecycleManager {
         // given by client.
         public static final String SCHEMA_CACHE_SIZE = "schemaCacheSize";
         public static final String SCHEMA_CACHE_EXPIRY_INTERVAL_SECS = "schemaCacheExpiryInterval";
+        public static final String SCHEMA_VERSION_INDEX_SIZE = "schemaVersionIndexSize";
+        public static final String SCHEMA_VERSION_INDEX_EXPIRY_INTERVAL_SECS = "schemaVersionIndexExpiryInterval";
         public static final int DEFAULT_SCHEMA_CACHE_SIZE = 10000;
         public static final long DEFAULT_SCHEMA_CACHE_EXPIRY_INTERVAL_SECS = 60 * 60L;
+        public static final long DEFAULT_SCHEMA_VERSION_INDEX_SIZE = 100000L;
+        public static final long DEFAULT_SCHEMA_VERSION_INDEX_EXPIRY_INTERVAL_SECS = 60L;
 
         private final Map<String, ?> config;
 
@@ -669,5 +771,21 @@ public class SchemaVersionLifecycleManager {
             return Long.valueOf(getPropertyValue(SCHEMA_CACHE_EXPIRY_INTERVAL_SECS, DEFAULT_SCHEMA_CACHE_EXPIRY_INTERVAL_SECS)
                                         .toString());
         }
+
+        /**
+         * @return maximum number of schema versions kept in the index of versions by schema name.
+         */
+        public long getMaxSchemaVersionIndexSize() {
+            return Long.valueOf(getPropertyValue(SCHEMA_VERSION_INDEX_SIZE, DEFAULT_SCHEMA_VERSION_INDEX_SIZE).toString());
+        }
+
+        /**
+         * @return interval after which versions of a schema are loaded again into the index, so that versions added
+         * by other schema registry instances are seen.
+         */
+        public long getSchemaVersionIndexExpiryInSecs() {
+            return Long.valueOf(getPropertyValue(SCHEMA_VERSION_INDEX_EXPIRY_INTERVAL_SECS,
+                                                 DEFAULT_SCHEMA_VERSION_INDEX_EXPIRY_INTERVAL_SECS).toString());
+        }
     }
 }
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry;
+
+import com.hortonworks.registries.schemaregistry.errors.SchemaNotFoundException;
+import com.hortonworks.registries.schemaregistry.state.SchemaVersionLifecycleStates;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ *
+ */
+public class SchemaVersionIndexTest {
+    private static final String SCHEMA_NAME = "schema-1";
+
+    @Test
+    public void testVersionsAreLoadedOnceAndKeptUpToDate() throws Exception {
+        List<SchemaVersionInfo> storedVersions = new ArrayList<>(Arrays.asList(
+                createSchemaVersionInfo(2, SchemaVersionLifecycleStates.ENABLED.id()),
+                createSchemaVersionInfo(1, SchemaVersionLifecycleStates.ENABLED.id())));
+        AtomicInteger loadCount = new AtomicInteger();
+        SchemaVersionIndex schemaVersionIndex = new SchemaVersionIndex(schemaName -> {
+            loadCount.incrementAndGet();
+            return new ArrayList<>(storedVersions);
+        }, 100, 60);
+
+        Assert.assertEquals(Integer.valueOf(2), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(2, schemaVersionIndex.getAll(SCHEMA_NAME, SchemaVersionLifecycleStates.ENABLED.id()).size());
+
+        // version added and its state is changed
+        schemaVersionIndex.put(createSchemaVersionInfo(3, SchemaVersionLifecycleStates.INITIATED.id()));
+        Assert.assertEquals(Integer.valueOf(3), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(Integer.valueOf(2),
+                            schemaVersionIndex.getLatest(SCHEMA_NAME, SchemaVersionLifecycleStates.ENABLED.id()).getVersion());
+        schemaVersionIndex.put(createSchemaVersionInfo(3, SchemaVersionLifecycleStates.ENABLED.id()));
+        Assert.assertEquals(Integer.valueOf(3),
+                            schemaVersionIndex.getLatest(SCHEMA_NAME, SchemaVersionLifecycleStates.ENABLED.id()).getVersion());
+
+        // version deleted
+        schemaVersionIndex.remove(SCHEMA_NAME, 3);
+        Assert.assertEquals(Integer.valueOf(2), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertNull(schemaVersionIndex.getLatest(SCHEMA_NAME, SchemaVersionLifecycleStates.ARCHIVED.id()));
+        Assert.assertEquals(1, loadCount.get());
+
+        // invalidated versions are loaded again
+        storedVersions.add(0, createSchemaVersionInfo(4, SchemaVersionLifecycleStates.ENABLED.id()));
+        schemaVersionIndex.invalidate(SCHEMA_NAME);
+        Assert.assertEquals(Integer.valueOf(4), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testUpdatedVersionsAreWeighedAgain() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        SchemaVersionIndex schemaVersionIndex = new SchemaVersionIndex(schemaName -> {
+            loadCount.incrementAndGet();
+            return Collections.singletonList(createSchemaVersionInfo(1, SchemaVersionLifecycleStates.ENABLED.id()));
+        }, 2, 60);
+
+        schemaVersionIndex.getLatest(SCHEMA_NAME, null);
+        schemaVersionIndex.put(createSchemaVersionInfo(2, SchemaVersionLifecycleStates.ENABLED.id()));
+        Assert.assertEquals(Integer.valueOf(2), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(1, loadCount.get());
+
+        // versions of the schema are evicted as they are more than the maximum
+        schemaVersionIndex.put(createSchemaVersionInfo(3, SchemaVersionLifecycleStates.ENABLED.id()));
+        Assert.assertEquals(Integer.valueOf(1), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testUpdatedVersionsAreLoadedAgainAfterExpiry() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        SchemaVersionIndex schemaVersionIndex = new SchemaVersionIndex(schemaName -> {
+            loadCount.incrementAndGet();
+            return Collections.singletonList(createSchemaVersionInfo(1, SchemaVersionLifecycleStates.ENABLED.id()));
+        }, 100, 0);
+
+        schemaVersionIndex.getLatest(SCHEMA_NAME, null);
+        Thread.sleep(1);
+        // updates do not extend the time till the versions are loaded again
+        schemaVersionIndex.put(createSchemaVersionInfo(2, SchemaVersionLifecycleStates.ENABLED.id()));
+        Assert.assertEquals(Integer.valueOf(1), schemaVersionIndex.getLatest(SCHEMA_NAME, null).getVersion());
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test(expected = SchemaNotFoundException.class)
+    public void testUnknownSchema() throws Exception {
+        SchemaVersionIndex schemaVersionIndex = new SchemaVersionIndex(schemaName -> {
+            throw new SchemaNotFoundException("Schema not found with name " + schemaName);
+        }, 100, 60);
+        schemaVersionIndex.getLatest(SCHEMA_NAME, null);
+    }
+
+    private SchemaVersionInfo createSchemaVersionInfo(Integer version, Byte stateId) {
+        return new SchemaVersionInfo((long) version, SCHEMA_NAME, version, 1L, "schema-text-" + version,
+                                     System.currentTimeMillis(), "schema-description", stateId);
+    }
+}
@@ -51,7 +51,8 @@ abstract class BaseRegistryResource {
 
     /**
      * Checks whether the current instance is a leader. If so, it invokes the given {@code supplier}, else current
-     * request is redirected to the leader node in registry cluster.
+     * request is redirected to the leader node in registry cluster. Responses carry the url of the current leader in
+     * {@link LeadershipParticipant#LEADER_URL_HEADER} header, when it is known.
      *
      * @param uriInfo
      * @param supplier
@@ -61,8 +62,9 @@ abstract class BaseRegistryResource {
         LOG.info("URI info [{}]", uriInfo.getRequestUri());
         if (!leadershipParticipant.get().isLeader()) {
             URI location = null;
+            String currentLeaderLoc;
             try {
-                String currentLeaderLoc = leadershipParticipant.get().getCurrentLeader();
+                currentLeaderLoc = leadershipParticipant.get().getCurrentLeader();
                 URI leaderServerUrl = new URI(currentLeaderLoc);
                 URI requestUri = uriInfo.getRequestUri();
                 location = new URI(leaderServerUrl.getScheme(), leaderServerUrl.getAuthority(),
@@ -71,10 +73,28 @@ abstract class BaseRegistryResource {
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
-            return Response.temporaryRedirect(location).build();
+            return Response.temporaryRedirect(location).header(LeadershipParticipant.LEADER_URL_HEADER, currentLeaderLoc).build();
         } else {
             LOG.info("Invoking here as this instance is the leader");
-            return supplier.get();
+            Response response = supplier.get();
+            String currentLeaderUrl = getCurrentLeaderUrl();
+            return currentLeaderUrl != null
+                   ? Response.fromResponse(response).header(LeadershipParticipant.LEADER_URL_HEADER, currentLeaderUrl).build()
+                   : response;
+        }
+    }
+
+    /**
+     * Returns url of the current leader, or null if it is not known or the leader is not identified with a url as
+     * in the case of {@link com.hortonworks.registries.common.ha.LocalLeader}.
+     */
+    String getCurrentLeaderUrl() {
+        try {
+            String currentLeader = leadershipParticipant.get().getCurrentLeader();
+            return currentLeader != null && URI.create(currentLeader).isAbsolute() ? currentLeader : null;
+        } catch (Exception e) {
+            LOG.debug("Current leader is not known", e);
+            return null;
         }
     }
 
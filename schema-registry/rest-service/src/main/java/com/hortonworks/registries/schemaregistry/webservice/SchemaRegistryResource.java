@@ -75,6 +75,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import static com.hortonworks.registries.schemaregistry.DefaultSchemaRegistry.ORDER_BY_FIELDS_PARAM_NAME;
 
@@ -89,6 +91,12 @@ public class SchemaRegistryResource extends BaseRegistryResource {
     public static final String THROW_ERROR_IF_EXISTS = "_throwErrorIfExists";
     public static final String THROW_ERROR_IF_EXISTS_LOWER_CASE = THROW_ERROR_IF_EXISTS.toLowerCase();
 
+    // query parameters of paged list and search APIs
+    public static final String PAGE_SIZE_PARAM_NAME = "_pageSize";
+    public static final String PAGE_TOKEN_PARAM_NAME = "_pageToken";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
+
     // reserved as schema related paths use these strings
     private static final String[] reservedNames = {"aggregate", "versions", "compatibility"};
 
@@ -96,6 +104,22 @@ public class SchemaRegistryResource extends BaseRegistryResource {
         super(schemaRegistry, leadershipParticipant);
     }
 
+    @GET
+    @Path("/leader")
+    @ApiOperation(value = "Get url of the current leader",
+            notes = "Requests which add or update schemas and serializers are handled by the leader. " +
+                    "Clients can send them directly to the leader instead of being redirected by other instances.",
+            response = String.class,
+            tags = OPERATION_GROUP_OTHER)
+    @Timed
+    public Response getCurrentLeader() {
+        String currentLeaderUrl = getCurrentLeaderUrl();
+        if (currentLeaderUrl == null) {
+            return WSUtils.respond(Response.Status.NOT_FOUND, CatalogResponse.ResponseMessage.ENTITY_NOT_FOUND, "leader");
+        }
+        return WSUtils.respondEntity(currentLeaderUrl, Response.Status.OK);
+    }
+
     @GET
     @Path("/schemaproviders")
     @ApiOperation(value = "Get list of registered Schema Providers",
@@ -119,15 +143,21 @@ public class SchemaRegistryResource extends BaseRegistryResource {
     @GET
     @Path("/schemas/aggregated")
     @ApiOperation(value = "Get list of schemas by filtering with the given query parameters",
+            notes = "Results are paged when " + PAGE_SIZE_PARAM_NAME + " or " + PAGE_TOKEN_PARAM_NAME +
+                    " query parameter is given, nextPageToken of the response should be passed as " + PAGE_TOKEN_PARAM_NAME +
+                    " to get the next page.",
             response = AggregatedSchemaMetadataInfo.class, responseContainer = "List", tags = OPERATION_GROUP_SCHEMA)
     @Timed
     public Response listAggregatedSchemas(@Context UriInfo uriInfo) {
         try {
             MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
-            Map<String, String> filters = new HashMap<>();
-            for (Map.Entry<String, List<String>> entry : queryParameters.entrySet()) {
-                List<String> value = entry.getValue();
-                filters.put(entry.getKey(), value != null && !value.isEmpty() ? value.get(0) : null);
+            Map<String, String> filters = getFilters(queryParameters);
+            if (isPaged(queryParameters)) {
+                List<OrderBy> orderByFields = getOrderByFields(filters.get(ORDER_BY_FIELDS_PARAM_NAME));
+                return respondPage(queryParameters,
+                                   (startAfter, limit, consumer) -> schemaRegistry.findSchemaMetadata(filters, startAfter, limit, consumer),
+                                   orderByFields,
+                                   this::buildAggregatedSchemaMetadataInfo);
             }
 
             Collection<AggregatedSchemaMetadataInfo> schemaMetadatas = schemaRegistry.findAggregatedSchemaMetadata(filters);
@@ -164,15 +194,21 @@ public class SchemaRegistryResource extends BaseRegistryResource {
     @GET
     @Path("/schemas")
     @ApiOperation(value = "Get list of schemas by filtering with the given query parameters",
+            notes = "Results are paged when " + PAGE_SIZE_PARAM_NAME + " or " + PAGE_TOKEN_PARAM_NAME +
+                    " query parameter is given, nextPageToken of the response should be passed as " + PAGE_TOKEN_PARAM_NAME +
+                    " to get the next page.",
             response = SchemaMetadataInfo.class, responseContainer = "List", tags = OPERATION_GROUP_SCHEMA)
     @Timed
     public Response listSchemas(@Context UriInfo uriInfo) {
         try {
             MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
-            Map<String, String> filters = new HashMap<>();
-            for (Map.Entry<String, List<String>> entry : queryParameters.entrySet()) {
-                List<String> value = entry.getValue();
-                filters.put(entry.getKey(), value != null && !value.isEmpty() ? value.get(0) : null);
+            Map<String, String> filters = getFilters(queryParameters);
+            if (isPaged(queryParameters)) {
+                List<OrderBy> orderByFields = getOrderByFields(filters.get(ORDER_BY_FIELDS_PARAM_NAME));
+                return respondPage(queryParameters,
+                                   (startAfter, limit, consumer) -> schemaRegistry.findSchemaMetadata(filters, startAfter, limit, consumer),
+                                   orderByFields,
+                                   Function.identity());
             }
 
             Collection<SchemaMetadataInfo> schemaMetadatas = schemaRegistry.findSchemaMetadata(filters);
@@ -193,6 +229,14 @@ public class SchemaRegistryResource extends BaseRegistryResource {
     public Response findSchemas(@Context UriInfo uriInfo) {
         MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
         try {
+            if (isPaged(queryParameters)) {
+                List<OrderBy> orderByFields = getOrderByFields(queryParameters.getFirst(ORDER_BY_FIELDS_PARAM_NAME));
+                return respondPage(queryParameters,
+                                   (startAfter, limit, consumer) -> searchSchemaMetadataInfos(queryParameters, orderByFields, startAfter, limit, consumer),
+                                   orderByFields,
+                                   Function.identity());
+            }
+
             Collection<SchemaMetadataInfo> schemaMetadataInfos = findSchemaMetadataInfos(queryParameters);
             return WSUtils.respondEntities(schemaMetadataInfos, Response.Status.OK);
         } catch (Exception ex) {
@@ -203,17 +247,8 @@ public class SchemaRegistryResource extends BaseRegistryResource {
 
     private Collection<SchemaMetadataInfo> findSchemaMetadataInfos(MultivaluedMap<String, String> queryParameters) {
         Collection<SchemaMetadataInfo> schemaMetadataInfos;
-        // name and description for now, complex queries are supported by backend and front end can send the json
-        // query for those complex queries.
-        if (queryParameters.containsKey(SchemaMetadataStorable.NAME)
-                || queryParameters.containsKey(SchemaMetadataStorable.DESCRIPTION)) {
-            String name = queryParameters.getFirst(SchemaMetadataStorable.NAME);
-            String description = queryParameters.getFirst(SchemaMetadataStorable.DESCRIPTION);
-            WhereClause whereClause = WhereClause.begin()
-                                                 .contains(SchemaMetadataStorable.NAME, name)
-                                                 .or()
-                                                 .contains(SchemaMetadataStorable.DESCRIPTION, description)
-                                                 .combine();
+        WhereClause whereClause = buildSearchWhereClause(queryParameters);
+        if (whereClause != null) {
             //todo refactor orderby field in DefaultSchemaRegistry#search APIs merge with these APIs
             String orderByFieldStr = queryParameters.getFirst(ORDER_BY_FIELDS_PARAM_NAME);
             schemaMetadataInfos = schemaRegistry.searchSchemas(whereClause, getOrderByFields(orderByFieldStr));
@@ -223,8 +258,39 @@ public class SchemaRegistryResource extends BaseRegistryResource {
         return schemaMetadataInfos;
     }
 
+    private void searchSchemaMetadataInfos(MultivaluedMap<String, String> queryParameters,
+                                           List<OrderBy> orderByFields,
+                                           Map<String, Object> startAfter,
+                                           int limit,
+                                           Consumer<SchemaMetadataInfo> consumer) {
+        WhereClause whereClause = buildSearchWhereClause(queryParameters);
+        if (whereClause != null) {
+            schemaRegistry.searchSchemas(whereClause, orderByFields, startAfter, limit, consumer);
+        }
+    }
+
+    private WhereClause buildSearchWhereClause(MultivaluedMap<String, String> queryParameters) {
+        // name and description for now, complex queries are supported by backend and front end can send the json
+        // query for those complex queries.
+        if (queryParameters.containsKey(SchemaMetadataStorable.NAME)
+                || queryParameters.containsKey(SchemaMetadataStorable.DESCRIPTION)) {
+            String name = queryParameters.getFirst(SchemaMetadataStorable.NAME);
+            String description = queryParameters.getFirst(SchemaMetadataStorable.DESCRIPTION);
+            return WhereClause.begin()
+                              .contains(SchemaMetadataStorable.NAME, name)
+                              .or()
+                              .contains(SchemaMetadataStorable.DESCRIPTION, description)
+                              .combine();
+        }
+        return null;
+    }
+
     private List<OrderBy> getOrderByFields(String value) {
         List<OrderBy> orderByList = new ArrayList<>();
+        if (value == null) {
+            return orderByList;
+        }
+
         // _orderByFields=[<field-name>,<a/d>,]*
         // example can be : _orderByFields=foo,a,bar,d
         // order by foo with ascending then bar with descending
@@ -256,19 +322,18 @@ public class SchemaRegistryResource extends BaseRegistryResource {
     public Response findAggregatedSchemas(@Context UriInfo uriInfo) {
         MultivaluedMap<String, String> queryParameters = uriInfo.getQueryParameters();
         try {
+            if (isPaged(queryParameters)) {
+                List<OrderBy> orderByFields = getOrderByFields(queryParameters.getFirst(ORDER_BY_FIELDS_PARAM_NAME));
+                return respondPage(queryParameters,
+                                   (startAfter, limit, consumer) -> searchSchemaMetadataInfos(queryParameters, orderByFields, startAfter, limit, consumer),
+                                   orderByFields,
+                                   this::buildAggregatedSchemaMetadataInfo);
+            }
+
             Collection<SchemaMetadataInfo> schemaMetadataInfos = findSchemaMetadataInfos(uriInfo.getQueryParameters());
             List<AggregatedSchemaMetadataInfo> aggregatedSchemaMetadataInfos = new ArrayList<>();
             for (SchemaMetadataInfo schemaMetadataInfo : schemaMetadataInfos) {
-                SchemaMetadata schemaMetadata = schemaMetadataInfo.getSchemaMetadata();
-                List<SerDesInfo> serDesInfos = new ArrayList<>(schemaRegistry.getSerDes(schemaMetadataInfo
-                                                                                                .getSchemaMetadata()
-                                                                                                .getName()));
-                aggregatedSchemaMetadataInfos.add(
-                        new AggregatedSchemaMetadataInfo(schemaMetadata,
-                                                         schemaMetadataInfo.getId(),
-                                                         schemaMetadataInfo.getTimestamp(),
-                                                         schemaRegistry.getAllVersions(schemaMetadata.getName()),
-                                                         serDesInfos));
+                aggregatedSchemaMetadataInfos.add(buildAggregatedSchemaMetadataInfo(schemaMetadataInfo));
             }
 
             return WSUtils.respondEntities(aggregatedSchemaMetadataInfos, Response.Status.OK);
@@ -278,6 +343,66 @@ public class SchemaRegistryResource extends BaseRegistryResource {
         }
     }
 
+    private AggregatedSchemaMetadataInfo buildAggregatedSchemaMetadataInfo(SchemaMetadataInfo schemaMetadataInfo) {
+        SchemaMetadata schemaMetadata = schemaMetadataInfo.getSchemaMetadata();
+        List<SerDesInfo> serDesInfos = new ArrayList<>(schemaRegistry.getSerDes(schemaMetadata.getName()));
+        try {
+            return new AggregatedSchemaMetadataInfo(schemaMetadata,
+                                                    schemaMetadataInfo.getId(),
+                                                    schemaMetadataInfo.getTimestamp(),
+                                                    schemaRegistry.getAllVersions(schemaMetadata.getName()),
+                                                    serDesInfos);
+        } catch (SchemaNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private Map<String, String> getFilters(MultivaluedMap<String, String> queryParameters) {
+        Map<String, String> filters = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : queryParameters.entrySet()) {
+            if (PAGE_SIZE_PARAM_NAME.equals(entry.getKey()) || PAGE_TOKEN_PARAM_NAME.equals(entry.getKey())) {
+                continue;
+            }
+            List<String> value = entry.getValue();
+            filters.put(entry.getKey(), value != null && !value.isEmpty() ? value.get(0) : null);
+        }
+        return filters;
+    }
+
+    private boolean isPaged(MultivaluedMap<String, String> queryParameters) {
+        return queryParameters.containsKey(PAGE_SIZE_PARAM_NAME) || queryParameters.containsKey(PAGE_TOKEN_PARAM_NAME);
+    }
+
+    private <R> Response respondPage(MultivaluedMap<String, String> queryParameters,
+                                     WSUtils.PageProducer<SchemaMetadataInfo> pageProducer,
+                                     List<OrderBy> orderByFields,
+                                     Function<? super SchemaMetadataInfo, ? extends R> mapper) throws Exception {
+        Map<String, Object> startAfter;
+        int pageSize;
+        try {
+            startAfter = WSUtils.decodePageToken(queryParameters.getFirst(PAGE_TOKEN_PARAM_NAME));
+            String pageSizeStr = queryParameters.getFirst(PAGE_SIZE_PARAM_NAME);
+            pageSize = pageSizeStr != null ? Integer.parseInt(pageSizeStr) : DEFAULT_PAGE_SIZE;
+        } catch (IllegalArgumentException e) {
+            return WSUtils.respond(Response.Status.BAD_REQUEST, CatalogResponse.ResponseMessage.BAD_REQUEST_PARAM_MISSING, e.getMessage());
+        }
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            return WSUtils.respond(Response.Status.BAD_REQUEST, CatalogResponse.ResponseMessage.BAD_REQUEST_PARAM_MISSING,
+                                   PAGE_SIZE_PARAM_NAME + " should be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        try {
+            return WSUtils.respondPage(pageProducer,
+                                       schemaMetadataInfo -> schemaRegistry.getPageKey(schemaMetadataInfo, orderByFields),
+                                       mapper,
+                                       startAfter,
+                                       pageSize);
+        } catch (IllegalArgumentException e) {
+            // page token which does not match the requested order or filters
+            return WSUtils.respond(Response.Status.BAD_REQUEST, CatalogResponse.ResponseMessage.BAD_REQUEST_PARAM_MISSING, e.getMessage());
+        }
+    }
+
     @GET
     @Path("/search/schemas/fields")
     @ApiOperation(value = "Search for schemas containing the given field names",
@@ -608,6 +733,41 @@ public class SchemaRegistryResource extends BaseRegistryResource {
         return response;
     }
 
+    @POST
+    @Path("/schemas/versionsById/batch")
+    @ApiOperation(value = "Get the versions of the schemas identified by the given version ids, ids which do not exist are ignored",
+            notes = "At most " + MAX_PAGE_SIZE + " version ids can be given in a request.",
+            response = SchemaVersionInfo.class, responseContainer = "List", tags = OPERATION_GROUP_SCHEMA)
+    @Timed
+    public Response getSchemaVersionsByIds(@ApiParam(value = "version identifiers of the schemas", required = true) List<Long> versionIds) {
+        if (versionIds == null || versionIds.contains(null)) {
+            return WSUtils.respond(Response.Status.BAD_REQUEST, CatalogResponse.ResponseMessage.BAD_REQUEST_PARAM_MISSING,
+                                   "version ids should be given");
+        }
+        if (versionIds.size() > MAX_PAGE_SIZE) {
+            return WSUtils.respond(Response.Status.BAD_REQUEST, CatalogResponse.ResponseMessage.BAD_REQUEST_PARAM_MISSING,
+                                   "at most " + MAX_PAGE_SIZE + " version ids should be given");
+        }
+
+        Response response;
+        try {
+            List<SchemaVersionInfo> schemaVersionInfos = new ArrayList<>(versionIds.size());
+            for (Long versionId : versionIds) {
+                try {
+                    schemaVersionInfos.add(schemaRegistry.getSchemaVersionInfo(new SchemaIdVersion(versionId)));
+                } catch (SchemaNotFoundException e) {
+                    LOG.info("No schema version is found with schema version id : [{}]", versionId);
+                }
+            }
+            response = WSUtils.respondEntities(schemaVersionInfos, Response.Status.OK);
+        } catch (Exception ex) {
+            LOG.error("Encountered error while getting schema versions with ids [{}]", versionIds, ex);
+            response = WSUtils.respond(Response.Status.INTERNAL_SERVER_ERROR, CatalogResponse.ResponseMessage.EXCEPTION, ex.getMessage());
+        }
+
+        return response;
+    }
+
     @GET
     @Path("/schemas/versionsById/states")
     @ApiOperation(value = "Get schema version life cycle states",
@@ -210,6 +210,27 @@ public class AvroSchemaRegistryClientTest {
         }
     }
 
+    @Test
+    public void testGetSchemaVersionInfosInBatch() throws Exception {
+        SchemaMetadata schemaMetadata = createSchemaMetadata(TEST_NAME_RULE.getMethodName(), SchemaCompatibility.BOTH);
+        SchemaIdVersion v1 = SCHEMA_REGISTRY_CLIENT.addSchemaVersion(schemaMetadata, new SchemaVersion(AvroSchemaRegistryClientUtil.getSchema("/schema-1.avsc"), "Initial version of the schema"));
+        SchemaIdVersion v2 = SCHEMA_REGISTRY_CLIENT.addSchemaVersion(schemaMetadata, new SchemaVersion(AvroSchemaRegistryClientUtil.getSchema("/schema-2.avsc"), "Second version of the schema"));
+
+        // new client without any cached versions
+        SchemaRegistryClient schemaRegistryClient = SCHEMA_REGISTRY_TEST_SERVER_CLIENT_WRAPPER.getClient(false);
+        Collection<SchemaVersionInfo> schemaVersionInfos =
+                schemaRegistryClient.getSchemaVersionInfos(Arrays.asList(new SchemaIdVersion(v1.getSchemaVersionId()),
+                                                                         new SchemaIdVersion(v2.getSchemaVersionId()),
+                                                                         new SchemaIdVersion(Long.MAX_VALUE)));
+
+        Assert.assertEquals(2, schemaVersionInfos.size());
+        for (SchemaVersionInfo schemaVersionInfo : schemaVersionInfos) {
+            Assert.assertEquals(schemaMetadata.getName(), schemaVersionInfo.getName());
+            Assert.assertEquals(SCHEMA_REGISTRY_CLIENT.getSchemaVersionInfo(new SchemaIdVersion(schemaVersionInfo.getId())),
+                                schemaRegistryClient.getSchemaVersionInfo(new SchemaVersionKey(schemaMetadata.getName(), schemaVersionInfo.getVersion())));
+        }
+    }
+
     @Test(expected = InvalidSchemaException.class)
     public void testInvalidSchema() throws Exception {
         String schema = "--- invalid schema ---";
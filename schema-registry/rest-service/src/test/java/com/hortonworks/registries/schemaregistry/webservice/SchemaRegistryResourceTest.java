@@ -0,0 +1,89 @@
+/**
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.schemaregistry.webservice;
+
+import com.hortonworks.registries.common.CollectionResponse;
+import com.hortonworks.registries.schemaregistry.DefaultSchemaRegistry;
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
+import com.hortonworks.registries.schemaregistry.SchemaVersion;
+import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
+import com.hortonworks.registries.schemaregistry.avro.AvroSchemaProvider;
+import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *
+ */
+public class SchemaRegistryResourceTest {
+
+    private static final String SCHEMA = "{\"type\":\"record\",\"name\":\"Device\",\"fields\":[{\"name\":\"id\",\"type\":\"long\"}]}";
+
+    private DefaultSchemaRegistry schemaRegistry;
+    private SchemaRegistryResource schemaRegistryResource;
+
+    @Before
+    public void setup() {
+        Map<String, Object> avroProviderConfig = Collections.singletonMap("providerClass", AvroSchemaProvider.class.getName());
+        schemaRegistry = new DefaultSchemaRegistry(new InMemoryStorageManager(), null, Collections.singleton(avroProviderConfig));
+        schemaRegistry.init(Collections.<String, Object>emptyMap());
+        schemaRegistryResource = new SchemaRegistryResource(schemaRegistry, new AtomicReference<>());
+    }
+
+    @Test
+    public void testGetSchemaVersionsByIds() throws Exception {
+        SchemaMetadata schemaMetadata = new SchemaMetadata.Builder("device").type(AvroSchemaProvider.TYPE).build();
+        SchemaIdVersion schemaIdVersion = schemaRegistry.addSchemaVersion(schemaMetadata, new SchemaVersion(SCHEMA, "Initial version of the schema"));
+
+        Response response = schemaRegistryResource.getSchemaVersionsByIds(Arrays.asList(schemaIdVersion.getSchemaVersionId(), Long.MAX_VALUE));
+
+        Assert.assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+        List<?> schemaVersionInfos = new ArrayList<>(((CollectionResponse) response.getEntity()).getEntities());
+        Assert.assertEquals(1, schemaVersionInfos.size());
+        Assert.assertEquals(schemaIdVersion.getSchemaVersionId(), ((SchemaVersionInfo) schemaVersionInfos.get(0)).getId());
+    }
+
+    @Test
+    public void testGetSchemaVersionsByIdsWithoutIds() {
+        Response response = schemaRegistryResource.getSchemaVersionsByIds(null);
+        Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+
+        response = schemaRegistryResource.getSchemaVersionsByIds(Collections.singletonList(null));
+        Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+
+    @Test
+    public void testGetSchemaVersionsByIdsWithTooManyIds() {
+        List<Long> versionIds = new ArrayList<>();
+        for (long i = 0; i <= SchemaRegistryResource.MAX_PAGE_SIZE; i++) {
+            versionIds.add(i);
+        }
+
+        Response response = schemaRegistryResource.getSchemaVersionsByIds(versionIds);
+
+        Assert.assertEquals(Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+    }
+}
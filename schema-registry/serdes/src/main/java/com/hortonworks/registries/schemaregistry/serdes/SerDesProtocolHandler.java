@@ -20,6 +20,7 @@ import com.hortonworks.registries.schemaregistry.serde.SerDesException;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
@@ -66,4 +67,90 @@ public interface SerDesProtocolHandler {
      */
     Object handlePayloadDeserialization(InputStream inputStream, Map<String, Object> context) throws SerDesException;
 
+    /**
+     * Returns the context to be passed for deserializing all the payloads of the schema version in the given
+     * {@code context}. Implementations can resolve what is needed for each payload, like datum readers, once for a group
+     * of payloads instead of for every payload. The given context is not modified, it is returned by default.
+     *
+     * @param context context of the schema version of the payloads
+     * @return context to be used for deserializing payloads of the schema version
+     */
+    default Map<String, Object> resolveDeserializationContext(Map<String, Object> context) throws SerDesException {
+        return context;
+    }
+
+    /**
+     * Serializes protocol id and schema version related information into the given buffer starting at its current
+     * position. Position of the buffer is advanced by the number of bytes written.
+     *
+     * @param buffer          buffer to which schema version info is written
+     * @param schemaIdVersion schema version info to be serialized
+     */
+    default void handleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) throws SerDesException {
+        handleSchemaVersionSerialization(new ByteBufferBackedOutputStream(buffer), schemaIdVersion);
+    }
+
+    /**
+     * Deserializes schema version related information from the given buffer starting at its current position. Position
+     * of the buffer is advanced by the number of bytes read.
+     *
+     * @param buffer buffer positioned after the protocol id
+     * @return {@link SchemaIdVersion} instance created from deserializing respective information from given buffer.
+     */
+    default SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) throws SerDesException {
+        return handleSchemaVersionDeserialization(new ByteBufferBackedInputStream(buffer));
+    }
+
+    /**
+     * @return true if the schema version info of this protocol is a schema version id, which can be read with
+     * {@link #handleSchemaVersionIdDeserialization(ByteBuffer)} or {@link #handleSchemaVersionIdDeserialization(InputStream)}.
+     */
+    default boolean hasSchemaVersionId() {
+        return false;
+    }
+
+    /**
+     * Deserializes the schema version id from the given buffer starting at its current position, without creating a
+     * {@link SchemaIdVersion}. It should be invoked only when {@link #hasSchemaVersionId()} is true. Position of the
+     * buffer is advanced by the number of bytes read.
+     *
+     * @param buffer buffer positioned after the protocol id
+     * @return schema version id deserialized from the given buffer.
+     */
+    default long handleSchemaVersionIdDeserialization(ByteBuffer buffer) throws SerDesException {
+        return handleSchemaVersionDeserialization(buffer).getSchemaVersionId();
+    }
+
+    /**
+     * Deserializes the schema version id from the given input stream, without creating a {@link SchemaIdVersion}. It
+     * should be invoked only when {@link #hasSchemaVersionId()} is true.
+     *
+     * @param inputStream input stream positioned after the protocol id
+     * @return schema version id deserialized from the given input stream.
+     */
+    default long handleSchemaVersionIdDeserialization(InputStream inputStream) throws SerDesException {
+        return handleSchemaVersionDeserialization(inputStream).getSchemaVersionId();
+    }
+
+    /**
+     * Handles serialization of input into the given buffer starting at its current position.
+     *
+     * @param buffer buffer to which the payload is written
+     * @param input  object to be serialized
+     */
+    default void handlePayloadSerialization(ByteBuffer buffer, Object input) throws SerDesException {
+        handlePayloadSerialization(new ByteBufferBackedOutputStream(buffer), input);
+    }
+
+    /**
+     * Handles deserialization of the remaining bytes of the given buffer and returns the deserialized Object.
+     *
+     * @param buffer  buffer positioned at the start of the payload
+     * @param context any context required for deserialization.
+     * @return returns the deserialized Object.
+     */
+    default Object handlePayloadDeserialization(ByteBuffer buffer, Map<String, Object> context) throws SerDesException {
+        return handlePayloadDeserialization(new ByteBufferBackedInputStream(buffer), context);
+    }
+
 }
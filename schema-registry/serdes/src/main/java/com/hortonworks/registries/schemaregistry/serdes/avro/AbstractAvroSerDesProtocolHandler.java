@@ -17,14 +17,19 @@ package com.hortonworks.registries.schemaregistry.serdes.avro;
 
 import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serdes.ByteBufferBackedOutputStream;
 import com.hortonworks.registries.schemaregistry.serdes.SerDesProtocolHandler;
 import org.apache.avro.Schema;
+import org.apache.avro.io.DatumReader;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
 import java.util.Map;
 
+import static com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSnapshotDeserializer.COMPILED_AVRO_READER;
 import static com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSnapshotDeserializer.SPECIFIC_AVRO_READER;
 
 /**
@@ -42,13 +47,23 @@ public abstract class AbstractAvroSerDesProtocolHandler implements SerDesProtoco
      */
     public static final String READER_SCHEMA = "reader.schema";
 
+    /**
+     * Property name for datum reader resolved by {@link #resolveDeserializationContext(Map)}
+     */
+    public static final String DATUM_READER = "datum.reader";
+
     private final AvroSerDesHandler avroSerDesHandler;
 
+    // set when datum readers can be resolved once for the payloads of a schema version.
+    private final DefaultAvroSerDesHandler defaultAvroSerDesHandler;
+
     protected final Byte protocolId;
 
     protected AbstractAvroSerDesProtocolHandler(Byte protocolId, AvroSerDesHandler avroSerDesHandler) {
         this.protocolId = protocolId;
         this.avroSerDesHandler = avroSerDesHandler;
+        this.defaultAvroSerDesHandler = avroSerDesHandler instanceof DefaultAvroSerDesHandler
+                                        ? (DefaultAvroSerDesHandler) avroSerDesHandler : null;
     }
 
     @Override
@@ -64,24 +79,131 @@ public abstract class AbstractAvroSerDesProtocolHandler implements SerDesProtoco
     protected abstract void doHandleSchemaVersionSerialization(OutputStream outputStream, SchemaIdVersion schemaIdVersion)
             throws IOException;
 
+    @Override
+    public void handleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        buffer.put(protocolId);
+        doHandleSchemaVersionSerialization(buffer, schemaIdVersion);
+    }
+
+    /**
+     * Writes schema version info into the given buffer. Extensions can override this to put the identifiers directly
+     * instead of going through {@link #doHandleSchemaVersionSerialization(OutputStream, SchemaIdVersion)}.
+     */
+    protected void doHandleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        try {
+            doHandleSchemaVersionSerialization(new ByteBufferBackedOutputStream(buffer), schemaIdVersion);
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+    }
+
+    /**
+     * Checks that the given {@code buffer} has at least {@code length} remaining bytes of schema version info, so that
+     * truncated payloads fail with {@link SerDesException} as they do when read from an input stream.
+     */
+    protected static void checkRemaining(ByteBuffer buffer, int length) throws SerDesException {
+        if (buffer.remaining() < length) {
+            throw new SerDesException("End of buffer reached while trying to read " + length
+                                              + " bytes of schema version info, remaining bytes: " + buffer.remaining());
+        }
+    }
+
+    /**
+     * Reads a long of schema version info from the given input stream without allocating a buffer for it.
+     */
+    protected static long readLong(InputStream inputStream) throws SerDesException {
+        return ((long) readInt(inputStream) << 32) | (readInt(inputStream) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Reads an int of schema version info from the given input stream without allocating a buffer for it.
+     */
+    protected static int readInt(InputStream inputStream) throws SerDesException {
+        int value = 0;
+        try {
+            for (int i = 0; i < 4; i++) {
+                int b = inputStream.read();
+                if (b == -1) {
+                    throw new SerDesException("End of stream reached while trying to read schema version info");
+                }
+                value = (value << 8) | b;
+            }
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+        return value;
+    }
+
     @Override
     public Byte getProtocolId() {
         return protocolId;
     }
 
+    /**
+     * @return {@link AvroSerDesHandler} used for serializing and deserializing payloads.
+     */
+    public AvroSerDesHandler getAvroSerDesHandler() {
+        return avroSerDesHandler;
+    }
+
     @Override
     public void handlePayloadSerialization(OutputStream outputStream, Object input) {
         avroSerDesHandler.handlePayloadSerialization(outputStream, input);
     }
 
+    @Override
+    public Map<String, Object> resolveDeserializationContext(Map<String, Object> context) {
+        if (defaultAvroSerDesHandler == null
+                || !DefaultAvroSerDesHandler.isReadWithDatumReader((Schema) context.get(WRITER_SCHEMA))) {
+            return context;
+        }
+
+        Map<String, Object> resolvedContext = new HashMap<>(context);
+        resolvedContext.put(DATUM_READER, getDatumReader(defaultAvroSerDesHandler, context));
+        return resolvedContext;
+    }
+
+    static DatumReader<Object> getDatumReader(DefaultAvroSerDesHandler defaultAvroSerDesHandler, Map<String, Object> context) {
+        boolean useSpecificAvroReader = (boolean) context.getOrDefault(SPECIFIC_AVRO_READER, false);
+        boolean useCompiledAvroReader = (boolean) context.getOrDefault(COMPILED_AVRO_READER, false);
+        Schema writerSchema = (Schema) context.get(WRITER_SCHEMA);
+        Schema readerSchema = (Schema) context.get(READER_SCHEMA);
+        return defaultAvroSerDesHandler.getDatumReader(writerSchema, readerSchema, useSpecificAvroReader, useCompiledAvroReader);
+    }
+
     @Override
     public Object handlePayloadDeserialization(InputStream payloadInputStream, Map<String, Object> context) {
+        DatumReader<Object> datumReader = (DatumReader<Object>) context.get(DATUM_READER);
+        if (datumReader != null && defaultAvroSerDesHandler != null) {
+            return defaultAvroSerDesHandler.handlePayloadDeserialization(payloadInputStream, datumReader);
+        }
+
         boolean useSpecificAvroReader = (boolean) context.getOrDefault(SPECIFIC_AVRO_READER, false);
+        boolean useCompiledAvroReader = (boolean) context.getOrDefault(COMPILED_AVRO_READER, false);
         Schema writerSchema = (Schema) context.get(WRITER_SCHEMA);
         Schema readerSchema = (Schema) context.get(READER_SCHEMA);
         return avroSerDesHandler.handlePayloadDeserialization(payloadInputStream,
                                                                      writerSchema,
                                                                      readerSchema,
-                                                                     useSpecificAvroReader);
+                                                                     useSpecificAvroReader,
+                                                                     useCompiledAvroReader);
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(ByteBuffer payloadBuffer, Map<String, Object> context) {
+        DatumReader<Object> datumReader = (DatumReader<Object>) context.get(DATUM_READER);
+        if (datumReader != null && defaultAvroSerDesHandler != null) {
+            return defaultAvroSerDesHandler.handlePayloadDeserialization(payloadBuffer, datumReader);
+        }
+
+        boolean useSpecificAvroReader = (boolean) context.getOrDefault(SPECIFIC_AVRO_READER, false);
+        boolean useCompiledAvroReader = (boolean) context.getOrDefault(COMPILED_AVRO_READER, false);
+        Schema writerSchema = (Schema) context.get(WRITER_SCHEMA);
+        Schema readerSchema = (Schema) context.get(READER_SCHEMA);
+        return avroSerDesHandler.handlePayloadDeserialization(payloadBuffer,
+                                                              writerSchema,
+                                                              readerSchema,
+                                                              useSpecificAvroReader,
+                                                              useCompiledAvroReader);
     }
 }
@@ -30,6 +30,7 @@ import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
 import com.hortonworks.registries.schemaregistry.errors.InvalidSchemaException;
 import com.hortonworks.registries.schemaregistry.errors.SchemaNotFoundException;
 import com.hortonworks.registries.schemaregistry.serde.AbstractSnapshotDeserializer;
+import com.hortonworks.registries.schemaregistry.serde.SchemaVersionContext;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
 import com.hortonworks.registries.schemaregistry.serdes.SerDesProtocolHandler;
 import org.apache.avro.Schema;
@@ -37,6 +38,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -99,10 +101,18 @@ public abstract class AbstractAvroSnapshotDeserializer<I> extends AbstractSnapsh
 
     public static final String SPECIFIC_AVRO_READER = "specific.avro.reader";
 
+    /**
+     * Whether payloads are read with readers compiled for each writer and reader schema pair, see
+     * {@link AvroCompiledDatumReader}. Schemas which can not be compiled are read with generic or specific readers.
+     */
+    public static final String COMPILED_AVRO_READER = "compiled.avro.reader";
+
     private AvroSchemaResolver avroSchemaResolver;
 
     protected boolean useSpecificAvroReader = false;
 
+    protected boolean useCompiledAvroReader = false;
+
     public AbstractAvroSnapshotDeserializer() {
         super();
     }
@@ -117,6 +127,7 @@ public abstract class AbstractAvroSnapshotDeserializer<I> extends AbstractSnapsh
         SchemaVersionRetriever schemaVersionRetriever = createSchemaVersionRetriever();
         avroSchemaResolver = new AvroSchemaResolver(schemaVersionRetriever);
         useSpecificAvroReader = (boolean) getValue(config, SPECIFIC_AVRO_READER, false);
+        useCompiledAvroReader = (boolean) getValue(config, COMPILED_AVRO_READER, false);
     }
 
     private SchemaVersionRetriever createSchemaVersionRetriever() {
@@ -155,31 +166,122 @@ public abstract class AbstractAvroSnapshotDeserializer<I> extends AbstractSnapsh
                                              SchemaMetadata schemaMetadata,
                                              Integer writerSchemaVersion,
                                              Integer readerSchemaVersion) throws SerDesException {
-        Object deserializedObj;
-        String schemaName = schemaMetadata.getName();
-        SchemaVersionKey writerSchemaVersionKey = new SchemaVersionKey(schemaName, writerSchemaVersion);
+        Schema writerSchema = getWriterSchema(schemaMetadata, writerSchemaVersion);
+        Schema readerSchema = getReaderSchema(schemaMetadata, readerSchemaVersion);
+
+        return deserializePayloadForProtocol(protocolId, payloadInputStream, writerSchema, readerSchema);
+    }
+
+    /**
+     * Builds the deserialized object from the remaining bytes of the given {@code payloadBuffer} and applying writer
+     * and reader schemas from the respective given versions.
+     *
+     * @param protocolId          protocol id
+     * @param payloadBuffer       buffer positioned at the start of the payload
+     * @param schemaMetadata      metadata about schema
+     * @param writerSchemaVersion schema version of the writer
+     * @param readerSchemaVersion schema version to be applied for reading or projection
+     * @return the deserialized object
+     * @throws SerDesException when any ser/des error occurs
+     */
+    protected Object buildDeserializedObject(byte protocolId,
+                                             ByteBuffer payloadBuffer,
+                                             SchemaMetadata schemaMetadata,
+                                             Integer writerSchemaVersion,
+                                             Integer readerSchemaVersion) throws SerDesException {
+        Schema writerSchema = getWriterSchema(schemaMetadata, writerSchemaVersion);
+        Schema readerSchema = getReaderSchema(schemaMetadata, readerSchemaVersion);
+
+        return deserializePayloadForProtocol(protocolId, payloadBuffer, writerSchema, readerSchema);
+    }
+
+    /**
+     * Builds the deserialized object from the given {@code payloadInputStream} with the writer schema of the given
+     * {@code schemaVersionContext} and the reader schema of the given version.
+     *
+     * @param protocolId           protocol id
+     * @param payloadInputStream   payload
+     * @param schemaVersionContext resolved context of the writer schema version
+     * @param readerSchemaVersion  schema version to be applied for reading or projection
+     * @return the deserialized object
+     * @throws SerDesException when any ser/des error occurs
+     */
+    protected Object buildDeserializedObject(byte protocolId,
+                                             InputStream payloadInputStream,
+                                             SchemaVersionContext<Schema> schemaVersionContext,
+                                             Integer readerSchemaVersion) throws SerDesException {
+        return deserializePayloadForProtocol(protocolId,
+                                             payloadInputStream,
+                                             schemaVersionContext.getWriterSchema(),
+                                             getReaderSchema(schemaVersionContext, readerSchemaVersion));
+    }
+
+    /**
+     * Builds the deserialized object from the remaining bytes of the given {@code payloadBuffer} with the writer schema
+     * of the given {@code schemaVersionContext} and the reader schema of the given version.
+     *
+     * @param protocolId           protocol id
+     * @param payloadBuffer        buffer positioned at the start of the payload
+     * @param schemaVersionContext resolved context of the writer schema version
+     * @param readerSchemaVersion  schema version to be applied for reading or projection
+     * @return the deserialized object
+     * @throws SerDesException when any ser/des error occurs
+     */
+    protected Object buildDeserializedObject(byte protocolId,
+                                             ByteBuffer payloadBuffer,
+                                             SchemaVersionContext<Schema> schemaVersionContext,
+                                             Integer readerSchemaVersion) throws SerDesException {
+        return deserializePayloadForProtocol(protocolId,
+                                             payloadBuffer,
+                                             schemaVersionContext.getWriterSchema(),
+                                             getReaderSchema(schemaVersionContext, readerSchemaVersion));
+    }
+
+    private Schema getWriterSchema(SchemaMetadata schemaMetadata, Integer writerSchemaVersion) {
+        SchemaVersionKey writerSchemaVersionKey = new SchemaVersionKey(schemaMetadata.getName(), writerSchemaVersion);
         LOG.debug("SchemaKey: [{}] for the received payload", writerSchemaVersionKey);
         Schema writerSchema = getSchema(writerSchemaVersionKey);
         if (writerSchema == null) {
             throw new SerDesException("No schema exists with metadata-key: " + schemaMetadata + " and writerSchemaVersion: " + writerSchemaVersion);
         }
-        Schema readerSchema = readerSchemaVersion != null ? getSchema(new SchemaVersionKey(schemaName, readerSchemaVersion)) : null;
-
-        deserializedObj = deserializePayloadForProtocol(protocolId, payloadInputStream, writerSchema, readerSchema);
+        return writerSchema;
+    }
 
-        return deserializedObj;
+    private Schema getReaderSchema(SchemaMetadata schemaMetadata, Integer readerSchemaVersion) {
+        return readerSchemaVersion != null ? getSchema(new SchemaVersionKey(schemaMetadata.getName(), readerSchemaVersion)) : null;
     }
 
     protected Object deserializePayloadForProtocol(byte protocolId,
                                                    InputStream payloadInputStream,
                                                    Schema writerSchema,
                                                    Schema readerSchema) throws SerDesException  {
+        SerDesProtocolHandler serDesProtocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
+
+        return serDesProtocolHandler.handlePayloadDeserialization(payloadInputStream, createDeserializationContext(writerSchema, readerSchema));
+    }
+
+    protected Object deserializePayloadForProtocol(byte protocolId,
+                                                   ByteBuffer payloadBuffer,
+                                                   Schema writerSchema,
+                                                   Schema readerSchema) throws SerDesException  {
+        SerDesProtocolHandler serDesProtocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
+
+        return serDesProtocolHandler.handlePayloadDeserialization(payloadBuffer, createDeserializationContext(writerSchema, readerSchema));
+    }
+
+    /**
+     * Returns the context to be passed to {@link SerDesProtocolHandler} for deserializing payloads with the given
+     * schemas. The returned context is not modified by handlers, so it can be shared by payloads of the same schemas.
+     *
+     * @param writerSchema schema with which the payload was written
+     * @param readerSchema schema to be applied for reading or projection, can be null
+     */
+    protected Map<String, Object> createDeserializationContext(Schema writerSchema, Schema readerSchema) {
         Map<String, Object> props = new HashMap<>();
         props.put(SPECIFIC_AVRO_READER, useSpecificAvroReader);
+        props.put(COMPILED_AVRO_READER, useCompiledAvroReader);
         props.put(WRITER_SCHEMA, writerSchema);
         props.put(READER_SCHEMA, readerSchema);
-        SerDesProtocolHandler serDesProtocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
-
-        return serDesProtocolHandler.handlePayloadDeserialization(payloadInputStream, props);
+        return props;
     }
 }
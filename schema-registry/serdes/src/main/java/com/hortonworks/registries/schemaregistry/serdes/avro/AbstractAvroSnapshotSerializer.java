@@ -17,7 +17,10 @@
  */
 package com.hortonworks.registries.schemaregistry.serdes.avro;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
 import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
 import com.hortonworks.registries.schemaregistry.serde.AbstractSnapshotDeserializer;
 import com.hortonworks.registries.schemaregistry.serde.AbstractSnapshotSerializer;
@@ -27,7 +30,10 @@ import com.hortonworks.registries.schemaregistry.serdes.SerDesProtocolHandler;
 import org.apache.avro.Schema;
 
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * The below example describes how to extend this serializer with user supplied representation like MessageContext class.
@@ -88,6 +94,11 @@ public abstract class AbstractAvroSnapshotSerializer<O> extends AbstractSnapshot
 
     protected SerDesProtocolHandler serDesProtocolHandler;
 
+    // weak keys are compared by identity, so records sharing a schema instance resolve their version without
+    // stringifying the schema or computing its digest.
+    private final Cache<Schema, ConcurrentMap<SchemaMetadata, SchemaIdVersion>> schemaIdVersionCache =
+            CacheBuilder.newBuilder().weakKeys().build();
+
     @Override
     public void doInit(Map<String, ?> config) {
 
@@ -113,6 +124,27 @@ public abstract class AbstractAvroSnapshotSerializer<O> extends AbstractSnapshot
         }
     }
 
+    /**
+     * Returns the cached {@link SchemaIdVersion} when a record with the same {@link Schema} instance was already
+     * serialized with the given {@code schemaMetadata}, else registers the schema as done by the super class.
+     */
+    @Override
+    protected SchemaIdVersion getSchemaIdVersion(Object input, SchemaMetadata schemaMetadata) throws SerDesException {
+        checkState();
+
+        Schema schema = AvroUtils.computeSchema(input);
+        ConcurrentMap<SchemaMetadata, SchemaIdVersion> schemaIdVersions = schemaIdVersionCache.getIfPresent(schema);
+        SchemaIdVersion schemaIdVersion = schemaIdVersions != null ? schemaIdVersions.get(schemaMetadata) : null;
+        if (schemaIdVersion == null) {
+            schemaIdVersion = super.getSchemaIdVersion(input, schemaMetadata);
+            schemaIdVersionCache.asMap()
+                                .computeIfAbsent(schema, x -> new ConcurrentHashMap<>())
+                                .put(schemaMetadata, schemaIdVersion);
+        }
+
+        return schemaIdVersion;
+    }
+
     /**
      * @param input avro object
      * @return textual representation of the schema of the given {@code input} avro object
@@ -129,6 +161,14 @@ public abstract class AbstractAvroSnapshotSerializer<O> extends AbstractSnapshot
     protected void serializePayload(OutputStream os, Object input) throws SerDesException {
         serDesProtocolHandler.handlePayloadSerialization(os, input);
     }
+
+    protected void serializeSchemaVersion(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) throws SerDesException {
+        serDesProtocolHandler.handleSchemaVersionSerialization(buffer, schemaIdVersion);
+    }
+
+    protected void serializePayload(ByteBuffer buffer, Object input) throws SerDesException {
+        serDesProtocolHandler.handlePayloadSerialization(buffer, input);
+    }
     
     protected Byte getProtocolId() {
         return serDesProtocolHandler.getProtocolId();
@@ -0,0 +1,316 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+import org.apache.avro.specific.SpecificData;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DatumReader} which is compiled once for a writer and reader schema pair into a tree of readers, each of them
+ * reads a value of a specific type. Reading a datum does not look up the schema, resolve writer and reader fields or
+ * dispatch on the schema type as {@link GenericDatumReader} does for each datum.
+ * <p>
+ * Reader schema can add fields with defaults, drop fields of the writer schema and rename writer fields and named types
+ * with aliases, any other difference between writer and reader schemas is not compiled. Schemas with logical types for specific records, or with {@code java-class}
+ * properties, are not compiled either. {@link #compile(Schema, Schema, boolean)} returns null for those schemas, so that
+ * callers can fall back to the generic readers.
+ * <p>
+ * Instances are thread safe.
+ */
+public final class AvroCompiledDatumReader implements DatumReader<Object> {
+
+    private final Schema writerSchema;
+    private final Schema readerSchema;
+    private final ValueReader reader;
+
+    private AvroCompiledDatumReader(Schema writerSchema, Schema readerSchema, ValueReader reader) {
+        this.writerSchema = writerSchema;
+        this.readerSchema = readerSchema;
+        this.reader = reader;
+    }
+
+    /**
+     * Compiles a reader for payloads written with the given {@code writerSchema} into datums of the given
+     * {@code readerSchema}.
+     *
+     * @param writerSchema schema with which the payload was written
+     * @param readerSchema schema to be used for reading, writer schema is used when it is null
+     * @param specific     whether specific records are to be created
+     * @return the compiled reader, null if the given schemas can not be compiled
+     */
+    public static AvroCompiledDatumReader compile(Schema writerSchema, Schema readerSchema, boolean specific) {
+        Schema targetSchema = readerSchema != null ? readerSchema : writerSchema;
+        Compiler compiler = new Compiler(specific ? SpecificData.get() : GenericData.get(), specific);
+        try {
+            // writer names are renamed to the reader names they are aliased with, as ResolvingDecoder does.
+            Schema aliasedWriterSchema = Schema.applyAliases(writerSchema, targetSchema);
+            return new AvroCompiledDatumReader(writerSchema, targetSchema, compiler.compile(aliasedWriterSchema, targetSchema));
+        } catch (NotCompilableException e) {
+            return null;
+        }
+    }
+
+    public Schema getWriterSchema() {
+        return writerSchema;
+    }
+
+    public Schema getReaderSchema() {
+        return readerSchema;
+    }
+
+    @Override
+    public void setSchema(Schema schema) {
+        throw new UnsupportedOperationException("Schemas of a compiled reader can not be changed");
+    }
+
+    @Override
+    public Object read(Object reuse, Decoder in) throws IOException {
+        return reader.read(in);
+    }
+
+    private interface ValueReader {
+        Object read(Decoder in) throws IOException;
+    }
+
+    private static final class NotCompilableException extends Exception {
+        private NotCompilableException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Compiler {
+        private final GenericData data;
+        private final boolean specific;
+
+        // record readers which are being compiled, so that recursive records refer to the same reader.
+        private final Map<String, RecordReader> recordReaders = new HashMap<>();
+
+        private Compiler(GenericData data, boolean specific) {
+            this.data = data;
+            this.specific = specific;
+        }
+
+        private ValueReader compile(Schema writer, Schema reader) throws NotCompilableException {
+            if (writer.getType() != reader.getType()
+                    || writer.getProp("java-class") != null
+                    || writer.getProp("java-key-class") != null
+                    || (specific && reader.getLogicalType() != null)) {
+                throw new NotCompilableException();
+            }
+
+            switch (reader.getType()) {
+                case RECORD:
+                    return compileRecord(writer, reader);
+                case ARRAY:
+                    return compileArray(writer, reader);
+                case MAP:
+                    return compileMap(writer, reader);
+                case UNION:
+                    return compileUnion(writer, reader);
+                case ENUM:
+                    return compileEnum(writer, reader);
+                case FIXED:
+                    return compileFixed(writer, reader);
+                case STRING:
+                    return isJavaString(reader) ? Decoder::readString : in -> in.readString(null);
+                case BYTES:
+                    return in -> in.readBytes(null);
+                case INT:
+                    return Decoder::readInt;
+                case LONG:
+                    return Decoder::readLong;
+                case FLOAT:
+                    return Decoder::readFloat;
+                case DOUBLE:
+                    return Decoder::readDouble;
+                case BOOLEAN:
+                    return Decoder::readBoolean;
+                case NULL:
+                    return in -> {
+                        in.readNull();
+                        return null;
+                    };
+                default:
+                    throw new NotCompilableException();
+            }
+        }
+
+        private ValueReader compileRecord(Schema writer, Schema reader) throws NotCompilableException {
+            if (!writer.getFullName().equals(reader.getFullName())) {
+                throw new NotCompilableException();
+            }
+
+            String key = writer.getFullName();
+            RecordReader recordReader = recordReaders.get(key);
+            if (recordReader != null) {
+                if (recordReader.writer != writer || recordReader.reader != reader) {
+                    throw new NotCompilableException();
+                }
+                return recordReader;
+            }
+            recordReader = new RecordReader(data, writer, reader);
+            recordReaders.put(key, recordReader);
+
+            List<Schema.Field> writerFields = writer.getFields();
+            recordReader.positions = new int[writerFields.size()];
+            recordReader.fieldReaders = new ValueReader[writerFields.size()];
+            for (Schema.Field writerField : writerFields) {
+                Schema.Field readerField = reader.getField(writerField.name());
+                int i = writerField.pos();
+                if (readerField == null) {
+                    Schema skippedSchema = writerField.schema();
+                    recordReader.positions[i] = -1;
+                    recordReader.fieldReaders[i] = in -> {
+                        GenericDatumReader.skip(skippedSchema, in);
+                        return null;
+                    };
+                } else {
+                    recordReader.positions[i] = readerField.pos();
+                    recordReader.fieldReaders[i] = compile(writerField.schema(), readerField.schema());
+                }
+            }
+
+            List<Schema.Field> defaultFields = new ArrayList<>();
+            for (Schema.Field readerField : reader.getFields()) {
+                if (writer.getField(readerField.name()) == null) {
+                    if (readerField.defaultValue() == null) {
+                        throw new NotCompilableException();
+                    }
+                    defaultFields.add(readerField);
+                }
+            }
+            recordReader.defaultFields = defaultFields.toArray(new Schema.Field[defaultFields.size()]);
+
+            return recordReader;
+        }
+
+        private ValueReader compileArray(Schema writer, Schema reader) throws NotCompilableException {
+            ValueReader itemReader = compile(writer.getElementType(), reader.getElementType());
+            return in -> {
+                long count = in.readArrayStart();
+                GenericData.Array<Object> array = new GenericData.Array<>((int) count, reader);
+                while (count > 0) {
+                    for (long i = 0; i < count; i++) {
+                        array.add(itemReader.read(in));
+                    }
+                    count = in.arrayNext();
+                }
+                return array;
+            };
+        }
+
+        private ValueReader compileMap(Schema writer, Schema reader) throws NotCompilableException {
+            ValueReader valueReader = compile(writer.getValueType(), reader.getValueType());
+            ValueReader keyReader = isJavaString(reader) ? Decoder::readString : in -> in.readString(null);
+            return in -> {
+                long count = in.readMapStart();
+                Map<Object, Object> map = new HashMap<>();
+                while (count > 0) {
+                    for (long i = 0; i < count; i++) {
+                        map.put(keyReader.read(in), valueReader.read(in));
+                    }
+                    count = in.mapNext();
+                }
+                return map;
+            };
+        }
+
+        private ValueReader compileUnion(Schema writer, Schema reader) throws NotCompilableException {
+            if (!writer.equals(reader)) {
+                throw new NotCompilableException();
+            }
+            List<Schema> branches = reader.getTypes();
+            ValueReader[] branchReaders = new ValueReader[branches.size()];
+            for (int i = 0; i < branchReaders.length; i++) {
+                branchReaders[i] = compile(writer.getTypes().get(i), branches.get(i));
+            }
+            return in -> branchReaders[in.readIndex()].read(in);
+        }
+
+        private ValueReader compileEnum(Schema writer, Schema reader) throws NotCompilableException {
+            if (!writer.equals(reader)) {
+                throw new NotCompilableException();
+            }
+            // enum instances are immutable, so they are created once for each symbol.
+            List<String> symbols = reader.getEnumSymbols();
+            Object[] values = new Object[symbols.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = data.createEnum(symbols.get(i), reader);
+            }
+            return in -> values[in.readEnum()];
+        }
+
+        private ValueReader compileFixed(Schema writer, Schema reader) throws NotCompilableException {
+            if (!writer.equals(reader)) {
+                throw new NotCompilableException();
+            }
+            int size = reader.getFixedSize();
+            return in -> {
+                byte[] bytes = new byte[size];
+                in.readFixed(bytes, 0, size);
+                return data.createFixed(null, bytes, reader);
+            };
+        }
+
+        private static boolean isJavaString(Schema schema) {
+            return GenericData.StringType.String.name().equals(schema.getProp(GenericData.STRING_PROP));
+        }
+    }
+
+    private static final class RecordReader implements ValueReader {
+        private final GenericData data;
+        private final Schema writer;
+        private final Schema reader;
+
+        // reader field position and reader of each writer field, position is -1 for skipped fields.
+        private int[] positions;
+        private ValueReader[] fieldReaders;
+        private Schema.Field[] defaultFields;
+
+        private RecordReader(GenericData data, Schema writer, Schema reader) {
+            this.data = data;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public Object read(Decoder in) throws IOException {
+            IndexedRecord record = (IndexedRecord) data.newRecord(null, reader);
+            for (int i = 0; i < fieldReaders.length; i++) {
+                Object value = fieldReaders[i].read(in);
+                if (positions[i] >= 0) {
+                    record.put(positions[i], value);
+                }
+            }
+            for (Schema.Field defaultField : defaultFields) {
+                // default values are copied as they can be mutable.
+                record.put(defaultField.pos(), data.deepCopy(defaultField.schema(), data.getDefaultValue(defaultField)));
+            }
+            return record;
+        }
+    }
+}
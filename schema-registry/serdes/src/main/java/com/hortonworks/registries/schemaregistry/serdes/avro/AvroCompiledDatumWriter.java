@@ -0,0 +1,227 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericFixed;
+import org.apache.avro.generic.IndexedRecord;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.Encoder;
+import org.apache.avro.specific.SpecificData;
+import org.apache.avro.util.Utf8;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DatumWriter} which is compiled once for a schema into a tree of writers, each of them writes a value of a
+ * specific type. Writing a datum does not dispatch on the schema type as {@link GenericDatumWriter} does for each datum,
+ * only union branches are resolved for each value.
+ * <p>
+ * Records are written through {@link IndexedRecord}, which is implemented by both generic and specific records. Schemas
+ * with logical types for specific records, or with {@code java-class} properties, are not compiled.
+ * {@link #compile(Schema, boolean)} returns null for those schemas, so that callers can fall back to the generic writers.
+ * <p>
+ * Instances are thread safe.
+ */
+public final class AvroCompiledDatumWriter implements DatumWriter<Object> {
+
+    private final Schema schema;
+    private final ValueWriter writer;
+
+    private AvroCompiledDatumWriter(Schema schema, ValueWriter writer) {
+        this.schema = schema;
+        this.writer = writer;
+    }
+
+    /**
+     * Compiles a writer of datums of the given {@code schema}.
+     *
+     * @param schema   schema of the datums to be written
+     * @param specific whether the datums are specific records
+     * @return the compiled writer, null if the given schema can not be compiled
+     */
+    public static AvroCompiledDatumWriter compile(Schema schema, boolean specific) {
+        Compiler compiler = new Compiler(specific ? SpecificData.get() : GenericData.get(), specific);
+        try {
+            return new AvroCompiledDatumWriter(schema, compiler.compile(schema));
+        } catch (NotCompilableException e) {
+            return null;
+        }
+    }
+
+    public Schema getSchema() {
+        return schema;
+    }
+
+    @Override
+    public void setSchema(Schema schema) {
+        throw new UnsupportedOperationException("Schema of a compiled writer can not be changed");
+    }
+
+    @Override
+    public void write(Object datum, Encoder out) throws IOException {
+        writer.write(datum, out);
+    }
+
+    private interface ValueWriter {
+        void write(Object datum, Encoder out) throws IOException;
+    }
+
+    private static final class NotCompilableException extends Exception {
+        private NotCompilableException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Compiler {
+        private final GenericData data;
+        private final boolean specific;
+
+        // record writers which are being compiled, so that recursive records refer to the same writer.
+        private final Map<Schema, RecordWriter> recordWriters = new IdentityHashMap<>();
+
+        private Compiler(GenericData data, boolean specific) {
+            this.data = data;
+            this.specific = specific;
+        }
+
+        private ValueWriter compile(Schema schema) throws NotCompilableException {
+            if (schema.getProp("java-class") != null
+                    || schema.getProp("java-key-class") != null
+                    || (specific && schema.getLogicalType() != null)) {
+                throw new NotCompilableException();
+            }
+
+            switch (schema.getType()) {
+                case RECORD:
+                    return compileRecord(schema);
+                case ARRAY:
+                    return compileArray(schema);
+                case MAP:
+                    return compileMap(schema);
+                case UNION:
+                    return compileUnion(schema);
+                case ENUM:
+                    return (datum, out) -> out.writeEnum(schema.getEnumOrdinal(datum.toString()));
+                case FIXED:
+                    return (datum, out) -> out.writeFixed(((GenericFixed) datum).bytes(), 0, schema.getFixedSize());
+                case STRING:
+                    return Compiler::writeString;
+                case BYTES:
+                    return (datum, out) -> out.writeBytes((ByteBuffer) datum);
+                case INT:
+                    return (datum, out) -> out.writeInt(((Number) datum).intValue());
+                case LONG:
+                    return (datum, out) -> out.writeLong((Long) datum);
+                case FLOAT:
+                    return (datum, out) -> out.writeFloat((Float) datum);
+                case DOUBLE:
+                    return (datum, out) -> out.writeDouble((Double) datum);
+                case BOOLEAN:
+                    return (datum, out) -> out.writeBoolean((Boolean) datum);
+                case NULL:
+                    return (datum, out) -> out.writeNull();
+                default:
+                    throw new NotCompilableException();
+            }
+        }
+
+        private ValueWriter compileRecord(Schema schema) throws NotCompilableException {
+            RecordWriter recordWriter = recordWriters.get(schema);
+            if (recordWriter != null) {
+                return recordWriter;
+            }
+            recordWriter = new RecordWriter();
+            recordWriters.put(schema, recordWriter);
+
+            List<Schema.Field> fields = schema.getFields();
+            recordWriter.fieldWriters = new ValueWriter[fields.size()];
+            for (Schema.Field field : fields) {
+                recordWriter.fieldWriters[field.pos()] = compile(field.schema());
+            }
+            return recordWriter;
+        }
+
+        private ValueWriter compileArray(Schema schema) throws NotCompilableException {
+            ValueWriter itemWriter = compile(schema.getElementType());
+            return (datum, out) -> {
+                Collection<?> items = (Collection<?>) datum;
+                out.writeArrayStart();
+                out.setItemCount(items.size());
+                for (Object item : items) {
+                    out.startItem();
+                    itemWriter.write(item, out);
+                }
+                out.writeArrayEnd();
+            };
+        }
+
+        private ValueWriter compileMap(Schema schema) throws NotCompilableException {
+            ValueWriter valueWriter = compile(schema.getValueType());
+            return (datum, out) -> {
+                Map<?, ?> map = (Map<?, ?>) datum;
+                out.writeMapStart();
+                out.setItemCount(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    out.startItem();
+                    writeString(entry.getKey(), out);
+                    valueWriter.write(entry.getValue(), out);
+                }
+                out.writeMapEnd();
+            };
+        }
+
+        private ValueWriter compileUnion(Schema schema) throws NotCompilableException {
+            List<Schema> branches = schema.getTypes();
+            ValueWriter[] branchWriters = new ValueWriter[branches.size()];
+            for (int i = 0; i < branchWriters.length; i++) {
+                branchWriters[i] = compile(branches.get(i));
+            }
+            return (datum, out) -> {
+                int index = data.resolveUnion(schema, datum);
+                out.writeIndex(index);
+                branchWriters[index].write(datum, out);
+            };
+        }
+
+        private static void writeString(Object datum, Encoder out) throws IOException {
+            if (datum instanceof Utf8) {
+                out.writeString((Utf8) datum);
+            } else {
+                out.writeString(datum.toString());
+            }
+        }
+    }
+
+    private static final class RecordWriter implements ValueWriter {
+        private ValueWriter[] fieldWriters;
+
+        @Override
+        public void write(Object datum, Encoder out) throws IOException {
+            IndexedRecord record = (IndexedRecord) datum;
+            for (int i = 0; i < fieldWriters.length; i++) {
+                fieldWriters[i].write(record.get(i), out);
+            }
+        }
+    }
+}
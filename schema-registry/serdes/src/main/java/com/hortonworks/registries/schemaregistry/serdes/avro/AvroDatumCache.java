@@ -0,0 +1,239 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import org.apache.avro.Schema;
+import org.apache.avro.SchemaNormalization;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumReader;
+import org.apache.avro.specific.SpecificDatumWriter;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Bounded cache of resolved {@link DatumReader}s and {@link DatumWriter}s keyed by writer schema fingerprint, reader
+ * schema fingerprint and whether specific or generic records are used. Avro datum readers and writers are thread safe,
+ * so a cached instance is shared by all threads.
+ * <p>
+ * Encoders and decoders are not thread safe, they are reused per thread through {@link #binaryEncoder(OutputStream)}
+ * and {@link #binaryDecoder(InputStream)}.
+ */
+public class AvroDatumCache {
+
+    /**
+     * Default maximum number of readers and writers kept in the respective caches.
+     */
+    public static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private final Cache<Key, DatumReader<Object>> readerCache;
+    private final Cache<Key, DatumWriter<Object>> writerCache;
+
+    // weak keys are compared by identity, so fingerprint is computed only once for each parsed schema instance.
+    private final Cache<Schema, Long> fingerprintCache;
+
+    private final ThreadLocal<BinaryEncoder> encoders = new ThreadLocal<>();
+    private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+
+    public AvroDatumCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public AvroDatumCache(int cacheSize) {
+        readerCache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        writerCache = CacheBuilder.newBuilder().maximumSize(cacheSize).recordStats().build();
+        fingerprintCache = CacheBuilder.newBuilder().weakKeys().build();
+    }
+
+    /**
+     * Returns a {@link DatumWriter} for the given {@code schema}.
+     *
+     * @param schema   schema of the datum to be written
+     * @param specific whether the datum is a specific record
+     */
+    public DatumWriter<Object> getDatumWriter(Schema schema, boolean specific) {
+        return getDatumWriter(schema, specific, false);
+    }
+
+    /**
+     * Returns a {@link DatumWriter} for the given {@code schema}, which is an {@link AvroCompiledDatumWriter} when
+     * {@code compiled} is true and the schema can be compiled.
+     *
+     * @param schema   schema of the datum to be written
+     * @param specific whether the datum is a specific record
+     * @param compiled whether a compiled writer is to be used
+     */
+    public DatumWriter<Object> getDatumWriter(Schema schema, boolean specific, boolean compiled) {
+        Key key = new Key(fingerprint(schema), fingerprint(schema), specific, compiled);
+        try {
+            return writerCache.get(key, () -> {
+                DatumWriter<Object> compiledWriter = compiled ? AvroCompiledDatumWriter.compile(schema, specific) : null;
+                if (compiledWriter != null) {
+                    return compiledWriter;
+                }
+                return specific ? new SpecificDatumWriter<>(schema) : new GenericDatumWriter<>(schema);
+            });
+        } catch (ExecutionException e) {
+            throw new SerDesException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns a {@link DatumReader} which resolves the given {@code writerSchema} against the given {@code readerSchema}.
+     *
+     * @param writerSchema schema with which the payload was written
+     * @param readerSchema schema to be used for reading, writer schema is used when it is null
+     * @param specific     whether specific records are to be created
+     */
+    public DatumReader<Object> getDatumReader(Schema writerSchema, Schema readerSchema, boolean specific) {
+        return getDatumReader(writerSchema, readerSchema, specific, false);
+    }
+
+    /**
+     * Returns a {@link DatumReader} which resolves the given {@code writerSchema} against the given
+     * {@code readerSchema}, which is an {@link AvroCompiledDatumReader} when {@code compiled} is true and the schemas
+     * can be compiled.
+     *
+     * @param writerSchema schema with which the payload was written
+     * @param readerSchema schema to be used for reading, writer schema is used when it is null
+     * @param specific     whether specific records are to be created
+     * @param compiled     whether a compiled reader is to be used
+     */
+    public DatumReader<Object> getDatumReader(Schema writerSchema, Schema readerSchema, boolean specific, boolean compiled) {
+        Schema targetSchema = readerSchema != null ? readerSchema : writerSchema;
+        Key key = new Key(fingerprint(writerSchema), fingerprint(targetSchema), specific, compiled);
+        try {
+            return readerCache.get(key, () -> {
+                DatumReader<Object> compiledReader = compiled ? AvroCompiledDatumReader.compile(writerSchema, targetSchema, specific) : null;
+                if (compiledReader != null) {
+                    return compiledReader;
+                }
+                return specific ? new SpecificDatumReader<>(writerSchema, targetSchema)
+                                : new GenericDatumReader<>(writerSchema, targetSchema);
+            });
+        } catch (ExecutionException e) {
+            throw new SerDesException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns {@link BinaryEncoder} of the current thread configured to write into the given {@code outputStream}.
+     * Callers should invoke {@link #discardBinaryEncoder()} when writing or flushing with the returned encoder fails.
+     */
+    public BinaryEncoder binaryEncoder(OutputStream outputStream) {
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, encoders.get());
+        encoders.set(encoder);
+        return encoder;
+    }
+
+    /**
+     * Drops {@link BinaryEncoder} of the current thread, so that the next {@link #binaryEncoder(OutputStream)} creates
+     * a new one. Encoder buffers the bytes of a datum whose write failed, and reconfiguring it would flush them into
+     * the output stream of the next payload.
+     */
+    public void discardBinaryEncoder() {
+        encoders.remove();
+    }
+
+    /**
+     * Returns {@link BinaryDecoder} of the current thread configured to read from the given {@code inputStream}.
+     */
+    public BinaryDecoder binaryDecoder(InputStream inputStream) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(inputStream, decoders.get());
+        decoders.set(decoder);
+        return decoder;
+    }
+
+    /**
+     * Returns {@link BinaryDecoder} of the current thread configured to read directly from the given byte range.
+     */
+    public BinaryDecoder binaryDecoder(byte[] bytes, int offset, int length) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(bytes, offset, length, decoders.get());
+        decoders.set(decoder);
+        return decoder;
+    }
+
+    /**
+     * @return hit/miss statistics of the datum reader cache.
+     */
+    public CacheStats readerStats() {
+        return readerCache.stats();
+    }
+
+    /**
+     * @return hit/miss statistics of the datum writer cache.
+     */
+    public CacheStats writerStats() {
+        return writerCache.stats();
+    }
+
+    private long fingerprint(Schema schema) {
+        try {
+            // full schema text is used instead of parsing canonical form as defaults and aliases affect resolution.
+            return fingerprintCache.get(schema, () -> SchemaNormalization.fingerprint64(schema.toString().getBytes(AvroUtils.UTF_8)));
+        } catch (ExecutionException e) {
+            throw new SerDesException(e.getCause());
+        }
+    }
+
+    private static final class Key {
+        private final long writerFingerprint;
+        private final long readerFingerprint;
+        private final boolean specific;
+        private final boolean compiled;
+
+        private Key(long writerFingerprint, long readerFingerprint, boolean specific, boolean compiled) {
+            this.writerFingerprint = writerFingerprint;
+            this.readerFingerprint = readerFingerprint;
+            this.specific = specific;
+            this.compiled = compiled;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            return writerFingerprint == key.writerFingerprint
+                    && readerFingerprint == key.readerFingerprint
+                    && specific == key.specific
+                    && compiled == key.compiled;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (writerFingerprint ^ (writerFingerprint >>> 32));
+            result = 31 * result + (int) (readerFingerprint ^ (readerFingerprint >>> 32));
+            result = 31 * result + (specific ? 1 : 0);
+            result = 31 * result + (compiled ? 1 : 0);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.Decoder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fields of an Avro record schema which are to be read by {@link AvroPullDeserializer} and {@link AvroPushDeserializer}.
+ * Values of the other fields are skipped in the payload without being decoded into objects.
+ * <p>
+ * Instances are immutable and thread safe, so a projection can be built once for a schema and reused for all the
+ * payloads written with it.
+ */
+public final class AvroFieldProjection {
+    private final Schema schema;
+    private final Schema.Field[] fields;
+
+    // readers of projected fields, null for the fields which are skipped.
+    private final DatumReader<Object>[] readers;
+
+    /**
+     * Creates a projection of all the fields of the given record {@code schema}.
+     */
+    public AvroFieldProjection(Schema schema) {
+        this(schema, null);
+    }
+
+    /**
+     * Creates a projection of the given {@code fieldNames} of the given record {@code schema}.
+     *
+     * @param schema     record schema with which payloads are written
+     * @param fieldNames names of the fields to be read, all fields are read when it is null
+     * @throws IllegalArgumentException when the schema is not a record or any of the given fields does not exist
+     */
+    @SuppressWarnings("unchecked")
+    public AvroFieldProjection(Schema schema, Set<String> fieldNames) {
+        if (schema.getType() != Schema.Type.RECORD) {
+            throw new IllegalArgumentException("Only record schemas can be projected, received schema type: " + schema.getType());
+        }
+        if (fieldNames != null) {
+            for (String fieldName : fieldNames) {
+                if (schema.getField(fieldName) == null) {
+                    throw new IllegalArgumentException("Field [" + fieldName + "] does not exist in schema: " + schema.getFullName());
+                }
+            }
+        }
+
+        this.schema = schema;
+        List<Schema.Field> schemaFields = schema.getFields();
+        fields = schemaFields.toArray(new Schema.Field[schemaFields.size()]);
+        readers = new DatumReader[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            if (fieldNames == null || fieldNames.contains(fields[i].name())) {
+                readers[i] = new GenericDatumReader<>(fields[i].schema());
+            }
+        }
+    }
+
+    /**
+     * @return record schema of this projection.
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    int getFieldCount() {
+        return fields.length;
+    }
+
+    Schema.Field getField(int position) {
+        return fields[position];
+    }
+
+    boolean isProjected(int position) {
+        return readers[position] != null;
+    }
+
+    Object readValue(int position, Decoder decoder) throws IOException {
+        return readers[position].read(null, decoder);
+    }
+
+    void skipValue(int position, Decoder decoder) throws IOException {
+        GenericDatumReader.skip(fields[position].schema(), decoder);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serde.pull.EndRecordContext;
+import com.hortonworks.registries.schemaregistry.serde.pull.FieldValueContext;
+import com.hortonworks.registries.schemaregistry.serde.pull.PullDeserializer;
+import com.hortonworks.registries.schemaregistry.serde.pull.PullEventContext;
+import com.hortonworks.registries.schemaregistry.serde.pull.StartFieldContext;
+import com.hortonworks.registries.schemaregistry.serde.pull.StartRecordContext;
+import com.hortonworks.registries.schemaregistry.serdes.ByteBufferBackedInputStream;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link PullDeserializer} of an Avro binary encoded record payload. Events are read directly from the payload with a
+ * {@link BinaryDecoder}, without building a record.
+ * <p>
+ * Events of a payload are start of the record, start of a field and its value for each field of the given
+ * {@link AvroFieldProjection}, and end of the record. Values of fields which are not in the projection are skipped.
+ * Values are decoded lazily: a value which is not accessed before moving to the next event is skipped, and it can not
+ * be accessed afterwards.
+ * <p>
+ * Instances are not thread safe, an instance is created for each payload.
+ */
+public class AvroPullDeserializer implements PullDeserializer<Schema, Schema.Field> {
+
+    private final AvroFieldProjection projection;
+    private final BinaryDecoder decoder;
+    private final InputStream payloadInputStream;
+
+    private State state = State.START_DESERIALIZE;
+    private int fieldPosition = -1;
+    private LazyFieldValue currentFieldValue;
+
+    /**
+     * Creates a deserializer of the payload in the given {@code payloadInputStream}. Decoder may read ahead of the
+     * payload, so the stream should not be used for reading any content after the payload.
+     */
+    public AvroPullDeserializer(InputStream payloadInputStream, AvroFieldProjection projection) {
+        this.projection = projection;
+        this.payloadInputStream = payloadInputStream;
+        decoder = DecoderFactory.get().binaryDecoder(payloadInputStream, null);
+    }
+
+    /**
+     * Creates a deserializer of the payload in the remaining bytes of the given {@code payloadBuffer}. Heap buffers are
+     * decoded directly from their backing array.
+     */
+    public AvroPullDeserializer(ByteBuffer payloadBuffer, AvroFieldProjection projection) {
+        this.projection = projection;
+        if (payloadBuffer.hasArray()) {
+            payloadInputStream = null;
+            decoder = DecoderFactory.get().binaryDecoder(payloadBuffer.array(),
+                                                         payloadBuffer.arrayOffset() + payloadBuffer.position(),
+                                                         payloadBuffer.remaining(),
+                                                         null);
+            payloadBuffer.position(payloadBuffer.limit());
+        } else {
+            payloadInputStream = new ByteBufferBackedInputStream(payloadBuffer);
+            decoder = DecoderFactory.get().binaryDecoder(payloadInputStream, null);
+        }
+    }
+
+    @Override
+    public void init(Map<String, ?> config) {
+    }
+
+    @Override
+    public boolean hasNext() throws SerDesException {
+        return state != State.END_RECORD && state != State.END_DESERIALIZE;
+    }
+
+    @Override
+    public PullEventContext<Schema.Field> next() throws SerDesException {
+        try {
+            switch (state) {
+                case START_DESERIALIZE:
+                    state = State.START_RECORD;
+                    return new StartRecordContext<>();
+                case START_RECORD:
+                case READ_FIELD_VALUE:
+                    return nextField();
+                case START_FIELD:
+                    state = State.READ_FIELD_VALUE;
+                    currentFieldValue = new LazyFieldValue(fieldPosition);
+                    return new FieldValueContext<>(currentFieldValue);
+                default:
+                    throw new NoSuchElementException("End of the record is already reached");
+            }
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+    }
+
+    private PullEventContext<Schema.Field> nextField() throws IOException {
+        if (currentFieldValue != null) {
+            currentFieldValue.release();
+            currentFieldValue = null;
+        }
+
+        while (++fieldPosition < projection.getFieldCount()) {
+            if (projection.isProjected(fieldPosition)) {
+                state = State.START_FIELD;
+                return new StartFieldContext<>(projection.getField(fieldPosition));
+            }
+            projection.skipValue(fieldPosition, decoder);
+        }
+
+        state = State.END_RECORD;
+        return new EndRecordContext<>();
+    }
+
+    @Override
+    public Schema schema() {
+        return projection.getSchema();
+    }
+
+    @Override
+    public void close() throws Exception {
+        state = State.END_DESERIALIZE;
+        if (payloadInputStream != null) {
+            payloadInputStream.close();
+        }
+    }
+
+    /**
+     * Value of a field which is decoded when it is accessed for the first time.
+     */
+    private final class LazyFieldValue implements PullEventContext.FieldValue<Schema.Field> {
+        private final int position;
+        private boolean read;
+        private boolean released;
+        private Object value;
+
+        private LazyFieldValue(int position) {
+            this.position = position;
+        }
+
+        @Override
+        public Schema.Field field() {
+            return projection.getField(position);
+        }
+
+        @Override
+        public Object value() {
+            if (!read) {
+                if (released) {
+                    throw new IllegalStateException("Value of field [" + field().name() + "] is skipped as it was not read before moving to the next event");
+                }
+                try {
+                    value = projection.readValue(position, decoder);
+                } catch (IOException e) {
+                    throw new SerDesException(e);
+                }
+                read = true;
+            }
+            return value;
+        }
+
+        private void release() throws IOException {
+            if (!read) {
+                projection.skipValue(position, decoder);
+            }
+            released = true;
+        }
+    }
+}
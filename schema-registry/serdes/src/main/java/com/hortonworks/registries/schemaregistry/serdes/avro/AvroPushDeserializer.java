@@ -0,0 +1,126 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serde.push.PushDeserializer;
+import com.hortonworks.registries.schemaregistry.serde.push.PushDeserializerHandler;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DecoderFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link PushDeserializer} of Avro binary encoded record payloads. Events are read directly from the payload with a
+ * {@link BinaryDecoder} and pushed to the given handler, without building a record.
+ * <p>
+ * Only the configured fields are decoded and pushed to the handler, values of the other fields are skipped in the
+ * payload. All fields are pushed when no fields are configured. This is thread safe.
+ */
+public class AvroPushDeserializer implements PushDeserializer<Schema, Schema.Field> {
+
+    private final Set<String> fieldNames;
+
+    // weak keys are compared by identity, so that a projection is built once for each parsed schema instance.
+    private final Cache<Schema, AvroFieldProjection> projections = CacheBuilder.newBuilder().weakKeys().build();
+
+    private final ThreadLocal<BinaryDecoder> decoders = new ThreadLocal<>();
+
+    /**
+     * Creates a deserializer which pushes all the fields of records.
+     */
+    public AvroPushDeserializer() {
+        this(null);
+    }
+
+    /**
+     * Creates a deserializer which pushes only the given fields of records.
+     *
+     * @param fieldNames names of the fields to be pushed, all fields are pushed when it is null
+     */
+    public AvroPushDeserializer(Set<String> fieldNames) {
+        this.fieldNames = fieldNames != null ? Collections.unmodifiableSet(new HashSet<>(fieldNames)) : null;
+    }
+
+    @Override
+    public void init(Map<String, ?> config) {
+    }
+
+    /**
+     * Deserializes the record payload in the given {@code inputStream}. Decoder may read ahead of the payload, so the
+     * stream should not be used for reading any content after the payload.
+     *
+     * @throws IllegalArgumentException when the given {@code schema} is not a record or it does not have the
+     *                                  configured fields
+     */
+    @Override
+    public void deserialize(InputStream inputStream, Schema schema, PushDeserializerHandler<Schema.Field> handler) {
+        deserialize(inputStream, getProjection(schema), handler);
+    }
+
+    /**
+     * Deserializes the record payload in the given {@code inputStream} and pushes the fields of the given
+     * {@code projection} to the given {@code handler}.
+     */
+    public void deserialize(InputStream inputStream, AvroFieldProjection projection, PushDeserializerHandler<Schema.Field> handler) {
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(inputStream, decoders.get());
+        decoders.set(decoder);
+
+        handler.startDeserialize();
+        handler.startRecord();
+        try {
+            for (int i = 0; i < projection.getFieldCount(); i++) {
+                if (projection.isProjected(i)) {
+                    Schema.Field field = projection.getField(i);
+                    handler.startField(field);
+                    Object value = projection.readValue(i, decoder);
+                    handler.readFieldValue(value);
+                    handler.currentFieldValue(field, value);
+                    handler.endField(field);
+                } else {
+                    projection.skipValue(i, decoder);
+                }
+            }
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+        handler.endRecord();
+        handler.endDeserialize();
+    }
+
+    private AvroFieldProjection getProjection(Schema schema) {
+        AvroFieldProjection projection = projections.getIfPresent(schema);
+        if (projection == null) {
+            // built outside of the cache loader, so that invalid schemas fail with IllegalArgumentException.
+            projection = new AvroFieldProjection(schema, fieldNames);
+            projections.put(schema, projection);
+        }
+        return projection;
+    }
+
+    @Override
+    public void close() throws Exception {
+        projections.invalidateAll();
+    }
+}
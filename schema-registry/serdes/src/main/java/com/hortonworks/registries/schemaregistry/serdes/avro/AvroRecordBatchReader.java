@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.DatumReader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the records of a payload written with {@link RecordBatchProtocolHandler}. All the records are decoded with
+ * the same {@link DatumReader} and {@link BinaryDecoder}, and {@link #next(Object)} lets the caller pass the previous
+ * record to be reused, so that iterating a batch does not allocate for each record.
+ * <p>
+ * Records are decoded lazily from the payload, so the payload should not be modified till the batch is iterated.
+ * Instances are not thread safe.
+ */
+public final class AvroRecordBatchReader implements Iterator<Object> {
+    private final DatumReader<Object> datumReader;
+    private final BinaryDecoder decoder;
+    private final Schema.Type writerSchemaType;
+    private final int size;
+    private int position;
+
+    AvroRecordBatchReader(DatumReader<Object> datumReader, BinaryDecoder decoder, Schema writerSchema, int size) {
+        this.datumReader = datumReader;
+        this.decoder = decoder;
+        this.writerSchemaType = writerSchema.getType();
+        this.size = size;
+    }
+
+    /**
+     * @return number of records in the batch.
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < size;
+    }
+
+    @Override
+    public Object next() {
+        return next(null);
+    }
+
+    /**
+     * Returns the next record of the batch, the given {@code reuse} record is filled instead of creating a new record
+     * when it is of the same schema.
+     *
+     * @param reuse record returned by an earlier invocation which is no longer used by the caller, can be null
+     * @throws NoSuchElementException when all the records of the batch are already read
+     * @throws SerDesException        when any ser/des error occurs
+     */
+    public Object next(Object reuse) throws SerDesException {
+        if (!hasNext()) {
+            throw new NoSuchElementException("All the " + size + " records of the batch are already read");
+        }
+        position++;
+
+        Object datum;
+        try {
+            datum = datumReader.read(reuse, decoder);
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+
+        // keeps the same types as the payloads of single records, which do not go through avro for these types.
+        if (writerSchemaType == Schema.Type.BYTES) {
+            ByteBuffer buffer = (ByteBuffer) datum;
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } else if (writerSchemaType == Schema.Type.STRING) {
+            return datum.toString();
+        }
+        return datum;
+    }
+}
@@ -17,7 +17,9 @@ package com.hortonworks.registries.schemaregistry.serdes.avro;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+import com.hortonworks.registries.schemaregistry.serdes.ByteBufferBackedInputStream;
 import org.apache.avro.Schema;
 
 /**
@@ -31,4 +33,44 @@ public interface AvroSerDesHandler {
                                         Schema writerSchema,
                                         Schema readerSchema,
                                         boolean useSpecificAvroReader);
+
+    /**
+     * Deserializes the remaining bytes of the given {@code payloadBuffer}. Implementations may decode directly from
+     * the backing array of heap buffers instead of going through an {@link InputStream}.
+     */
+    default Object handlePayloadDeserialization(ByteBuffer payloadBuffer,
+                                                Schema writerSchema,
+                                                Schema readerSchema,
+                                                boolean useSpecificAvroReader) {
+        return handlePayloadDeserialization(new ByteBufferBackedInputStream(payloadBuffer),
+                                            writerSchema,
+                                            readerSchema,
+                                            useSpecificAvroReader);
+    }
+
+    /**
+     * Deserializes the given payload, with compiled readers of {@link AvroCompiledDatumReader} when
+     * {@code useCompiledAvroReader} is true. Implementations which do not support compiled readers use their default
+     * readers.
+     */
+    default Object handlePayloadDeserialization(InputStream payloadInputStream,
+                                                Schema writerSchema,
+                                                Schema readerSchema,
+                                                boolean useSpecificAvroReader,
+                                                boolean useCompiledAvroReader) {
+        return handlePayloadDeserialization(payloadInputStream, writerSchema, readerSchema, useSpecificAvroReader);
+    }
+
+    /**
+     * Deserializes the remaining bytes of the given {@code payloadBuffer}, with compiled readers of
+     * {@link AvroCompiledDatumReader} when {@code useCompiledAvroReader} is true. Implementations which do not support
+     * compiled readers use their default readers.
+     */
+    default Object handlePayloadDeserialization(ByteBuffer payloadBuffer,
+                                                Schema writerSchema,
+                                                Schema readerSchema,
+                                                boolean useSpecificAvroReader,
+                                                boolean useCompiledAvroReader) {
+        return handlePayloadDeserialization(payloadBuffer, writerSchema, readerSchema, useSpecificAvroReader);
+    }
 }
@@ -18,12 +18,24 @@ package com.hortonworks.registries.schemaregistry.serdes.avro;
 import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
 import com.hortonworks.registries.schemaregistry.SchemaMetadata;
 import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
+import com.hortonworks.registries.schemaregistry.serde.SchemaVersionContext;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serdes.SerDesProtocolHandler;
+import org.apache.avro.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 
 /**
@@ -32,6 +44,22 @@ import java.io.InputStream;
 public class AvroSnapshotDeserializer extends AbstractAvroSnapshotDeserializer<InputStream> {
     private static final Logger LOG = LoggerFactory.getLogger(AvroSnapshotDeserializer.class);
 
+    /**
+     * Number of threads used for decoding payloads in {@link #deserialize(List, Integer)}. Payloads are decoded in the
+     * caller's thread when this is 1.
+     */
+    public static final String DESERIALIZER_BATCH_PARALLELISM = "schemaregistry.deserializer.batch.parallelism";
+
+    /**
+     * Default number of threads used for decoding payloads of a batch.
+     */
+    public static final Integer DEFAULT_DESERIALIZER_BATCH_PARALLELISM = 1;
+
+    // payloads of a group are split into tasks of at least this many payloads, as smaller tasks cost more than decoding.
+    private static final int MIN_PAYLOADS_PER_TASK = 64;
+
+    private ForkJoinPool batchPool;
+
     public AvroSnapshotDeserializer() {
     }
 
@@ -39,6 +67,29 @@ public class AvroSnapshotDeserializer extends AbstractAvroSnapshotDeserializer<I
         super(schemaRegistryClient);
     }
 
+    @Override
+    public void doInit(Map<String, ?> config) {
+        super.doInit(config);
+        Integer parallelism = (Integer) getValue(config, DESERIALIZER_BATCH_PARALLELISM, DEFAULT_DESERIALIZER_BATCH_PARALLELISM);
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Property: " + DESERIALIZER_BATCH_PARALLELISM + " must be positive.");
+        }
+        if (parallelism > 1) {
+            batchPool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        try {
+            if (batchPool != null) {
+                batchPool.shutdown();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
     protected SchemaIdVersion retrieveSchemaIdVersion(byte protocolId, InputStream inputStream)
             throws SerDesException {
         return SerDesProtocolHandlerRegistry.get()
@@ -46,6 +97,15 @@ public class AvroSnapshotDeserializer extends AbstractAvroSnapshotDeserializer<I
                                             .handleSchemaVersionDeserialization(inputStream);
     }
 
+    @Override
+    protected SchemaVersionContext<Schema> retrieveSchemaVersionContext(byte protocolId,
+                                                                        InputStream inputStream) throws SerDesException {
+        SerDesProtocolHandler protocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
+        return protocolHandler.hasSchemaVersionId()
+               ? getSchemaVersionContext(protocolHandler.handleSchemaVersionIdDeserialization(inputStream))
+               : getSchemaVersionContext(retrieveSchemaIdVersion(protocolId, inputStream));
+    }
+
     protected byte retrieveProtocolId(InputStream inputStream) throws SerDesException {
         // first byte is protocol version/id.
         // protocol format:
@@ -66,10 +126,172 @@ public class AvroSnapshotDeserializer extends AbstractAvroSnapshotDeserializer<I
         return protocolId;
     }
 
-    private void checkProtocolHandlerExists(byte protocolId) {
-        if (SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId) == null) {
+    private SerDesProtocolHandler checkProtocolHandlerExists(byte protocolId) {
+        SerDesProtocolHandler serDesProtocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
+        if (serDesProtocolHandler == null) {
             throw new SerDesException("Unknown protocol id [" + protocolId + "] received while deserializing the payload");
         }
+        return serDesProtocolHandler;
+    }
+
+    /**
+     * Deserializes the remaining bytes of the given {@code buffer}, which contain protocol id, schema version info and
+     * the payload, without copying them into an intermediate stream. Heap buffers are decoded directly from their
+     * backing array.
+     *
+     * @param buffer              serialized content positioned at the protocol id
+     * @param readerSchemaVersion schema version to be applied for reading or projection, can be null
+     * @return the deserialized object
+     * @throws SerDesException when any ser/des error occurs
+     */
+    public Object deserialize(ByteBuffer buffer, Integer readerSchemaVersion) throws SerDesException {
+        checkState();
+
+        if (!buffer.hasRemaining()) {
+            throw new SerDesException("End of buffer reached while trying to read protocol id");
+        }
+        byte protocolId = buffer.get();
+        SchemaVersionContext<Schema> schemaVersionContext = retrieveSchemaVersionContext(checkProtocolHandlerExists(protocolId), buffer);
+
+        return buildDeserializedObject(protocolId, buffer, schemaVersionContext, readerSchemaVersion);
+    }
+
+    /**
+     * Reads schema version info from the given {@code buffer} and returns the context of that schema version. Schema
+     * version ids are read as they are, so that a payload with a known id is resolved without any allocation.
+     */
+    private SchemaVersionContext<Schema> retrieveSchemaVersionContext(SerDesProtocolHandler protocolHandler,
+                                                                      ByteBuffer buffer) throws SerDesException {
+        return protocolHandler.hasSchemaVersionId()
+               ? getSchemaVersionContext(protocolHandler.handleSchemaVersionIdDeserialization(buffer))
+               : getSchemaVersionContext(protocolHandler.handleSchemaVersionDeserialization(buffer));
+    }
+
+    /**
+     * Reads protocol id and schema version info from the given {@code buffer} and returns the schema with which its
+     * payload was written. The buffer is left positioned at the start of the payload, so that it can be read with
+     * {@link AvroPullDeserializer} or {@link AvroPushDeserializer} instead of building the whole record.
+     *
+     * @param buffer serialized content positioned at the protocol id
+     * @return writer schema of the payload
+     * @throws SerDesException when any ser/des error occurs
+     */
+    public Schema retrieveWriterSchema(ByteBuffer buffer) throws SerDesException {
+        checkState();
+
+        if (!buffer.hasRemaining()) {
+            throw new SerDesException("End of buffer reached while trying to read protocol id");
+        }
+        byte protocolId = buffer.get();
+
+        return retrieveSchemaVersionContext(checkProtocolHandlerExists(protocolId), buffer).getWriterSchema();
+    }
+
+    /**
+     * Returns a reader of the records of the given {@code buffer}, which contains a batch written with
+     * {@link AvroSnapshotSerializer#serializeBatch(java.util.Collection, SchemaMetadata)}. Schemas and the datum reader
+     * are resolved once for the batch, records are decoded as they are iterated and the previous record can be passed
+     * to {@link AvroRecordBatchReader#next(Object)} for reuse.
+     *
+     * @param buffer              serialized batch positioned at the protocol id
+     * @param readerSchemaVersion schema version to be applied for reading or projection, can be null
+     * @return reader of the records of the batch
+     * @throws SerDesException when any ser/des error occurs or the payload is not a batch
+     */
+    public AvroRecordBatchReader deserializeBatch(ByteBuffer buffer, Integer readerSchemaVersion) throws SerDesException {
+        checkState();
+
+        if (!buffer.hasRemaining()) {
+            throw new SerDesException("End of buffer reached while trying to read protocol id");
+        }
+        byte protocolId = buffer.get();
+        if (protocolId != SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL) {
+            throw new SerDesException("Expected record batch protocol id [" + SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL
+                                              + "] but received [" + protocolId + "]");
+        }
+        RecordBatchProtocolHandler batchProtocolHandler = (RecordBatchProtocolHandler) checkProtocolHandlerExists(protocolId);
+
+        SchemaVersionContext<Schema> schemaVersionContext = retrieveSchemaVersionContext(batchProtocolHandler, buffer);
+        Map<String, Object> context = createDeserializationContext(schemaVersionContext.getWriterSchema(),
+                                                                   getReaderSchema(schemaVersionContext, readerSchemaVersion));
+        return batchProtocolHandler.createBatchReader(buffer, context);
+    }
+
+    /**
+     * Deserializes {@code length} bytes of the given {@code bytes} starting at {@code offset}.
+     *
+     * @see #deserialize(ByteBuffer, Integer)
+     */
+    public Object deserialize(byte[] bytes, int offset, int length, Integer readerSchemaVersion) throws SerDesException {
+        return deserialize(ByteBuffer.wrap(bytes, offset, length), readerSchemaVersion);
+    }
+
+    /**
+     * Deserializes the given {@code buffers}, each of them contains protocol id, schema version info and the payload as
+     * in {@link #deserialize(ByteBuffer, Integer)}. Payloads are grouped by protocol id and schema version, so that
+     * schemas and readers are resolved once for each group. Groups are decoded in parallel when
+     * {@link #DESERIALIZER_BATCH_PARALLELISM} is configured with more than one thread.
+     *
+     * @param buffers             serialized contents positioned at their protocol ids
+     * @param readerSchemaVersion schema version to be applied for reading or projection, can be null
+     * @return the deserialized objects in the order of the given {@code buffers}
+     * @throws SerDesException when any ser/des error occurs
+     */
+    public List<Object> deserialize(List<ByteBuffer> buffers, Integer readerSchemaVersion) throws SerDesException {
+        checkState();
+
+        Map<BatchGroupKey, BatchGroup> groups = new LinkedHashMap<>();
+        BatchGroup group = null;
+        ByteBuffer[] payloads = buffers.toArray(new ByteBuffer[buffers.size()]);
+        for (int i = 0; i < payloads.length; i++) {
+            ByteBuffer buffer = payloads[i];
+            if (!buffer.hasRemaining()) {
+                throw new SerDesException("End of buffer reached while trying to read protocol id");
+            }
+            byte protocolId = buffer.get();
+            SerDesProtocolHandler protocolHandler = checkProtocolHandlerExists(protocolId);
+            if (protocolHandler.hasSchemaVersionId()) {
+                long schemaVersionId = protocolHandler.handleSchemaVersionIdDeserialization(buffer);
+                // consecutive payloads mostly have the same schema version, their group is found without creating a key.
+                if (group == null || !group.key.hasSchemaVersionId(protocolId, schemaVersionId)) {
+                    group = groups.computeIfAbsent(new BatchGroupKey(protocolId, schemaVersionId, null), BatchGroup::new);
+                }
+            } else {
+                SchemaIdVersion schemaIdVersion = protocolHandler.handleSchemaVersionDeserialization(buffer);
+                group = groups.computeIfAbsent(new BatchGroupKey(protocolId, 0L, schemaIdVersion), BatchGroup::new);
+            }
+            group.add(i);
+        }
+
+        Object[] results = new Object[payloads.length];
+        List<DecodeTask> tasks = new ArrayList<>();
+        for (BatchGroup batchGroup : groups.values()) {
+            BatchGroupKey key = batchGroup.key;
+            SchemaVersionContext<Schema> schemaVersionContext = key.schemaIdVersion == null
+                                                                ? getSchemaVersionContext(key.schemaVersionId)
+                                                                : getSchemaVersionContext(key.schemaIdVersion);
+            SerDesProtocolHandler protocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(key.protocolId);
+            // datum reader and other per payload lookups are resolved once for the group.
+            Map<String, Object> context = protocolHandler.resolveDeserializationContext(
+                    createDeserializationContext(schemaVersionContext.getWriterSchema(),
+                                                 getReaderSchema(schemaVersionContext, readerSchemaVersion)));
+            tasks.add(new DecodeTask(protocolHandler, context, payloads, results, batchGroup.indexes, 0, batchGroup.size));
+        }
+
+        if (batchPool == null || payloads.length <= MIN_PAYLOADS_PER_TASK) {
+            for (DecodeTask task : tasks) {
+                task.decode();
+            }
+        } else {
+            batchPool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        }
+
+        return Arrays.asList(results);
     }
 
     protected Object doDeserialize(InputStream payloadInputStream,
@@ -80,6 +302,120 @@ public class AvroSnapshotDeserializer extends AbstractAvroSnapshotDeserializer<I
 
         return buildDeserializedObject(protocolId, payloadInputStream, schemaMetadata, writerSchemaVersion, readerSchemaVersion);
     }
-    
-    
+
+    @Override
+    protected Object doDeserialize(InputStream payloadInputStream,
+                                   byte protocolId,
+                                   SchemaVersionContext<Schema> schemaVersionContext,
+                                   Integer readerSchemaVersion) throws SerDesException {
+
+        return buildDeserializedObject(protocolId, payloadInputStream, schemaVersionContext, readerSchemaVersion);
+    }
+
+    /**
+     * Protocol id and schema version of a group, schema version is kept as its id for protocols with schema version ids
+     * and as {@link SchemaIdVersion} for the others.
+     */
+    private static final class BatchGroupKey {
+        private final byte protocolId;
+        private final long schemaVersionId;
+        private final SchemaIdVersion schemaIdVersion;
+
+        private BatchGroupKey(byte protocolId, long schemaVersionId, SchemaIdVersion schemaIdVersion) {
+            this.protocolId = protocolId;
+            this.schemaVersionId = schemaVersionId;
+            this.schemaIdVersion = schemaIdVersion;
+        }
+
+        private boolean hasSchemaVersionId(byte protocolId, long schemaVersionId) {
+            return this.protocolId == protocolId && schemaIdVersion == null && this.schemaVersionId == schemaVersionId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            BatchGroupKey that = (BatchGroupKey) o;
+
+            if (protocolId != that.protocolId || schemaVersionId != that.schemaVersionId) return false;
+            return schemaIdVersion != null ? schemaIdVersion.equals(that.schemaIdVersion) : that.schemaIdVersion == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = 31 * protocolId + (int) (schemaVersionId ^ (schemaVersionId >>> 32));
+            result = 31 * result + (schemaIdVersion != null ? schemaIdVersion.hashCode() : 0);
+            return result;
+        }
+    }
+
+    /**
+     * Indexes of payloads with the same protocol id and schema version.
+     */
+    private static final class BatchGroup {
+        private final BatchGroupKey key;
+        private int[] indexes = new int[8];
+        private int size;
+
+        private BatchGroup(BatchGroupKey key) {
+            this.key = key;
+        }
+
+        private void add(int index) {
+            if (size == indexes.length) {
+                indexes = Arrays.copyOf(indexes, size * 2);
+            }
+            indexes[size++] = index;
+        }
+    }
+
+    /**
+     * Decodes payloads of a group in the given range of indexes into their respective positions of results. Large
+     * ranges are split when the task is run in a fork join pool.
+     */
+    private static final class DecodeTask extends RecursiveAction {
+        private final SerDesProtocolHandler serDesProtocolHandler;
+        private final Map<String, Object> context;
+        private final ByteBuffer[] payloads;
+        private final Object[] results;
+        private final int[] indexes;
+        private final int from;
+        private final int to;
+
+        private DecodeTask(SerDesProtocolHandler serDesProtocolHandler,
+                           Map<String, Object> context,
+                           ByteBuffer[] payloads,
+                           Object[] results,
+                           int[] indexes,
+                           int from,
+                           int to) {
+            this.serDesProtocolHandler = serDesProtocolHandler;
+            this.context = context;
+            this.payloads = payloads;
+            this.results = results;
+            this.indexes = indexes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2 * MIN_PAYLOADS_PER_TASK) {
+                decode();
+            } else {
+                int mid = (from + to) >>> 1;
+                ForkJoinTask.invokeAll(new DecodeTask(serDesProtocolHandler, context, payloads, results, indexes, from, mid),
+                                       new DecodeTask(serDesProtocolHandler, context, payloads, results, indexes, mid, to));
+            }
+        }
+
+        private void decode() {
+            for (int i = from; i < to; i++) {
+                int index = indexes[i];
+                results[index] = serDesProtocolHandler.handlePayloadDeserialization(payloads[index], context);
+            }
+        }
+    }
+
 }
@@ -16,11 +16,16 @@
 package com.hortonworks.registries.schemaregistry.serdes.avro;
 
 import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.SchemaMetadata;
 import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
 
+import org.apache.avro.Schema;
+
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
 
 /**
  * This is the default implementation of {@link AbstractAvroSnapshotDeserializer}.
@@ -48,14 +53,105 @@ public class AvroSnapshotSerializer extends AbstractAvroSnapshotSerializer<byte[
     }
 
     protected byte[] doSerialize(Object input, SchemaIdVersion schemaIdVersion) throws SerDesException {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream()) {
+        ReusableByteArrayOutputStream baos = REUSABLE_OUTPUT_STREAMS.get();
+        try {
             serializeSchemaVersion(baos, schemaIdVersion);
             serializePayload(baos, input);
 
             return baos.toByteArray();
-        } catch (IOException e) {
-            throw new SerDesException(e);
+        } finally {
+            baos.release();
+        }
+    }
+
+    /**
+     * Serializes the given {@code input} into the given {@code buffer} starting at its current position, without
+     * creating any intermediate byte arrays. Position of the buffer is advanced by the number of bytes written. When
+     * the buffer does not have enough remaining space, its position is restored and {@link BufferOverflowException}
+     * is thrown, so that the caller can retry with a larger buffer.
+     *
+     * @param input          object to be serialized
+     * @param schemaMetadata metadata of the schema of the given input
+     * @param buffer         buffer into which the serialized content is written
+     * @return number of bytes written into the buffer
+     * @throws SerDesException when any ser/des error occurs
+     */
+    public int serialize(Object input, SchemaMetadata schemaMetadata, ByteBuffer buffer) throws SerDesException {
+        SchemaIdVersion schemaIdVersion = getSchemaIdVersion(input, schemaMetadata);
+
+        int start = buffer.position();
+        try {
+            serializeSchemaVersion(buffer, schemaIdVersion);
+            serializePayload(buffer, input);
+        } catch (RuntimeException e) {
+            buffer.position(start);
+            if (e.getCause() instanceof BufferOverflowException) {
+                throw (BufferOverflowException) e.getCause();
+            }
+            throw e;
+        }
+
+        return buffer.position() - start;
+    }
+
+    /**
+     * Serializes the given {@code inputs} as a single payload with {@link RecordBatchProtocolHandler}, irrespective of
+     * the protocol configured for this serializer. The schema version is resolved and written once for the batch, and all
+     * the inputs are written with the same datum writer. Payload can be read with
+     * {@link AvroSnapshotDeserializer#deserializeBatch(ByteBuffer, Integer)}.
+     *
+     * @param inputs         objects to be serialized, all of them should have the same schema
+     * @param schemaMetadata metadata of the schema of the given inputs
+     * @return serialized batch
+     * @throws SerDesException when any ser/des error occurs or the given inputs do not have the same schema
+     */
+    public byte[] serializeBatch(Collection<?> inputs, SchemaMetadata schemaMetadata) throws SerDesException {
+        if (inputs.isEmpty()) {
+            throw new IllegalArgumentException("Batch of records to be serialized can not be empty");
+        }
+
+        Object first = inputs.iterator().next();
+        Schema schema = AvroUtils.computeSchema(first);
+        // checked before the schema is registered, the protocol handler checks them again while writing.
+        for (Object input : inputs) {
+            RecordBatchProtocolHandler.checkSameSchema(schema, input);
+        }
+        SchemaIdVersion schemaIdVersion = getSchemaIdVersion(first, schemaMetadata);
+
+        RecordBatchProtocolHandler batchProtocolHandler = (RecordBatchProtocolHandler) SerDesProtocolHandlerRegistry.get()
+                .getSerDesProtocolHandler(SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL);
+        ReusableByteArrayOutputStream baos = REUSABLE_OUTPUT_STREAMS.get();
+        try {
+            batchProtocolHandler.handleSchemaVersionSerialization(baos, schemaIdVersion);
+            batchProtocolHandler.handleBatchPayloadSerialization(baos, inputs);
+
+            return baos.toByteArray();
+        } finally {
+            baos.release();
         }
     }
 
+    /**
+     * {@link ByteArrayOutputStream} kept per thread so that the internal buffer is not grown again for every payload.
+     * Buffers which grew larger than {@link #MAX_RETAINED_SIZE} are not retained.
+     */
+    private static class ReusableByteArrayOutputStream extends ByteArrayOutputStream {
+        private static final int INITIAL_SIZE = 512;
+        private static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+        ReusableByteArrayOutputStream() {
+            super(INITIAL_SIZE);
+        }
+
+        void release() {
+            reset();
+            if (buf.length > MAX_RETAINED_SIZE) {
+                buf = new byte[INITIAL_SIZE];
+            }
+        }
+    }
+
+    private static final ThreadLocal<ReusableByteArrayOutputStream> REUSABLE_OUTPUT_STREAMS =
+            ThreadLocal.withInitial(ReusableByteArrayOutputStream::new);
+
 }
@@ -18,6 +18,8 @@ package com.hortonworks.registries.schemaregistry.serdes.avro;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
@@ -25,16 +27,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericContainer;
-import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificData;
-import org.apache.avro.specific.SpecificDatumReader;
-import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
 import org.apache.commons.io.IOUtils;
 
@@ -43,6 +39,22 @@ import org.apache.commons.io.IOUtils;
  */
 public class ConfluentAvroSerDesHandler implements AvroSerDesHandler {
     private final Map<String, Schema> readerSchemaCache = new ConcurrentHashMap<>();
+    private final AvroDatumCache avroDatumCache;
+
+    public ConfluentAvroSerDesHandler() {
+        this(new AvroDatumCache());
+    }
+
+    public ConfluentAvroSerDesHandler(AvroDatumCache avroDatumCache) {
+        this.avroDatumCache = avroDatumCache;
+    }
+
+    /**
+     * @return cache of datum readers and writers used by this handler, which also gives hit/miss statistics.
+     */
+    public AvroDatumCache getAvroDatumCache() {
+        return avroDatumCache;
+    }
 
     @Override
     public void handlePayloadSerialization(OutputStream outputStream, Object input) {
@@ -51,15 +63,15 @@ public class ConfluentAvroSerDesHandler implements AvroSerDesHandler {
             if (input instanceof byte[]) {
                 outputStream.write((byte[]) input);
             } else {
-                BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-                DatumWriter<Object> writer;
-                if (input instanceof SpecificRecord) {
-                    writer = new SpecificDatumWriter<>(schema);
-                } else {
-                    writer = new GenericDatumWriter<>(schema);
+                DatumWriter<Object> writer = avroDatumCache.getDatumWriter(schema, input instanceof SpecificRecord);
+                BinaryEncoder encoder = avroDatumCache.binaryEncoder(outputStream);
+                try {
+                    writer.write(input, encoder);
+                    encoder.flush();
+                } catch (IOException | RuntimeException e) {
+                    avroDatumCache.discardBinaryEncoder();
+                    throw e;
                 }
-                writer.write(input, encoder);
-                encoder.flush();
             }
         } catch (IOException | RuntimeException e) {
             // avro serialization can throw AvroRuntimeException, NullPointerException,
@@ -81,7 +93,7 @@ public class ConfluentAvroSerDesHandler implements AvroSerDesHandler {
                 deserializedObj = IOUtils.toByteArray(payloadInputStream);
             } else {
                 DatumReader datumReader = getDatumReader(writerSchema, readerSchema, useSpecificAvroReader);
-                deserializedObj = datumReader.read(null, DecoderFactory.get().binaryDecoder(payloadInputStream, null));
+                deserializedObj = datumReader.read(null, avroDatumCache.binaryDecoder(payloadInputStream));
             }
         } catch (IOException | RuntimeException e) {
             // avro deserialization may throw AvroRuntimeException, NullPointerException, etc
@@ -90,16 +102,42 @@ public class ConfluentAvroSerDesHandler implements AvroSerDesHandler {
         return deserializedObj;
     }
 
-    private DatumReader getDatumReader(Schema writerSchema, Schema readerSchema, boolean useSpecificAvroReader) {
-        if (useSpecificAvroReader) {
-            if (readerSchema == null) {
-                readerSchema = this.getReaderSchema(writerSchema);
+    @Override
+    public Object handlePayloadDeserialization(ByteBuffer payloadBuffer,
+                                               Schema writerSchema,
+                                               Schema readerSchema,
+                                               boolean useSpecificAvroReader) {
+        if (!payloadBuffer.hasArray()) {
+            return AvroSerDesHandler.super.handlePayloadDeserialization(payloadBuffer, writerSchema, readerSchema, useSpecificAvroReader);
+        }
+
+        // decode straight from the backing array, payload is the remaining content of the buffer.
+        byte[] bytes = payloadBuffer.array();
+        int offset = payloadBuffer.arrayOffset() + payloadBuffer.position();
+        int length = payloadBuffer.remaining();
+        payloadBuffer.position(payloadBuffer.limit());
+
+        Object deserializedObj;
+        try {
+            if (Schema.Type.BYTES.equals(writerSchema.getType())) {
+                deserializedObj = Arrays.copyOfRange(bytes, offset, offset + length);
+            } else {
+                DatumReader datumReader = getDatumReader(writerSchema, readerSchema, useSpecificAvroReader);
+                deserializedObj = datumReader.read(null, avroDatumCache.binaryDecoder(bytes, offset, length));
             }
+        } catch (IOException | RuntimeException e) {
+            // avro deserialization may throw AvroRuntimeException, NullPointerException, etc
+            throw new SerDesException("Error deserializing Avro message for id " + writerSchema, e);
+        }
+        return deserializedObj;
+    }
 
-            return new SpecificDatumReader(writerSchema, readerSchema);
-        } else {
-            return readerSchema == null ? new GenericDatumReader(writerSchema) : new GenericDatumReader(writerSchema, readerSchema);
+    private DatumReader getDatumReader(Schema writerSchema, Schema readerSchema, boolean useSpecificAvroReader) {
+        if (useSpecificAvroReader && readerSchema == null) {
+            readerSchema = this.getReaderSchema(writerSchema);
         }
+
+        return avroDatumCache.getDatumReader(writerSchema, readerSchema, useSpecificAvroReader);
     }
 
     private Schema getReaderSchema(Schema writerSchema) {
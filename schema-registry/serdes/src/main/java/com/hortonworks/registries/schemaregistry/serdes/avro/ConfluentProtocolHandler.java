@@ -54,16 +54,38 @@ public class ConfluentProtocolHandler extends AbstractAvroSerDesProtocolHandler
     }
 
     @Override
-    public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(4);
-        try {
-            inputStream.read(byteBuffer.array());
-        } catch (IOException e) {
-            throw new SerDesException(e);
+    protected void doHandleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        Long versionId = schemaIdVersion.getSchemaVersionId();
+        if (versionId > Integer.MAX_VALUE) {
+            throw new SerDesException("Unsupported versionId, max id=" + Integer.MAX_VALUE + " , but was id=" + versionId);
         }
+        buffer.putInt(versionId.intValue());
+    }
 
-        int schemaVersionId = byteBuffer.getInt();
-        return new SchemaIdVersion((long) schemaVersionId);
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(buffer));
+    }
+
+    @Override
+    public boolean hasSchemaVersionId() {
+        return true;
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(ByteBuffer buffer) {
+        checkRemaining(buffer, 4);
+        return buffer.getInt();
+    }
+
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(inputStream));
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(InputStream inputStream) {
+        return readInt(inputStream);
     }
 
 }
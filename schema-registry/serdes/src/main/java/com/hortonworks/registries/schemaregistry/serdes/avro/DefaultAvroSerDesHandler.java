@@ -16,23 +16,20 @@
 package com.hortonworks.registries.schemaregistry.serdes.avro;
 
 import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serdes.ByteBufferBackedInputStream;
 import org.apache.avro.Schema;
-import org.apache.avro.generic.GenericDatumReader;
-import org.apache.avro.generic.GenericDatumWriter;
 import org.apache.avro.io.BinaryEncoder;
 import org.apache.avro.io.DatumReader;
 import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.DecoderFactory;
-import org.apache.avro.io.EncoderFactory;
 import org.apache.avro.specific.SpecificData;
-import org.apache.avro.specific.SpecificDatumReader;
-import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecord;
 import org.apache.commons.io.IOUtils;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -41,6 +38,22 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public class DefaultAvroSerDesHandler implements AvroSerDesHandler {
     private final Map<String, Schema> readerSchemaCache = new ConcurrentHashMap<>();
+    private final AvroDatumCache avroDatumCache;
+
+    public DefaultAvroSerDesHandler() {
+        this(new AvroDatumCache());
+    }
+
+    public DefaultAvroSerDesHandler(AvroDatumCache avroDatumCache) {
+        this.avroDatumCache = avroDatumCache;
+    }
+
+    /**
+     * @return cache of datum readers and writers used by this handler, which also gives hit/miss statistics.
+     */
+    public AvroDatumCache getAvroDatumCache() {
+        return avroDatumCache;
+    }
 
     @Override
     public void handlePayloadSerialization(OutputStream outputStream, Object input) {
@@ -55,17 +68,15 @@ public class DefaultAvroSerDesHandler implements AvroSerDesHandler {
                 // get UTF-8 bytes and directly send those over instead of using avro.
                 outputStream.write(input.toString().getBytes("UTF-8"));
             } else {
-                BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
-                DatumWriter<Object> writer;
-                boolean isSpecificRecord = input instanceof SpecificRecord;
-                if (isSpecificRecord) {
-                    writer = new SpecificDatumWriter<>(schema);
-                } else {
-                    writer = new GenericDatumWriter<>(schema);
+                DatumWriter<Object> writer = avroDatumCache.getDatumWriter(schema, input instanceof SpecificRecord);
+                BinaryEncoder encoder = avroDatumCache.binaryEncoder(outputStream);
+                try {
+                    writer.write(input, encoder);
+                    encoder.flush();
+                } catch (IOException | RuntimeException e) {
+                    avroDatumCache.discardBinaryEncoder();
+                    throw e;
                 }
-
-                writer.write(input, encoder);
-                encoder.flush();
             }
         } catch (IOException e) {
             throw new SerDesException(e);
@@ -77,18 +88,36 @@ public class DefaultAvroSerDesHandler implements AvroSerDesHandler {
                                                Schema writerSchema,
                                                Schema readerSchema,
                                                boolean useSpecificAvroReader) {
+        return handlePayloadDeserialization(payloadInputStream, writerSchema, readerSchema, useSpecificAvroReader, false);
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(ByteBuffer payloadBuffer,
+                                               Schema writerSchema,
+                                               Schema readerSchema,
+                                               boolean useSpecificAvroReader) {
+        return handlePayloadDeserialization(payloadBuffer, writerSchema, readerSchema, useSpecificAvroReader, false);
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(InputStream payloadInputStream,
+                                               Schema writerSchema,
+                                               Schema readerSchema,
+                                               boolean useSpecificAvroReader,
+                                               boolean useCompiledAvroReader) {
+        if (isReadWithDatumReader(writerSchema)) {
+            return handlePayloadDeserialization(payloadInputStream,
+                                                getDatumReader(writerSchema, readerSchema, useSpecificAvroReader, useCompiledAvroReader));
+        }
+
         Object deserializedObj;
-        Schema.Type writerSchemaType = writerSchema.getType();
         try {
-            if (Schema.Type.BYTES.equals(writerSchemaType)) {
+            if (Schema.Type.BYTES.equals(writerSchema.getType())) {
                 // serializer writes byte array directly without going through avro encoder layers.
                 deserializedObj = IOUtils.toByteArray(payloadInputStream);
-            } else if (Schema.Type.STRING.equals(writerSchemaType)) {
+            } else {
                 // generate UTF-8 string object from the received bytes.
                 deserializedObj = new String(IOUtils.toByteArray(payloadInputStream), AvroUtils.UTF_8);
-            } else {
-                DatumReader datumReader = getDatumReader(writerSchema, readerSchema, useSpecificAvroReader);
-                deserializedObj = datumReader.read(null, DecoderFactory.get().binaryDecoder(payloadInputStream, null));
             }
         } catch (IOException e) {
             throw new SerDesException(e);
@@ -96,16 +125,89 @@ public class DefaultAvroSerDesHandler implements AvroSerDesHandler {
         return deserializedObj;
     }
 
-    private DatumReader getDatumReader(Schema writerSchema, Schema readerSchema, boolean useSpecificAvroReader) {
-        if (useSpecificAvroReader) {
-            if (readerSchema == null) {
-                readerSchema = this.getReaderSchema(writerSchema);
-            }
+    /**
+     * Deserializes the given payload with the given {@code datumReader}, which is resolved with
+     * {@link #getDatumReader(Schema, Schema, boolean, boolean)} for a writer schema of {@link #isReadWithDatumReader(Schema)}.
+     */
+    Object handlePayloadDeserialization(InputStream payloadInputStream, DatumReader<Object> datumReader) {
+        try {
+            return datumReader.read(null, avroDatumCache.binaryDecoder(payloadInputStream));
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(ByteBuffer payloadBuffer,
+                                               Schema writerSchema,
+                                               Schema readerSchema,
+                                               boolean useSpecificAvroReader,
+                                               boolean useCompiledAvroReader) {
+        if (isReadWithDatumReader(writerSchema)) {
+            return handlePayloadDeserialization(payloadBuffer,
+                                                getDatumReader(writerSchema, readerSchema, useSpecificAvroReader, useCompiledAvroReader));
+        }
+
+        if (!payloadBuffer.hasArray()) {
+            return handlePayloadDeserialization(new ByteBufferBackedInputStream(payloadBuffer),
+                                                writerSchema,
+                                                readerSchema,
+                                                useSpecificAvroReader,
+                                                useCompiledAvroReader);
+        }
+
+        // payload is the remaining content of the buffer.
+        byte[] bytes = payloadBuffer.array();
+        int offset = payloadBuffer.arrayOffset() + payloadBuffer.position();
+        int length = payloadBuffer.remaining();
+        payloadBuffer.position(payloadBuffer.limit());
+
+        return Schema.Type.BYTES.equals(writerSchema.getType())
+               ? Arrays.copyOfRange(bytes, offset, offset + length)
+               : new String(bytes, offset, length, AvroUtils.UTF_8);
+    }
 
-            return new SpecificDatumReader(writerSchema, readerSchema);
-        } else {
-            return readerSchema == null ? new GenericDatumReader(writerSchema) : new GenericDatumReader(writerSchema, readerSchema);
+    /**
+     * Deserializes the remaining bytes of the given {@code payloadBuffer} with the given {@code datumReader}, which is
+     * resolved with {@link #getDatumReader(Schema, Schema, boolean, boolean)} for a writer schema of
+     * {@link #isReadWithDatumReader(Schema)}. Heap buffers are decoded directly from their backing array.
+     */
+    Object handlePayloadDeserialization(ByteBuffer payloadBuffer, DatumReader<Object> datumReader) {
+        if (!payloadBuffer.hasArray()) {
+            return handlePayloadDeserialization(new ByteBufferBackedInputStream(payloadBuffer), datumReader);
         }
+
+        // decode straight from the backing array, payload is the remaining content of the buffer.
+        byte[] bytes = payloadBuffer.array();
+        int offset = payloadBuffer.arrayOffset() + payloadBuffer.position();
+        int length = payloadBuffer.remaining();
+        payloadBuffer.position(payloadBuffer.limit());
+
+        try {
+            return datumReader.read(null, avroDatumCache.binaryDecoder(bytes, offset, length));
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+    }
+
+    /**
+     * @return true if payloads written with the given schema are read with a datum reader, byte arrays and strings are
+     * written without going through avro.
+     */
+    static boolean isReadWithDatumReader(Schema writerSchema) {
+        Schema.Type writerSchemaType = writerSchema.getType();
+        return !Schema.Type.BYTES.equals(writerSchemaType) && !Schema.Type.STRING.equals(writerSchemaType);
+    }
+
+    DatumReader<Object> getDatumReader(Schema writerSchema,
+                                       Schema readerSchema,
+                                       boolean useSpecificAvroReader,
+                                       boolean useCompiledAvroReader) {
+        if (useSpecificAvroReader && readerSchema == null) {
+            readerSchema = this.getReaderSchema(writerSchema);
+        }
+
+        return avroDatumCache.getDatumReader(writerSchema, readerSchema, useSpecificAvroReader, useCompiledAvroReader);
     }
 
     private Schema getReaderSchema(Schema writerSchema) {
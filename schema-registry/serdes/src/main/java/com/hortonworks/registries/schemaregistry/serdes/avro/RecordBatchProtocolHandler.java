@@ -0,0 +1,308 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.hortonworks.registries.schemaregistry.SchemaIdVersion;
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serdes.ByteBufferBackedInputStream;
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryDecoder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.specific.SpecificRecord;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Protocol which writes a batch of records of the same schema version as a single payload, so that the protocol id,
+ * schema version and the datum writer or reader are handled once for the whole batch instead of once for each record.
+ * <p>
+ * protocol format:
+ * <pre>
+ * 1 byte  : protocol id
+ * 8 bytes : schema version id
+ * 4 bytes : number of records
+ * rest    : avro binary encoding of the records, one after the other
+ * </pre>
+ * Unlike the other protocols, byte array and string records are also written with avro encoding, as they need to be
+ * delimited in the batch.
+ * <p>
+ * Batches are written with {@link #handleBatchPayloadSerialization(OutputStream, Collection)} and read with
+ * {@link #createBatchReader(ByteBuffer, Map)}. Single record payloads are written and read as batches of one record.
+ */
+public class RecordBatchProtocolHandler extends AbstractAvroSerDesProtocolHandler {
+
+    private final AvroDatumCache avroDatumCache;
+    private final DefaultAvroSerDesHandler defaultAvroSerDesHandler;
+
+    public RecordBatchProtocolHandler() {
+        this(new AvroDatumCache());
+    }
+
+    public RecordBatchProtocolHandler(AvroDatumCache avroDatumCache) {
+        this(avroDatumCache, new DefaultAvroSerDesHandler(avroDatumCache));
+    }
+
+    private RecordBatchProtocolHandler(AvroDatumCache avroDatumCache, DefaultAvroSerDesHandler defaultAvroSerDesHandler) {
+        super(SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL, defaultAvroSerDesHandler);
+        this.avroDatumCache = avroDatumCache;
+        this.defaultAvroSerDesHandler = defaultAvroSerDesHandler;
+    }
+
+    @Override
+    protected void doHandleSchemaVersionSerialization(OutputStream outputStream,
+                                                      SchemaIdVersion schemaIdVersion) throws IOException {
+        outputStream.write(ByteBuffer.allocate(8)
+                                     .putLong(schemaIdVersion.getSchemaVersionId()).array());
+    }
+
+    @Override
+    protected void doHandleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        buffer.putLong(schemaIdVersion.getSchemaVersionId());
+    }
+
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(buffer));
+    }
+
+    @Override
+    public boolean hasSchemaVersionId() {
+        return true;
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(ByteBuffer buffer) {
+        checkRemaining(buffer, 8);
+        return buffer.getLong();
+    }
+
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) throws SerDesException {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(inputStream));
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(InputStream inputStream) throws SerDesException {
+        return readLong(inputStream);
+    }
+
+    @Override
+    public void handlePayloadSerialization(OutputStream outputStream, Object input) {
+        handleBatchPayloadSerialization(outputStream, Collections.singletonList(input));
+    }
+
+    /**
+     * Writes the number of the given {@code inputs} and their avro binary encoding into the given output stream. All the
+     * inputs should be of the schema with which the schema version of this payload was written.
+     *
+     * @param outputStream output stream
+     * @param inputs       objects to be serialized, should not be empty
+     * @throws SerDesException when any ser/des error occurs or the given inputs do not have the same schema
+     */
+    public void handleBatchPayloadSerialization(OutputStream outputStream, Collection<?> inputs) throws SerDesException {
+        if (inputs.isEmpty()) {
+            throw new SerDesException("Batch payload should have at least one record");
+        }
+
+        Iterator<?> iterator = inputs.iterator();
+        Object first = iterator.next();
+        Schema schema = AvroUtils.computeSchema(first);
+        boolean bytes = schema.getType() == Schema.Type.BYTES;
+        DatumWriter<Object> writer = avroDatumCache.getDatumWriter(schema, first instanceof SpecificRecord);
+        try {
+            outputStream.write(ByteBuffer.allocate(4).putInt(inputs.size()).array());
+
+            BinaryEncoder encoder = avroDatumCache.binaryEncoder(outputStream);
+            try {
+                writer.write(bytes ? ByteBuffer.wrap((byte[]) first) : first, encoder);
+                while (iterator.hasNext()) {
+                    Object input = iterator.next();
+                    checkSameSchema(schema, input);
+                    // avro writes bytes from ByteBuffer instead of a byte array.
+                    writer.write(bytes ? ByteBuffer.wrap((byte[]) input) : input, encoder);
+                }
+                encoder.flush();
+            } catch (IOException | RuntimeException e) {
+                avroDatumCache.discardBinaryEncoder();
+                throw e;
+            }
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+    }
+
+    @Override
+    public Map<String, Object> resolveDeserializationContext(Map<String, Object> context) {
+        // records of a batch are always read with a datum reader, even for byte array and string schemas.
+        Map<String, Object> resolvedContext = new HashMap<>(context);
+        resolvedContext.put(DATUM_READER, getDatumReader(defaultAvroSerDesHandler, context));
+        return resolvedContext;
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(InputStream payloadInputStream, Map<String, Object> context) {
+        return readSingleRecord(createBatchReader(payloadInputStream, context));
+    }
+
+    @Override
+    public Object handlePayloadDeserialization(ByteBuffer payloadBuffer, Map<String, Object> context) {
+        return readSingleRecord(createBatchReader(payloadBuffer, context));
+    }
+
+    /**
+     * Creates a reader of the records of the batch payload in the given input stream.
+     *
+     * @param payloadInputStream input stream positioned after the schema version info
+     * @param context            deserialization context with writer and reader schemas
+     * @return reader of the records of the batch
+     * @throws SerDesException when any ser/des error occurs or the number of records is invalid
+     */
+    public AvroRecordBatchReader createBatchReader(InputStream payloadInputStream,
+                                                   Map<String, Object> context) throws SerDesException {
+        return createBatchReader(payloadInputStream, Integer.MAX_VALUE, context);
+    }
+
+    private AvroRecordBatchReader createBatchReader(InputStream payloadInputStream,
+                                                    int recordsLength,
+                                                    Map<String, Object> context) throws SerDesException {
+        int size = readFully(payloadInputStream, 4).getInt();
+        return createBatchReader(DecoderFactory.get().binaryDecoder(payloadInputStream, null), size, recordsLength, context);
+    }
+
+    /**
+     * Creates a reader of the records of the batch payload in the remaining bytes of the given buffer. Heap buffers are
+     * decoded directly from their backing array, and the position of the buffer is moved to its limit.
+     *
+     * @param payloadBuffer buffer positioned after the schema version info
+     * @param context       deserialization context with writer and reader schemas
+     * @return reader of the records of the batch
+     * @throws SerDesException when any ser/des error occurs or the number of records is invalid
+     */
+    public AvroRecordBatchReader createBatchReader(ByteBuffer payloadBuffer,
+                                                   Map<String, Object> context) throws SerDesException {
+        if (!payloadBuffer.hasArray()) {
+            return createBatchReader(new ByteBufferBackedInputStream(payloadBuffer), payloadBuffer.remaining() - 4, context);
+        }
+
+        if (payloadBuffer.remaining() < 4) {
+            throw new SerDesException("End of buffer reached while trying to read number of records");
+        }
+        int size = payloadBuffer.getInt();
+        int recordsLength = payloadBuffer.remaining();
+        BinaryDecoder decoder = DecoderFactory.get().binaryDecoder(payloadBuffer.array(),
+                                                                   payloadBuffer.arrayOffset() + payloadBuffer.position(),
+                                                                   payloadBuffer.remaining(),
+                                                                   null);
+        payloadBuffer.position(payloadBuffer.limit());
+
+        return createBatchReader(decoder, size, recordsLength, context);
+    }
+
+    /**
+     * @param recordsLength number of bytes of the encoded records, {@link Integer#MAX_VALUE} when it is not known.
+     */
+    private AvroRecordBatchReader createBatchReader(BinaryDecoder decoder,
+                                                    int size,
+                                                    int recordsLength,
+                                                    Map<String, Object> context) {
+        if (size < 0) {
+            throw new SerDesException("Invalid number of records [" + size + "] received in the batch payload");
+        }
+
+        Schema writerSchema = (Schema) context.get(WRITER_SCHEMA);
+        // each record takes at least a byte, unless its schema is encoded without any bytes like null.
+        if (size > recordsLength && !isEncodedWithoutBytes(writerSchema, Collections.newSetFromMap(new IdentityHashMap<>()))) {
+            throw new SerDesException("Invalid number of records [" + size + "] received in the batch payload with "
+                                              + recordsLength + " bytes of records");
+        }
+
+        DatumReader<Object> datumReader = (DatumReader<Object>) context.get(DATUM_READER);
+        if (datumReader == null) {
+            datumReader = getDatumReader(defaultAvroSerDesHandler, context);
+        }
+
+        return new AvroRecordBatchReader(datumReader, decoder, writerSchema, size);
+    }
+
+    static void checkSameSchema(Schema schema, Object input) throws SerDesException {
+        Schema inputSchema = AvroUtils.computeSchema(input);
+        if (inputSchema != schema && !inputSchema.equals(schema)) {
+            throw new SerDesException("All the records of a batch should have the same schema, but found schemas "
+                                              + schema.getFullName() + " and " + inputSchema.getFullName());
+        }
+    }
+
+    private static boolean isEncodedWithoutBytes(Schema schema, Set<Schema> visitedRecords) {
+        switch (schema.getType()) {
+            case NULL:
+                return true;
+            case FIXED:
+                return schema.getFixedSize() == 0;
+            case RECORD:
+                if (!visitedRecords.add(schema)) {
+                    // a record which contains itself without a union or collection in between can not be encoded
+                    return false;
+                }
+                for (Schema.Field field : schema.getFields()) {
+                    if (!isEncodedWithoutBytes(field.schema(), visitedRecords)) {
+                        return false;
+                    }
+                }
+                visitedRecords.remove(schema);
+                return true;
+            default:
+                // other types are encoded with at least a byte, like the length of bytes and strings or the branch of unions
+                return false;
+        }
+    }
+
+    private static Object readSingleRecord(AvroRecordBatchReader batchReader) {
+        if (batchReader.size() != 1) {
+            throw new SerDesException("Expected a single record but the payload has a batch of " + batchReader.size() + " records");
+        }
+        return batchReader.next();
+    }
+
+    private static ByteBuffer readFully(InputStream inputStream, int length) throws SerDesException {
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        try {
+            while (offset < length) {
+                int read = inputStream.read(bytes, offset, length - offset);
+                if (read == -1) {
+                    throw new SerDesException("End of stream reached while trying to read " + length + " bytes");
+                }
+                offset += read;
+            }
+        } catch (IOException e) {
+            throw new SerDesException(e);
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+}
@@ -46,6 +46,20 @@ public class SchemaMetadataIdProtocolHandler extends AbstractAvroSerDesProtocolH
         }
     }
 
+    @Override
+    protected void doHandleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        buffer.putLong(schemaIdVersion.getSchemaMetadataId()).putInt(schemaIdVersion.getVersion());
+    }
+
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) {
+        checkRemaining(buffer, 12);
+        long schemaMetadataId = buffer.getLong();
+        int schemaVersion = buffer.getInt();
+
+        return new SchemaIdVersion(schemaMetadataId, schemaVersion);
+    }
+
     @Override
     public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) {
         // 8 bytes : schema metadata Id
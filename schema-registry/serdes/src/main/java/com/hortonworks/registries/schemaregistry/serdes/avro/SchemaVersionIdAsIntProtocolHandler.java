@@ -58,22 +58,47 @@ public class SchemaVersionIdAsIntProtocolHandler extends AbstractAvroSerDesProto
         }
     }
 
+    @Override
+    public void handleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        Long versionId = schemaIdVersion.getSchemaVersionId();
+        if (versionId > Integer.MAX_VALUE) {
+            // if it is more than int max, fallback to SchemaVersionIdAsLongProtocolHandler
+            LOG.debug("Upgraded to " + delegate + " as versionId is more than max integer");
+            delegate.handleSchemaVersionSerialization(buffer, schemaIdVersion);
+        } else {
+            buffer.put(protocolId).putInt(versionId.intValue());
+        }
+    }
+
     @Override
     protected void doHandleSchemaVersionSerialization(OutputStream outputStream, SchemaIdVersion schemaIdVersion) throws IOException {
         // ignore this as this would never be invoked.
     }
 
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(buffer));
+    }
+
+    @Override
+    public boolean hasSchemaVersionId() {
+        return true;
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(ByteBuffer buffer) {
+        checkRemaining(buffer, 4);
+        return buffer.getInt();
+    }
+
     @Override
     public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(4);
-        try {
-            inputStream.read(byteBuffer.array());
-        } catch (IOException e) {
-            throw new SerDesException(e);
-        }
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(inputStream));
+    }
 
-        int schemaVersionId = byteBuffer.getInt();
-        return new SchemaIdVersion((long) schemaVersionId);
+    @Override
+    public long handleSchemaVersionIdDeserialization(InputStream inputStream) {
+        return readInt(inputStream);
     }
 
     public Byte getProtocolId() {
@@ -44,16 +44,35 @@ public class SchemaVersionIdAsLongProtocolHandler extends AbstractAvroSerDesProt
         }
     }
 
+    @Override
+    protected void doHandleSchemaVersionSerialization(ByteBuffer buffer, SchemaIdVersion schemaIdVersion) {
+        buffer.putLong(schemaIdVersion.getSchemaVersionId());
+    }
+
+    @Override
+    public SchemaIdVersion handleSchemaVersionDeserialization(ByteBuffer buffer) {
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(buffer));
+    }
+
+    @Override
+    public boolean hasSchemaVersionId() {
+        return true;
+    }
+
+    @Override
+    public long handleSchemaVersionIdDeserialization(ByteBuffer buffer) {
+        checkRemaining(buffer, 8);
+        return buffer.getLong();
+    }
+
     @Override
     public SchemaIdVersion handleSchemaVersionDeserialization(InputStream inputStream) throws SerDesException  {
-        ByteBuffer byteBuffer = ByteBuffer.allocate(8);
-        try {
-            inputStream.read(byteBuffer.array());
-        } catch (IOException e) {
-            throw new SerDesException(e);
-        }
+        return new SchemaIdVersion(handleSchemaVersionIdDeserialization(inputStream));
+    }
 
-        return new SchemaIdVersion(byteBuffer.getLong());
+    @Override
+    public long handleSchemaVersionIdDeserialization(InputStream inputStream) throws SerDesException {
+        return readLong(inputStream);
     }
 
     public Byte getProtocolId() {
@@ -32,6 +32,7 @@ public final class SerDesProtocolHandlerRegistry {
     public static final byte METADATA_ID_VERSION_PROTOCOL = 0x1;
     public static final byte VERSION_ID_AS_LONG_PROTOCOL = 0x2;
     public static final byte VERSION_ID_AS_INT_PROTOCOL = 0x3;
+    public static final byte RECORD_BATCH_PROTOCOL = 0x4;
     public static final byte CURRENT_PROTOCOL = VERSION_ID_AS_INT_PROTOCOL;
 
     private static final SerDesProtocolHandlerRegistry instance = new SerDesProtocolHandlerRegistry();
@@ -52,7 +53,8 @@ public final class SerDesProtocolHandlerRegistry {
 
     private SerDesProtocolHandlerRegistry() {
         List<SerDesProtocolHandler> inbuiltHandlers = Arrays.asList(new ConfluentProtocolHandler(), new SchemaMetadataIdProtocolHandler(),
-                                                                    new SchemaVersionIdAsIntProtocolHandler(), new SchemaVersionIdAsLongProtocolHandler());
+                                                                    new SchemaVersionIdAsIntProtocolHandler(), new SchemaVersionIdAsLongProtocolHandler(),
+                                                                    new RecordBatchProtocolHandler());
         for (SerDesProtocolHandler inbuiltHandler : inbuiltHandlers) {
             registerSerDesProtocolHandler(inbuiltHandler);
         }
@@ -19,8 +19,10 @@ import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
 import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotDeserializer;
 import org.apache.kafka.common.serialization.Deserializer;
 
-import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -95,7 +97,22 @@ public class KafkaAvroDeserializer implements Deserializer<Object> {
 
     @Override
     public Object deserialize(String topic, byte[] data) {
-        return avroSnapshotDeserializer.deserialize(new ByteArrayInputStream(data), readerVersions.get(topic));
+        return avroSnapshotDeserializer.deserialize(ByteBuffer.wrap(data), readerVersions.get(topic));
+    }
+
+    /**
+     * Deserializes the given batch of {@code data} received from the given {@code topic}. This resolves schemas once
+     * for all the records written with the same schema version.
+     *
+     * @return the deserialized objects in the order of the given {@code data}
+     * @see AvroSnapshotDeserializer#deserialize(List, Integer)
+     */
+    public List<Object> deserialize(String topic, List<byte[]> data) {
+        List<ByteBuffer> buffers = new ArrayList<>(data.size());
+        for (byte[] bytes : data) {
+            buffers.add(ByteBuffer.wrap(bytes));
+        }
+        return avroSnapshotDeserializer.deserialize(buffers, readerVersions.get(topic));
     }
 
     @Override
@@ -24,18 +24,31 @@ import com.hortonworks.registries.schemaregistry.SchemaVersionInfo;
 import com.hortonworks.registries.schemaregistry.SchemaVersionKey;
 import com.hortonworks.registries.schemaregistry.avro.AvroSchemaProvider;
 import com.hortonworks.registries.schemaregistry.client.SchemaRegistryClient;
+import com.hortonworks.registries.schemaregistry.serde.SerDesException;
+import com.hortonworks.registries.schemaregistry.serdes.SerDesProtocolHandler;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSerDesProtocolHandler;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroRecordBatchReader;
 import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotDeserializer;
 import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotSerializer;
+import com.hortonworks.registries.schemaregistry.serdes.avro.RecordBatchProtocolHandler;
 import com.hortonworks.registries.schemaregistry.serdes.avro.SerDesProtocolHandlerRegistry;
 import com.hortonworks.registries.serdes.Device;
 import mockit.Expectations;
 import mockit.Mocked;
+import org.apache.avro.Schema;
 import org.apache.avro.specific.SpecificData;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 
 import static com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSnapshotSerializer.SERDES_PROTOCOL_VERSION;
@@ -59,6 +72,10 @@ public class SchemaVersionProtocolHandlerTest {
     }
 
     private void _testSerDes(Long id, Number serdesProtocolVersion) throws Exception {
+        _testSerDes(id, serdesProtocolVersion, false);
+    }
+
+    private void _testSerDes(Long id, Number serdesProtocolVersion, boolean useByteBuffer) throws Exception {
         SchemaMetadata schemaMetadata =
                 new SchemaMetadata.Builder("random-" + System.currentTimeMillis())
                         .schemaGroup("custom")
@@ -93,12 +110,324 @@ public class SchemaVersionProtocolHandlerTest {
         AvroSnapshotDeserializer deserializer = new AvroSnapshotDeserializer();
         deserializer.init(Collections.emptyMap());
 
-        byte[] serializedData = serializer.serialize(input, schemaMetadata);
-        Object deserializedObj = deserializer.deserialize(new ByteArrayInputStream(serializedData), null);
+        Object deserializedObj;
+        if (useByteBuffer) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            buffer.position(7);
+            int length = serializer.serialize(input, schemaMetadata, buffer);
+            Assert.assertEquals(7 + length, buffer.position());
+
+            buffer.flip().position(7);
+            deserializedObj = deserializer.deserialize(buffer, null);
+            Assert.assertFalse(buffer.hasRemaining());
+        } else {
+            byte[] serializedData = serializer.serialize(input, schemaMetadata);
+            deserializedObj = deserializer.deserialize(new ByteArrayInputStream(serializedData), null);
+        }
 
         Assert.assertTrue(SpecificData.get().compare(input, deserializedObj, input.getSchema()) == 0);
     }
 
+    @Test
+    public void testByteBufferSerDesWithVersionIdGtLtIntMax() throws Exception {
+        int delta = Math.abs(new Random().nextInt());
+        long[] ids = {((long) Integer.MAX_VALUE + delta), ((long) Integer.MAX_VALUE - delta)};
+        for (long id : ids) {
+            _testSerDes(id, SerDesProtocolHandlerRegistry.VERSION_ID_AS_INT_PROTOCOL, true);
+        }
+    }
+
+    @Test
+    public void testByteBufferSerializationRetriedAfterOverflow() throws Exception {
+        SchemaMetadata schemaMetadata =
+                new SchemaMetadata.Builder("random-" + System.currentTimeMillis())
+                        .schemaGroup("custom")
+                        .type(AvroSchemaProvider.TYPE)
+                        .compatibility(SchemaCompatibility.BACKWARD)
+                        .build();
+        SchemaIdVersion schemaIdVersion = new SchemaIdVersion(1L, 1, 1L);
+
+        new Expectations() {
+            {
+                mockSchemaRegistryClient.addSchemaVersion(withInstanceOf(SchemaMetadata.class), withInstanceOf(SchemaVersion.class));
+                result = schemaIdVersion; minTimes=0;
+            }
+        };
+
+        AvroSnapshotSerializer serializer = new AvroSnapshotSerializer();
+        serializer.init(Collections.emptyMap());
+        Device input = new Device(1L, "device", 1, System.currentTimeMillis());
+        byte[] expected = serializer.serialize(input, schemaMetadata);
+
+        ByteBuffer smallBuffer = ByteBuffer.allocate(expected.length - 1);
+        try {
+            serializer.serialize(input, schemaMetadata, smallBuffer);
+            Assert.fail("Serializing into a smaller buffer should fail");
+        } catch (BufferOverflowException e) {
+            Assert.assertEquals(0, smallBuffer.position());
+        }
+
+        // retry should not carry any bytes of the failed attempt.
+        ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+        Assert.assertEquals(expected.length, serializer.serialize(input, schemaMetadata, buffer));
+        Assert.assertArrayEquals(expected, buffer.array());
+        Assert.assertArrayEquals(expected, serializer.serialize(input, schemaMetadata));
+    }
+
+    @Test
+    public void testTruncatedBufferFailsWithSerDesException() throws Exception {
+        AvroSnapshotDeserializer deserializer = new AvroSnapshotDeserializer();
+        deserializer.init(Collections.emptyMap());
+
+        byte[] protocolIds = {SerDesProtocolHandlerRegistry.CONFLUENT_VERSION_PROTOCOL,
+                SerDesProtocolHandlerRegistry.METADATA_ID_VERSION_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_LONG_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_INT_PROTOCOL,
+                SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL};
+        for (byte protocolId : protocolIds) {
+            try {
+                deserializer.deserialize(ByteBuffer.wrap(new byte[]{protocolId, 0, 1}), null);
+                Assert.fail("Deserializing a truncated payload of protocol " + protocolId + " should fail");
+            } catch (SerDesException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testTruncatedStreamFailsWithSerDesException() throws Exception {
+        AvroSnapshotDeserializer deserializer = new AvroSnapshotDeserializer();
+        deserializer.init(Collections.emptyMap());
+
+        byte[] protocolIds = {SerDesProtocolHandlerRegistry.CONFLUENT_VERSION_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_LONG_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_INT_PROTOCOL,
+                SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL};
+        for (byte protocolId : protocolIds) {
+            try {
+                deserializer.deserialize(new ByteArrayInputStream(new byte[]{protocolId, 0, 1}), null);
+                Assert.fail("Deserializing a truncated stream of protocol " + protocolId + " should fail");
+            } catch (SerDesException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void testSchemaVersionIdDeserializationFromStream() throws Exception {
+        byte[] protocolIds = {SerDesProtocolHandlerRegistry.CONFLUENT_VERSION_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_LONG_PROTOCOL,
+                SerDesProtocolHandlerRegistry.VERSION_ID_AS_INT_PROTOCOL,
+                SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL};
+        for (byte protocolId : protocolIds) {
+            SerDesProtocolHandler protocolHandler = SerDesProtocolHandlerRegistry.get().getSerDesProtocolHandler(protocolId);
+            long schemaVersionId = protocolId == SerDesProtocolHandlerRegistry.VERSION_ID_AS_LONG_PROTOCOL
+                                   || protocolId == SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL
+                                   ? Integer.MAX_VALUE + 1L : 42L;
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            protocolHandler.handleSchemaVersionSerialization(outputStream, new SchemaIdVersion(schemaVersionId));
+            byte[] bytes = outputStream.toByteArray();
+            Assert.assertEquals(protocolId, bytes[0]);
+
+            // skip the protocol id which is read by the deserializer before invoking the protocol handler
+            Assert.assertEquals(schemaVersionId,
+                                protocolHandler.handleSchemaVersionIdDeserialization(new ByteArrayInputStream(bytes, 1, bytes.length - 1)));
+            Assert.assertEquals(schemaVersionId,
+                                protocolHandler.handleSchemaVersionDeserialization(new ByteArrayInputStream(bytes, 1, bytes.length - 1))
+                                               .getSchemaVersionId().longValue());
+        }
+    }
+
+    @Test
+    public void testSchemaMetadataIdPayloadsReuseResolvedSchemaVersion() throws Exception {
+        SchemaMetadata schemaMetadata =
+                new SchemaMetadata.Builder("random-" + System.currentTimeMillis())
+                        .schemaGroup("custom")
+                        .type(AvroSchemaProvider.TYPE)
+                        .compatibility(SchemaCompatibility.BACKWARD)
+                        .build();
+        SchemaIdVersion schemaIdVersion = new SchemaIdVersion(1L, 1, 5L);
+        Device input = new Device(1L, "device", 1, System.currentTimeMillis());
+        SchemaVersionInfo schemaVersionInfo = new SchemaVersionInfo(5L, input.getName().toString(), schemaIdVersion.getVersion(),
+                                                                    input.getSchema().toString(),
+                                                                    System.currentTimeMillis(),
+                                                                    "some device");
+
+        new Expectations() {
+            {
+                mockSchemaRegistryClient.addSchemaVersion(withInstanceOf(SchemaMetadata.class), withInstanceOf(SchemaVersion.class));
+                result = schemaIdVersion; minTimes=0;
+
+                mockSchemaRegistryClient.getSchemaVersionInfo(withInstanceOf(SchemaIdVersion.class));
+                result = schemaVersionInfo; minTimes=0;
+
+                mockSchemaRegistryClient.getSchemaVersionInfo(withInstanceOf(SchemaVersionKey.class));
+                result = schemaVersionInfo; minTimes=0; maxTimes=1;
+
+                // schema metadata is resolved only for the first payload, later payloads use the kept context.
+                mockSchemaRegistryClient.getSchemaMetadataInfo(anyString);
+                result = new SchemaMetadataInfo(schemaMetadata); times=1;
+            }
+        };
+
+        AvroSnapshotSerializer serializer = new AvroSnapshotSerializer();
+        serializer.init(Collections.singletonMap(SERDES_PROTOCOL_VERSION, SerDesProtocolHandlerRegistry.METADATA_ID_VERSION_PROTOCOL));
+        AvroSnapshotDeserializer deserializer = new AvroSnapshotDeserializer();
+        deserializer.init(Collections.emptyMap());
+
+        byte[] serializedData = serializer.serialize(input, schemaMetadata);
+        for (int i = 0; i < 3; i++) {
+            Object deserializedObj = deserializer.deserialize(ByteBuffer.wrap(serializedData), null);
+            Assert.assertTrue(SpecificData.get().compare(input, deserializedObj, input.getSchema()) == 0);
+        }
+    }
+
+    @Test
+    public void testSingleRecordSerDesWithRecordBatchProtocol() throws Exception {
+        _testSerDes(1L, SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL);
+        _testSerDes(1L, SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL, true);
+    }
+
+    @Test
+    public void testRecordBatchSerDes() throws Exception {
+        SchemaMetadata schemaMetadata =
+                new SchemaMetadata.Builder("random-" + System.currentTimeMillis())
+                        .schemaGroup("custom")
+                        .type(AvroSchemaProvider.TYPE)
+                        .compatibility(SchemaCompatibility.BACKWARD)
+                        .build();
+        SchemaIdVersion schemaIdVersion = new SchemaIdVersion(1L, 1, 1L);
+
+        List<Device> inputs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            inputs.add(new Device((long) i, "device-" + i, i, System.currentTimeMillis()));
+        }
+        Device first = inputs.get(0);
+        SchemaVersionInfo schemaVersionInfo = new SchemaVersionInfo(1L, first.getName().toString(), schemaIdVersion.getVersion(),
+                                                                    first.getSchema().toString(),
+                                                                    System.currentTimeMillis(),
+                                                                    "some device");
+
+        new Expectations() {
+            {
+                mockSchemaRegistryClient.getSchemaMetadataInfo(anyString);
+                result = new SchemaMetadataInfo(schemaMetadata); minTimes=0; maxTimes=1;
+
+                mockSchemaRegistryClient.addSchemaVersion(withInstanceOf(SchemaMetadata.class), withInstanceOf(SchemaVersion.class));
+                result = schemaIdVersion; times = 1;
+
+                mockSchemaRegistryClient.getSchemaVersionInfo(withInstanceOf(SchemaVersionKey.class));
+                result = schemaVersionInfo; minTimes=0; maxTimes=1;
+            }
+        };
+
+        AvroSnapshotSerializer serializer = new AvroSnapshotSerializer();
+        serializer.init(Collections.emptyMap());
+        byte[] serializedData = serializer.serializeBatch(inputs, schemaMetadata);
+        Assert.assertEquals(SerDesProtocolHandlerRegistry.RECORD_BATCH_PROTOCOL, serializedData[0]);
+
+        AvroSnapshotDeserializer deserializer = new AvroSnapshotDeserializer();
+        deserializer.init(Collections.emptyMap());
+        AvroRecordBatchReader batchReader = deserializer.deserializeBatch(ByteBuffer.wrap(serializedData), null);
+        Assert.assertEquals(inputs.size(), batchReader.size());
+
+        // same record instance is reused for all the records of the batch.
+        Object deserializedObj = null;
+        for (Device input : inputs) {
+            Assert.assertTrue(batchReader.hasNext());
+            Object previous = deserializedObj;
+            deserializedObj = batchReader.next(deserializedObj);
+            Assert.assertTrue(previous == null || previous == deserializedObj);
+            Assert.assertTrue(SpecificData.get().compare(input, deserializedObj, input.getSchema()) == 0);
+        }
+        Assert.assertFalse(batchReader.hasNext());
+    }
+
+    @Test
+    public void testEmptyRecordBatchFailsWithSerDesException() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            new RecordBatchProtocolHandler().handleBatchPayloadSerialization(outputStream, Collections.emptyList());
+            Assert.fail("Serializing an empty batch should fail");
+        } catch (SerDesException e) {
+            Assert.assertEquals(0, outputStream.size());
+        }
+    }
+
+    @Test
+    public void testRecordBatchWithDifferentSchemasFailsWithSerDesException() throws Exception {
+        try {
+            new RecordBatchProtocolHandler().handleBatchPayloadSerialization(new ByteArrayOutputStream(), Arrays.asList("device-1", 1));
+            Assert.fail("Serializing a batch of records with different schemas should fail");
+        } catch (SerDesException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRecordBatchWithInvalidNumberOfRecordsFailsWithSerDesException() throws Exception {
+        RecordBatchProtocolHandler protocolHandler = new RecordBatchProtocolHandler();
+        Map<String, Object> context = Collections.singletonMap(AbstractAvroSerDesProtocolHandler.WRITER_SCHEMA,
+                                                               Schema.create(Schema.Type.STRING));
+        for (int size : new int[]{-1, 3, Integer.MAX_VALUE}) {
+            ByteBuffer payload = ByteBuffer.allocate(6).putInt(size).put(new byte[]{0, 0});
+            payload.flip();
+            ByteBuffer directPayload = ByteBuffer.allocateDirect(6).put(payload.array());
+            directPayload.flip();
+            for (ByteBuffer buffer : new ByteBuffer[]{payload, directPayload}) {
+                try {
+                    protocolHandler.createBatchReader(buffer, context);
+                    Assert.fail("Reading a batch with " + size + " records in 2 bytes should fail");
+                } catch (SerDesException e) {
+                    // expected
+                }
+            }
+
+            // length of the records is not known for streams
+            try {
+                protocolHandler.createBatchReader(new ByteArrayInputStream(payload.array()), context);
+                Assert.assertTrue("Reading a batch with a negative number of records should fail", size >= 0);
+            } catch (SerDesException e) {
+                Assert.assertTrue(size < 0);
+            }
+        }
+
+        // records of null schema are written without any bytes
+        ByteBuffer payload = ByteBuffer.allocate(4).putInt(3);
+        payload.flip();
+        AvroRecordBatchReader batchReader =
+                protocolHandler.createBatchReader(payload,
+                                                  Collections.singletonMap(AbstractAvroSerDesProtocolHandler.WRITER_SCHEMA,
+                                                                           Schema.create(Schema.Type.NULL)));
+        Assert.assertEquals(3, batchReader.size());
+    }
+
+    @Test
+    public void testSchemaIdVersionIsCachedForSameSchemaInstance() throws Exception {
+        SchemaMetadata schemaMetadata =
+                new SchemaMetadata.Builder("random-" + System.currentTimeMillis())
+                        .schemaGroup("custom")
+                        .type(AvroSchemaProvider.TYPE)
+                        .compatibility(SchemaCompatibility.BACKWARD)
+                        .build();
+        SchemaIdVersion schemaIdVersion = new SchemaIdVersion(1L, 1, 1L);
+
+        new Expectations() {
+            {
+                mockSchemaRegistryClient.addSchemaVersion(withInstanceOf(SchemaMetadata.class), withInstanceOf(SchemaVersion.class));
+                result = schemaIdVersion; times = 1;
+            }
+        };
+
+        AvroSnapshotSerializer serializer = new AvroSnapshotSerializer();
+        serializer.init(Collections.emptyMap());
+
+        for (int i = 0; i < 5; i++) {
+            Device input = new Device((long) i, "device-" + i, i, System.currentTimeMillis());
+            serializer.serialize(input, schemaMetadata);
+        }
+    }
+
     @Test
     public void testIntegerSerDesProtocolVersion() throws Exception {
        _testSerDes(1L, 1);
@@ -40,8 +40,10 @@ import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -148,6 +150,19 @@ public class MockSchemaRegistryClient implements ISchemaRegistryClient {
         return schemaRegistry.getSchemaVersionInfo(schemaIdVersion);
     }
 
+    @Override
+    public Collection<SchemaVersionInfo> getSchemaVersionInfos(Collection<SchemaIdVersion> schemaIdVersions) {
+        List<SchemaVersionInfo> schemaVersionInfos = new ArrayList<>();
+        for (SchemaIdVersion schemaIdVersion : schemaIdVersions) {
+            try {
+                schemaVersionInfos.add(schemaRegistry.getSchemaVersionInfo(schemaIdVersion));
+            } catch (SchemaNotFoundException e) {
+                // ignore the versions which do not exist
+            }
+        }
+        return schemaVersionInfos;
+    }
+
     @Override
     public SchemaVersionInfo getLatestSchemaVersionInfo(String schemaName) throws SchemaNotFoundException {
         return schemaRegistry.getLatestSchemaVersionInfo(schemaName);
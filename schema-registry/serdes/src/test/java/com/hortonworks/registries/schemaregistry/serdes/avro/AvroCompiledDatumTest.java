@@ -0,0 +1,146 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumReader;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.DecoderFactory;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ *
+ */
+public class AvroCompiledDatumTest {
+
+    private static final String CHILD_SCHEMA = "{\"type\":\"record\",\"name\":\"Child\",\"fields\":[" +
+            "{\"name\":\"n\",\"type\":\"int\"},{\"name\":\"next\",\"type\":[\"null\",\"Child\"],\"default\":null}]}";
+
+    private static final Schema WRITER_SCHEMA = new Schema.Parser().parse(
+            "{\"type\":\"record\",\"name\":\"Rec\",\"fields\":[" +
+            "{\"name\":\"id\",\"type\":\"long\"}," +
+            "{\"name\":\"name\",\"type\":[\"null\",\"string\"]}," +
+            "{\"name\":\"dropped\",\"type\":{\"type\":\"array\",\"items\":\"double\"}}," +
+            "{\"name\":\"attributes\",\"type\":{\"type\":\"map\",\"values\":\"string\"}}," +
+            "{\"name\":\"color\",\"type\":{\"type\":\"enum\",\"name\":\"Color\",\"symbols\":[\"RED\",\"GREEN\"]}}," +
+            "{\"name\":\"hash\",\"type\":{\"type\":\"fixed\",\"name\":\"Hash\",\"size\":4}}," +
+            "{\"name\":\"data\",\"type\":\"bytes\"}," +
+            "{\"name\":\"children\",\"type\":{\"type\":\"array\",\"items\":" + CHILD_SCHEMA + "}}]}");
+
+    @Test
+    public void testCompiledWriterAndReaderMatchGeneric() throws Exception {
+        GenericRecord record = createRecord();
+
+        byte[] genericBytes = write(new GenericDatumWriter<>(WRITER_SCHEMA), record);
+        AvroCompiledDatumWriter compiledWriter = AvroCompiledDatumWriter.compile(WRITER_SCHEMA, false);
+        Assert.assertNotNull(compiledWriter);
+        Assert.assertArrayEquals(genericBytes, write(compiledWriter, record));
+
+        AvroCompiledDatumReader compiledReader = AvroCompiledDatumReader.compile(WRITER_SCHEMA, null, false);
+        Assert.assertNotNull(compiledReader);
+        Assert.assertEquals(read(new GenericDatumReader<>(WRITER_SCHEMA), genericBytes), read(compiledReader, genericBytes));
+    }
+
+    @Test
+    public void testCompiledReaderResolvesAddedAndDroppedFields() throws Exception {
+        Schema readerSchema = new Schema.Parser().parse(
+                "{\"type\":\"record\",\"name\":\"Rec\",\"fields\":[" +
+                "{\"name\":\"added\",\"type\":\"string\",\"default\":\"none\"}," +
+                "{\"name\":\"name\",\"type\":[\"null\",\"string\"]}," +
+                "{\"name\":\"id\",\"type\":\"long\"}]}");
+        byte[] bytes = write(new GenericDatumWriter<>(WRITER_SCHEMA), createRecord());
+
+        AvroCompiledDatumReader compiledReader = AvroCompiledDatumReader.compile(WRITER_SCHEMA, readerSchema, false);
+        Assert.assertNotNull(compiledReader);
+        Object expected = read(new GenericDatumReader<>(WRITER_SCHEMA, readerSchema), bytes);
+        GenericRecord result = (GenericRecord) read(compiledReader, bytes);
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(42L, result.get("id"));
+        Assert.assertEquals("none", result.get("added").toString());
+    }
+
+    @Test
+    public void testCompiledReaderResolvesAliases() throws Exception {
+        Schema readerSchema = new Schema.Parser().parse(
+                "{\"type\":\"record\",\"name\":\"Record\",\"aliases\":[\"Rec\"],\"fields\":[" +
+                "{\"name\":\"key\",\"type\":\"long\",\"aliases\":[\"id\"]}," +
+                "{\"name\":\"colour\",\"aliases\":[\"color\"],\"type\":" +
+                "{\"type\":\"enum\",\"name\":\"Colour\",\"aliases\":[\"Color\"],\"symbols\":[\"RED\",\"GREEN\"]}}]}");
+        byte[] bytes = write(new GenericDatumWriter<>(WRITER_SCHEMA), createRecord());
+
+        AvroCompiledDatumReader compiledReader = AvroCompiledDatumReader.compile(WRITER_SCHEMA, readerSchema, false);
+        Assert.assertNotNull(compiledReader);
+        Object expected = read(new GenericDatumReader<>(WRITER_SCHEMA, readerSchema), bytes);
+        GenericRecord result = (GenericRecord) read(compiledReader, bytes);
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(42L, result.get("key"));
+        Assert.assertEquals("GREEN", result.get("colour").toString());
+    }
+
+    @Test
+    public void testNotCompilableSchemas() throws Exception {
+        // type promotion from int to long is left to generic readers.
+        Schema writerSchema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"f\",\"type\":\"int\"}]}");
+        Schema readerSchema = new Schema.Parser().parse("{\"type\":\"record\",\"name\":\"R\",\"fields\":[{\"name\":\"f\",\"type\":\"long\"}]}");
+        Assert.assertNull(AvroCompiledDatumReader.compile(writerSchema, readerSchema, false));
+
+        AvroDatumCache avroDatumCache = new AvroDatumCache();
+        Assert.assertTrue(avroDatumCache.getDatumReader(writerSchema, readerSchema, false, true) instanceof GenericDatumReader);
+        Assert.assertTrue(avroDatumCache.getDatumReader(writerSchema, null, false, true) instanceof AvroCompiledDatumReader);
+    }
+
+    private static GenericRecord createRecord() {
+        Schema childSchema = WRITER_SCHEMA.getField("children").schema().getElementType();
+        GenericRecord leaf = new GenericRecordBuilder(childSchema).set("n", 2).build();
+        GenericRecord child = new GenericRecordBuilder(childSchema).set("n", 1).set("next", leaf).build();
+
+        return new GenericRecordBuilder(WRITER_SCHEMA)
+                .set("id", 42L)
+                .set("name", "foo")
+                .set("dropped", Arrays.asList(1.0d, 2.0d))
+                .set("attributes", Collections.singletonMap("key", "value"))
+                .set("color", new GenericData.EnumSymbol(WRITER_SCHEMA.getField("color").schema(), "GREEN"))
+                .set("hash", new GenericData.Fixed(WRITER_SCHEMA.getField("hash").schema(), new byte[]{1, 2, 3, 4}))
+                .set("data", ByteBuffer.wrap(new byte[]{5, 6}))
+                .set("children", Collections.singletonList(child))
+                .build();
+    }
+
+    private static byte[] write(DatumWriter<Object> writer, Object datum) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        writer.write(datum, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static Object read(DatumReader<Object> reader, byte[] bytes) throws Exception {
+        return reader.read(null, DecoderFactory.get().binaryDecoder(bytes, null));
+    }
+}
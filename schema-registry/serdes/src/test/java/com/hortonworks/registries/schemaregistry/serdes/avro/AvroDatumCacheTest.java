@@ -0,0 +1,109 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumReader;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ *
+ */
+public class AvroDatumCacheTest {
+
+    private static final String WRITER_SCHEMA = "{\"type\":\"record\",\"name\":\"Rec\",\"fields\":[{\"name\":\"f1\",\"type\":\"string\"}]}";
+    private static final String READER_SCHEMA_TEMPLATE = "{\"type\":\"record\",\"name\":\"Rec\",\"fields\":[{\"name\":\"f1\",\"type\":\"string\"}," +
+            "{\"name\":\"f2\",\"type\":\"string\",\"default\":\"%s\"}]}";
+
+    @Test
+    public void testReadersAndWritersAreCached() throws Exception {
+        AvroDatumCache avroDatumCache = new AvroDatumCache();
+        Schema writerSchema = new Schema.Parser().parse(WRITER_SCHEMA);
+
+        for (int i = 0; i < 3; i++) {
+            avroDatumCache.getDatumWriter(writerSchema, false);
+            avroDatumCache.getDatumReader(writerSchema, null, false);
+        }
+        // equal schemas parsed again should hit the same entries.
+        DatumReader<Object> reader = avroDatumCache.getDatumReader(new Schema.Parser().parse(WRITER_SCHEMA), null, false);
+
+        Assert.assertEquals(1, avroDatumCache.writerStats().missCount());
+        Assert.assertEquals(2, avroDatumCache.writerStats().hitCount());
+        Assert.assertEquals(1, avroDatumCache.readerStats().missCount());
+        Assert.assertEquals(3, avroDatumCache.readerStats().hitCount());
+        Assert.assertSame(reader, avroDatumCache.getDatumReader(writerSchema, writerSchema, false));
+    }
+
+    @Test
+    public void testReaderSchemasWithDifferentDefaults() throws Exception {
+        AvroDatumCache avroDatumCache = new AvroDatumCache();
+        Schema writerSchema = new Schema.Parser().parse(WRITER_SCHEMA);
+        GenericRecord record = new GenericRecordBuilder(writerSchema).set("f1", "value").build();
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        BinaryEncoder encoder = avroDatumCache.binaryEncoder(baos);
+        avroDatumCache.getDatumWriter(writerSchema, false).write(record, encoder);
+        encoder.flush();
+        byte[] payload = baos.toByteArray();
+
+        for (String defaultValue : new String[]{"x", "y"}) {
+            Schema readerSchema = new Schema.Parser().parse(String.format(READER_SCHEMA_TEMPLATE, defaultValue));
+            DatumReader<Object> reader = avroDatumCache.getDatumReader(writerSchema, readerSchema, false);
+            GenericData.Record result = (GenericData.Record) reader.read(null, avroDatumCache.binaryDecoder(new ByteArrayInputStream(payload)));
+            Assert.assertEquals("value", result.get("f1").toString());
+            Assert.assertEquals(defaultValue, result.get("f2").toString());
+        }
+
+        Assert.assertEquals(2, avroDatumCache.readerStats().missCount());
+    }
+
+    @Test
+    public void testFailedWriteDoesNotLeakIntoNextPayload() throws Exception {
+        Schema schema = new Schema.Parser().parse(String.format(READER_SCHEMA_TEMPLATE, "x"));
+        DefaultAvroSerDesHandler serDesHandler = new DefaultAvroSerDesHandler(new AvroDatumCache());
+
+        // f1 is buffered by the encoder before writing the null f2 fails, and the stream is reused as serializers do.
+        GenericRecord invalidRecord = new GenericData.Record(schema);
+        invalidRecord.put("f1", "leaked");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try {
+            serDesHandler.handlePayloadSerialization(baos, invalidRecord);
+            Assert.fail("Serializing a null value of a non-null field should fail");
+        } catch (NullPointerException e) {
+            // expected
+        }
+        baos.reset();
+
+        GenericRecord record = new GenericRecordBuilder(schema).set("f1", "value").set("f2", "y").build();
+        serDesHandler.handlePayloadSerialization(baos, record);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(expected, null);
+        new GenericDatumWriter<>(schema).write(record, encoder);
+        encoder.flush();
+        Assert.assertArrayEquals(expected.toByteArray(), baos.toByteArray());
+    }
+}
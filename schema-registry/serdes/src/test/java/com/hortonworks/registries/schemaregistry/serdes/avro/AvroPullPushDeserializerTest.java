@@ -0,0 +1,175 @@
+/*
+ * Copyright 2016 Hortonworks.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hortonworks.registries.schemaregistry.serdes.avro;
+
+import com.google.common.collect.Sets;
+import com.hortonworks.registries.schemaregistry.serde.pull.PullEventContext;
+import com.hortonworks.registries.schemaregistry.serde.push.PushDeserializerHandler;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericDatumWriter;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.generic.GenericRecordBuilder;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *
+ */
+public class AvroPullPushDeserializerTest {
+
+    private static final Schema SCHEMA = new Schema.Parser().parse(
+            "{\"type\":\"record\",\"name\":\"Rec\",\"fields\":[" +
+            "{\"name\":\"id\",\"type\":\"long\"}," +
+            "{\"name\":\"tags\",\"type\":{\"type\":\"array\",\"items\":\"string\"}}," +
+            "{\"name\":\"nested\",\"type\":{\"type\":\"record\",\"name\":\"Nested\",\"fields\":[{\"name\":\"n\",\"type\":\"int\"}]}}," +
+            "{\"name\":\"name\",\"type\":[\"null\",\"string\"]}," +
+            "{\"name\":\"score\",\"type\":\"double\"}]}");
+
+    @Test
+    public void testPullProjectedFields() throws Exception {
+        AvroFieldProjection projection = new AvroFieldProjection(SCHEMA, Sets.newHashSet("id", "name"));
+        AvroPullDeserializer pullDeserializer = new AvroPullDeserializer(ByteBuffer.wrap(serialize()), projection);
+
+        List<String> events = new ArrayList<>();
+        while (pullDeserializer.hasNext()) {
+            PullEventContext<Schema.Field> context = pullDeserializer.next();
+            if (context.startRecord()) {
+                events.add("startRecord");
+            } else if (context.endRecord()) {
+                events.add("endRecord");
+            } else if (context.startField()) {
+                events.add("startField:" + context.currentField().name());
+            } else {
+                events.add(context.currentField().name() + "=" + context.fieldValue().value());
+            }
+        }
+        pullDeserializer.close();
+
+        Assert.assertEquals(Arrays.asList("startRecord", "startField:id", "id=42", "startField:name", "name=foo", "endRecord"),
+                            events);
+    }
+
+    @Test
+    public void testPullSkipsUnreadValues() throws Exception {
+        AvroPullDeserializer pullDeserializer = new AvroPullDeserializer(new ByteArrayInputStream(serialize()),
+                                                                         new AvroFieldProjection(SCHEMA));
+        PullEventContext.FieldValue<Schema.Field> skipped = null;
+        Object score = null;
+        while (pullDeserializer.hasNext()) {
+            PullEventContext<Schema.Field> context = pullDeserializer.next();
+            if (context.endField()) {
+                if ("tags".equals(context.currentField().name())) {
+                    skipped = context.fieldValue();
+                } else if ("score".equals(context.currentField().name())) {
+                    score = context.fieldValue().value();
+                }
+            }
+        }
+
+        Assert.assertEquals(1.5d, score);
+        try {
+            skipped.value();
+            Assert.fail("Value which was not read before moving to the next event should not be accessible");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPushProjectedFields() throws Exception {
+        AvroPushDeserializer pushDeserializer = new AvroPushDeserializer(Sets.newHashSet("nested", "score"));
+        Map<String, Object> values = new LinkedHashMap<>();
+        pushDeserializer.deserialize(new ByteArrayInputStream(serialize()), SCHEMA, new CollectingHandler(values));
+
+        Assert.assertEquals(Arrays.asList("nested", "score"), new ArrayList<>(values.keySet()));
+        Assert.assertEquals(7, ((GenericRecord) values.get("nested")).get("n"));
+        Assert.assertEquals(1.5d, values.get("score"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownFieldProjection() throws Exception {
+        new AvroFieldProjection(SCHEMA, Sets.newHashSet("id", "unknown"));
+    }
+
+    private static byte[] serialize() throws Exception {
+        GenericRecord nested = new GenericRecordBuilder(SCHEMA.getField("nested").schema()).set("n", 7).build();
+        GenericRecord record = new GenericRecordBuilder(SCHEMA)
+                .set("id", 42L)
+                .set("tags", Arrays.asList("a", "b", "c"))
+                .set("nested", nested)
+                .set("name", "foo")
+                .set("score", 1.5d)
+                .build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(outputStream, null);
+        new GenericDatumWriter<>(SCHEMA).write(record, encoder);
+        encoder.flush();
+        return outputStream.toByteArray();
+    }
+
+    private static class CollectingHandler implements PushDeserializerHandler<Schema.Field> {
+        private final Map<String, Object> values;
+
+        private CollectingHandler(Map<String, Object> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void startDeserialize() {
+        }
+
+        @Override
+        public void endDeserialize() {
+        }
+
+        @Override
+        public void startRecord() {
+        }
+
+        @Override
+        public void endRecord() {
+        }
+
+        @Override
+        public void startField(Schema.Field startField) {
+        }
+
+        @Override
+        public void readFieldValue(Object value) {
+        }
+
+        @Override
+        public void endField(Schema.Field endField) {
+        }
+
+        @Override
+        public void currentFieldValue(Schema.Field field, Object value) {
+            values.put(field.name(), value);
+        }
+    }
+}
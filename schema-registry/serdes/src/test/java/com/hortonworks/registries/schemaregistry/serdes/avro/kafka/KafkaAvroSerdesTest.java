@@ -15,13 +15,19 @@
  */
 package com.hortonworks.registries.schemaregistry.serdes.avro.kafka;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.hortonworks.registries.schemaregistry.client.ISchemaRegistryClient;
 import com.hortonworks.registries.schemaregistry.client.MockSchemaRegistryClient;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AbstractAvroSerDesProtocolHandler;
+import com.hortonworks.registries.schemaregistry.serdes.avro.AvroDatumCache;
 import com.hortonworks.registries.schemaregistry.serdes.avro.AvroSnapshotDeserializer;
+import com.hortonworks.registries.schemaregistry.serdes.avro.DefaultAvroSerDesHandler;
+import com.hortonworks.registries.schemaregistry.serdes.avro.SerDesProtocolHandlerRegistry;
 import com.hortonworks.registries.schemaregistry.serdes.avro.TestRecord;
 import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericData;
@@ -153,4 +159,81 @@ public class KafkaAvroSerdesTest {
         Assert.assertEquals(record.get("field2"), result.get("field2"));
 
     }
+
+    @Test
+    public void testBatchDeserializedInOrder() throws Exception {
+        Map<String, Object> config = new HashMap<>();
+        config.put(AvroSnapshotDeserializer.DESERIALIZER_BATCH_PARALLELISM, 4);
+        KafkaAvroDeserializer kafkaAvroDeserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+        kafkaAvroDeserializer.configure(config, false);
+
+        KafkaAvroSerializer kafkaAvroSerializer = new KafkaAvroSerializer(schemaRegistryClient);
+        kafkaAvroSerializer.configure(config, false);
+
+        // records of different schema versions are interleaved, so that they are decoded in different groups.
+        List<byte[]> data = new ArrayList<>();
+        List<Object> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Object record;
+            if (i % 3 == 0) {
+                record = "value-" + i;
+                data.add(kafkaAvroSerializer.serialize("strings", record));
+            } else {
+                TestRecord testRecord = new TestRecord();
+                testRecord.setField1("value-" + i);
+                record = testRecord;
+                data.add(kafkaAvroSerializer.serialize("records", record));
+            }
+            records.add(record);
+        }
+
+        List<Object> result = kafkaAvroDeserializer.deserialize("topic", data);
+
+        Assert.assertEquals(records.size(), result.size());
+        for (int i = 0; i < records.size(); i++) {
+            Object expected = records.get(i);
+            Object actual = result.get(i);
+            if (expected instanceof TestRecord) {
+                Assert.assertEquals(((TestRecord) expected).getField1(), ((GenericRecord) actual).get("field1").toString());
+            } else {
+                Assert.assertEquals(expected, actual.toString());
+            }
+        }
+
+        kafkaAvroDeserializer.close();
+        kafkaAvroSerializer.close();
+    }
+
+    @Test
+    public void testBatchResolvesDatumReaderOncePerSchemaVersion() throws Exception {
+        KafkaAvroDeserializer kafkaAvroDeserializer = new KafkaAvroDeserializer(schemaRegistryClient);
+        kafkaAvroDeserializer.configure(Collections.emptyMap(), false);
+
+        KafkaAvroSerializer kafkaAvroSerializer = new KafkaAvroSerializer(schemaRegistryClient);
+        kafkaAvroSerializer.configure(Collections.emptyMap(), false);
+
+        List<byte[]> data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TestRecord testRecord = new TestRecord();
+            testRecord.setField1("value-" + i);
+            data.add(kafkaAvroSerializer.serialize("records", testRecord));
+        }
+
+        AbstractAvroSerDesProtocolHandler protocolHandler = (AbstractAvroSerDesProtocolHandler) SerDesProtocolHandlerRegistry.get()
+                .getSerDesProtocolHandler(SerDesProtocolHandlerRegistry.CURRENT_PROTOCOL);
+        AvroDatumCache avroDatumCache = ((DefaultAvroSerDesHandler) protocolHandler.getAvroSerDesHandler()).getAvroDatumCache();
+        long requestCount = avroDatumCache.readerStats().requestCount();
+
+        List<Object> result = kafkaAvroDeserializer.deserialize("records", data);
+
+        Assert.assertEquals(data.size(), result.size());
+        for (int i = 0; i < result.size(); i++) {
+            Assert.assertEquals("value-" + i, ((GenericRecord) result.get(i)).get("field1").toString());
+        }
+        // all the records have the same schema version, their datum reader is looked up once for the whole batch.
+        Assert.assertEquals(1, avroDatumCache.readerStats().requestCount() - requestCount);
+
+        kafkaAvroDeserializer.close();
+        kafkaAvroSerializer.close();
+    }
 }
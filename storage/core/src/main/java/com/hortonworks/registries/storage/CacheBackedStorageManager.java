@@ -19,27 +19,55 @@ package com.hortonworks.registries.storage;
 import com.hortonworks.registries.cache.Cache;
 import com.hortonworks.registries.common.QueryParam;
 import com.hortonworks.registries.storage.cache.impl.GuavaCache;
+import com.hortonworks.registries.storage.cache.impl.QueryResultCache;
+import com.hortonworks.registries.storage.cache.writer.StorageWriteBehind;
 import com.hortonworks.registries.storage.cache.writer.StorageWriter;
 import com.hortonworks.registries.storage.exception.StorageException;
 import com.hortonworks.registries.storage.search.SearchQuery;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 
+/**
+ * {@link StorageManager} which caches storables by their keys in the given {@link Cache} and results of queries in a
+ * {@link QueryResultCache}. Writes go through the given {@link StorageWriter} and invalidate the cached queries which
+ * may be affected by them.
+ * <p>
+ * Queries of a thread with an open transaction go to the storage, so that they see the uncommitted writes of that
+ * transaction and those results are not cached. As other threads can cache the queries again before the transaction is
+ * committed, the cached queries of the namespaces written in a transaction are invalidated again on its commit.
+ */
 public class CacheBackedStorageManager implements StorageManager {
     private final StorageWriter writer;
     private final Cache<StorableKey, Storable> cache;
+    private final QueryResultCache queryResultCache;
     private final StorageManager dao;
+    // namespaces written in the open transaction of the current thread, null when there is no open transaction.
+    private final ThreadLocal<Set<String>> transactionNamespaces = new ThreadLocal<>();
 
     public CacheBackedStorageManager(Cache<StorableKey, Storable> cache, StorageWriter storageWriter) {
-        if (cache == null || storageWriter == null) {
-            throw new IllegalArgumentException("Cache and storage writer objects must not be null");
+        this(cache, storageWriter, new QueryResultCache());
+    }
+
+    public CacheBackedStorageManager(Cache<StorableKey, Storable> cache,
+                                     StorageWriter storageWriter,
+                                     QueryResultCache queryResultCache) {
+        if (cache == null || storageWriter == null || queryResultCache == null) {
+            throw new IllegalArgumentException("Cache, storage writer and query result cache objects must not be null");
         }
         this.cache = cache;
         this.dao = ((GuavaCache)cache).getDao();
         this.writer = storageWriter;
+        this.queryResultCache = queryResultCache;
+        if (storageWriter instanceof StorageWriteBehind) {
+            // queries loaded before the writes reach the storage should not be served from the cache after that
+            ((StorageWriteBehind) storageWriter).addFlushListener(queryResultCache::invalidate);
+        }
     }
 
     @Override
@@ -52,20 +80,54 @@ public class CacheBackedStorageManager implements StorageManager {
     public void add(Storable storable) throws StorageException {
         writer.add(storable);
         cache.put(storable.getStorableKey(), storable);
+        queryResultCache.invalidate(storable.getNameSpace(), storable, null);
+        recordWrite(storable.getNameSpace());
+    }
+
+    @Override
+    public void addAll(Collection<? extends Storable> storables) throws StorageException {
+        writer.addAll(storables);
+        for (Storable storable : storables) {
+            cache.put(storable.getStorableKey(), storable);
+            queryResultCache.invalidate(storable.getNameSpace(), storable, null);
+            recordWrite(storable.getNameSpace());
+        }
     }
 
     @Override
     public <T extends Storable> T remove(StorableKey key) throws StorageException {
-        writer.remove(key);
+        // old value is looked up before it is removed from the storage, so that it is loaded if it is not cached
         final T oldVal = (T) cache.get(key);
+        writer.remove(key);
         cache.remove(key);
+        queryResultCache.invalidate(key.getNameSpace(), null, oldVal);
+        recordWrite(key.getNameSpace());
         return oldVal;
     }
 
     @Override
     public void addOrUpdate(Storable storable) throws StorageException {
+        final Storable oldVal = cache.get(storable.getStorableKey());
         writer.addOrUpdate(storable);
         cache.put(storable.getStorableKey(), storable);
+        if (oldVal == storable) {
+            // cached instance was modified in place, so its old values are not known
+            queryResultCache.invalidate(storable.getNameSpace());
+        } else {
+            queryResultCache.invalidate(storable.getNameSpace(), storable, oldVal);
+        }
+        recordWrite(storable.getNameSpace());
+    }
+
+    private void recordWrite(String namespace) {
+        Set<String> namespaces = transactionNamespaces.get();
+        if (namespaces != null) {
+            namespaces.add(namespace);
+        }
+    }
+
+    private boolean inTransaction() {
+        return transactionNamespaces.get() != null;
     }
 
     @Override
@@ -73,32 +135,48 @@ public class CacheBackedStorageManager implements StorageManager {
         return (T) cache.get(key);
     }
 
-    @Override   //TODO:
+    @Override
     public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams) throws StorageException {
-        //Adding workaround methods that calls dao until we figure out what needs to be in caching so the topologies can work.
-        return ((GuavaCache)cache).getDao().find(namespace, queryParams);
-
+        if (inTransaction()) {
+            return dao.find(namespace, queryParams);
+        }
+        return queryResultCache.find(namespace, queryParams, null, () -> dao.find(namespace, queryParams));
     }
 
     @Override
     public <T extends Storable> Collection<T> find(String namespace, List<QueryParam> queryParams, List<OrderByField> orderByFields) throws StorageException {
-        return ((GuavaCache)cache).getDao().find(namespace, queryParams, orderByFields);
+        if (inTransaction()) {
+            return dao.find(namespace, queryParams, orderByFields);
+        }
+        return queryResultCache.find(namespace, queryParams, orderByFields, () -> dao.find(namespace, queryParams, orderByFields));
     }
 
     @Override
     public <T extends Storable> Collection<T> search(SearchQuery searchQuery) {
-        return ((GuavaCache)cache).getDao().search(searchQuery);
+        if (inTransaction()) {
+            return dao.search(searchQuery);
+        }
+        return queryResultCache.search(searchQuery, () -> dao.search(searchQuery));
+    }
+
+    @Override
+    public <T extends Storable> void search(SearchQuery searchQuery, Consumer<? super T> consumer) {
+        dao.search(searchQuery, consumer);
     }
 
     @Override
     public <T extends Storable> Collection<T> list(String namespace) throws StorageException {
-        return dao.list(namespace);
+        if (inTransaction()) {
+            return dao.list(namespace);
+        }
+        return queryResultCache.list(namespace, () -> dao.list(namespace));
     }
 
     @Override
     public void cleanup() throws StorageException {
 //        writer.removeAll();       // TODO:
         cache.clear();
+        queryResultCache.clear();
     }
 
     @Override
@@ -106,6 +184,38 @@ public class CacheBackedStorageManager implements StorageManager {
         return dao.nextId(namespace);
     }
 
+    // writes of an asynchronous StorageWriter are not part of the transaction
+    @Override
+    public void beginTransaction() throws StorageException {
+        dao.beginTransaction();
+        transactionNamespaces.set(new HashSet<>());
+    }
+
+    @Override
+    public void commitTransaction() throws StorageException {
+        dao.commitTransaction();
+        Set<String> namespaces = transactionNamespaces.get();
+        transactionNamespaces.remove();
+        if (namespaces != null) {
+            // queries loaded by other threads before the commit do not have the writes of this transaction
+            for (String namespace : namespaces) {
+                queryResultCache.invalidate(namespace);
+            }
+        }
+    }
+
+    @Override
+    public void rollbackTransaction() throws StorageException {
+        transactionNamespaces.remove();
+        try {
+            dao.rollbackTransaction();
+        } finally {
+            // cached storables and queries may have the rolled back writes
+            cache.clear();
+            queryResultCache.clear();
+        }
+    }
+
     @Override
     public void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException {
         dao.registerStorables(classes);
@@ -15,10 +15,12 @@
  **/
 package com.hortonworks.registries.storage;
 
+import com.hortonworks.registries.storage.catalog.StorableMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -51,15 +53,18 @@ public class StorableFactory {
         }
     }
 
+    /**
+     * @return namespaces of all registered storable classes
+     */
+    public Collection<String> getNameSpaces() {
+        return Collections.unmodifiableSet(nameSpaceWithClass.keySet());
+    }
+
     public Storable create(String nameSpace) {
         if (!nameSpaceWithClass.containsKey(nameSpace)) {
             throw new IllegalArgumentException("No factory supported with the given namespace: " + nameSpace);
         }
 
-        try {
-            return nameSpaceWithClass.get(nameSpace).newInstance();
-        } catch (InstantiationException  | IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
+        return StorableMapper.of(nameSpaceWithClass.get(nameSpace)).newInstance();
     }
 }
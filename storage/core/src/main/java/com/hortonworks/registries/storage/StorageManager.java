@@ -22,6 +22,7 @@ import com.hortonworks.registries.storage.search.SearchQuery;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * TODO: All the methods are very restrictive and needs heavy synchronization to get right but my assumption is that
@@ -49,6 +50,19 @@ public interface StorageManager {
      */
     void add(Storable storable) throws StorageException;
 
+    /**
+     * Adds all the given storables as {@link #add(Storable)} does. Implementations may add them atomically and with
+     * fewer round trips to the storage, for ex: in one transaction with batch statements.
+     *
+     * @param storables
+     * @throws StorageException
+     */
+    default void addAll(Collection<? extends Storable> storables) throws StorageException {
+        for (Storable storable : storables) {
+            add(storable);
+        }
+    }
+
     /**
      * Removes a {@link Storable} object identified by a {@link StorableKey}.
      * If the key does not exist a null value is returned, no exception is thrown.
@@ -113,6 +127,19 @@ public interface StorageManager {
      */
     <T extends Storable> Collection<T> search(SearchQuery searchQuery);
 
+    /**
+     * Passes the storables matching the given {@code searchQuery} to the given {@code consumer}. Implementations should
+     * pass them as they are read from storage instead of building the whole result in memory. Results can be paged
+     * with {@link SearchQuery#limit(int)} and {@link SearchQuery#startAfter(Object...)}.
+     *
+     * @param searchQuery
+     * @param consumer
+     * @param <T>
+     */
+    default <T extends Storable> void search(SearchQuery searchQuery, Consumer<? super T> consumer) {
+        this.<T>search(searchQuery).forEach(consumer);
+    }
+
     /**
      * Lists all {@link Storable} objects existing in the given namespace. If no entity is found, and empty list will be returned.
      * @param namespace
@@ -139,4 +166,45 @@ public interface StorageManager {
      */
     void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException;
 
+    /**
+     * Begins a unit of work, all the operations of the current thread till it is committed or rolled back are executed
+     * in one transaction on one connection. Units of work can be nested, nested units join the outermost unit. Callers
+     * should always end it with {@link #commitTransaction()} or {@link #rollbackTransaction()} like below.
+     * <pre>
+     *     storageManager.beginTransaction();
+     *     boolean committed = false;
+     *     try {
+     *         storageManager.add(storable);
+     *         storageManager.addAll(childStorables);
+     *         storageManager.commitTransaction();
+     *         committed = true;
+     *     } finally {
+     *         if (!committed) {
+     *             storageManager.rollbackTransaction();
+     *         }
+     *     }
+     * </pre>
+     * Implementations which do not support transactions execute each operation independently.
+     *
+     * @throws StorageException
+     */
+    default void beginTransaction() throws StorageException {
+    }
+
+    /**
+     * Commits the unit of work begun with {@link #beginTransaction()}.
+     *
+     * @throws StorageException
+     */
+    default void commitTransaction() throws StorageException {
+    }
+
+    /**
+     * Rolls back the unit of work begun with {@link #beginTransaction()}.
+     *
+     * @throws StorageException
+     */
+    default void rollbackTransaction() throws StorageException {
+    }
+
 }
@@ -0,0 +1,269 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.collect.ImmutableList;
+import com.hortonworks.registries.common.QueryParam;
+import com.hortonworks.registries.storage.OrderByField;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.catalog.StorableMapper;
+import com.hortonworks.registries.storage.search.SearchQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of query results of a namespace keyed by the namespace, the query parameters irrespective of their order and
+ * the order by fields of the query.
+ * <p>
+ * A write of a storable invalidates only the cached queries of its namespace whose parameters match the values of the
+ * written or the removed storable, or which can not be matched against them like {@link SearchQuery}s and lists.
+ * A result which was being loaded while its namespace is written is not cached, as it may not include that write.
+ * <p>
+ * Results are cached as copies of the loaded storables and each lookup returns new copies of them, so that callers
+ * modifying the returned storables do not change the cached results.
+ */
+public class QueryResultCache {
+    public static final long DEFAULT_MAX_SIZE = 1000L;
+    public static final long DEFAULT_EXPIRY_SECS = 300L;
+
+    private static final Comparator<QueryParam> QUERY_PARAM_COMPARATOR =
+            Comparator.comparing(QueryParam::getName, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                      .thenComparing(QueryParam::getValue, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private final Cache<QueryKey, List<Storable>> results;
+    private final ConcurrentMap<String, AtomicLong> namespaceVersions = new ConcurrentHashMap<>();
+    // cached keys of each namespace, so that a write scans only the queries of its namespace
+    private final ConcurrentMap<String, Set<QueryKey>> namespaceKeys = new ConcurrentHashMap<>();
+
+    public QueryResultCache() {
+        this(DEFAULT_MAX_SIZE, DEFAULT_EXPIRY_SECS);
+    }
+
+    /**
+     * @param maxSize    maximum number of query results to be cached.
+     * @param expirySecs time after which a cached result expires, this bounds the staleness of results when the same
+     *                   storage is written by other instances.
+     */
+    public QueryResultCache(long maxSize, long expirySecs) {
+        results = CacheBuilder.newBuilder()
+                              .maximumSize(maxSize)
+                              .expireAfterWrite(expirySecs, TimeUnit.SECONDS)
+                              .<QueryKey, List<Storable>>removalListener(notification -> {
+                                  if (notification.getCause() != RemovalCause.REPLACED) {
+                                      namespaceKeys(notification.getKey().namespace).remove(notification.getKey());
+                                  }
+                              })
+                              .build();
+    }
+
+    /**
+     * @return cached result of the given query, or loads it with the given {@code loader} and caches it.
+     */
+    public <T extends Storable> Collection<T> find(String namespace,
+                                                   List<QueryParam> queryParams,
+                                                   List<OrderByField> orderByFields,
+                                                   Supplier<Collection<T>> loader) {
+        return get(new QueryKey(namespace, normalize(queryParams), orderByFields, null), loader);
+    }
+
+    /**
+     * @return cached list of all the storables of the given namespace, or loads it with the given {@code loader} and caches it.
+     */
+    public <T extends Storable> Collection<T> list(String namespace, Supplier<Collection<T>> loader) {
+        return get(new QueryKey(namespace, null, null, null), loader);
+    }
+
+    /**
+     * @return cached result of the given search query, or loads it with the given {@code loader} and caches it.
+     */
+    public <T extends Storable> Collection<T> search(SearchQuery searchQuery, Supplier<Collection<T>> loader) {
+        return get(new QueryKey(searchQuery.getNameSpace(), null, null, searchQuery), loader);
+    }
+
+    /**
+     * Invalidates the cached queries which may be affected by adding, updating or removing the given storable.
+     *
+     * @param namespace namespace of the storable
+     * @param newValue  value of the storable after the write, null if it is removed.
+     * @param oldValue  value of the storable before the write, null if it did not exist.
+     */
+    public void invalidate(String namespace, Storable newValue, Storable oldValue) {
+        namespaceVersion(namespace).incrementAndGet();
+
+        Map<String, Object> newValues = newValue != null ? toLowerCaseMap(newValue.toMap()) : null;
+        Map<String, Object> oldValues = oldValue != null ? toLowerCaseMap(oldValue.toMap()) : null;
+        List<QueryKey> invalidKeys = new ArrayList<>();
+        for (QueryKey key : namespaceKeys(namespace)) {
+            if (key.queryParams == null
+                    || matches(key.queryParams, newValues)
+                    || matches(key.queryParams, oldValues)) {
+                invalidKeys.add(key);
+            }
+        }
+        results.invalidateAll(invalidKeys);
+    }
+
+    /**
+     * Invalidates all the cached queries of the given namespace.
+     */
+    public void invalidate(String namespace) {
+        namespaceVersion(namespace).incrementAndGet();
+
+        results.invalidateAll(new ArrayList<>(namespaceKeys(namespace)));
+    }
+
+    public void clear() {
+        for (AtomicLong version : namespaceVersions.values()) {
+            version.incrementAndGet();
+        }
+        results.invalidateAll();
+    }
+
+    public long size() {
+        return results.size();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Storable> Collection<T> get(QueryKey key, Supplier<Collection<T>> loader) {
+        List<Storable> cachedResult = results.getIfPresent(key);
+        if (cachedResult != null) {
+            return (List<T>) copyOf(cachedResult);
+        }
+
+        AtomicLong namespaceVersion = namespaceVersion(key.namespace);
+        long version = namespaceVersion.get();
+        Collection<T> result = loader.get();
+        if (result != null && version == namespaceVersion.get()) {
+            // key is indexed before it is cached, so that it is never cached without being indexed
+            namespaceKeys(key.namespace).add(key);
+            results.put(key, ImmutableList.copyOf(copyOf(result)));
+            // namespace may have been written after the above check but before its keys are scanned for invalidation
+            if (version != namespaceVersion.get()) {
+                results.invalidate(key);
+            }
+        }
+        return result;
+    }
+
+    private AtomicLong namespaceVersion(String namespace) {
+        return namespaceVersions.computeIfAbsent(namespace, x -> new AtomicLong());
+    }
+
+    private Set<QueryKey> namespaceKeys(String namespace) {
+        return namespaceKeys.computeIfAbsent(namespace, x -> ConcurrentHashMap.newKeySet());
+    }
+
+    private static <T extends Storable> List<T> copyOf(Collection<T> storables) {
+        List<T> copies = new ArrayList<>(storables.size());
+        for (T storable : storables) {
+            T copy = StorableMapper.of(storable.getClass()).newInstance();
+            copy.fromMap(storable.toMap());
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    // query parameter values are compared as strings ignoring their case, as the storage may compare them ignoring case.
+    // A parameter which is not a field of the storable is considered as matching so that the query is invalidated.
+    private static boolean matches(List<QueryParam> queryParams, Map<String, Object> values) {
+        if (values == null) {
+            return false;
+        }
+        for (QueryParam queryParam : queryParams) {
+            String name = queryParam.getName() != null ? queryParam.getName().toLowerCase(Locale.ENGLISH) : null;
+            if (!values.containsKey(name)) {
+                continue;
+            }
+            Object value = values.get(name);
+            if (value == null ? queryParam.getValue() != null : !String.valueOf(value).equalsIgnoreCase(queryParam.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, Object> toLowerCaseMap(Map<String, Object> map) {
+        Map<String, Object> result = new HashMap<>();
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            result.put(entry.getKey().toLowerCase(Locale.ENGLISH), entry.getValue());
+        }
+        return result;
+    }
+
+    private static List<QueryParam> normalize(List<QueryParam> queryParams) {
+        if (queryParams == null) {
+            return Collections.emptyList();
+        }
+        List<QueryParam> normalizedParams = new ArrayList<>(queryParams);
+        normalizedParams.sort(QUERY_PARAM_COMPARATOR);
+        return normalizedParams;
+    }
+
+    private static final class QueryKey {
+        private final String namespace;
+        // null for queries which can not be matched against the values of a storable
+        private final List<QueryParam> queryParams;
+        private final List<OrderByField> orderByFields;
+        private final SearchQuery searchQuery;
+
+        QueryKey(String namespace, List<QueryParam> queryParams, List<OrderByField> orderByFields, SearchQuery searchQuery) {
+            this.namespace = namespace;
+            this.queryParams = queryParams;
+            this.orderByFields = orderByFields != null ? new ArrayList<>(orderByFields) : null;
+            this.searchQuery = searchQuery;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            QueryKey queryKey = (QueryKey) o;
+
+            if (!namespace.equals(queryKey.namespace)) return false;
+            if (queryParams != null ? !queryParams.equals(queryKey.queryParams) : queryKey.queryParams != null)
+                return false;
+            if (orderByFields != null ? !orderByFields.equals(queryKey.orderByFields) : queryKey.orderByFields != null)
+                return false;
+            return searchQuery != null ? searchQuery.equals(queryKey.searchQuery) : queryKey.searchQuery == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = namespace.hashCode();
+            result = 31 * result + (queryParams != null ? queryParams.hashCode() : 0);
+            result = 31 * result + (orderByFields != null ? orderByFields.hashCode() : 0);
+            result = 31 * result + (searchQuery != null ? searchQuery.hashCode() : 0);
+            return result;
+        }
+    }
+}
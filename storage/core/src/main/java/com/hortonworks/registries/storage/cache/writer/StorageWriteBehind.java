@@ -19,75 +19,402 @@ package com.hortonworks.registries.storage.cache.writer;
 import com.hortonworks.registries.storage.Storable;
 import com.hortonworks.registries.storage.StorableKey;
 import com.hortonworks.registries.storage.StorageManager;
+import com.hortonworks.registries.storage.exception.StorageException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link StorageWriter} which queues writes and writes them to the storage in batches from a background thread.
+ * <ul>
+ *     <li>Pending writes are bounded by {@link WriteBehindConfig#getQueueCapacity()}, writes block when the queue is
+ *     full and fail after {@link WriteBehindConfig#getEnqueueTimeoutMs()}.</li>
+ *     <li>A write of the same key as the last pending write is merged with it, so repeated updates of a key are
+ *     written only once. Writes are not merged with earlier pending writes, as that would write them before the writes
+ *     of other keys which were received earlier.</li>
+ *     <li>Pending writes are flushed when there are {@link WriteBehindConfig#getBatchSize()} of them or after
+ *     {@link WriteBehindConfig#getFlushIntervalMs()}, in the order they are received. Consecutive adds of the same
+ *     namespace are written together.</li>
+ *     <li>Failed writes are retried and they are logged and counted in {@link #getStats()} when all retries fail.</li>
+ *     <li>When {@link WriteBehindConfig#getWriteAheadLogPath()} is configured, accepted writes are logged locally and
+ *     the log is replayed when this writer is created again after a crash. Written records are removed from the log
+ *     once there are {@link WriteBehindConfig#getWriteAheadLogCompactionThreshold()} of them, replaying them again is
+ *     harmless as adds are replayed as updates.</li>
+ * </ul>
+ */
+public class StorageWriteBehind implements StorageWriter, Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(StorageWriteBehind.class);
 
-public class StorageWriteBehind implements StorageWriter {
-    private static final int NUM_THREADS = 5;
     private final StorageManager dao;
-    private final ExecutorService executorService;
+    private final WriteBehindConfig config;
+    private final WriteAheadLog writeAheadLog;
+    private final WriteBehindStats stats = new WriteBehindStats();
+    private final List<Consumer<String>> flushListeners = new CopyOnWriteArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final Condition flushRequired = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    // guarded by lock
+    private final ArrayDeque<WriteOperation> pendingWrites = new ArrayDeque<>();
+    private int inFlightWrites;
+    private boolean flushRequested;
+    private boolean closed;
+    private boolean flusherStopped;
+
+    private final Thread flusher;
 
     public StorageWriteBehind(StorageManager dao) {
-        this(dao, Executors.newFixedThreadPool(NUM_THREADS));
+        this(dao, new WriteBehindConfig.Builder().build());
     }
 
-    public StorageWriteBehind(StorageManager dao, ExecutorService executorService) {
+    public StorageWriteBehind(StorageManager dao, WriteBehindConfig config) {
         this.dao = dao;
-        this.executorService = executorService;
+        this.config = config;
+        if (config.getWriteAheadLogPath() != null) {
+            try {
+                writeAheadLog = new WriteAheadLog(config.getWriteAheadLogPath());
+                replay();
+            } catch (IOException e) {
+                throw new StorageException(e);
+            }
+        } else {
+            writeAheadLog = null;
+        }
+
+        flusher = new Thread(this::runFlusher, "storage-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
     }
 
     public void add(Storable storable) {
-        executorService.submit(new AddCallable(storable));
+        enqueue(new WriteOperation(WriteOperation.Type.ADD, storable.getStorableKey(), storable));
     }
 
     public void addOrUpdate(Storable storable) {
-        executorService.submit(new AddOrUpdateCallable(storable));
+        enqueue(new WriteOperation(WriteOperation.Type.ADD_OR_UPDATE, storable.getStorableKey(), storable));
     }
 
+    /**
+     * @return {@link Future} of the removed storable, which completes when the removal is written.
+     */
     public Object remove(StorableKey key) {
-        return executorService.submit(new DeleteCallable(key));
+        WriteOperation operation = new WriteOperation(WriteOperation.Type.REMOVE, key, null);
+        enqueue(operation);
+        return operation.getRemoval();
+    }
+
+    /**
+     * Registers a listener which is called with the namespace of each group of writes after they are written.
+     */
+    public void addFlushListener(Consumer<String> flushListener) {
+        flushListeners.add(flushListener);
+    }
+
+    public WriteBehindStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Blocks till all the writes accepted before this call are written.
+     *
+     * @throws StorageException when the flusher is stopped before the pending writes are written
+     */
+    public void flush() throws InterruptedException {
+        lock.lock();
+        try {
+            flushRequested = true;
+            flushRequired.signal();
+            while ((!pendingWrites.isEmpty() || inFlightWrites > 0) && !flusherStopped) {
+                flushed.await();
+            }
+            if (!pendingWrites.isEmpty()) {
+                throw new StorageException(pendingWrites.size() + " writes are not written as the flusher is stopped");
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting writes and blocks till all the pending writes are written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closed = true;
+            flushRequired.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (writeAheadLog != null) {
+            writeAheadLog.close();
+        }
+    }
+
+    private void enqueue(WriteOperation operation) {
+        lock.lock();
+        try {
+            if (!canCoalesce(operation)) {
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(config.getEnqueueTimeoutMs());
+                while (!closed && !flusherStopped && pendingWrites.size() >= config.getQueueCapacity()) {
+                    if (remainingNanos <= 0) {
+                        throw new StorageException("Write of " + operation.getKey() + " timed out as " +
+                                                           pendingWrites.size() + " writes are pending");
+                    }
+                    remainingNanos = notFull.awaitNanos(remainingNanos);
+                }
+            }
+            if (closed) {
+                throw new StorageException("Write of " + operation.getKey() + " is rejected as the writer is closed");
+            }
+            if (flusherStopped) {
+                throw new StorageException("Write of " + operation.getKey() + " is rejected as the flusher is stopped");
+            }
+
+            if (writeAheadLog != null) {
+                writeAheadLog.append(operation);
+            }
+            // a write of this key may have been queued while waiting
+            boolean coalesced = canCoalesce(operation);
+            pendingWrites.addLast(coalesced ? pendingWrites.pollLast().coalesce(operation) : operation);
+            stats.recordEnqueued(coalesced);
+            stats.setQueueDepth(pendingWrites.size());
+
+            if (pendingWrites.size() >= config.getBatchSize()) {
+                flushRequired.signal();
+            }
+        } catch (IOException e) {
+            throw new StorageException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new StorageException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // only the last pending write is merged with, so that writes are still written in the order they are received. It
+    // should be called with the lock held.
+    private boolean canCoalesce(WriteOperation operation) {
+        WriteOperation lastWrite = pendingWrites.peekLast();
+        return lastWrite != null && lastWrite.canCoalesce(operation);
     }
 
-    // ======= Callables for async writing to the Storage Layer =============
+    private void runFlusher() {
+        while (true) {
+            List<WriteOperation> batch;
+            lock.lock();
+            try {
+                long remainingNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+                while (!closed && !flushRequested && pendingWrites.size() < config.getBatchSize()
+                        && (remainingNanos > 0 || pendingWrites.isEmpty())) {
+                    if (remainingNanos <= 0) {
+                        remainingNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+                    }
+                    remainingNanos = flushRequired.awaitNanos(remainingNanos);
+                }
+                if (pendingWrites.isEmpty()) {
+                    flushRequested = false;
+                    flushed.signalAll();
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
 
-    private class AddCallable implements Callable<Storable> {
-        private final Storable storable;
+                batch = drain(config.getBatchSize());
+                inFlightWrites = batch.size();
+                stats.setQueueDepth(pendingWrites.size());
+                notFull.signalAll();
+            } catch (InterruptedException e) {
+                LOG.warn("Storage write behind flusher is interrupted with {} pending writes", pendingWrites.size());
+                // waiters of flush and of space in the queue would otherwise wait for a flusher which is gone
+                flusherStopped = true;
+                StorageException stopped = new StorageException("Write is not written as the flusher is stopped");
+                for (WriteOperation operation : pendingWrites) {
+                    operation.failed(stopped);
+                }
+                flushed.signalAll();
+                notFull.signalAll();
+                return;
+            } finally {
+                lock.unlock();
+            }
 
-        AddCallable(Storable storable) {
-            this.storable = storable;
+            write(batch);
+
+            lock.lock();
+            try {
+                inFlightWrites = 0;
+                compactWriteAheadLog();
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
         }
+    }
 
-        public Storable call() throws Exception {
-            dao.add(storable);
-            return null;    //TODO since not returning value, perhaps we can use runnable
+    private List<WriteOperation> drain(int maxWrites) {
+        List<WriteOperation> batch = new ArrayList<>(Math.min(maxWrites, pendingWrites.size()));
+        while (!pendingWrites.isEmpty() && batch.size() < maxWrites) {
+            batch.add(pendingWrites.pollFirst());
         }
+        return batch;
     }
 
-    private class AddOrUpdateCallable implements Callable<Storable> {
-        private final Storable storable;
+    private void write(List<WriteOperation> batch) {
+        long startTime = System.currentTimeMillis();
 
-        AddOrUpdateCallable(Storable storable) {
-            this.storable = storable;
+        // writes are written in the order they are received as writes of different namespaces can depend on each
+        // other, only consecutive adds of the same namespace are written together.
+        Set<String> namespaces = new LinkedHashSet<>();
+        List<WriteOperation> adds = new ArrayList<>();
+        for (WriteOperation operation : batch) {
+            String namespace = operation.getKey().getNameSpace();
+            if (!adds.isEmpty() && (operation.getType() != WriteOperation.Type.ADD
+                    || !namespace.equals(adds.get(0).getKey().getNameSpace()))) {
+                addAll(adds.get(0).getKey().getNameSpace(), adds);
+                adds = new ArrayList<>();
+            }
+            if (operation.getType() == WriteOperation.Type.ADD) {
+                adds.add(operation);
+            } else {
+                writeWithRetries(operation);
+            }
+            namespaces.add(namespace);
+        }
+        if (!adds.isEmpty()) {
+            addAll(adds.get(0).getKey().getNameSpace(), adds);
         }
 
-        public Storable call() throws Exception {
-            dao.addOrUpdate(storable);
-            return null;    //TODO since not returning value, perhaps we can use runnable
+        for (String namespace : namespaces) {
+            for (Consumer<String> flushListener : flushListeners) {
+                try {
+                    flushListener.accept(namespace);
+                } catch (Exception e) {
+                    LOG.error("Flush listener failed for namespace [{}]", namespace, e);
+                }
+            }
         }
+
+        long latencyMs = System.currentTimeMillis() - startTime;
+        stats.recordFlush(latencyMs);
+        LOG.debug("Flushed {} writes of {} namespaces in {} ms", batch.size(), namespaces.size(), latencyMs);
     }
 
-    private class DeleteCallable implements Callable<Storable> {
-        private final StorableKey key;
+    private void addAll(String namespace, List<WriteOperation> adds) {
+        if (adds.isEmpty()) {
+            return;
+        }
+        if (adds.size() > 1) {
+            List<Storable> storables = new ArrayList<>(adds.size());
+            for (WriteOperation operation : adds) {
+                storables.add(operation.getStorable());
+            }
+            try {
+                dao.addAll(storables);
+                for (int i = 0; i < adds.size(); i++) {
+                    stats.recordCompleted();
+                }
+                return;
+            } catch (Exception e) {
+                LOG.warn("Batch add of {} storables of namespace [{}] failed, adding them one by one", adds.size(), namespace, e);
+                // some of them may have been added when the storage does not add them atomically, they are added as
+                // updates so that they are neither added twice nor failed as existing
+                for (WriteOperation operation : adds) {
+                    writeWithRetries(new WriteOperation(WriteOperation.Type.ADD_OR_UPDATE, operation.getKey(), operation.getStorable()));
+                }
+                return;
+            }
+        }
+        for (WriteOperation operation : adds) {
+            writeWithRetries(operation);
+        }
+    }
 
-        DeleteCallable(StorableKey key) {
-            this.key = key;
+    private void writeWithRetries(WriteOperation operation) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                operation.writeTo(dao);
+                stats.recordCompleted();
+                return;
+            } catch (Exception e) {
+                if (attempt >= config.getMaxRetries()) {
+                    operation.failed(e);
+                    stats.recordFailed();
+                    LOG.error("Dropping {} as it failed after {} attempts", operation, attempt + 1, e);
+                    return;
+                }
+                LOG.warn("Write of {} failed, retrying it", operation, e);
+                try {
+                    Thread.sleep(config.getRetryBackoffMs() * (attempt + 1));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    operation.failed(e);
+                    stats.recordFailed();
+                    LOG.error("Dropping {} as the flusher is interrupted", operation, e);
+                    return;
+                }
+            }
         }
+    }
 
-        public Storable call() throws Exception {
-            return dao.remove(key);
+    // removes the writes which are already written from the log, so that they are not replayed after a crash. The log
+    // is rewritten only when the written records are more than both the threshold and the pending writes, so that the
+    // cost of rewriting the pending writes is amortized over the written ones. It should be called with the lock held.
+    private void compactWriteAheadLog() {
+        if (writeAheadLog == null || writeAheadLog.size() == 0) {
+            return;
+        }
+        int writtenRecords = writeAheadLog.size() - pendingWrites.size();
+        if (!pendingWrites.isEmpty()
+                && writtenRecords < Math.max(config.getWriteAheadLogCompactionThreshold(), pendingWrites.size())) {
+            return;
+        }
+        try {
+            writeAheadLog.reset(pendingWrites);
+        } catch (IOException e) {
+            LOG.error("Failed to compact write ahead log [{}]", config.getWriteAheadLogPath(), e);
         }
     }
 
+    private void replay() throws IOException {
+        List<WriteOperation> operations = writeAheadLog.read();
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        LOG.info("Replaying {} writes from write ahead log [{}]", operations.size(), config.getWriteAheadLogPath());
+        for (WriteOperation operation : operations) {
+            // add may have been written before the crash
+            if (operation.getType() == WriteOperation.Type.ADD) {
+                operation = new WriteOperation(WriteOperation.Type.ADD_OR_UPDATE, operation.getKey(), operation.getStorable());
+            }
+            writeWithRetries(operation);
+        }
+        writeAheadLog.reset(new ArrayList<>());
+    }
 }
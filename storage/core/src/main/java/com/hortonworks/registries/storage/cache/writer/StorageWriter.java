@@ -19,10 +19,18 @@ package com.hortonworks.registries.storage.cache.writer;
 import com.hortonworks.registries.storage.StorableKey;
 import com.hortonworks.registries.storage.Storable;
 
+import java.util.Collection;
+
 
 public interface StorageWriter {
     void add(Storable storable);
 
+    default void addAll(Collection<? extends Storable> storables) {
+        for (Storable storable : storables) {
+            add(storable);
+        }
+    }
+
     void addOrUpdate(Storable storable);
 
     Object remove(StorableKey key);
@@ -0,0 +1,336 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.writer;
+
+import com.hortonworks.registries.common.Schema;
+import com.hortonworks.registries.storage.PrimaryKey;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.catalog.StorableMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local log of the writes accepted by {@link StorageWriteBehind} which are not yet written to the storage, so that
+ * they can be replayed after a crash. Each record is a length prefixed operation with the values of the storable as
+ * returned by {@link Storable#toMap()}, or the fields of the primary key for removals. Values are written with a tag of
+ * their {@link Schema.Type}, so that reading the log does not need java deserialization and it creates only storables
+ * and values of the known types.
+ * <p>
+ * Records are flushed to the file system on each append but they are not synced to the disk, so they survive a crash
+ * of the process but not of the host.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final Logger LOG = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    // tag of null values, other values are tagged with the ordinal of their Schema.Type
+    private static final byte NULL_TAG = -1;
+
+    private final Path path;
+    private DataOutputStream out;
+    // number of records in the log
+    private int size;
+
+    WriteAheadLog(Path path) throws IOException {
+        this.path = path;
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+    }
+
+    /**
+     * @return operations in the log in the order they were appended. A partially written last record is ignored.
+     */
+    List<WriteOperation> read() throws IOException {
+        List<WriteOperation> operations = new ArrayList<>();
+        if (!Files.exists(path)) {
+            return operations;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                byte[] bytes;
+                try {
+                    bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                } catch (EOFException e) {
+                    break;
+                }
+                operations.add(deserialize(bytes));
+            }
+        }
+        size = operations.size();
+        return operations;
+    }
+
+    void append(WriteOperation operation) throws IOException {
+        if (out == null) {
+            out = open(StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        writeRecord(out, operation);
+        out.flush();
+        size++;
+    }
+
+    /**
+     * @return number of records in this log, as read or written by this instance.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Replaces the contents of this log with the given operations.
+     */
+    void reset(Collection<WriteOperation> operations) throws IOException {
+        close();
+        if (operations.isEmpty()) {
+            Files.deleteIfExists(path);
+        } else {
+            Path tmpPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream tmpOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpPath)))) {
+                for (WriteOperation operation : operations) {
+                    writeRecord(tmpOut, operation);
+                }
+            }
+            Files.move(tmpPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        size = operations.size();
+        LOG.debug("Reset write ahead log [{}] with {} operations", path, operations.size());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            try {
+                out.close();
+            } finally {
+                out = null;
+            }
+        }
+    }
+
+    private DataOutputStream open(StandardOpenOption... options) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path, options)));
+    }
+
+    private static void writeRecord(DataOutputStream out, WriteOperation operation) throws IOException {
+        byte[] bytes = serialize(operation);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] serialize(WriteOperation operation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(operation.getType().name());
+            if (operation.getType() == WriteOperation.Type.REMOVE) {
+                out.writeUTF(operation.getKey().getNameSpace());
+                Set<Map.Entry<Schema.Field, Object>> fieldsToVal = operation.getKey().getPrimaryKey().getFieldsToVal().entrySet();
+                out.writeInt(fieldsToVal.size());
+                for (Map.Entry<Schema.Field, Object> entry : fieldsToVal) {
+                    out.writeUTF(entry.getKey().getName());
+                    out.writeUTF(entry.getKey().getType().name());
+                    out.writeBoolean(entry.getKey().isOptional());
+                    writeValue(out, entry.getValue());
+                }
+            } else {
+                out.writeUTF(operation.getStorable().getClass().getName());
+                writeValue(out, operation.getStorable().toMap());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static WriteOperation deserialize(byte[] bytes) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            WriteOperation.Type type = WriteOperation.Type.valueOf(in.readUTF());
+            if (type == WriteOperation.Type.REMOVE) {
+                String namespace = in.readUTF();
+                int size = in.readInt();
+                Map<Schema.Field, Object> fieldsToVal = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    String name = in.readUTF();
+                    Schema.Type fieldType = Schema.Type.valueOf(in.readUTF());
+                    Schema.Field field = in.readBoolean() ? Schema.Field.optional(name, fieldType) : Schema.Field.of(name, fieldType);
+                    fieldsToVal.put(field, readValue(in));
+                }
+                return new WriteOperation(type, new StorableKey(namespace, new PrimaryKey(fieldsToVal)), null);
+            }
+
+            Class<?> clazz = Class.forName(in.readUTF());
+            if (!Storable.class.isAssignableFrom(clazz)) {
+                throw new IOException(clazz + " is not a storable");
+            }
+            Map<String, Object> values = (Map<String, Object>) readValue(in);
+            Storable storable = StorableMapper.of((Class<? extends Storable>) clazz).newInstance();
+            storable.fromMap(values);
+            return new WriteOperation(type, storable.getStorableKey(), storable);
+        } catch (ClassNotFoundException | IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL_TAG);
+            return;
+        }
+
+        Schema.Type type = typeOf(value);
+        out.writeByte(type.ordinal());
+        switch (type) {
+            case BOOLEAN:
+                out.writeBoolean((Boolean) value);
+                break;
+            case BYTE:
+                out.writeByte((Byte) value);
+                break;
+            case SHORT:
+                out.writeShort((Short) value);
+                break;
+            case INTEGER:
+                out.writeInt((Integer) value);
+                break;
+            case LONG:
+                out.writeLong((Long) value);
+                break;
+            case FLOAT:
+                out.writeFloat((Float) value);
+                break;
+            case DOUBLE:
+                out.writeDouble((Double) value);
+                break;
+            case STRING:
+                writeBytes(out, ((String) value).getBytes(StandardCharsets.UTF_8));
+                break;
+            case BINARY:
+                writeBytes(out, (byte[]) value);
+                break;
+            case NESTED:
+                Map<?, ?> map = (Map<?, ?>) value;
+                out.writeInt(map.size());
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    writeBytes(out, entry.getKey().toString().getBytes(StandardCharsets.UTF_8));
+                    writeValue(out, entry.getValue());
+                }
+                break;
+            case ARRAY:
+                List<?> list = (List<?>) value;
+                out.writeInt(list.size());
+                for (Object element : list) {
+                    writeValue(out, element);
+                }
+                break;
+            default:
+                throw new IOException("Value of type " + value.getClass() + " can not be written to the write ahead log");
+        }
+    }
+
+    private static Object readValue(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        if (tag == NULL_TAG) {
+            return null;
+        }
+        if (tag < 0 || tag >= Schema.Type.values().length) {
+            throw new IOException("Invalid value tag " + tag + " in the write ahead log");
+        }
+
+        switch (Schema.Type.values()[tag]) {
+            case BOOLEAN:
+                return in.readBoolean();
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INTEGER:
+                return in.readInt();
+            case LONG:
+                return in.readLong();
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case STRING:
+                return new String(readBytes(in), StandardCharsets.UTF_8);
+            case BINARY:
+                return readBytes(in);
+            case NESTED:
+                int size = in.readInt();
+                Map<String, Object> map = new HashMap<>();
+                for (int i = 0; i < size; i++) {
+                    map.put(new String(readBytes(in), StandardCharsets.UTF_8), readValue(in));
+                }
+                return map;
+            case ARRAY:
+                int length = in.readInt();
+                List<Object> list = new ArrayList<>();
+                for (int i = 0; i < length; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            default:
+                throw new IOException("Invalid value tag " + tag + " in the write ahead log");
+        }
+    }
+
+    private static Schema.Type typeOf(Object value) {
+        for (Schema.Type type : Schema.Type.values()) {
+            if (type.getJavaType().isInstance(value)) {
+                return type;
+            }
+        }
+        return Schema.Type.BLOB;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Invalid length " + length + " in the write ahead log");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.writer;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration of {@link StorageWriteBehind}.
+ */
+public final class WriteBehindConfig {
+    public static final int DEFAULT_QUEUE_CAPACITY = 10000;
+    public static final int DEFAULT_BATCH_SIZE = 100;
+    public static final long DEFAULT_FLUSH_INTERVAL_MS = 1000L;
+    public static final long DEFAULT_ENQUEUE_TIMEOUT_MS = 30000L;
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_RETRY_BACKOFF_MS = 100L;
+    public static final int DEFAULT_WRITE_AHEAD_LOG_COMPACTION_THRESHOLD = 1000;
+
+    private final int queueCapacity;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long enqueueTimeoutMs;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final Path writeAheadLogPath;
+    private final int writeAheadLogCompactionThreshold;
+
+    private WriteBehindConfig(Builder builder) {
+        this.queueCapacity = builder.queueCapacity;
+        this.batchSize = builder.batchSize;
+        this.flushIntervalMs = builder.flushIntervalMs;
+        this.enqueueTimeoutMs = builder.enqueueTimeoutMs;
+        this.maxRetries = builder.maxRetries;
+        this.retryBackoffMs = builder.retryBackoffMs;
+        this.writeAheadLogPath = builder.writeAheadLogPath;
+        this.writeAheadLogCompactionThreshold = builder.writeAheadLogCompactionThreshold;
+    }
+
+    /**
+     * @return maximum number of pending writes, writes which can not be merged with the last pending write block when
+     * it is reached.
+     */
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    /**
+     * @return number of pending writes which are flushed together.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return maximum time for which writes are kept pending when there are less than {@link #getBatchSize()} writes.
+     */
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    /**
+     * @return maximum time for which a write blocks on a full queue before it fails.
+     */
+    public long getEnqueueTimeoutMs() {
+        return enqueueTimeoutMs;
+    }
+
+    /**
+     * @return number of times a failed write is retried before it is dropped.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    /**
+     * @return path of the write ahead log, null if pending writes are not logged.
+     */
+    public Path getWriteAheadLogPath() {
+        return writeAheadLogPath;
+    }
+
+    /**
+     * @return minimum number of written records in the write ahead log before it is rewritten with only the pending
+     * writes. The log is rewritten only when the written records are also more than the pending ones.
+     */
+    public int getWriteAheadLogCompactionThreshold() {
+        return writeAheadLogCompactionThreshold;
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindConfig{" +
+                "queueCapacity=" + queueCapacity +
+                ", batchSize=" + batchSize +
+                ", flushIntervalMs=" + flushIntervalMs +
+                ", enqueueTimeoutMs=" + enqueueTimeoutMs +
+                ", maxRetries=" + maxRetries +
+                ", retryBackoffMs=" + retryBackoffMs +
+                ", writeAheadLogPath=" + writeAheadLogPath +
+                ", writeAheadLogCompactionThreshold=" + writeAheadLogCompactionThreshold +
+                '}';
+    }
+
+    public static class Builder {
+        private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private long flushIntervalMs = DEFAULT_FLUSH_INTERVAL_MS;
+        private long enqueueTimeoutMs = DEFAULT_ENQUEUE_TIMEOUT_MS;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long retryBackoffMs = DEFAULT_RETRY_BACKOFF_MS;
+        private Path writeAheadLogPath;
+        private int writeAheadLogCompactionThreshold = DEFAULT_WRITE_AHEAD_LOG_COMPACTION_THRESHOLD;
+
+        public Builder queueCapacity(int queueCapacity) {
+            if (queueCapacity <= 0) {
+                throw new IllegalArgumentException("queueCapacity should be positive");
+            }
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        public Builder batchSize(int batchSize) {
+            if (batchSize <= 0) {
+                throw new IllegalArgumentException("batchSize should be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        public Builder flushIntervalMs(long flushIntervalMs) {
+            if (flushIntervalMs <= 0) {
+                throw new IllegalArgumentException("flushIntervalMs should be positive");
+            }
+            this.flushIntervalMs = flushIntervalMs;
+            return this;
+        }
+
+        public Builder enqueueTimeoutMs(long enqueueTimeoutMs) {
+            this.enqueueTimeoutMs = enqueueTimeoutMs;
+            return this;
+        }
+
+        public Builder maxRetries(int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries should not be negative");
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder retryBackoffMs(long retryBackoffMs) {
+            this.retryBackoffMs = retryBackoffMs;
+            return this;
+        }
+
+        public Builder writeAheadLogPath(Path writeAheadLogPath) {
+            this.writeAheadLogPath = writeAheadLogPath;
+            return this;
+        }
+
+        public Builder writeAheadLogCompactionThreshold(int writeAheadLogCompactionThreshold) {
+            if (writeAheadLogCompactionThreshold <= 0) {
+                throw new IllegalArgumentException("writeAheadLogCompactionThreshold should be positive");
+            }
+            this.writeAheadLogCompactionThreshold = writeAheadLogCompactionThreshold;
+            return this;
+        }
+
+        public WriteBehindConfig build() {
+            return new WriteBehindConfig(this);
+        }
+    }
+}
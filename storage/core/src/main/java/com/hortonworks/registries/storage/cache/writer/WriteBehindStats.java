@@ -0,0 +1,125 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.writer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live statistics of a {@link StorageWriteBehind}, which can be registered as gauges with a metrics registry.
+ */
+public final class WriteBehindStats {
+    private volatile int queueDepth;
+    private final AtomicLong enqueuedWrites = new AtomicLong();
+    private final AtomicLong coalescedWrites = new AtomicLong();
+    private final AtomicLong completedWrites = new AtomicLong();
+    private final AtomicLong failedWrites = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong totalFlushLatencyMs = new AtomicLong();
+    private volatile long lastFlushLatencyMs;
+    private volatile long maxFlushLatencyMs;
+
+    WriteBehindStats() {
+    }
+
+    /**
+     * @return number of keys with pending writes.
+     */
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getEnqueuedWrites() {
+        return enqueuedWrites.get();
+    }
+
+    /**
+     * @return number of writes which were merged with a pending write of the same key.
+     */
+    public long getCoalescedWrites() {
+        return coalescedWrites.get();
+    }
+
+    public long getCompletedWrites() {
+        return completedWrites.get();
+    }
+
+    /**
+     * @return number of writes which were dropped after all their retries failed.
+     */
+    public long getFailedWrites() {
+        return failedWrites.get();
+    }
+
+    public long getFlushes() {
+        return flushes.get();
+    }
+
+    public long getLastFlushLatencyMs() {
+        return lastFlushLatencyMs;
+    }
+
+    public long getMaxFlushLatencyMs() {
+        return maxFlushLatencyMs;
+    }
+
+    public double getMeanFlushLatencyMs() {
+        long flushCount = flushes.get();
+        return flushCount == 0 ? 0 : (double) totalFlushLatencyMs.get() / flushCount;
+    }
+
+    void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    void recordEnqueued(boolean coalesced) {
+        enqueuedWrites.incrementAndGet();
+        if (coalesced) {
+            coalescedWrites.incrementAndGet();
+        }
+    }
+
+    void recordCompleted() {
+        completedWrites.incrementAndGet();
+    }
+
+    void recordFailed() {
+        failedWrites.incrementAndGet();
+    }
+
+    // called only from the flusher thread
+    void recordFlush(long latencyMs) {
+        flushes.incrementAndGet();
+        totalFlushLatencyMs.addAndGet(latencyMs);
+        lastFlushLatencyMs = latencyMs;
+        if (latencyMs > maxFlushLatencyMs) {
+            maxFlushLatencyMs = latencyMs;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteBehindStats{" +
+                "queueDepth=" + queueDepth +
+                ", enqueuedWrites=" + enqueuedWrites +
+                ", coalescedWrites=" + coalescedWrites +
+                ", completedWrites=" + completedWrites +
+                ", failedWrites=" + failedWrites +
+                ", flushes=" + flushes +
+                ", lastFlushLatencyMs=" + lastFlushLatencyMs +
+                ", maxFlushLatencyMs=" + maxFlushLatencyMs +
+                '}';
+    }
+}
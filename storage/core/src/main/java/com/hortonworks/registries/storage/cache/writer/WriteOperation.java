@@ -0,0 +1,116 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.writer;
+
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.StorageManager;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Write of a storable which is pending in {@link StorageWriteBehind}.
+ */
+final class WriteOperation {
+
+    enum Type {
+        ADD, ADD_OR_UPDATE, REMOVE
+    }
+
+    private final Type type;
+    private final StorableKey key;
+    private final Storable storable;
+    // completed with the removed storable when a removal is written
+    private final CompletableFuture<Storable> removal;
+
+    WriteOperation(Type type, StorableKey key, Storable storable) {
+        this.type = type;
+        this.key = key;
+        this.storable = storable;
+        this.removal = type == Type.REMOVE ? new CompletableFuture<>() : null;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    StorableKey getKey() {
+        return key;
+    }
+
+    Storable getStorable() {
+        return storable;
+    }
+
+    /**
+     * @return future of the removed storable for removals, null for other writes.
+     */
+    CompletableFuture<Storable> getRemoval() {
+        return removal;
+    }
+
+    /**
+     * @return true if the given operation of the same key can be merged with this operation. Removals are not merged
+     * with later writes, so that they complete with the removed storable.
+     */
+    boolean canCoalesce(WriteOperation next) {
+        return type != Type.REMOVE && key.equals(next.key);
+    }
+
+    /**
+     * @return operation which has the same effect as this operation followed by the given operation of the same key.
+     */
+    WriteOperation coalesce(WriteOperation next) {
+        // add after a pending remove or update of the same key should not fail as the row may still exist
+        if (next.type == Type.ADD && type != Type.ADD) {
+            return new WriteOperation(Type.ADD_OR_UPDATE, next.key, next.storable);
+        }
+        return next;
+    }
+
+    void writeTo(StorageManager dao) {
+        switch (type) {
+            case ADD:
+                dao.add(storable);
+                break;
+            case ADD_OR_UPDATE:
+                dao.addOrUpdate(storable);
+                break;
+            case REMOVE:
+                removal.complete(dao.remove(key));
+                break;
+            default:
+                throw new IllegalStateException("Unknown write operation type " + type);
+        }
+    }
+
+    /**
+     * Completes the future of this operation when it is dropped.
+     */
+    void failed(Exception e) {
+        if (removal != null) {
+            removal.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WriteOperation{" +
+                "type=" + type +
+                ", key=" + key +
+                '}';
+    }
+}
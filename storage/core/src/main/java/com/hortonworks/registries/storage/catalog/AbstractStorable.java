@@ -19,19 +19,15 @@ package com.hortonworks.registries.storage.catalog;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.hortonworks.registries.common.Schema;
 import com.hortonworks.registries.common.exception.ParserException;
-import com.hortonworks.registries.common.util.ReflectionHelper;
 import com.hortonworks.registries.storage.exception.StorageException;
 import com.hortonworks.registries.storage.Storable;
 import com.hortonworks.registries.storage.StorableKey;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * Default implementations go here
@@ -55,18 +51,9 @@ public abstract class AbstractStorable implements Storable {
      * @return
      */
     public Map<String, Object> toMap() {
-        Set<String> instanceVariableNames = ReflectionHelper.getFieldNamesToTypes(this.getClass()).keySet();
-        Map<String, Object> fieldToVal = new HashMap<>();
-        for (String fieldName : instanceVariableNames) {
-            try {
-                Object val = ReflectionHelper.invokeGetter(fieldName, this);
-                fieldToVal.put(fieldName, val);
-                if (LOG.isTraceEnabled()) {
-                    LOG.trace("toMap: Adding fieldName {} = {} ", fieldName, val);
-                }
-            } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-                throw new StorageException(e);
-            }
+        Map<String, Object> fieldToVal = StorableMapper.of(getClass()).toMap(this);
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("toMap: Adding fields {}", fieldToVal);
         }
 
         return fieldToVal;
@@ -80,15 +67,7 @@ public abstract class AbstractStorable implements Storable {
      * @return
      */
     public Storable fromMap(Map<String, Object> map) {
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            try {
-                if (entry.getValue() != null) {
-                    ReflectionHelper.invokeSetter(entry.getKey(), this, entry.getValue());
-                }
-            } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-                throw new StorageException(e);
-            }
-        }
+        StorableMapper.of(getClass()).fromMap(this, map);
         return this;
     }
 
@@ -100,12 +79,12 @@ public abstract class AbstractStorable implements Storable {
      */
     @JsonIgnore
     public Schema getSchema() {
-        Map<String, Class> fieldNamesToTypes = ReflectionHelper.getFieldNamesToTypes(this.getClass());
+        StorableMapper storableMapper = StorableMapper.of(getClass());
         List<Schema.Field> fields = new ArrayList<>();
 
-        for (Map.Entry<String, Class> entry : fieldNamesToTypes.entrySet()) {
+        for (Map.Entry<String, Class> entry : storableMapper.getFieldNamesToTypes().entrySet()) {
             try {
-                Object val = ReflectionHelper.invokeGetter(entry.getKey(), this);
+                Object val = storableMapper.get(this, entry.getKey());
                 Schema.Type type;
                 if (val != null) {
                     type = Schema.fromJavaType(val);
@@ -116,7 +95,7 @@ public abstract class AbstractStorable implements Storable {
                 if (LOG.isTraceEnabled()) {
                     LOG.trace("getSchema: Adding {} = {} ", entry.getKey(), type);
                 }
-            } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException | ParserException e) {
+            } catch (ParserException e) {
                 throw new StorageException(e);
             }
         }
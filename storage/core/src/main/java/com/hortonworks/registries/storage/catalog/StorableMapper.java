@@ -0,0 +1,258 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.catalog;
+
+import com.hortonworks.registries.common.util.ReflectionHelper;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.exception.StorageException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Maps the properties of a {@link Storable} class to and from their values with method handles of their POJO getters
+ * and setters, which are looked up only once per class instead of for each property of each instance.
+ * <p>
+ * Instances are created once per class and shared, see {@link #of(Class)}.
+ */
+public final class StorableMapper {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+
+    private static final ClassValue<StorableMapper> MAPPERS = new ClassValue<StorableMapper>() {
+        @Override
+        protected StorableMapper computeValue(Class<?> clazz) {
+            return new StorableMapper(clazz);
+        }
+    };
+
+    private final Class<?> storableClass;
+    private final boolean defaultMapping;
+    private final MethodHandle constructor;
+    private final Map<String, Class> fieldNamesToTypes;
+    private final Map<String, MethodHandle> getters;
+    private final Map<String, Setter> setters;
+
+    private StorableMapper(Class<?> storableClass) {
+        this.storableClass = storableClass;
+        this.defaultMapping = isDefaultMapping(storableClass);
+        this.constructor = findConstructor(storableClass);
+        this.fieldNamesToTypes = Collections.unmodifiableMap(ReflectionHelper.getFieldNamesToTypes(storableClass));
+
+        Map<String, MethodHandle> getters = new LinkedHashMap<>();
+        for (String fieldName : fieldNamesToTypes.keySet()) {
+            getters.put(fieldName, findGetter(storableClass, fieldName));
+        }
+        this.getters = getters;
+
+        Map<String, List<MethodHandle>> setterHandles = new HashMap<>();
+        for (Method method : storableClass.getMethods()) {
+            String name = method.getName();
+            if (name.length() > 3 && name.startsWith("set") && method.getParameterCount() == 1
+                    && !method.isBridge() && !Modifier.isStatic(method.getModifiers())) {
+                setterHandles.computeIfAbsent(name, x -> new ArrayList<>()).add(unreflect(method).asType(SETTER_TYPE));
+            }
+        }
+        Map<String, Setter> setters = new HashMap<>();
+        for (Map.Entry<String, List<MethodHandle>> entry : setterHandles.entrySet()) {
+            setters.put(entry.getKey(), new Setter(entry.getKey(), entry.getValue()));
+        }
+        this.setters = setters;
+    }
+
+    /**
+     * @return mapper of the given storable class.
+     */
+    public static StorableMapper of(Class<? extends Storable> storableClass) {
+        return MAPPERS.get(storableClass);
+    }
+
+    /**
+     * @return true if instances of this class are populated by the default {@link AbstractStorable#fromMap(Map)},
+     * so that the values of their properties can be set directly with {@link #getSetter(String)}.
+     */
+    public boolean isDefaultMapping() {
+        return defaultMapping;
+    }
+
+    /**
+     * @return new instance created with the no-arg constructor of this class.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Storable> T newInstance() {
+        if (constructor == null) {
+            throw new StorageException("No public no-arg constructor found for class " + storableClass.getName());
+        }
+        try {
+            return (T) (Object) constructor.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * @return names of all instance fields of this class and its super classes to their types.
+     */
+    public Map<String, Class> getFieldNamesToTypes() {
+        return fieldNamesToTypes;
+    }
+
+    /**
+     * @return value of the given field returned by its getter.
+     */
+    public Object get(Object storable, String fieldName) {
+        MethodHandle getter = getters.get(fieldName);
+        if (getter == null) {
+            throw new StorageException(new NoSuchMethodException(storableClass.getName() + "." + getterName(fieldName) + "()"));
+        }
+        try {
+            return getter.invokeExact(storable);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new StorageException(e);
+        }
+    }
+
+    /**
+     * @return values of all instance fields of the given storable, see {@link AbstractStorable#toMap()}.
+     */
+    public Map<String, Object> toMap(Object storable) {
+        Map<String, Object> fieldToVal = new HashMap<>();
+        for (String fieldName : getters.keySet()) {
+            fieldToVal.put(fieldName, get(storable, fieldName));
+        }
+        return fieldToVal;
+    }
+
+    /**
+     * Sets the non null values of the given map with the respective setters, see {@link AbstractStorable#fromMap(Map)}.
+     */
+    public void fromMap(Object storable, Map<String, Object> map) {
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            if (entry.getValue() != null) {
+                getSetter(entry.getKey()).set(storable, entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return setter of the given property, which can be resolved once and used to set values of many instances.
+     */
+    public Setter getSetter(String propertyName) {
+        String setterName = "set" + capitalize(propertyName);
+        Setter setter = setters.get(setterName);
+        return setter != null ? setter : new Setter(setterName, Collections.<MethodHandle>emptyList());
+    }
+
+    /**
+     * Setter of a property, which can have overloaded methods for different types of values.
+     */
+    public final class Setter {
+        private final String name;
+        private final List<MethodHandle> handles;
+
+        private Setter(String name, List<MethodHandle> handles) {
+            this.name = name;
+            this.handles = handles;
+        }
+
+        public void set(Object storable, Object value) {
+            MethodHandle handle = handles.size() == 1 ? handles.get(0) : findHandle(value);
+            try {
+                handle.invokeExact(storable, value);
+            } catch (ClassCastException e) {
+                throw new StorageException("Value [" + value + "] of type " + value.getClass().getName()
+                                                   + " can not be set with " + storableClass.getName() + "." + name, e);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new StorageException(e);
+            }
+        }
+
+        private MethodHandle findHandle(Object value) {
+            for (MethodHandle handle : handles) {
+                if (wrap(handle.type().parameterType(1)).isInstance(value)) {
+                    return handle;
+                }
+            }
+            throw new StorageException(new NoSuchMethodException(storableClass.getName() + "." + name
+                                                                         + "(" + value.getClass().getName() + ")"));
+        }
+    }
+
+    private static boolean isDefaultMapping(Class<?> clazz) {
+        try {
+            return clazz.getMethod("fromMap", Map.class).getDeclaringClass() == AbstractStorable.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle findConstructor(Class<?> clazz) {
+        try {
+            Constructor<?> constructor = clazz.getConstructor();
+            constructor.setAccessible(true);
+            return MethodHandles.lookup().unreflectConstructor(constructor).asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException | SecurityException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle findGetter(Class<?> clazz, String fieldName) {
+        try {
+            return unreflect(clazz.getMethod(getterName(fieldName))).asType(GETTER_TYPE);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            // public methods of non public classes are not accessible without this
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException | SecurityException e) {
+            throw new StorageException(e);
+        }
+    }
+
+    private static String getterName(String fieldName) {
+        return "get" + capitalize(fieldName);
+    }
+
+    private static String capitalize(String name) {
+        return name.isEmpty() ? name : Character.toTitleCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+}
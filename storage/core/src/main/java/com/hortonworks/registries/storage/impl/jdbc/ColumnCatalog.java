@@ -0,0 +1,186 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.impl.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.SQLSyntaxErrorException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Catalog of column names of each namespace (table), so that query parameters can be matched against the columns of
+ * a namespace without a metadata round trip to the database on every query. Columns of a namespace are loaded once,
+ * either when its storable is registered or on first use.
+ * <p>
+ * A column which is not found in the loaded columns of a namespace makes the catalog reload that namespace once, so
+ * that columns added by a schema migration are seen. Column names which are still not found are remembered until the
+ * namespace is invalidated, which avoids reloading the namespace for query parameters that never match a column.
+ * At most {@link #MAX_UNKNOWN_COLUMNS} of them are remembered for a namespace, so that arbitrary query parameters can
+ * not grow the catalog without a bound.
+ */
+public class ColumnCatalog {
+    private static final Logger LOG = LoggerFactory.getLogger(ColumnCatalog.class);
+
+    /**
+     * Maximum number of unknown column names remembered for a namespace.
+     */
+    public static final int MAX_UNKNOWN_COLUMNS = 256;
+
+    // SQL state class of syntax errors and access rule violations, which includes unknown columns and tables.
+    private static final String SYNTAX_ERROR_SQL_STATE_CLASS = "42";
+
+    /**
+     * Loads column names of a namespace from the database.
+     */
+    public interface ColumnNamesLoader {
+        Collection<String> load(String namespace) throws SQLException;
+    }
+
+    private final ColumnNamesLoader columnNamesLoader;
+    private final ConcurrentMap<String, NamespaceColumns> columnsByNamespace = new ConcurrentHashMap<>();
+
+    public ColumnCatalog(ColumnNamesLoader columnNamesLoader) {
+        this.columnNamesLoader = columnNamesLoader;
+    }
+
+    /**
+     * @return true if the given column, ignoring its case, exists in the given namespace.
+     */
+    public boolean isColumnInNamespace(String namespace, String columnName) throws SQLException {
+        String column = normalize(columnName);
+        NamespaceColumns namespaceColumns = columnsByNamespace.get(namespace);
+        if (namespaceColumns == null) {
+            namespaceColumns = load(namespace);
+        }
+
+        if (namespaceColumns.columns.contains(column)) {
+            return true;
+        }
+        if (namespaceColumns.unknownColumns.contains(column)) {
+            return false;
+        }
+
+        // column may have been added after this namespace is loaded
+        namespaceColumns = load(namespace, namespaceColumns.unknownColumns);
+        if (namespaceColumns.columns.contains(column)) {
+            return true;
+        }
+        if (namespaceColumns.unknownColumns.size() >= MAX_UNKNOWN_COLUMNS) {
+            namespaceColumns.unknownColumns.clear();
+        }
+        namespaceColumns.unknownColumns.add(column);
+        return false;
+    }
+
+    /**
+     * Loads the columns of the given namespaces which are not loaded yet.
+     */
+    public void preload(Collection<String> namespaces) throws SQLException {
+        for (String namespace : namespaces) {
+            if (!columnsByNamespace.containsKey(namespace)) {
+                load(namespace);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the columns of the given namespace, they are loaded again on next use.
+     */
+    public void invalidate(String namespace) {
+        columnsByNamespace.remove(namespace);
+    }
+
+    /**
+     * Invalidates the columns of the given namespace if the given failure of a query on it is caused by a mismatch
+     * between the query and the columns of its table, for ex: a column dropped by a schema migration. Other failures,
+     * like timeouts or lost connections, keep the loaded columns.
+     *
+     * @return true if the columns of the given namespace are invalidated.
+     */
+    public boolean invalidateOnSchemaMismatch(String namespace, Throwable failure) {
+        if (isSchemaMismatch(failure)) {
+            LOG.debug("Invalidating columns of namespace [{}] as its query failed", namespace, failure);
+            invalidate(namespace);
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isSchemaMismatch(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLSyntaxErrorException) {
+                return true;
+            }
+            if (cause instanceof SQLException) {
+                String sqlState = ((SQLException) cause).getSQLState();
+                return sqlState != null && sqlState.startsWith(SYNTAX_ERROR_SQL_STATE_CLASS);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invalidates the columns of all namespaces, for ex: after a schema migration.
+     */
+    public void invalidateAll() {
+        columnsByNamespace.clear();
+    }
+
+    private NamespaceColumns load(String namespace) throws SQLException {
+        return load(namespace, Collections.emptySet());
+    }
+
+    /**
+     * Loads the columns of the given namespace, the given unknown columns which are still not found are remembered.
+     */
+    private NamespaceColumns load(String namespace, Set<String> unknownColumns) throws SQLException {
+        Set<String> columns = new HashSet<>();
+        for (String columnName : columnNamesLoader.load(namespace)) {
+            columns.add(normalize(columnName));
+        }
+        LOG.debug("Loaded columns {} of namespace [{}]", columns, namespace);
+
+        NamespaceColumns namespaceColumns = new NamespaceColumns(columns);
+        for (String unknownColumn : unknownColumns) {
+            if (!columns.contains(unknownColumn)) {
+                namespaceColumns.unknownColumns.add(unknownColumn);
+            }
+        }
+        columnsByNamespace.put(namespace, namespaceColumns);
+        return namespaceColumns;
+    }
+
+    private static String normalize(String columnName) {
+        return columnName.toLowerCase(Locale.ENGLISH);
+    }
+
+    private static final class NamespaceColumns {
+        private final Set<String> columns;
+        private final Set<String> unknownColumns = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+        NamespaceColumns(Set<String> columns) {
+            this.columns = Collections.unmodifiableSet(columns);
+        }
+    }
+}
@@ -38,11 +38,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 //Use unique constraints on respective columns of a table for handling concurrent inserts etc.
 public class JdbcStorageManager implements StorageManager {
@@ -50,6 +52,7 @@ public class JdbcStorageManager implements StorageManager {
     public static final String DB_TYPE = "db.type";
 
     private final StorableFactory storableFactory = new StorableFactory();
+    private final ColumnCatalog columnCatalog = new ColumnCatalog(this::loadColumnNames);
     private QueryExecutor queryExecutor;
 
     public JdbcStorageManager() {
@@ -66,6 +69,12 @@ public class JdbcStorageManager implements StorageManager {
         queryExecutor.insert(storable);
     }
 
+    @Override
+    public void addAll(Collection<? extends Storable> storables) throws StorageException {
+        log.debug("Adding {} storables", storables.size());
+        queryExecutor.insertAll(storables);
+    }
+
     @Override
     public <T extends Storable> T remove(StorableKey key) throws StorageException {
         T oldVal = get(key);
@@ -124,6 +133,8 @@ public class JdbcStorageManager implements StorageManager {
                 entries = queryExecutor.select(storableKey, orderByFields);
             }
         } catch (Exception e) {
+            // columns of this namespace may have been changed by a schema migration
+            columnCatalog.invalidateOnSchemaMismatch(namespace, e);
             throw new StorageException(e);
         }
 
@@ -137,6 +148,12 @@ public class JdbcStorageManager implements StorageManager {
         return queryExecutor.select(searchQuery);
     }
 
+    @Override
+    public <T extends Storable> void search(SearchQuery searchQuery, Consumer<? super T> consumer) {
+        log.debug("Streaming entries for search query [{}]", searchQuery);
+        queryExecutor.select(searchQuery, consumer);
+    }
+
     private <T extends Storable> Collection<T> list(String namespace, List<OrderByField> orderByFields) {
         log.debug("Listing entries for table [{}]", namespace);
         final Collection<T> entries = queryExecutor.select(namespace, orderByFields);
@@ -151,6 +168,7 @@ public class JdbcStorageManager implements StorageManager {
 
     @Override
     public void cleanup() throws StorageException {
+        columnCatalog.invalidateAll();
         queryExecutor.cleanup();
     }
 
@@ -165,6 +183,22 @@ public class JdbcStorageManager implements StorageManager {
     @Override
     public void registerStorables(Collection<Class<? extends Storable>> classes) throws StorageException {
         storableFactory.addStorableClasses(classes);
+        if (queryExecutor != null) {
+            try {
+                columnCatalog.preload(storableFactory.getNameSpaces());
+            } catch (Exception e) {
+                // tables may not have been created yet, their columns are loaded on first use
+                log.warn("Failed to load columns of registered storables, they will be loaded on first use", e);
+            }
+        }
+    }
+
+    /**
+     * Reloads the columns of all namespaces on their next use. This should be invoked when tables are altered after
+     * this instance is initialized, for ex: by a schema migration.
+     */
+    public void refreshColumnCatalog() {
+        columnCatalog.invalidateAll();
     }
 
     // private helper methods
@@ -179,13 +213,11 @@ public class JdbcStorageManager implements StorageManager {
      */
     private StorableKey buildStorableKey(String namespace, List<QueryParam> queryParams) throws Exception {
         final Map<Schema.Field, Object> fieldsToVal = new HashMap<>();
-        final Connection connection = queryExecutor.getConnection();
         StorableKey storableKey = null;
 
         try {
             for (QueryParam qp : queryParams) {
-                int queryTimeoutSecs = queryExecutor.getConfig().getQueryTimeoutSecs();
-                if (!MetadataHelper.isColumnInNamespace(connection, queryTimeoutSecs, namespace, qp.getName())) {
+                if (!columnCatalog.isColumnInNamespace(namespace, qp.getName())) {
                     log.warn("Query parameter [{}] does not exist for namespace [{}]. Query parameter ignored.", qp.getName(), namespace);
                 } else {
                     final String val = qp.getValue();
@@ -206,13 +238,35 @@ public class JdbcStorageManager implements StorageManager {
         } catch (Exception e) {
             log.debug("Exception occurred when attempting to generate StorableKey from QueryParam", e);
             throw new IllegalQueryParameterException(e);
-        } finally {
-            queryExecutor.closeConnection(connection);
         }
 
         return storableKey;
     }
 
+    @Override
+    public void beginTransaction() throws StorageException {
+        queryExecutor.beginTransaction();
+    }
+
+    @Override
+    public void commitTransaction() throws StorageException {
+        queryExecutor.commitTransaction();
+    }
+
+    @Override
+    public void rollbackTransaction() throws StorageException {
+        queryExecutor.rollbackTransaction();
+    }
+
+    private List<String> loadColumnNames(String namespace) throws SQLException {
+        final Connection connection = queryExecutor.getConnection();
+        try {
+            return MetadataHelper.getColumnNames(connection, queryExecutor.getConfig().getQueryTimeoutSecs(), namespace);
+        } finally {
+            queryExecutor.closeConnection(connection);
+        }
+    }
+
     /**
      * Initializes this instance with {@link QueryExecutor} created from the given {@code properties}.
      * Some of these properties are jdbcDriverClass, jdbcUrl, queryTimeoutInSecs.
@@ -26,14 +26,43 @@ import com.hortonworks.registries.storage.impl.jdbc.provider.sql.statement.Prepa
  * This class should be immutable as the configuration should not change after passed in to the configurable objects
  **/
 public class ExecutionConfig {
+    public static final int DEFAULT_FETCH_SIZE = 100;
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
     private final int queryTimeoutSecs;
+    private final int fetchSize;
+    private final int batchSize;
 
     // Replace constructors with Builder pattern as more configuration options become available
     public ExecutionConfig(int queryTimeoutSecs) {
+        this(queryTimeoutSecs, DEFAULT_FETCH_SIZE);
+    }
+
+    public ExecutionConfig(int queryTimeoutSecs, int fetchSize) {
+        this(queryTimeoutSecs, fetchSize, DEFAULT_BATCH_SIZE);
+    }
+
+    public ExecutionConfig(int queryTimeoutSecs, int fetchSize, int batchSize) {
         this.queryTimeoutSecs = queryTimeoutSecs;
+        this.fetchSize = fetchSize;
+        this.batchSize = batchSize;
     }
 
     public int getQueryTimeoutSecs() {
         return queryTimeoutSecs;
     }
+
+    /**
+     * @return number of rows to be fetched at a time when the results of a query are streamed.
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    /**
+     * @return maximum number of rows which are sent to the database in one batch statement.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
 }
@@ -86,9 +86,24 @@ public class MySqlExecutor extends AbstractQueryExecutor {
         return null;
     }
 
+    @Override
+    protected boolean isIdGeneratedByStorage() {
+        return true;
+    }
+
+    @Override
+    protected SqlQuery buildInsertQuery(Storable storable) {
+        return new MySqlInsertQuery(storable);
+    }
+
     @Override
     public <T extends Storable> Collection<T> select(SearchQuery searchQuery) {
-        return executeQuery(searchQuery.getNameSpace(), new MySqlSelectQuery(searchQuery, storableFactory.create(searchQuery.getNameSpace()).getSchema()));
+        return executeQuery(searchQuery.getNameSpace(), buildSelectQuery(searchQuery));
+    }
+
+    @Override
+    protected SqlQuery buildSelectQuery(SearchQuery searchQuery) {
+        return new MySqlSelectQuery(searchQuery, storableFactory.create(searchQuery.getNameSpace()).getSchema());
     }
 
     @Override
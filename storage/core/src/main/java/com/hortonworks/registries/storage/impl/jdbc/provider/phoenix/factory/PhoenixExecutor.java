@@ -69,6 +69,12 @@ public class PhoenixExecutor extends AbstractQueryExecutor {
         executeUpdate(new PhoenixUpsertQuery(storable));
     }
 
+    @Override
+    protected SqlQuery buildInsertQuery(Storable storable) {
+        // Phoenix has only upserts, they are sent to the server when the batch is committed
+        return new PhoenixUpsertQuery(storable);
+    }
+
     @Override
     public <T extends Storable> Collection<T> select(String namespace) {
         return select(namespace, null);
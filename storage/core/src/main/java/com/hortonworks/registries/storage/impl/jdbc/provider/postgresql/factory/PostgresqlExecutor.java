@@ -39,7 +39,6 @@ import com.hortonworks.registries.storage.impl.jdbc.util.Util;
 import com.hortonworks.registries.storage.search.SearchQuery;
 import com.zaxxer.hikari.HikariConfig;
 
-import java.sql.ResultSet;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -116,10 +115,25 @@ public class PostgresqlExecutor extends AbstractQueryExecutor {
         return null;
     }
 
+    @Override
+    protected boolean isIdGeneratedByStorage() {
+        return true;
+    }
+
+    @Override
+    protected SqlQuery buildInsertQuery(Storable storable) {
+        return new PostgresqlInsertQuery(storable);
+    }
+
     @Override
     public <T extends Storable> Collection<T> select(SearchQuery searchQuery) {
+        return executeQuery(searchQuery.getNameSpace(), buildSelectQuery(searchQuery));
+    }
+
+    @Override
+    protected SqlQuery buildSelectQuery(SearchQuery searchQuery) {
         Schema schema = storableFactory.create(searchQuery.getNameSpace()).getSchema();
-        return executeQuery(searchQuery.getNameSpace(), new PostgresqlSelectQuery(searchQuery, schema));
+        return new PostgresqlSelectQuery(searchQuery, schema);
     }
 
     public static PostgresqlExecutor createExecutor(Map<String, Object> jdbcProps) {
@@ -150,21 +164,14 @@ public class PostgresqlExecutor extends AbstractQueryExecutor {
 
     // this is required since the Id type in Storable is long and Postgres supports Int type for SERIAL (auto increment) field
     @Override
-    protected QueryExecution getQueryExecution(SqlQuery sqlQuery) {
-        return new QueryExecution(sqlQuery) {
-            @Override
-            protected List<Map<String, Object>> getMapsFromResultSet(ResultSet resultSet) {
-                List<Map<String, Object>> res = super.getMapsFromResultSet(resultSet);
-                if (res != null) {
-                    res.forEach(m -> {
-                        Object id = m.get("id");
-                        if (id != null && id instanceof Integer) {
-                            m.put("id", Long.valueOf((Integer) id));
-                        }
-                    });
-                }
-                return res;
-            }
+    protected ColumnReader newColumnReader(int columnIndex, String columnLabel, int columnType) {
+        final ColumnReader columnReader = super.newColumnReader(columnIndex, columnLabel, columnType);
+        if (!"id".equals(columnLabel)) {
+            return columnReader;
+        }
+        return resultSet -> {
+            Object id = columnReader.read(resultSet);
+            return id instanceof Integer ? Long.valueOf((Integer) id) : id;
         };
     }
 
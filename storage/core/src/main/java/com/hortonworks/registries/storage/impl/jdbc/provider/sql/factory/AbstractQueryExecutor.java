@@ -22,9 +22,11 @@ import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.hortonworks.registries.storage.StorableFactory;
 import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.catalog.StorableMapper;
 import com.hortonworks.registries.storage.exception.StorageException;
 import com.hortonworks.registries.storage.impl.jdbc.config.ExecutionConfig;
 import com.hortonworks.registries.storage.impl.jdbc.connection.ConnectionBuilder;
+import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.AbstractStorableSqlQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.SqlDeleteQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.SqlInsertQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.SqlSelectQuery;
@@ -32,6 +34,7 @@ import com.hortonworks.registries.storage.impl.jdbc.provider.sql.statement.Prepa
 import com.hortonworks.registries.storage.Storable;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.SqlQuery;
 import com.hortonworks.registries.storage.impl.jdbc.util.Util;
+import com.hortonworks.registries.storage.search.SearchQuery;
 
 import java.sql.Connection;
 import java.sql.Date;
@@ -46,11 +49,12 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 /**
  *
@@ -63,6 +67,7 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
     protected final List<Connection> activeConnections;
 
     private final Cache<SqlQuery, PreparedStatementBuilder> cache;
+    private final ThreadLocal<Transaction> transactions = new ThreadLocal<>();
     protected StorableFactory storableFactory;
 
     public AbstractQueryExecutor(ExecutionConfig config, ConnectionBuilder connectionBuilder) {
@@ -82,6 +87,142 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
     public abstract void insertOrUpdate(Storable storable);
 
+    @Override
+    public void insertAll(Collection<? extends Storable> storables) {
+        if (storables.isEmpty()) {
+            return;
+        }
+
+        boolean inTransaction = isInTransaction();
+        Connection connection = getConnection();
+        try {
+            if (inTransaction) {
+                // committed or rolled back along with the current transaction
+                insertBatches(connection, storables);
+                return;
+            }
+
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                insertBatches(connection, storables);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            closeConnection(connection);
+        }
+    }
+
+    @Override
+    public void beginTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction != null) {
+            transaction.depth++;
+            return;
+        }
+
+        Connection connection = getConnection();
+        try {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            transactions.set(new Transaction(connection, autoCommit));
+            log.debug("Began transaction with connection {}", connection);
+        } catch (SQLException e) {
+            closeConnection(connection);
+            throw new StorageException(e);
+        }
+    }
+
+    @Override
+    public void commitTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            throw new IllegalStateException("No transaction exists to be committed");
+        }
+        if (--transaction.depth > 0) {
+            return;
+        }
+
+        try {
+            if (transaction.rollbackOnly) {
+                transaction.connection.rollback();
+                throw new StorageException("Transaction is rolled back as one of its nested transactions is rolled back");
+            }
+            transaction.connection.commit();
+            log.debug("Committed transaction with connection {}", transaction.connection);
+        } catch (SQLException e) {
+            try {
+                transaction.connection.rollback();
+            } catch (SQLException re) {
+                e.addSuppressed(re);
+            }
+            throw new StorageException(e);
+        } finally {
+            endTransaction(transaction);
+        }
+    }
+
+    @Override
+    public void rollbackTransaction() {
+        Transaction transaction = transactions.get();
+        if (transaction == null) {
+            return;
+        }
+        if (--transaction.depth > 0) {
+            // outermost transaction can not be committed after this
+            transaction.rollbackOnly = true;
+            return;
+        }
+
+        try {
+            transaction.connection.rollback();
+            log.debug("Rolled back transaction with connection {}", transaction.connection);
+        } catch (SQLException e) {
+            throw new StorageException(e);
+        } finally {
+            endTransaction(transaction);
+        }
+    }
+
+    /**
+     * @return true if a transaction is bound to the current thread.
+     */
+    protected boolean isInTransaction() {
+        return transactions.get() != null;
+    }
+
+    private void endTransaction(Transaction transaction) {
+        transactions.remove();
+        try {
+            transaction.connection.setAutoCommit(transaction.autoCommit);
+        } catch (SQLException e) {
+            log.warn("Failed to reset auto commit of connection {}", transaction.connection, e);
+        } finally {
+            closeConnection(transaction.connection);
+        }
+    }
+
+    /**
+     * @return true if ids of inserted storables without an id are generated by the storage, instead of {@link #nextId(String)}.
+     */
+    protected boolean isIdGeneratedByStorage() {
+        return false;
+    }
+
+    /**
+     * @return insert query of the given {@link Storable}, providers supporting batch inserts should override this.
+     */
+    protected SqlQuery buildInsertQuery(Storable storable) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support batch inserts");
+    }
+
     @Override
     public void delete(StorableKey storableKey) {
         executeUpdate(new SqlDeleteQuery(storableKey));
@@ -97,14 +238,34 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         return executeQuery(storableKey.getNameSpace(), new SqlSelectQuery(storableKey));
     }
 
+    @Override
+    public <T extends Storable> void select(SearchQuery searchQuery, Consumer<? super T> consumer) {
+        getQueryExecution(buildSelectQuery(searchQuery)).executeQuery(searchQuery.getNameSpace(), consumer);
+    }
+
+    /**
+     * @return select query for the given {@link SearchQuery}, providers supporting search queries should override this.
+     */
+    protected SqlQuery buildSelectQuery(SearchQuery searchQuery) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support search queries");
+    }
+
     public abstract Long nextId(String namespace);
 
     public ExecutionConfig getConfig() {
         return config;
     }
 
+    /**
+     * @return connection of the current transaction if there is one, else a new connection.
+     */
     @Override
     public Connection getConnection() {
+        Transaction transaction = transactions.get();
+        if (transaction != null) {
+            return transaction.connection;
+        }
+
         Connection connection = connectionBuilder.getConnection();
         log.debug("Opened connection {}", connection);
         activeConnections.add(connection);
@@ -112,6 +273,11 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
     }
 
     public void closeConnection(Connection connection) {
+        Transaction transaction = transactions.get();
+        if (transaction != null && transaction.connection == connection) {
+            // closed when the transaction ends
+            return;
+        }
         if (connection != null) {
             try {
                 connection.close();
@@ -135,6 +301,11 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         return cache != null;
     }
 
+    // cached statements hold their own connections, so they are not used by the statements of a transaction
+    private boolean useStatementCache() {
+        return isCacheEnabled() && !isInTransaction();
+    }
+
 
     private void closeAllOpenConnections() {
         for(Iterator<Connection> iter = activeConnections.iterator(); iter.hasNext(); ) {
@@ -178,6 +349,70 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
     // =============== Private helper Methods ===============
 
+    private void insertBatches(Connection connection, Collection<? extends Storable> storables) throws SQLException {
+        List<Storable> batch = new ArrayList<>();
+        SqlQuery batchQuery = null;
+        for (Storable storable : storables) {
+            SqlQuery sqlQuery = buildInsertQuery(storable);
+            if (batchQuery != null && (batch.size() >= config.getBatchSize() || !isSameStatement(batchQuery, sqlQuery))) {
+                executeBatch(connection, batchQuery, batch);
+                batch.clear();
+            }
+            if (batch.isEmpty()) {
+                batchQuery = sqlQuery;
+            }
+            batch.add(storable);
+        }
+        executeBatch(connection, batchQuery, batch);
+    }
+
+    // storables can be inserted with the same statement only when they bind the same columns and generate their ids alike
+    private boolean isSameStatement(SqlQuery sqlQuery, SqlQuery otherSqlQuery) {
+        return sqlQuery.getParametrizedSql().equals(otherSqlQuery.getParametrizedSql())
+                && Objects.equals(sqlQuery.getColumns(), otherSqlQuery.getColumns())
+                && hasGeneratedId(((AbstractStorableSqlQuery) sqlQuery).getStorable())
+                    == hasGeneratedId(((AbstractStorableSqlQuery) otherSqlQuery).getStorable());
+    }
+
+    private void executeBatch(Connection connection, SqlQuery batchQuery, List<Storable> batch) throws SQLException {
+        final boolean returnGeneratedKeys = hasGeneratedId(batch.get(0));
+        final PreparedStatementBuilder preparedStatementBuilder = returnGeneratedKeys
+                ? PreparedStatementBuilder.supportReturnGeneratedKeys(connection, config, batchQuery)
+                : PreparedStatementBuilder.of(connection, config, batchQuery);
+
+        try (PreparedStatement preparedStatement = preparedStatementBuilder.getPreparedStatement(batchQuery)) {
+            for (Storable storable : batch) {
+                preparedStatementBuilder.getPreparedStatement(buildInsertQuery(storable)).addBatch();
+            }
+            preparedStatement.executeBatch();
+            log.debug("Inserted batch of {} rows with [{}]", batch.size(), batchQuery.getParametrizedSql());
+
+            if (returnGeneratedKeys) {
+                try (ResultSet generatedKeys = preparedStatement.getGeneratedKeys()) {
+                    for (Storable storable : batch) {
+                        if (!generatedKeys.next()) {
+                            throw new StorageException("Generated ids are not returned for all the rows inserted with ["
+                                                               + batchQuery.getParametrizedSql() + "]");
+                        }
+                        storable.setId(generatedKeys.getLong(1));
+                    }
+                }
+            }
+        }
+    }
+
+    // storables without an id get it generated by the storage when it is supported, see insert of the respective providers
+    private boolean hasGeneratedId(Storable storable) {
+        if (!isIdGeneratedByStorage()) {
+            return false;
+        }
+        try {
+            return storable.getId() == null;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
     protected void executeUpdate(SqlQuery sqlBuilder) {
         new QueryExecution(sqlBuilder).executeUpdate();
     }
@@ -194,6 +429,22 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         return new QueryExecution(sqlQuery);
     }
 
+    /**
+     * Connection bound to a thread from {@link #beginTransaction()} till the outermost transaction is committed or
+     * rolled back.
+     */
+    private static final class Transaction {
+        private final Connection connection;
+        private final boolean autoCommit;
+        private int depth = 1;
+        private boolean rollbackOnly;
+
+        private Transaction(Connection connection, boolean autoCommit) {
+            this.connection = connection;
+            this.autoCommit = autoCommit;
+        }
+    }
+
     protected class QueryExecution {
         private final SqlQuery sqlBuilder;
         private Connection connection;
@@ -211,13 +462,36 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
                 throw new StorageException(e);
             } finally {
                 // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
+                if (!useStatementCache()) {
                     closeConn();
                 }
             }
             return result;
         }
 
+        /**
+         * Executes the query with the configured fetch size and passes each row to the given consumer as it is read,
+         * so that all the rows are not held in memory at once.
+         */
+        <T extends Storable> void executeQuery(String namespace, Consumer<? super T> consumer) {
+            try {
+                PreparedStatement preparedStatement = getPreparedStatement();
+                preparedStatement.setFetchSize(config.getFetchSize());
+                try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                    if (resultSet.next()) {
+                        forEachStorable(resultSet, namespace, consumer);
+                    }
+                }
+            } catch (SQLException | ExecutionException e) {
+                throw new StorageException(e);
+            } finally {
+                // Close every opened connection if not using cache. If using cache, cache expiry manages connections
+                if (!useStatementCache()) {
+                    closeConn();
+                }
+            }
+        }
+
         void executeUpdate() {
             try {
                 getPreparedStatement().executeUpdate();
@@ -225,7 +499,7 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
                 throw new StorageException(e);
             } finally {
                 // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
+                if (!useStatementCache()) {
                     closeConn();
                 }
             }
@@ -245,7 +519,7 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
                 throw new StorageException(e);
             } finally {
                 // Close every opened connection if not using cache. If using cache, cache expiry manages connections
-                if (!isCacheEnabled()) {
+                if (!useStatementCache()) {
                     closeConn();
                 }
             }
@@ -260,7 +534,7 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         private PreparedStatement getPreparedStatement() throws ExecutionException, SQLException {
             PreparedStatementBuilder preparedStatementBuilder = null;
 
-            if (isCacheEnabled()) {
+            if (useStatementCache()) {
                 preparedStatementBuilder = cache.get(sqlBuilder, new PreparedStatementBuilderCallable(sqlBuilder, false));
             } else {
                 connection = getConnection();
@@ -272,7 +546,7 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
         private PreparedStatement getPreparedStatementWithSetReturningGeneratedKey() throws ExecutionException, SQLException {
             PreparedStatementBuilder preparedStatementBuilder = null;
 
-            if (isCacheEnabled()) {
+            if (useStatementCache()) {
                 preparedStatementBuilder = cache.get(sqlBuilder, new PreparedStatementBuilderCallable(sqlBuilder, true));
             } else {
                 connection = getConnection();
@@ -315,86 +589,133 @@ public abstract class AbstractQueryExecutor implements QueryExecutor {
 
         private <T extends Storable> Collection<T> getStorablesFromResultSet(ResultSet resultSet, String nameSpace) {
             final Collection<T> storables = new ArrayList<>();
-            // maps contains the data to populate the state of Storable objects
-            final List<Map<String, Object>> maps = getMapsFromResultSet(resultSet);
-            if (maps != null && !maps.isEmpty()) {
-                for (Map<String, Object> map : maps) {
-                    if (map != null) {
-                        T storable = newStorableInstance(nameSpace);
-                        storable.fromMap(map);      // populates the Storable object state
-                        storables.add(storable);
-                    }
+            try {
+                if (resultSet.next()) {
+                    forEachStorable(resultSet, nameSpace, storables::add);
                 }
+            } catch (SQLException e) {
+                log.error("Exception occurred while processing result set.", e);
+                storables.clear();
             }
             return storables;
         }
 
-        // returns null for empty ResultSet or ResultSet with no rows
-        protected List<Map<String, Object>> getMapsFromResultSet(ResultSet resultSet) {
-            List<Map<String, Object>> maps = null;
-
-            try {
-                boolean next = resultSet.next();
-                if(next) {
-                    maps = new LinkedList<>();
-                    ResultSetMetaData rsMetadata = resultSet.getMetaData();
-                    do {
-                        Map<String, Object> map = newMapWithRowContents(resultSet, rsMetadata);
-                        maps.add(map);
-                    } while(resultSet.next());
+        // creates storables from the current and the remaining rows of the given ResultSet
+        private <T extends Storable> void forEachStorable(ResultSet resultSet, String nameSpace,
+                                                         Consumer<? super T> consumer) throws SQLException {
+            // columns and their setters are resolved once for all the rows
+            final Column[] columns = getColumns(resultSet.getMetaData());
+            StorableMapper.Setter[] setters = null;
+            do {
+                T storable = newStorableInstance(nameSpace);
+                if (setters == null) {
+                    setters = getSetters(storable, columns);
                 }
-            } catch (SQLException e) {
-                log.error("Exception occurred while processing result set.", e);
+                if (setters.length > 0) {
+                    // populates the Storable object state directly from the columns
+                    for (int i = 0; i < columns.length; i++) {
+                        Object value = columns[i].reader.read(resultSet);
+                        if (value != null) {
+                            setters[i].set(storable, value);
+                        }
+                    }
+                } else {
+                    storable.fromMap(newMapWithRowContents(resultSet, columns));
+                }
+                consumer.accept(storable);
+            } while (resultSet.next());
+        }
+
+        // setters are resolved only for storables which use the default fromMap, others are populated from a map
+        private StorableMapper.Setter[] getSetters(Storable storable, Column[] columns) {
+            StorableMapper storableMapper = StorableMapper.of(storable.getClass());
+            if (!storableMapper.isDefaultMapping() || columns.length == 0) {
+                return new StorableMapper.Setter[0];
+            }
+
+            StorableMapper.Setter[] setters = new StorableMapper.Setter[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                setters[i] = storableMapper.getSetter(columns[i].label);
+            }
+            return setters;
+        }
+
+        private Column[] getColumns(ResultSetMetaData rsMetadata) throws SQLException {
+            final int columnCount = rsMetadata.getColumnCount();
+            final Column[] columns = new Column[columnCount];
+            for (int i = 1; i <= columnCount; i++) {
+                final String columnLabel = rsMetadata.getColumnLabel(i);
+                columns[i - 1] = new Column(columnLabel, newColumnReader(i, columnLabel, rsMetadata.getColumnType(i)));
             }
-            return maps;
+            return columns;
         }
 
         private <T extends Storable> T newStorableInstance(String nameSpace) {
             return (T) storableFactory.create(nameSpace);
         }
 
-        private Map<String, Object> newMapWithRowContents(ResultSet resultSet, ResultSetMetaData rsMetadata) throws SQLException {
+        private Map<String, Object> newMapWithRowContents(ResultSet resultSet, Column[] columns) throws SQLException {
             final Map<String, Object> map = new HashMap<>();
-            final int columnCount = rsMetadata.getColumnCount();
-
-            for (int i = 1 ; i <= columnCount; i++) {
-                final String columnLabel = rsMetadata.getColumnLabel(i);
-                final int columnType = rsMetadata.getColumnType(i);
-                final Class columnJavaType = Util.getJavaType(columnType);
-
-                if (columnJavaType.equals(String.class)) {
-                    map.put(columnLabel, resultSet.getString(columnLabel));
-                } else if (columnJavaType.equals(Byte.class)) {
-                    map.put(columnLabel, resultSet.getByte(columnLabel));
-                } else if (columnJavaType.equals(Integer.class)) {
-                    map.put(columnLabel, resultSet.getInt(columnLabel));
-                } else if (columnJavaType.equals(Double.class)) {
-                    map.put(columnLabel, resultSet.getDouble(columnLabel));
-                } else if (columnJavaType.equals(Float.class)) {
-                    map.put(columnLabel, resultSet.getFloat(columnLabel));
-                } else if (columnJavaType.equals(Short.class)) {
-                    map.put(columnLabel, resultSet.getShort(columnLabel));
-                } else if (columnJavaType.equals(Boolean.class)) {
-                    map.put(columnLabel, resultSet.getBoolean(columnLabel));
-                } else if (columnJavaType.equals(byte[].class)) {
-                    map.put(columnLabel, resultSet.getBytes(columnLabel));
-                } else if (columnJavaType.equals(Long.class)) {
-                    map.put(columnLabel, resultSet.getLong(columnLabel));
-                } else if (columnJavaType.equals(Date.class)) {
-                    map.put(columnLabel, resultSet.getDate(columnLabel));
-                } else if (columnJavaType.equals(Time.class)) {
-                    map.put(columnLabel, resultSet.getTime(columnLabel));
-                } else if (columnJavaType.equals(Timestamp.class)) {
-                    map.put(columnLabel, resultSet.getTimestamp(columnLabel));
-                } else {
-                    throw new StorageException("type =  [" + columnType + "] for column [" + columnLabel + "] not supported.");
-                }
+            for (Column column : columns) {
+                map.put(column.label, column.reader.read(resultSet));
             }
             if (log.isDebugEnabled()) {
-                log.debug("Row for ResultSet [{}] with metadata [{}] generated Map [{}]", resultSet, rsMetadata, map);
+                log.debug("Row for ResultSet [{}] generated Map [{}]", resultSet, map);
             }
             return map;
         }
     }
 
+    /**
+     * Reads the value of a column from the current row of a {@link ResultSet}.
+     */
+    protected interface ColumnReader {
+        Object read(ResultSet resultSet) throws SQLException;
+    }
+
+    /**
+     * @return reader of the column at the given index, it is created once per {@link ResultSet} and used for all of its rows.
+     */
+    protected ColumnReader newColumnReader(final int columnIndex, String columnLabel, int columnType) {
+        final Class columnJavaType = Util.getJavaType(columnType);
+
+        if (columnJavaType.equals(String.class)) {
+            return resultSet -> resultSet.getString(columnIndex);
+        } else if (columnJavaType.equals(Byte.class)) {
+            return resultSet -> resultSet.getByte(columnIndex);
+        } else if (columnJavaType.equals(Integer.class)) {
+            return resultSet -> resultSet.getInt(columnIndex);
+        } else if (columnJavaType.equals(Double.class)) {
+            return resultSet -> resultSet.getDouble(columnIndex);
+        } else if (columnJavaType.equals(Float.class)) {
+            return resultSet -> resultSet.getFloat(columnIndex);
+        } else if (columnJavaType.equals(Short.class)) {
+            return resultSet -> resultSet.getShort(columnIndex);
+        } else if (columnJavaType.equals(Boolean.class)) {
+            return resultSet -> resultSet.getBoolean(columnIndex);
+        } else if (columnJavaType.equals(byte[].class)) {
+            return resultSet -> resultSet.getBytes(columnIndex);
+        } else if (columnJavaType.equals(Long.class)) {
+            return resultSet -> resultSet.getLong(columnIndex);
+        } else if (columnJavaType.equals(Date.class)) {
+            return resultSet -> resultSet.getDate(columnIndex);
+        } else if (columnJavaType.equals(Time.class)) {
+            return resultSet -> resultSet.getTime(columnIndex);
+        } else if (columnJavaType.equals(Timestamp.class)) {
+            return resultSet -> resultSet.getTimestamp(columnIndex);
+        } else {
+            throw new StorageException("type =  [" + columnType + "] for column [" + columnLabel + "] not supported.");
+        }
+    }
+
+    private static final class Column {
+        private final String label;
+        private final ColumnReader reader;
+
+        private Column(String label, ColumnReader reader) {
+            this.label = label;
+            this.reader = reader;
+        }
+    }
+
 }
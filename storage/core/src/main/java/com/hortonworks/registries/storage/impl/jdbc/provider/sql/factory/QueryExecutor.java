@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Exposes CRUD and other useful operations to the persistence storage
@@ -46,6 +47,29 @@ public interface QueryExecutor {
      */
     void insertOrUpdate(Storable storable);
 
+    /**
+     * Inserts all the specified {@link Storable}s in one transaction, consecutive storables of the same namespace are
+     * inserted with batch statements. Ids generated by the storage are set on the respective storables.
+     */
+    void insertAll(Collection<? extends Storable> storables);
+
+    /**
+     * Binds a connection to the current thread, which is used by all the queries of this thread till the transaction
+     * is committed or rolled back. Nested transactions join the outermost transaction.
+     */
+    void beginTransaction();
+
+    /**
+     * Commits the transaction bound to the current thread when this is called for its outermost transaction.
+     */
+    void commitTransaction();
+
+    /**
+     * Rolls back the transaction bound to the current thread, if any. Rollback of a nested transaction marks the
+     * outermost transaction to be rolled back when it is committed.
+     */
+    void rollbackTransaction();
+
     /**
      * Deletes the specified {@link StorableKey} from storage
      */
@@ -105,4 +129,9 @@ public interface QueryExecutor {
 
     //todo unify all other select methods with this method as they are kind of special cases of SearchQuery
     <T extends Storable> Collection<T> select(SearchQuery searchQuery);
+
+    /**
+     * Passes the entries matching the given {@link SearchQuery} to the given consumer as they are read from storage.
+     */
+    <T extends Storable> void select(SearchQuery searchQuery, Consumer<? super T> consumer);
 }
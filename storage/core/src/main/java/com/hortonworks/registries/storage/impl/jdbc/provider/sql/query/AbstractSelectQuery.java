@@ -17,7 +17,6 @@
  */
 package com.hortonworks.registries.storage.impl.jdbc.provider.sql.query;
 
-import com.google.common.collect.Lists;
 import com.hortonworks.registries.common.Schema;
 import com.hortonworks.registries.storage.OrderByField;
 import com.hortonworks.registries.storage.PrimaryKey;
@@ -29,7 +28,8 @@ import com.hortonworks.registries.storage.search.SearchQuery;
 import com.hortonworks.registries.storage.search.WhereClause;
 import com.hortonworks.registries.storage.search.WhereClauseCombiner;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -40,6 +40,9 @@ import java.util.stream.Collectors;
 public abstract class AbstractSelectQuery extends AbstractStorableKeyQuery {
 
     protected List<OrderByField> orderByFields;
+    // values of the parameters of search queries in the order of their placeholders, as a field can be used in more
+    // than one predicate
+    protected List<Object> parameterValues;
 
     public AbstractSelectQuery(String nameSpace) {
         this(nameSpace, null);
@@ -70,15 +73,21 @@ public abstract class AbstractSelectQuery extends AbstractStorableKeyQuery {
         sql = "SELECT * FROM " + tableName;
 
         WhereClause whereClause = searchQuery.getWhereClause();
-        Map<Schema.Field, Object> fieldsToValues = new HashMap<>();
-        if (whereClause != null) {
+        List<OrderBy> orderByFields = searchQuery.getOrderByFields();
+        List<Object> startAfter = searchQuery.getStartAfter();
+        // fields and values are kept in the order of their predicates as they are set in that order in the prepared statement
+        List<Schema.Field> parameterFields = new ArrayList<>();
+        parameterValues = new ArrayList<>();
+        if (whereClause != null || startAfter != null) {
             sql += " WHERE ";
+        }
+        if (whereClause != null) {
             StringBuilder clauseString = new StringBuilder();
             for (PredicateCombinerPair predicateCombinerPair : whereClause.getPredicateCombinerPairs()) {
                 WhereClauseCombiner.Operation combinerOperation = predicateCombinerPair.getCombinerOperation();
 
                 Predicate predicate = predicateCombinerPair.getPredicate();
-                clauseString.append(generateClauseString(predicate, fieldsToValues, schema));
+                clauseString.append(generateClauseString(predicate, parameterFields, schema));
                 if (combinerOperation != null) {
                     String opStr;
                     switch (combinerOperation) {
@@ -94,10 +103,13 @@ public abstract class AbstractSelectQuery extends AbstractStorableKeyQuery {
                     clauseString.append(opStr);
                 }
             }
-            sql += clauseString;
+            // enclosed as the clause of the page is combined with it
+            sql += startAfter != null ? "(" + clauseString + ") AND " : clauseString;
+        }
+        if (startAfter != null) {
+            sql += generateStartAfterClauseString(orderByFields, startAfter, parameterFields, schema);
         }
 
-        List<OrderBy> orderByFields = searchQuery.getOrderByFields();
         if (orderByFields != null && !orderByFields.isEmpty()) {
             sql += " ORDER BY "
                     + join(orderByFields
@@ -107,13 +119,63 @@ public abstract class AbstractSelectQuery extends AbstractStorableKeyQuery {
             );
         }
 
+        if (searchQuery.getLimit() != null) {
+            sql += limitClause(searchQuery.getLimit());
+        }
+
+        Map<Schema.Field, Object> fieldsToValues = new LinkedHashMap<>();
+        for (int i = 0; i < parameterFields.size(); i++) {
+            fieldsToValues.put(parameterFields.get(i), parameterValues.get(i));
+        }
         primaryKey = new PrimaryKey(fieldsToValues);
-        columns = Lists.newArrayList(fieldsToValues.keySet());
+        columns = parameterFields;
     }
 
     protected abstract String fieldEncloser();
 
-    private String generateClauseString(Predicate predicate, Map<Schema.Field, Object> fieldsToValues, Schema schema) {
+    /**
+     * @return clause which limits the results to the given number of rows.
+     */
+    protected String limitClause(int limit) {
+        return " LIMIT " + limit;
+    }
+
+    /**
+     * @return values of the parameters of this query in the order of their placeholders, null if they are the values
+     * of the primary key.
+     */
+    public List<Object> getParameterValues() {
+        return parameterValues;
+    }
+
+    // rows after the given values of orderBy fields are the ones which are greater in the first differing field:
+    // (f1 > ?) OR (f1 = ? AND f2 > ?) OR ... with < instead of > for descending fields
+    private String generateStartAfterClauseString(List<OrderBy> orderByFields,
+                                                  List<Object> startAfter,
+                                                  List<Schema.Field> parameterFields,
+                                                  Schema schema) {
+        if (orderByFields == null || orderByFields.size() != startAfter.size()) {
+            throw new IllegalArgumentException("startAfter values " + startAfter + " do not match orderBy fields " + orderByFields);
+        }
+
+        String fq = fieldEncloser();
+        List<String> clauses = new ArrayList<>();
+        for (int i = 0; i < orderByFields.size(); i++) {
+            StringBuilder clause = new StringBuilder("(");
+            for (int j = 0; j <= i; j++) {
+                OrderBy orderBy = orderByFields.get(j);
+                String op = j < i ? " = ?" : (orderBy.isAsc() ? " > ?" : " < ?");
+                clause.append(j > 0 ? " AND " : "").append(fq).append(orderBy.getFieldName()).append(fq).append(op);
+                parameterFields.add(schema.getField(orderBy.getFieldName()));
+                parameterValues.add(startAfter.get(j));
+            }
+            clauses.add(clause.append(")").toString());
+        }
+
+        return "(" + join(clauses, " OR ") + ")";
+    }
+
+    private String generateClauseString(Predicate predicate, List<Schema.Field> parameterFields, Schema schema) {
         if(predicate == null) {
             return "";
         }
@@ -147,8 +209,8 @@ public abstract class AbstractSelectQuery extends AbstractStorableKeyQuery {
         }
 
         if (addToFieldValues) {
-            Schema.Field field = schema.getField(predicate.getField());
-            fieldsToValues.put(field, predicate.getValue());
+            parameterFields.add(schema.getField(predicate.getField()));
+            parameterValues.add(predicate.getValue());
         }
 
         return result;
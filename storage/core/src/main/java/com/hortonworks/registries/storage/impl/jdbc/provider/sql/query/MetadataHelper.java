@@ -24,6 +24,8 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Static stateless class that provides useful metadata information
@@ -59,4 +61,17 @@ public class MetadataHelper {
         return false;
     }
 
+    public static List<String> getColumnNames(Connection connection, int queryTimeoutSecs, String namespace) throws SQLException {
+        final ResultSetMetaData rsMetadata = PreparedStatementBuilder.of(connection, new ExecutionConfig(queryTimeoutSecs),
+                new SqlSelectQuery(namespace)).getMetaData();
+
+        final int columnCount = rsMetadata.getColumnCount();
+        final List<String> columnNames = new ArrayList<>(columnCount);
+
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames.add(rsMetadata.getColumnName(i));
+        }
+        return columnNames;
+    }
+
 }
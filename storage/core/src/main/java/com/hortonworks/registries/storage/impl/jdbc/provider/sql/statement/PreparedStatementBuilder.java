@@ -19,6 +19,7 @@ package com.hortonworks.registries.storage.impl.jdbc.provider.sql.statement;
 import com.hortonworks.registries.common.Schema;
 import com.hortonworks.registries.storage.exception.MalformedQueryException;
 import com.hortonworks.registries.storage.impl.jdbc.config.ExecutionConfig;
+import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.AbstractSelectQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.AbstractStorableKeyQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.AbstractStorableSqlQuery;
 import com.hortonworks.registries.storage.impl.jdbc.provider.sql.query.SqlQuery;
@@ -170,11 +171,15 @@ public class PreparedStatementBuilder {
         if (columns != null) {
             final int len = columns.size();
             Map<Schema.Field, Object> columnsToValues = sqlBuilder.getPrimaryKey().getFieldsToVal();
+            // search queries can have more than one parameter of a field, their values are set by position
+            List<Object> parameterValues = sqlBuilder instanceof AbstractSelectQuery
+                    ? ((AbstractSelectQuery) sqlBuilder).getParameterValues() : null;
 
             for (int j = 0; j < numPrepStmtParams; j++) {
                 Schema.Field column = columns.get(j % len);
                 Schema.Type javaType = column.getType();
-                setPreparedStatementParams(preparedStatement, javaType, j + 1, columnsToValues.get(column));
+                Object value = parameterValues != null ? parameterValues.get(j % len) : columnsToValues.get(column);
+                setPreparedStatementParams(preparedStatement, javaType, j + 1, value);
             }
         }
     }
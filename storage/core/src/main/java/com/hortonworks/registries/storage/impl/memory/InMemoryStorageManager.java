@@ -26,6 +26,7 @@ import com.hortonworks.registries.storage.StorableKey;
 import com.hortonworks.registries.storage.StorageManager;
 import com.hortonworks.registries.storage.exception.AlreadyExistsException;
 import com.hortonworks.registries.storage.exception.StorageException;
+import com.hortonworks.registries.storage.search.OrderBy;
 import com.hortonworks.registries.storage.search.SearchQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +39,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 //TODO: The synchronization is broken right now, so all the methods don't guarantee the semantics as described in the interface.
 public class InMemoryStorageManager implements StorageManager {
@@ -184,7 +187,47 @@ public class InMemoryStorageManager implements StorageManager {
     @Override
     public <T extends Storable> Collection<T> search(SearchQuery searchQuery) {
         LOG.warn("This storage manager does not support search query, returning all instances with the given namespace [{}]", searchQuery.getNameSpace());
-        return list(searchQuery.getNameSpace());
+        if (searchQuery.getLimit() == null && searchQuery.getStartAfter() == null) {
+            return list(searchQuery.getNameSpace());
+        }
+
+        // pages are sorted by orderBy fields to find the entries after the last entry of the previous page
+        List<OrderBy> orderByFields = searchQuery.getOrderByFields() != null ? searchQuery.getOrderByFields() : Collections.emptyList();
+        Collection<T> storables = find(searchQuery.getNameSpace(),
+                                       null,
+                                       orderByFields.stream()
+                                                    .map(x -> OrderByField.of(x.getFieldName(), !x.isAsc()))
+                                                    .collect(Collectors.toList()));
+        Stream<T> stream = storables.stream();
+        List<Object> startAfter = searchQuery.getStartAfter();
+        if (startAfter != null) {
+            if (startAfter.size() != orderByFields.size()) {
+                throw new IllegalArgumentException("startAfter values " + startAfter + " do not match orderBy fields " + orderByFields);
+            }
+            stream = stream.filter(storable -> compareTo(storable, orderByFields, startAfter) > 0);
+        }
+        if (searchQuery.getLimit() != null) {
+            stream = stream.limit(searchQuery.getLimit());
+        }
+
+        return stream.collect(Collectors.toList());
+    }
+
+    private int compareTo(Storable storable, List<OrderBy> orderByFields, List<Object> values) {
+        try {
+            for (int i = 0; i < orderByFields.size(); i++) {
+                OrderBy orderBy = orderByFields.get(i);
+                Comparable value = ReflectionHelper.invokeGetter(orderBy.getFieldName(), storable);
+                int compareTo = value.compareTo(values.get(i));
+                if (compareTo != 0) {
+                    return orderBy.isAsc() ? compareTo : -compareTo;
+                }
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        return 0;
     }
 
     @Override
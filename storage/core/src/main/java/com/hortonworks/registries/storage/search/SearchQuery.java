@@ -33,6 +33,8 @@ public class SearchQuery implements Serializable {
     private String nameSpace;
     private List<OrderBy> orderByFields;
     private WhereClause whereClause;
+    private Integer limit;
+    private List<Object> startAfter;
 
     private SearchQuery() {
     }
@@ -62,6 +64,30 @@ public class SearchQuery implements Serializable {
         return this;
     }
 
+    /**
+     * Limits the results of this query to the given number of entries.
+     */
+    public SearchQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Returns only the entries which come after the entry with the given values of orderBy fields, in the order of
+     * orderBy fields. This is used to page the results by passing the values of the last entry of the previous page,
+     * orderBy fields should give a unique order of entries and should not have null values.
+     */
+    public SearchQuery startAfter(Object... values) {
+        if (this.startAfter != null) {
+            throw new IllegalArgumentException("startAfter values are already defined for this search query.");
+        }
+        this.startAfter = Collections.unmodifiableList(Arrays.asList(values));
+        return this;
+    }
+
     public String getNameSpace() {
         return nameSpace;
     }
@@ -74,12 +100,29 @@ public class SearchQuery implements Serializable {
         return whereClause;
     }
 
+    /**
+     * @return maximum number of entries to be returned, null if there is no limit.
+     */
+    public Integer getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return values of orderBy fields of the entry after which the results start, null if they start from the first
+     * entry.
+     */
+    public List<Object> getStartAfter() {
+        return startAfter;
+    }
+
     @Override
     public String toString() {
         return "SearchQuery{" +
                 "nameSpace='" + nameSpace + '\'' +
                 ", orderByFields=" + orderByFields +
                 ", clause=" + whereClause +
+                ", limit=" + limit +
+                ", startAfter=" + startAfter +
                 '}';
     }
 
@@ -93,7 +136,9 @@ public class SearchQuery implements Serializable {
         if (nameSpace != null ? !nameSpace.equals(that.nameSpace) : that.nameSpace != null) return false;
         if (orderByFields != null ? !orderByFields.equals(that.orderByFields) : that.orderByFields != null)
             return false;
-        return whereClause != null ? whereClause.equals(that.whereClause) : that.whereClause == null;
+        if (whereClause != null ? !whereClause.equals(that.whereClause) : that.whereClause != null) return false;
+        if (limit != null ? !limit.equals(that.limit) : that.limit != null) return false;
+        return startAfter != null ? startAfter.equals(that.startAfter) : that.startAfter == null;
     }
 
     @Override
@@ -101,6 +146,8 @@ public class SearchQuery implements Serializable {
         int result = nameSpace != null ? nameSpace.hashCode() : 0;
         result = 31 * result + (orderByFields != null ? orderByFields.hashCode() : 0);
         result = 31 * result + (whereClause != null ? whereClause.hashCode() : 0);
+        result = 31 * result + (limit != null ? limit.hashCode() : 0);
+        result = 31 * result + (startAfter != null ? startAfter.hashCode() : 0);
         return result;
     }
 
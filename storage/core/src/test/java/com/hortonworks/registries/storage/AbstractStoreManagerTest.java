@@ -38,7 +38,9 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public abstract class AbstractStoreManagerTest {
     protected static final Logger log = LoggerFactory.getLogger(AbstractStoreManagerTest.class);
@@ -115,6 +117,26 @@ public abstract class AbstractStoreManagerTest {
         }
     }
 
+    @Test
+    public void testAddAll_DistinctStorables_AllAdded() {
+        for (StorableTest test : storableTests) {
+            Map<StorableKey, Storable> keyToStorable = new LinkedHashMap<>();
+            for (Storable storable : test.getStorableList()) {
+                keyToStorable.putIfAbsent(storable.getStorableKey(), storable);
+            }
+            try {
+                getStorageManager().addAll(keyToStorable.values());
+
+                Assert.assertEquals(keyToStorable.size(), getStorageManager().list(test.getNameSpace()).size());
+                for (Storable storable : keyToStorable.values()) {
+                    Assert.assertEquals(storable, getStorageManager().get(storable.getStorableKey()));
+                }
+            } finally {
+                test.close();
+            }
+        }
+    }
+
     @Test
     public void testRemove_NonExistentStorable_null() {
         for (StorableTest test : storableTests) {
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage;
+
+import com.google.common.cache.CacheBuilder;
+import com.hortonworks.registries.storage.cache.impl.GuavaCache;
+import com.hortonworks.registries.storage.cache.impl.QueryResultCache;
+import com.hortonworks.registries.storage.cache.writer.StorageWriteThrough;
+import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+
+public class CacheBackedStorageManagerTest {
+
+    @Test
+    public void testQueriesInTransactionAreNotCached() throws Exception {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        CacheBackedStorageManager storageManager = createStorageManager(queryResultCache);
+
+        storageManager.beginTransaction();
+        storageManager.add(createDeviceInfo(1L, "device-1"));
+        Assert.assertEquals(1, storageManager.list(DeviceInfo.NAME_SPACE).size());
+        Assert.assertEquals(0, queryResultCache.size());
+        storageManager.commitTransaction();
+
+        Assert.assertEquals(1, storageManager.list(DeviceInfo.NAME_SPACE).size());
+        Assert.assertEquals(1, queryResultCache.size());
+    }
+
+    @Test
+    public void testQueriesCachedByOtherThreadsAreInvalidatedOnCommit() throws Exception {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        CacheBackedStorageManager storageManager = createStorageManager(queryResultCache);
+
+        storageManager.beginTransaction();
+        storageManager.add(createDeviceInfo(1L, "device-1"));
+        // query of another thread loaded before the commit is cached
+        CompletableFuture.runAsync(() -> storageManager.list(DeviceInfo.NAME_SPACE)).get();
+        Assert.assertEquals(1, queryResultCache.size());
+
+        storageManager.commitTransaction();
+        Assert.assertEquals(0, queryResultCache.size());
+    }
+
+    private CacheBackedStorageManager createStorageManager(QueryResultCache queryResultCache) {
+        StorageManager dao = new InMemoryStorageManager();
+        return new CacheBackedStorageManager(new GuavaCache(dao, CacheBuilder.newBuilder()),
+                                             new StorageWriteThrough(dao),
+                                             queryResultCache);
+    }
+
+    private DeviceInfo createDeviceInfo(Long id, String name) {
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setId(id);
+        deviceInfo.setName(name);
+        return deviceInfo;
+    }
+}
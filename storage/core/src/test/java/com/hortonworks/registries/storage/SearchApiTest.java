@@ -103,6 +103,45 @@ public class SearchApiTest {
         }
     }
 
+    @Test
+    public void testGeneratedSqlForPagedSearchQuery() {
+        SearchQuery pagedQuery = SearchQuery.searchFrom("foo")
+                                            .where(WhereClause.begin()
+                                                              .contains("name", "sato")
+                                                              .or()
+                                                              .gt("id", 0L)
+                                                              .combine())
+                                            .orderBy(OrderBy.desc("name"), OrderBy.asc("id"))
+                                            .startAfter("bar", 10L)
+                                            .limit(20);
+
+        MySqlSelectQuery mySqlSelectQuery = new MySqlSelectQuery(pagedQuery, new DeviceInfo().getSchema());
+
+        Assert.assertEquals("SELECT * FROM foo WHERE ( `name` LIKE '%sato%' OR `id` > ? ) AND " +
+                                    "((`name` < ?) OR (`name` = ? AND `id` > ?)) ORDER BY `name` DESC , `id` ASC  LIMIT 20",
+                            mySqlSelectQuery.getParametrizedSql());
+        // a field can be bound more than once, values are bound in the order of their placeholders
+        Assert.assertEquals(Lists.newArrayList(0L, "bar", "bar", 10L), mySqlSelectQuery.getParameterValues());
+        Assert.assertEquals(4, mySqlSelectQuery.getColumns().size());
+    }
+
+    @Test
+    public void testSearchQueryWithoutLimitHasNoLimitClause() {
+        MySqlSelectQuery mySqlSelectQuery = new MySqlSelectQuery(SearchQuery.searchFrom("foo")
+                                                                            .orderBy(OrderBy.asc("id"))
+                                                                            .startAfter(10L),
+                                                                 new DeviceInfo().getSchema());
+
+        Assert.assertEquals("SELECT * FROM foo WHERE ((`id` > ?)) ORDER BY `id` ASC",
+                            mySqlSelectQuery.getParametrizedSql().trim());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStartAfterValuesShouldMatchOrderByFields() {
+        new MySqlSelectQuery(SearchQuery.searchFrom("foo").orderBy(OrderBy.asc("name"), OrderBy.asc("id")).startAfter("bar"),
+                             new DeviceInfo().getSchema());
+    }
+
     @Test
     public void testSearchAPIJsons() throws Exception {
         LOG.info("simpleQuery = [{}]", simpleQuery);
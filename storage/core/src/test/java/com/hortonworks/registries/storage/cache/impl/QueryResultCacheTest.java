@@ -0,0 +1,133 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.impl;
+
+import com.hortonworks.registries.common.QueryParam;
+import com.hortonworks.registries.storage.DeviceInfo;
+import com.hortonworks.registries.storage.Storable;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class QueryResultCacheTest {
+
+    @Test
+    public void testQueryParamsOrderIsIgnored() {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        AtomicInteger loadCount = new AtomicInteger();
+
+        find(queryResultCache, loadCount, QueryParam.params(DeviceInfo.NAME, "device-1", DeviceInfo.XID, "xid-1"));
+        find(queryResultCache, loadCount, QueryParam.params(DeviceInfo.XID, "xid-1", DeviceInfo.NAME, "device-1"));
+
+        Assert.assertEquals(1, loadCount.get());
+    }
+
+    @Test
+    public void testWriteInvalidatesOnlyMatchingQueries() {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        AtomicInteger loadCount = new AtomicInteger();
+        List<QueryParam> device1Params = QueryParam.params(DeviceInfo.NAME, "device-1");
+        List<QueryParam> device2Params = QueryParam.params(DeviceInfo.NAME, "device-2");
+
+        find(queryResultCache, loadCount, device1Params);
+        find(queryResultCache, loadCount, device2Params);
+        queryResultCache.list(DeviceInfo.NAME_SPACE, () -> {
+            loadCount.incrementAndGet();
+            return Collections.<Storable>emptyList();
+        });
+        Assert.assertEquals(3, queryResultCache.size());
+
+        queryResultCache.invalidate(DeviceInfo.NAME_SPACE, createDeviceInfo(1L, "device-1"), null);
+        // query of device-2 and list of all devices
+        Assert.assertEquals(1, queryResultCache.size());
+
+        // query matching the old value of an updated storable is invalidated
+        find(queryResultCache, loadCount, device1Params);
+        queryResultCache.invalidate(DeviceInfo.NAME_SPACE, createDeviceInfo(2L, "device-3"), createDeviceInfo(2L, "device-2"));
+        Assert.assertEquals(1, queryResultCache.size());
+
+        find(queryResultCache, loadCount, device1Params);
+        Assert.assertEquals(4, loadCount.get());
+    }
+
+    @Test
+    public void testResultLoadedDuringWriteIsNotCached() {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        queryResultCache.find(DeviceInfo.NAME_SPACE, QueryParam.params(DeviceInfo.NAME, "device-1"), null, () -> {
+            queryResultCache.invalidate(DeviceInfo.NAME_SPACE);
+            return Collections.<Storable>emptyList();
+        });
+
+        Assert.assertEquals(0, queryResultCache.size());
+    }
+
+    @Test
+    public void testCachedStorablesAreNotSharedWithCallers() {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        List<QueryParam> queryParams = QueryParam.params(DeviceInfo.NAME, "device-1");
+        Collection<Storable> result = queryResultCache.find(DeviceInfo.NAME_SPACE, queryParams, null,
+                () -> Collections.<Storable>singletonList(createDeviceInfo(1L, "device-1")));
+        ((DeviceInfo) result.iterator().next()).setName("changed");
+
+        Collection<Storable> cachedResult = queryResultCache.find(DeviceInfo.NAME_SPACE, queryParams, null, () -> {
+            throw new AssertionError("Result should be cached");
+        });
+        DeviceInfo cachedDeviceInfo = (DeviceInfo) cachedResult.iterator().next();
+        Assert.assertEquals("device-1", cachedDeviceInfo.getName());
+
+        cachedDeviceInfo.setName("changed");
+        cachedResult = queryResultCache.find(DeviceInfo.NAME_SPACE, queryParams, null, () -> {
+            throw new AssertionError("Result should be cached");
+        });
+        Assert.assertEquals("device-1", ((DeviceInfo) cachedResult.iterator().next()).getName());
+    }
+
+    @Test
+    public void testNamespaceInvalidationKeepsOtherNamespaces() {
+        QueryResultCache queryResultCache = new QueryResultCache();
+        AtomicInteger loadCount = new AtomicInteger();
+        find(queryResultCache, loadCount, QueryParam.params(DeviceInfo.NAME, "device-1"));
+        queryResultCache.list("other", Collections::<Storable>emptyList);
+        Assert.assertEquals(2, queryResultCache.size());
+
+        queryResultCache.invalidate(DeviceInfo.NAME_SPACE);
+        Assert.assertEquals(1, queryResultCache.size());
+
+        // query cached again after its invalidation is indexed again
+        find(queryResultCache, loadCount, QueryParam.params(DeviceInfo.NAME, "device-1"));
+        queryResultCache.invalidate(DeviceInfo.NAME_SPACE, createDeviceInfo(1L, "device-1"), null);
+        Assert.assertEquals(1, queryResultCache.size());
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    private Collection<Storable> find(QueryResultCache queryResultCache, AtomicInteger loadCount, List<QueryParam> queryParams) {
+        return queryResultCache.find(DeviceInfo.NAME_SPACE, queryParams, null, () -> {
+            loadCount.incrementAndGet();
+            return Collections.<Storable>emptyList();
+        });
+    }
+
+    private DeviceInfo createDeviceInfo(Long id, String name) {
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setId(id);
+        deviceInfo.setName(name);
+        return deviceInfo;
+    }
+}
@@ -0,0 +1,258 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.cache.writer;
+
+import com.hortonworks.registries.storage.DeviceInfo;
+import com.hortonworks.registries.storage.Storable;
+import com.hortonworks.registries.storage.StorableKey;
+import com.hortonworks.registries.storage.exception.StorageException;
+import com.hortonworks.registries.storage.impl.memory.InMemoryStorageManager;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+public class StorageWriteBehindTest {
+    private static final long ONE_HOUR_MS = 60 * 60 * 1000L;
+
+    @Test
+    public void testUpdatesOfSameKeyAreCoalesced() throws Exception {
+        InMemoryStorageManager dao = new InMemoryStorageManager();
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            storageWriteBehind.addOrUpdate(createDeviceInfo(1L, "device-2"));
+            storageWriteBehind.addOrUpdate(createDeviceInfo(1L, "device-3"));
+            storageWriteBehind.flush();
+
+            DeviceInfo deviceInfo = dao.get(createDeviceInfo(1L, null).getStorableKey());
+            Assert.assertEquals("device-3", deviceInfo.getName());
+            Assert.assertEquals(2, storageWriteBehind.getStats().getCoalescedWrites());
+            Assert.assertEquals(1, storageWriteBehind.getStats().getCompletedWrites());
+
+            storageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+            storageWriteBehind.remove(createDeviceInfo(2L, null).getStorableKey());
+            storageWriteBehind.flush();
+            Assert.assertNull(dao.get(createDeviceInfo(2L, null).getStorableKey()));
+        }
+    }
+
+    @Test(expected = StorageException.class)
+    public void testWritesBlockOnFullQueue() throws Exception {
+        WriteBehindConfig config = new WriteBehindConfig.Builder()
+                .flushIntervalMs(ONE_HOUR_MS)
+                .queueCapacity(1)
+                .enqueueTimeoutMs(10)
+                .build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(new InMemoryStorageManager(), config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            // update of a pending key does not need space in the queue
+            storageWriteBehind.addOrUpdate(createDeviceInfo(1L, "device-2"));
+            storageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+        }
+    }
+
+    @Test
+    public void testPendingWritesAreReplayed() throws Exception {
+        Path writeAheadLogPath = Files.createTempDirectory("write-behind").resolve("writes.log");
+        WriteBehindConfig config = new WriteBehindConfig.Builder()
+                .flushIntervalMs(ONE_HOUR_MS)
+                .writeAheadLogPath(writeAheadLogPath)
+                .build();
+
+        // writes of this writer are not flushed till it is closed, which is like a crash before they are flushed
+        StorageWriteBehind crashedStorageWriteBehind = new StorageWriteBehind(new InMemoryStorageManager(), config);
+        crashedStorageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+        crashedStorageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+        crashedStorageWriteBehind.remove(createDeviceInfo(2L, null).getStorableKey());
+
+        InMemoryStorageManager dao = new InMemoryStorageManager();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            DeviceInfo deviceInfo = dao.get(createDeviceInfo(1L, null).getStorableKey());
+            Assert.assertEquals("device-1", deviceInfo.getName());
+            Assert.assertNull(dao.get(createDeviceInfo(2L, null).getStorableKey()));
+            Assert.assertFalse(Files.exists(writeAheadLogPath));
+        } finally {
+            crashedStorageWriteBehind.close();
+        }
+    }
+
+    @Test
+    public void testWritesAreWrittenInReceivedOrder() throws Exception {
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        InMemoryStorageManager dao = new InMemoryStorageManager() {
+            @Override
+            public void add(Storable storable) {
+                writes.add("add-" + storable.getId());
+                super.add(storable);
+            }
+
+            @Override
+            public <T extends Storable> T remove(StorableKey key) {
+                writes.add("remove-" + key.getPrimaryKey().getFieldsToVal().values().iterator().next());
+                return super.remove(key);
+            }
+        };
+        dao.add(createDeviceInfo(2L, "device-2"));
+        writes.clear();
+
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            storageWriteBehind.remove(createDeviceInfo(2L, null).getStorableKey());
+            storageWriteBehind.add(createDeviceInfo(3L, "device-3"));
+            storageWriteBehind.flush();
+        }
+
+        Assert.assertEquals(Arrays.asList("add-1", "remove-2", "add-3"), writes);
+    }
+
+    @Test(timeout = 10000)
+    public void testFlushedWritesAreRemovedFromWriteAheadLog() throws Exception {
+        Path writeAheadLogPath = Files.createTempDirectory("write-behind").resolve("writes.log");
+        WriteBehindConfig config = new WriteBehindConfig.Builder()
+                .flushIntervalMs(ONE_HOUR_MS)
+                .batchSize(2)
+                .writeAheadLogPath(writeAheadLogPath)
+                .writeAheadLogCompactionThreshold(1)
+                .build();
+        CountDownLatch addStarted = new CountDownLatch(1);
+        CountDownLatch addAllowed = new CountDownLatch(1);
+        InMemoryStorageManager dao = new InMemoryStorageManager() {
+            @Override
+            public void add(Storable storable) {
+                addStarted.countDown();
+                try {
+                    addAllowed.await();
+                } catch (InterruptedException e) {
+                    throw new StorageException(e);
+                }
+                super.add(storable);
+            }
+        };
+
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            storageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+            addStarted.await();
+            // stays pending as it is less than the batch size
+            storageWriteBehind.add(createDeviceInfo(3L, "device-3"));
+            addAllowed.countDown();
+
+            List<WriteOperation> operations;
+            do {
+                Thread.sleep(10);
+                operations = new WriteAheadLog(writeAheadLogPath).read();
+            } while (operations.size() != 1);
+            Assert.assertEquals(createDeviceInfo(3L, null).getStorableKey(), operations.get(0).getKey());
+        }
+    }
+
+    @Test
+    public void testWritesAreNotMergedWithWritesBeforeOtherKeys() throws Exception {
+        List<String> writes = Collections.synchronizedList(new ArrayList<>());
+        // adds are also written with addOrUpdate by this storage manager
+        InMemoryStorageManager dao = new InMemoryStorageManager() {
+            @Override
+            public void addOrUpdate(Storable storable) {
+                writes.add(((DeviceInfo) storable).getName());
+                super.addOrUpdate(storable);
+            }
+        };
+
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            storageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+            storageWriteBehind.addOrUpdate(createDeviceInfo(1L, "device-3"));
+            storageWriteBehind.addOrUpdate(createDeviceInfo(1L, "device-4"));
+            storageWriteBehind.flush();
+
+            Assert.assertEquals(1, storageWriteBehind.getStats().getCoalescedWrites());
+        }
+
+        // update of 1 is not written before the add of 2 which was received before it
+        Assert.assertEquals(Arrays.asList("device-1", "device-2", "device-4"), writes);
+    }
+
+    @Test
+    public void testAddsOfFailedBatchAreNotAddedTwice() throws Exception {
+        // adds the first storable of the batch before failing, like a storage which does not add them atomically
+        InMemoryStorageManager dao = new InMemoryStorageManager() {
+            @Override
+            public void addAll(Collection<? extends Storable> storables) {
+                add(storables.iterator().next());
+                throw new StorageException("batch add failed");
+            }
+        };
+
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).maxRetries(0).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            storageWriteBehind.add(createDeviceInfo(2L, "device-2"));
+            storageWriteBehind.flush();
+
+            Assert.assertEquals(0, storageWriteBehind.getStats().getFailedWrites());
+            Assert.assertEquals(2, storageWriteBehind.getStats().getCompletedWrites());
+        }
+        Assert.assertEquals(2, dao.list(new DeviceInfo().getNameSpace()).size());
+    }
+
+    @Test(timeout = 10000)
+    public void testRemoveReturnsFutureOfRemovedStorable() throws Exception {
+        InMemoryStorageManager dao = new InMemoryStorageManager();
+        dao.add(createDeviceInfo(1L, "device-1"));
+
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(dao, config)) {
+            Future<?> removal = (Future<?>) storageWriteBehind.remove(createDeviceInfo(1L, null).getStorableKey());
+            Assert.assertFalse(removal.isDone());
+            storageWriteBehind.flush();
+
+            Assert.assertEquals("device-1", ((DeviceInfo) removal.get()).getName());
+        }
+    }
+
+    @Test(timeout = 10000, expected = StorageException.class)
+    public void testFlushFailsWhenFlusherIsInterrupted() throws Exception {
+        WriteBehindConfig config = new WriteBehindConfig.Builder().flushIntervalMs(ONE_HOUR_MS).build();
+        try (StorageWriteBehind storageWriteBehind = new StorageWriteBehind(new InMemoryStorageManager(), config)) {
+            storageWriteBehind.add(createDeviceInfo(1L, "device-1"));
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if ("storage-write-behind".equals(thread.getName())) {
+                    thread.interrupt();
+                    thread.join();
+                }
+            }
+            storageWriteBehind.flush();
+        }
+    }
+
+    private DeviceInfo createDeviceInfo(Long id, String name) {
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setId(id);
+        deviceInfo.setName(name);
+        return deviceInfo;
+    }
+}
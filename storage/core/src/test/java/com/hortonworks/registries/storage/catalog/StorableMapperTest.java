@@ -0,0 +1,68 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.catalog;
+
+import com.hortonworks.registries.storage.DeviceInfo;
+import com.hortonworks.registries.storage.exception.StorageException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class StorableMapperTest {
+
+    @Test
+    public void testToMapAndFromMap() {
+        DeviceInfo deviceInfo = new DeviceInfo();
+        deviceInfo.setId(1L);
+        deviceInfo.setXid("xid-1");
+        deviceInfo.setName("device-1");
+        deviceInfo.setTimestamp(System.currentTimeMillis());
+
+        Map<String, Object> map = deviceInfo.toMap();
+        Assert.assertEquals(1L, map.get(DeviceInfo.ID));
+        Assert.assertEquals("device-1", map.get(DeviceInfo.NAME));
+        Assert.assertTrue(map.containsKey(DeviceInfo.VERSION));
+        Assert.assertNull(map.get(DeviceInfo.VERSION));
+
+        DeviceInfo createdDeviceInfo = StorableMapper.of(DeviceInfo.class).newInstance();
+        createdDeviceInfo.fromMap(new HashMap<>(map));
+        Assert.assertEquals(deviceInfo, createdDeviceInfo);
+    }
+
+    @Test
+    public void testSetter() {
+        StorableMapper storableMapper = StorableMapper.of(DeviceInfo.class);
+        Assert.assertTrue(storableMapper.isDefaultMapping());
+
+        DeviceInfo deviceInfo = storableMapper.newInstance();
+        storableMapper.getSetter(DeviceInfo.NAME).set(deviceInfo, "device-1");
+        storableMapper.getSetter(DeviceInfo.ID).set(deviceInfo, 1L);
+        Assert.assertEquals("device-1", deviceInfo.getName());
+        Assert.assertEquals(Long.valueOf(1L), deviceInfo.getId());
+    }
+
+    @Test(expected = StorageException.class)
+    public void testSetterWithInvalidType() {
+        StorableMapper.of(DeviceInfo.class).getSetter(DeviceInfo.ID).set(new DeviceInfo(), "one");
+    }
+
+    @Test(expected = StorageException.class)
+    public void testUnknownProperty() {
+        StorableMapper.of(DeviceInfo.class).getSetter("unknown").set(new DeviceInfo(), "value");
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2016 Hortonworks.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ **/
+package com.hortonworks.registries.storage.impl.jdbc;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ColumnCatalogTest {
+
+    @Test
+    public void testColumnsAreLoadedOnce() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        ColumnCatalog columnCatalog = new ColumnCatalog(namespace -> {
+            loadCount.incrementAndGet();
+            return Arrays.asList("ID", "name", "schemaMetadataId");
+        });
+
+        columnCatalog.preload(Collections.singletonList("schema_version_info"));
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_version_info", "id"));
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_version_info", "NAME"));
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_version_info", "schemaMetadataId"));
+        Assert.assertEquals(1, loadCount.get());
+
+        // unknown column reloads the namespace only once
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_version_info", "unknown"));
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_version_info", "unknown"));
+        Assert.assertEquals(2, loadCount.get());
+    }
+
+    @Test
+    public void testAddedColumnsAreLoaded() throws Exception {
+        List<String> columns = new ArrayList<>(Arrays.asList("id", "name"));
+        ColumnCatalog columnCatalog = new ColumnCatalog(namespace -> new ArrayList<>(columns));
+
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "description"));
+
+        // column added by a migration is seen after the catalog is invalidated
+        columns.add("description");
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "description"));
+        columnCatalog.invalidateAll();
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_metadata_info", "description"));
+
+        // column added after the namespace is loaded is seen on its first use
+        columns.add("evolve");
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_metadata_info", "evolve"));
+    }
+
+    @Test
+    public void testUnknownColumnsAreBounded() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        ColumnCatalog columnCatalog = new ColumnCatalog(namespace -> {
+            loadCount.incrementAndGet();
+            return Arrays.asList("id", "name");
+        });
+
+        for (int i = 0; i < ColumnCatalog.MAX_UNKNOWN_COLUMNS; i++) {
+            Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "unknown" + i));
+        }
+        int loadCountBeforeOverflow = loadCount.get();
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "unknown0"));
+        Assert.assertEquals(loadCountBeforeOverflow, loadCount.get());
+
+        // remembered unknown columns are dropped once their limit is reached
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "overflow"));
+        Assert.assertFalse(columnCatalog.isColumnInNamespace("schema_metadata_info", "unknown0"));
+        Assert.assertEquals(loadCountBeforeOverflow + 2, loadCount.get());
+    }
+
+    @Test
+    public void testColumnsAreInvalidatedOnlyOnSchemaMismatch() throws Exception {
+        AtomicInteger loadCount = new AtomicInteger();
+        ColumnCatalog columnCatalog = new ColumnCatalog(namespace -> {
+            loadCount.incrementAndGet();
+            return Arrays.asList("id", "name");
+        });
+        columnCatalog.preload(Collections.singletonList("schema_metadata_info"));
+
+        Assert.assertFalse(columnCatalog.invalidateOnSchemaMismatch("schema_metadata_info",
+                                                                    new RuntimeException(new SQLTimeoutException("timed out", "HYT00"))));
+        Assert.assertFalse(columnCatalog.invalidateOnSchemaMismatch("schema_metadata_info", new IllegalStateException()));
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_metadata_info", "id"));
+        Assert.assertEquals(1, loadCount.get());
+
+        Assert.assertTrue(columnCatalog.invalidateOnSchemaMismatch("schema_metadata_info",
+                                                                   new RuntimeException(new SQLException("unknown column", "42S22"))));
+        Assert.assertTrue(columnCatalog.isColumnInNamespace("schema_metadata_info", "id"));
+        Assert.assertEquals(2, loadCount.get());
+    }
+}
@@ -99,6 +99,43 @@ public abstract class JdbcStorageManagerIntegrationTest extends AbstractStoreMan
         }
     }
 
+    @Test
+    public void testTransaction_Rollback_NoStorableAdded() {
+        for (StorableTest test : storableTests) {
+            getStorageManager().beginTransaction();
+            try {
+                for (Storable storable : test.getStorableList()) {
+                    getStorageManager().addOrUpdate(storable);
+                }
+            } finally {
+                getStorageManager().rollbackTransaction();
+            }
+            Assert.assertTrue(getStorageManager().list(test.getNameSpace()).isEmpty());
+        }
+    }
+
+    @Test
+    public void testTransaction_Commit_AllStorablesAdded() {
+        for (StorableTest test : storableTests) {
+            getStorageManager().beginTransaction();
+            boolean committed = false;
+            try {
+                for (Storable storable : test.getStorableList()) {
+                    getStorageManager().addOrUpdate(storable);
+                }
+                getStorageManager().commitTransaction();
+                committed = true;
+            } finally {
+                if (!committed) {
+                    getStorageManager().rollbackTransaction();
+                }
+            }
+            for (Storable storable : test.getStorableList()) {
+                Assert.assertNotNull(getStorageManager().get(storable.getStorableKey()));
+            }
+        }
+    }
+
     @Test
     public void testSearchQueryApi() {
         for (StorableTest storableTest : storableTests) {